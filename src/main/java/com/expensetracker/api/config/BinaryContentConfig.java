@@ -0,0 +1,60 @@
+package com.expensetracker.api.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}) for consumers
+ * that ask for them in {@code Accept}. Both are written by the same streaming Jackson generators as
+ * JSON and start from the application's Jackson settings, with one difference: dates are written
+ * as numbers ({@code LocalDate} as {@code [year, month, day]}) instead of ISO strings, which saves
+ * formatting and parsing on both sides. {@code BigDecimal} amounts are binary decimals in both
+ * formats. The converters keep the position Spring gives its defaults, after JSON, so requests
+ * without a specific {@code Accept} still get JSON.
+ */
+@Configuration
+public class BinaryContentConfig implements WebMvcConfigurer {
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public BinaryContentConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        replace(converters, MappingJackson2CborHttpMessageConverter.class,
+                new MappingJackson2CborHttpMessageConverter(binaryMapper(new CBORFactory())));
+        replace(converters, MappingJackson2SmileHttpMessageConverter.class,
+                new MappingJackson2SmileHttpMessageConverter(binaryMapper(new SmileFactory())));
+    }
+
+    private ObjectMapper binaryMapper(JsonFactory factory) {
+        ObjectMapper mapper = objectMapperBuilder.factory(factory).build();
+        mapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    private static void replace(List<HttpMessageConverter<?>> converters, Class<?> type,
+                                HttpMessageConverter<?> replacement) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (type.isInstance(converters.get(i))) {
+                converters.set(i, replacement);
+                return;
+            }
+        }
+        converters.add(replacement);
+    }
+}
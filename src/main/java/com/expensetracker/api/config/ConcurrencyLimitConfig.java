@@ -0,0 +1,66 @@
+package com.expensetracker.api.config;
+
+import com.expensetracker.api.limit.ConcurrencyLimitFilter;
+import com.expensetracker.api.limit.EndpointClass;
+import com.expensetracker.api.limit.GradientConcurrencyLimit;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Wires up {@code app.concurrency-limit}: one {@link GradientConcurrencyLimit} per
+ * {@link EndpointClass}, configured under {@code app.concurrency-limit.<class>.*}, enforced by a
+ * filter just ahead of Spring Security. Off unless {@code app.concurrency-limit.enabled} is set, since
+ * the default maximums suit a single node on the default connection pool. Only set up in a servlet
+ * application; contexts started without a web server, as benchmarks do, have no handler mappings.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ConcurrencyLimitConfig {
+    // Initial and maximum limits per class. Reports and listings hold a database connection for their
+    // whole run; at their maximum they leave part of the default pool of ten to writes
+    private static final Map<EndpointClass, int[]> DEFAULT_LIMITS = Map.of(
+            EndpointClass.REPORTS, new int[]{2, 4},
+            EndpointClass.LISTINGS, new int[]{2, 4},
+            EndpointClass.WRITES, new int[]{10, 50});
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            Environment environment,
+            @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+            @Value("${app.concurrency-limit.enabled:false}") boolean enabled,
+            @Value("${app.concurrency-limit.min-limit:1}") int minLimit,
+            @Value("${app.concurrency-limit.tolerance:1.5}") double tolerance,
+            @Value("${app.concurrency-limit.smoothing:0.2}") double smoothing,
+            @Value("${app.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+        Map<EndpointClass, GradientConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = "app.concurrency-limit." + endpointClass.key() + ".";
+            int[] defaults = DEFAULT_LIMITS.get(endpointClass);
+            limits.put(endpointClass, new GradientConcurrencyLimit(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, defaults[0]), minLimit,
+                    environment.getProperty(prefix + "max-limit", Integer.class, defaults[1]), tolerance, smoothing));
+        }
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(enabled, limits, retryAfterSeconds, handlerMapping, exceptionResolver));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder concurrencyLimitMetrics(FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter) {
+        return concurrencyLimitFilter.getFilter();
+    }
+}
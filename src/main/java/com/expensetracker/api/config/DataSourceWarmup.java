@@ -0,0 +1,32 @@
+package com.expensetracker.api.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Opens the connection pool before the application reports readiness. Without schema work at
+ * startup (the {@code fast-startup} profile) nothing else touches the database until the first
+ * request, which would otherwise pay for starting the pool.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataSourceWarmup {
+    private final DataSource dataSource;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void openPool() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        } catch (SQLException ex) {
+            log.warn("Could not open a database connection at startup", ex);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.expensetracker.api.config;
+
+import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Lets responses with a {@code fields} parameter leave out unselected properties of
+ * {@link ExpenseResponse} and {@link MonthlyReportResponse}. The property filter is attached through
+ * a mix-in, so the DTOs and other object mappers are unaffected, and serializes everything unless a
+ * response supplies its own filter.
+ */
+@Configuration
+public class FieldSelectionConfig {
+    public static final String FILTER_ID = "fieldSelection";
+
+    @JsonFilter(FILTER_ID)
+    interface FieldSelectionMixIn {
+    }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSelectionCustomizer() {
+        return builder -> builder
+                .mixIn(ExpenseResponse.class, FieldSelectionMixIn.class)
+                .mixIn(MonthlyReportResponse.class, FieldSelectionMixIn.class)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
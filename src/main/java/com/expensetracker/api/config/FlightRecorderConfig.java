@@ -0,0 +1,50 @@
+package com.expensetracker.api.config;
+
+import com.expensetracker.api.profiling.FlightRecorderInterceptors;
+import com.expensetracker.api.service.ExpenseService;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Installs the flight recorder events for {@link ExpenseService} calls and repository queries. The
+ * service advice goes first in the existing transactional proxy, so the event includes the
+ * transaction; repositories get theirs through the repository factory.
+ */
+@Configuration
+public class FlightRecorderConfig {
+
+    @Bean
+    public static BeanPostProcessor flightRecorderPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactory) {
+                    repositoryFactory.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0,
+                                    FlightRecorderInterceptors.repositoryQueries(repositoryInformation.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!ExpenseService.class.isAssignableFrom(AopUtils.getTargetClass(bean))) {
+                    return bean;
+                }
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvice(0, FlightRecorderInterceptors.expenseOperations());
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice(FlightRecorderInterceptors.expenseOperations());
+                return proxyFactory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package com.expensetracker.api.config;
+
+import com.expensetracker.api.timing.AuthenticationTimingFilter;
+import com.expensetracker.api.timing.RequestTimingFilter;
+import com.expensetracker.api.timing.RequestTimings;
+import com.expensetracker.api.timing.StatementTimingDataSource;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+
+/**
+ * Wires up {@code app.request-timing}. The flag is read when the beans are created rather than
+ * through conditions, so the same AOT-processed build can switch it on. While it is off the filters
+ * pass requests straight through and neither the data source nor the repositories are wrapped.
+ */
+@Configuration
+public class RequestTimingConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestTimingFilter> requestTimingFilter(
+            @Value("${app.request-timing.enabled:false}") boolean enabled,
+            @Value("${app.request-timing.slow-threshold-ms:500}") long slowThresholdMillis,
+            @Value("${app.request-timing.statement-threshold:25}") int statementThreshold) {
+        FilterRegistrationBean<RequestTimingFilter> registration = new FilterRegistrationBean<>(
+                new RequestTimingFilter(enabled, slowThresholdMillis, statementThreshold));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<AuthenticationTimingFilter> authenticationTimingFilter(
+            @Value("${app.request-timing.enabled:false}") boolean enabled) {
+        FilterRegistrationBean<AuthenticationTimingFilter> registration =
+                new FilterRegistrationBean<>(new AuthenticationTimingFilter());
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    @Bean
+    public static BeanPostProcessor requestTimingPostProcessor(Environment environment) {
+        boolean enabled = environment.getProperty("app.request-timing.enabled", Boolean.class, false);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactory) {
+                    MethodInterceptor timing = invocation -> {
+                        try (RequestTimings.Section ignored = RequestTimings.start(RequestTimings.Phase.REPOSITORY)) {
+                            return invocation.proceed();
+                        }
+                    };
+                    repositoryFactory.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0, timing)));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof StatementTimingDataSource)) {
+                    return new StatementTimingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,10 +1,13 @@
 package com.expensetracker.api.config;
 
+import com.expensetracker.api.entity.Role;
+import com.expensetracker.api.profiling.TimedAuthenticationProvider;
 import com.expensetracker.api.service.CustomUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -28,6 +31,12 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
+                        // Metrics and recordings expose every user's traffic, so only operators see them
+                        .requestMatchers("/actuator/health", "/actuator/health/**").authenticated()
+                        // Statement runs read and write out every user's expenses; admin-only whatever
+                        // the rule for the other endpoints becomes
+                        .requestMatchers("/actuator/statements", "/actuator/statements/**").hasRole(Role.ADMIN.name())
+                        .requestMatchers("/actuator/**").hasRole(Role.ADMIN.name())
                         .anyRequest().authenticated()
                 )
                 .formLogin(AbstractHttpConfigurer::disable)
@@ -43,10 +52,10 @@ public class SecurityConfig {
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
+        return new TimedAuthenticationProvider(authProvider);
     }
 
     @Bean
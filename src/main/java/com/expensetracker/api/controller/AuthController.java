@@ -1,7 +1,6 @@
 package com.expensetracker.api.controller;
 
 import com.expensetracker.api.dto.RegisterRequest;
-import com.expensetracker.api.entity.User;
 import com.expensetracker.api.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -24,8 +24,8 @@ public class AuthController {
 
     @PostMapping("/register")
     @Operation(summary = "Register a new user", description = "Creates a new user account")
-    public Map<String, String> register(@Valid @RequestBody RegisterRequest request) {
-        User user = userService.register(request);
-        return Map.of("message", "User registered successfully", "username", user.getUsername());
+    public CompletableFuture<Map<String, String>> register(@Valid @RequestBody RegisterRequest request) {
+        return userService.register(request)
+                .thenApply(user -> Map.of("message", "User registered successfully", "username", user.getUsername()));
     }
 }
\ No newline at end of file
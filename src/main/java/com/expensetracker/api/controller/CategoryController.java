@@ -1,17 +1,27 @@
 package com.expensetracker.api.controller;
 
+import com.expensetracker.api.dto.CategoryListing;
 import com.expensetracker.api.dto.CategoryResponse;
+import com.expensetracker.api.dto.CreateCategoriesRequest;
+import com.expensetracker.api.dto.CreateCategoriesResponse;
 import com.expensetracker.api.dto.CreateCategoryRequest;
+import com.expensetracker.api.limit.ConcurrencyLimited;
+import com.expensetracker.api.limit.EndpointClass;
 import com.expensetracker.api.service.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -22,9 +32,31 @@ public class CategoryController {
 
     private final CategoryService categoryService;
 
+    @ConcurrencyLimited(EndpointClass.LISTINGS)
+    @GetMapping
+    @Operation(summary = "List categories",
+            description = "Lists all categories by name. Send the returned ETag as If-None-Match to get 304 while nothing changed")
+    public ResponseEntity<List<CategoryResponse>> getCategories(WebRequest webRequest) {
+        CategoryListing listing = categoryService.getCategories();
+        if (webRequest.checkNotModified(listing.getETag())) {
+            // 304 with the ETag header, already set on the response
+            return null;
+        }
+        return ResponseEntity.ok().eTag(listing.getETag()).body(listing.getCategories());
+    }
+
+    @ConcurrencyLimited(EndpointClass.WRITES)
     @PostMapping
     @Operation(summary = "Create a new category", description = "Creates a new expense category")
     public CategoryResponse createCategory(@Valid @RequestBody CreateCategoryRequest request) {
         return categoryService.createCategory(request);
     }
-}
\ No newline at end of file
+
+    @ConcurrencyLimited(EndpointClass.WRITES)
+    @PostMapping("/bulk")
+    @Operation(summary = "Create categories in bulk",
+            description = "Creates every category whose name is free, in one statement; names that already exist are listed and left unchanged. Parents must already exist")
+    public CreateCategoriesResponse createCategories(@Valid @RequestBody CreateCategoriesRequest request) {
+        return categoryService.createCategories(request);
+    }
+}
@@ -0,0 +1,170 @@
+package com.expensetracker.api.controller;
+
+import com.expensetracker.api.dto.AttachmentResponse;
+import com.expensetracker.api.entity.ExpenseAttachment;
+import com.expensetracker.api.limit.ConcurrencyLimited;
+import com.expensetracker.api.limit.EndpointClass;
+import com.expensetracker.api.service.ExpenseAttachmentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/expenses/{expenseId}/attachments")
+@RequiredArgsConstructor
+@Tag(name = "Attachments", description = "Receipt and document attachments of expenses")
+@SecurityRequirement(name = "basicAuth")
+public class ExpenseAttachmentController {
+    // Tomcat's sendfile request attributes: the connector writes the file region itself, kernel to socket
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // An attachment's content never changes, so a cached copy never needs revalidating
+    private static final String CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable()
+            .getHeaderValue();
+
+    private final ExpenseAttachmentService expenseAttachmentService;
+
+    @ConcurrencyLimited(EndpointClass.WRITES)
+    @PostMapping
+    @Operation(summary = "Attach a file",
+            description = "Attaches the request body, sent as is with its own Content-Type (a receipt image or PDF), to an expense")
+    public AttachmentResponse upload(@PathVariable Long expenseId,
+                                     @Parameter(description = "Original file name, shown on download")
+                                     @RequestParam(required = false) String filename,
+                                     HttpServletRequest request) throws IOException {
+        try (InputStream body = request.getInputStream()) {
+            return expenseAttachmentService.upload(expenseId, request.getContentType(), filename,
+                    request.getContentLengthLong(), body);
+        }
+    }
+
+    @ConcurrencyLimited(EndpointClass.LISTINGS)
+    @GetMapping
+    @Operation(summary = "List attachments", description = "Lists an expense's attachments, oldest first")
+    public List<AttachmentResponse> getAttachments(@PathVariable Long expenseId) {
+        return expenseAttachmentService.getAttachments(expenseId);
+    }
+
+    @GetMapping("/{attachmentId}")
+    @Operation(summary = "Download an attachment",
+            description = "Returns the file with a strong ETag (its SHA-256). Supports If-None-Match, and a single byte range with Range and If-Range")
+    public void download(@PathVariable Long expenseId, @PathVariable Long attachmentId,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExpenseAttachment attachment = expenseAttachmentService.getAttachment(expenseId, attachmentId);
+        String eTag = "\"" + attachment.getContentHash() + "\"";
+        long length = attachment.getSizeBytes();
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            // 304 with the ETag header, already set on the response
+            return;
+        }
+        response.setHeader(HttpHeaders.ETAG, eTag);
+
+        long start = 0;
+        long count = length;
+        HttpRange range = requestedRange(request, eTag);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            count = range.getRangeEnd(length) - start + 1;
+            if (start >= length || count <= 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + count - 1) + "/" + length);
+        }
+        response.setContentType(attachment.getContentType());
+        if (attachment.getFileName() != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                    .filename(attachment.getFileName(), StandardCharsets.UTF_8).build().toString());
+        }
+        transfer(request, response, expenseAttachmentService.contentPath(attachment), start, count);
+    }
+
+    @ConcurrencyLimited(EndpointClass.WRITES)
+    @DeleteMapping("/{attachmentId}")
+    @Operation(summary = "Delete an attachment", description = "Removes an attachment from its expense")
+    public void deleteAttachment(@PathVariable Long expenseId, @PathVariable Long attachmentId) {
+        expenseAttachmentService.deleteAttachment(expenseId, attachmentId);
+    }
+
+    /**
+     * The one byte range to send, or null for the whole file: when there is no Range header, when it
+     * is malformed or asks for several ranges, or when If-Range names another version.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String eTag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(eTag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Sends {@code count} bytes of the file from {@code start}. Under Tomcat the connector sends the
+     * region itself with sendfile once this method returns; elsewhere FileChannel.transferTo copies it
+     * to the response without reading the file into the heap.
+     */
+    private static void transfer(HttpServletRequest request, HttpServletResponse response, Path path, long start,
+                                 long count) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            response.setContentLengthLong(count);
+            if ("HEAD".equals(request.getMethod()) || count == 0) {
+                return;
+            }
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                request.setAttribute(SENDFILE_FILENAME, path.toRealPath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, start + count);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + count;
+            while (position < end) {
+                long sent = file.transferTo(position, end - position, out);
+                if (sent == 0 && position >= file.size()) {
+                    throw new EOFException("Attachment " + path + " is shorter than recorded");
+                }
+                position += sent;
+            }
+        }
+    }
+}
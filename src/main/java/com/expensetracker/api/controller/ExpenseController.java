@@ -1,17 +1,42 @@
 package com.expensetracker.api.controller;
 
+import com.expensetracker.api.config.BinaryContentConfig;
+import com.expensetracker.api.dto.ArchiveRestoreResponse;
+import com.expensetracker.api.dto.CategoryRollup;
+import com.expensetracker.api.dto.CategoryStatisticsResponse;
 import com.expensetracker.api.dto.CreateExpenseRequest;
+import com.expensetracker.api.dto.ExpenseField;
+import com.expensetracker.api.dto.ExpenseImportResponse;
 import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.dto.FieldSelection;
 import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.expensetracker.api.dto.ReportField;
+import com.expensetracker.api.dto.SyncResponse;
+import com.expensetracker.api.dto.TimeSeriesInterval;
+import com.expensetracker.api.dto.TimeSeriesResponse;
 import com.expensetracker.api.dto.UpdateExpenseRequest;
+import com.expensetracker.api.limit.ConcurrencyLimited;
+import com.expensetracker.api.limit.EndpointClass;
+import com.expensetracker.api.service.ExpenseArchiveService;
+import com.expensetracker.api.service.ExpenseImportService;
 import com.expensetracker.api.service.ExpenseService;
+import com.expensetracker.api.service.ReportSnapshotService;
+import com.expensetracker.api.service.SpendingStatisticsService;
+import io.swagger.v3.oas.annotations.Hidden;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -20,42 +45,149 @@ import java.util.List;
 @Tag(name = "Expenses", description = "Expense management endpoints")
 @SecurityRequirement(name = "basicAuth")
 public class ExpenseController {
+    private static final String FIELDS_DESCRIPTION = "Comma-separated fields to return (all when omitted): ";
+    private static final String EXPENSE_FIELDS = "id, amount, description, date, categoryName";
+    private static final String REPORT_FIELDS = "year, month, totalAmount, expenseCount, spendingByCategory, alerts";
+    private static final String DEPTH_DESCRIPTION = "Roll category spending up to this level of the category tree (1 is top level)";
+    private static final String UNDER_DESCRIPTION = "Only report this category and its subcategories, broken down by its children unless depth is given";
 
     private final ExpenseService expenseService;
+    private final SpendingStatisticsService spendingStatisticsService;
+    private final ExpenseArchiveService expenseArchiveService;
+    private final ExpenseImportService expenseImportService;
+    private final ReportSnapshotService reportSnapshotService;
 
+    @ConcurrencyLimited(EndpointClass.WRITES)
     @PostMapping
     @Operation(summary = "Create a new expense", description = "Creates a new expense for the authenticated user")
     public ExpenseResponse createExpense(@Valid @RequestBody CreateExpenseRequest request) {
         return expenseService.createExpense(request);
     }
 
-    @GetMapping
+    @ConcurrencyLimited(EndpointClass.WRITES)
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Import expenses from CSV", description = "Imports a bank-statement CSV with a header row naming date (yyyy-MM-dd), amount, category and optional description columns; invalid rows are skipped and reported by line")
+    public ExpenseImportResponse importExpenses(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return expenseImportService.importCsv(input);
+        }
+    }
+
+    @ConcurrencyLimited(EndpointClass.LISTINGS)
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, BinaryContentConfig.APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get all expenses", description = "Retrieves all expenses for the authenticated user")
-    public List<ExpenseResponse> getAllExpenses() {
-        return expenseService.getAllExpenses();
+    public List<ExpenseResponse> getAllExpenses(@Parameter(description = FIELDS_DESCRIPTION + EXPENSE_FIELDS)
+                                                @RequestParam(required = false) String fields) {
+        return expenseService.getAllExpenses(FieldSelection.parse(fields, ExpenseField.class));
     }
 
-    @GetMapping("/category/{categoryName}")
+    @ConcurrencyLimited(EndpointClass.LISTINGS)
+    @GetMapping(value = "/category/{categoryName}", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, BinaryContentConfig.APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get expenses by category", description = "Filters expenses by category name")
-    public List<ExpenseResponse> getExpensesByCategory(@PathVariable String categoryName) {
-        return expenseService.getExpensesByCategory(categoryName);
+    public List<ExpenseResponse> getExpensesByCategory(@PathVariable String categoryName,
+                                                       @Parameter(description = FIELDS_DESCRIPTION + EXPENSE_FIELDS)
+                                                       @RequestParam(required = false) String fields) {
+        return expenseService.getExpensesByCategory(categoryName, FieldSelection.parse(fields, ExpenseField.class));
     }
 
+    @ConcurrencyLimited(EndpointClass.WRITES)
     @PutMapping("/{id}")
     @Operation(summary = "Update an expense", description = "Updates an existing expense")
     public ExpenseResponse updateExpense(@PathVariable Long id, @Valid @RequestBody UpdateExpenseRequest request) {
         return expenseService.updateExpense(id, request);
     }
 
+    @ConcurrencyLimited(EndpointClass.WRITES)
     @DeleteMapping("/{id}")
-    @Operation(summary = "Delete an expense", description = "Deletes an expense by ID")
+    @Operation(summary = "Delete an expense", description = "Deletes an expense by ID; it can be restored until the undo window closes")
     public void deleteExpense(@PathVariable Long id) {
         expenseService.deleteExpense(id);
     }
 
-    @GetMapping("/report")
+    @ConcurrencyLimited(EndpointClass.WRITES)
+    @PostMapping("/{id}/restore")
+    @Operation(summary = "Restore a deleted expense", description = "Undoes a delete within the configured undo window")
+    public ExpenseResponse restoreExpense(@PathVariable Long id) {
+        return expenseService.restoreExpense(id);
+    }
+
+    // The common case, a whole report as JSON, maps here ahead of the method below, which still
+    // serves other formats, field selections and rollups
+    @ConcurrencyLimited(EndpointClass.REPORTS)
+    @GetMapping(value = "/report", params = {"!fields", "!depth", "!under"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Hidden
+    public byte[] getMonthlyReportJson(@RequestParam int year, @RequestParam int month) {
+        return reportSnapshotService.getMonthlyReportJson(year, month);
+    }
+
+    @ConcurrencyLimited(EndpointClass.REPORTS)
+    @GetMapping(value = "/report", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, BinaryContentConfig.APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get monthly report", description = "Generates a spending report for a specific month")
-    public MonthlyReportResponse getMonthlyReport(@RequestParam int year, @RequestParam int month) {
-        return expenseService.getMonthlyReport(year, month);
+    public MonthlyReportResponse getMonthlyReport(@RequestParam int year, @RequestParam int month,
+                                                  @Parameter(description = FIELDS_DESCRIPTION + REPORT_FIELDS)
+                                                  @RequestParam(required = false) String fields,
+                                                  @Parameter(description = DEPTH_DESCRIPTION)
+                                                  @RequestParam(required = false) Integer depth,
+                                                  @Parameter(description = UNDER_DESCRIPTION)
+                                                  @RequestParam(required = false) String under) {
+        return expenseService.getMonthlyReport(year, month, FieldSelection.parse(fields, ReportField.class),
+                CategoryRollup.of(depth, under));
+    }
+
+    @ConcurrencyLimited(EndpointClass.REPORTS)
+    @GetMapping(value = "/report/range", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, BinaryContentConfig.APPLICATION_SMILE_VALUE})
+    @Operation(summary = "Get multi-month report", description = "Generates a spending report for every month in an inclusive range (yyyy-MM)")
+    public List<MonthlyReportResponse> getRangeReport(@RequestParam YearMonth from, @RequestParam YearMonth to,
+                                                      @Parameter(description = FIELDS_DESCRIPTION + REPORT_FIELDS)
+                                                      @RequestParam(required = false) String fields,
+                                                      @Parameter(description = DEPTH_DESCRIPTION)
+                                                      @RequestParam(required = false) Integer depth,
+                                                      @Parameter(description = UNDER_DESCRIPTION)
+                                                      @RequestParam(required = false) String under) {
+        return expenseService.getRangeReport(from, to, FieldSelection.parse(fields, ReportField.class),
+                CategoryRollup.of(depth, under));
+    }
+
+    @ConcurrencyLimited(EndpointClass.REPORTS)
+    @GetMapping("/anomalies")
+    @Operation(summary = "Get unusual expenses", description = "Lists expenses that are more than the configured number of standard deviations from the mean of the user's other expenses in their category, newest first")
+    public List<ExpenseResponse> getAnomalies() {
+        return expenseService.getAnomalies();
+    }
+
+    @ConcurrencyLimited(EndpointClass.REPORTS)
+    @GetMapping("/statistics")
+    @Operation(summary = "Get per-category statistics", description = "Returns median, p90 and max spend per expense for each category over an inclusive month range (yyyy-MM)")
+    public List<CategoryStatisticsResponse> getStatistics(@RequestParam YearMonth from, @RequestParam YearMonth to) {
+        return spendingStatisticsService.getStatistics(from, to);
+    }
+
+    @ConcurrencyLimited(EndpointClass.REPORTS)
+    @GetMapping("/timeseries")
+    @Operation(summary = "Get spending time series", description = "Returns spending per day or week for an inclusive date range, optionally split by category")
+    public TimeSeriesResponse getTimeSeries(@RequestParam LocalDate from,
+                                            @RequestParam LocalDate to,
+                                            @RequestParam(defaultValue = "DAY") TimeSeriesInterval interval,
+                                            @RequestParam(defaultValue = "false") boolean byCategory) {
+        return expenseService.getTimeSeries(from, to, interval, byCategory);
+    }
+
+    @ConcurrencyLimited(EndpointClass.WRITES)
+    @PostMapping("/archive/restore")
+    @Operation(summary = "Restore archived expenses", description = "Moves archived expenses in an inclusive month range (yyyy-MM) back into live storage so they can be edited")
+    public ArchiveRestoreResponse restoreArchived(@RequestParam YearMonth from, @RequestParam YearMonth to) {
+        return expenseArchiveService.restore(from, to);
+    }
+
+    @ConcurrencyLimited(EndpointClass.LISTINGS)
+    @GetMapping("/sync")
+    @Operation(summary = "Get expense changes", description = "Returns expenses created, updated or deleted after the given change cursor")
+    public SyncResponse getChanges(@RequestParam(defaultValue = "0") long cursor,
+                                   @RequestParam(defaultValue = "500") int limit) {
+        return expenseService.getChangesSince(cursor, limit);
     }
 }
\ No newline at end of file
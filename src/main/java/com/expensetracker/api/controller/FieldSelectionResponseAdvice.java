@@ -0,0 +1,67 @@
+package com.expensetracker.api.controller;
+
+import com.expensetracker.api.config.FieldSelectionConfig;
+import com.expensetracker.api.dto.ExpenseField;
+import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.dto.FieldSelection;
+import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.expensetracker.api.dto.ReportField;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Serializes only the properties named in a {@code fields} parameter of expense and report
+ * responses. The controller has already parsed and validated the parameter.
+ */
+@RestControllerAdvice(assignableTypes = ExpenseController.class)
+public class FieldSelectionResponseAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        String fields = servletRequest.getServletRequest().getParameter("fields");
+        if (fields == null) {
+            return;
+        }
+        Set<String> names = selectedNames(fields, elementType(returnType));
+        if (names != null) {
+            bodyContainer.setFilters(new SimpleFilterProvider()
+                    .addFilter(FieldSelectionConfig.FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(names))
+                    .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+        }
+    }
+
+    private static Class<?> elementType(MethodParameter returnType) {
+        ResolvableType type = ResolvableType.forMethodParameter(returnType);
+        if (Collection.class.isAssignableFrom(type.toClass())) {
+            return type.asCollection().resolveGeneric(0);
+        }
+        return type.resolve();
+    }
+
+    private static Set<String> selectedNames(String fields, Class<?> elementType) {
+        if (elementType == ExpenseResponse.class) {
+            return FieldSelection.parse(fields, ExpenseField.class).names();
+        }
+        if (elementType == MonthlyReportResponse.class) {
+            return FieldSelection.parse(fields, ReportField.class).names();
+        }
+        return null;
+    }
+}
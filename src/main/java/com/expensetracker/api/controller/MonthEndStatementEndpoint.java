@@ -0,0 +1,76 @@
+package com.expensetracker.api.controller;
+
+import com.expensetracker.api.service.MonthEndStatementJob;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/statements}: POST with {@code {"year": 2025, "month": 10}} starts writing every
+ * user's statement for that month on this node, or resumes a run that stopped; GET reports progress.
+ */
+@Component
+@Endpoint(id = "statements")
+public class MonthEndStatementEndpoint {
+
+    private final MonthEndStatementJob monthEndStatementJob;
+
+    public MonthEndStatementEndpoint(MonthEndStatementJob monthEndStatementJob) {
+        this.monthEndStatementJob = monthEndStatementJob;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        MonthEndStatementJob.Progress progress = monthEndStatementJob.getProgress();
+        return progress == null ? Map.of("state", "IDLE") : describe(progress);
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> start(int year, int month) {
+        YearMonth statementMonth;
+        try {
+            statementMonth = YearMonth.of(year, month);
+        } catch (DateTimeException ex) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, "Invalid statement month: " + year + "-" + month);
+        }
+        if (!statementMonth.isBefore(YearMonth.now())) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, "Statements can only be generated for months that have ended");
+        }
+
+        try {
+            return new WebEndpointResponse<>(describe(monthEndStatementJob.start(statementMonth)), 202);
+        } catch (IllegalStateException ex) {
+            return error(409, ex.getMessage());
+        }
+    }
+
+    private Map<String, Object> describe(MonthEndStatementJob.Progress progress) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("month", progress.getMonth().toString());
+        body.put("state", progress.getState());
+        body.put("startedAt", progress.getStartedAt());
+        body.put("usersWritten", progress.getUsersWritten());
+        body.put("nextUserId", progress.getNextUserId());
+        body.put("lastUserId", progress.getLastUserId());
+        body.put("file", monthEndStatementJob.outputFile(progress.getMonth()).toString());
+        if (progress.getError() != null) {
+            body.put("error", progress.getError());
+        }
+        return body;
+    }
+
+    private static WebEndpointResponse<Map<String, Object>> error(int status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", message);
+        return new WebEndpointResponse<>(body, status);
+    }
+}
@@ -0,0 +1,46 @@
+package com.expensetracker.api.controller;
+
+import com.expensetracker.api.dto.CreateRecurringExpenseRequest;
+import com.expensetracker.api.dto.RecurringExpenseResponse;
+import com.expensetracker.api.limit.ConcurrencyLimited;
+import com.expensetracker.api.limit.EndpointClass;
+import com.expensetracker.api.service.RecurringExpenseService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/recurring-expenses")
+@RequiredArgsConstructor
+@Tag(name = "Recurring Expenses", description = "Templates for expenses that repeat weekly or monthly")
+@SecurityRequirement(name = "basicAuth")
+public class RecurringExpenseController {
+
+    private final RecurringExpenseService recurringExpenseService;
+
+    @ConcurrencyLimited(EndpointClass.WRITES)
+    @PostMapping
+    @Operation(summary = "Create a recurring expense", description = "Creates a template; due occurrences are added as expenses by a background job")
+    public RecurringExpenseResponse createRecurringExpense(@Valid @RequestBody CreateRecurringExpenseRequest request) {
+        return recurringExpenseService.createRecurringExpense(request);
+    }
+
+    @ConcurrencyLimited(EndpointClass.LISTINGS)
+    @GetMapping
+    @Operation(summary = "Get recurring expenses", description = "Retrieves all recurring expense templates for the authenticated user")
+    public List<RecurringExpenseResponse> getRecurringExpenses() {
+        return recurringExpenseService.getRecurringExpenses();
+    }
+
+    @ConcurrencyLimited(EndpointClass.WRITES)
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete a recurring expense", description = "Stops future occurrences; existing expenses are kept")
+    public void deleteRecurringExpense(@PathVariable Long id) {
+        recurringExpenseService.deleteRecurringExpense(id);
+    }
+}
@@ -0,0 +1,11 @@
+package com.expensetracker.api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ArchiveRestoreResponse {
+    private int restoredCount;
+    private int archivedCount;
+}
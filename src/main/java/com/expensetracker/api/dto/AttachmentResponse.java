@@ -0,0 +1,18 @@
+package com.expensetracker.api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class AttachmentResponse {
+    private Long id;
+    private Long expenseId;
+    private String fileName;
+    private String contentType;
+    private long size;
+    private String sha256;
+    private Instant createdAt;
+}
@@ -0,0 +1,14 @@
+package com.expensetracker.api.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Every category, by name, with an ETag that changes whenever any of them does.
+ */
+@Value
+public class CategoryListing {
+    String eTag;
+    List<CategoryResponse> categories;
+}
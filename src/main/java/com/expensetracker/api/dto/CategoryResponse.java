@@ -8,4 +8,5 @@ import lombok.Data;
 public class CategoryResponse {
     private Long id;
     private String name;
-}
\ No newline at end of file
+    private String parentName;
+}
@@ -0,0 +1,33 @@
+package com.expensetracker.api.dto;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import lombok.Value;
+
+/**
+ * How a report groups spending in the category hierarchy: {@code depth} rolls every category up to
+ * its ancestor at that level (1 is top level), {@code under} keeps only one category's subtree. With
+ * {@code under} alone, spending is broken down by that category's children. Neither reports every
+ * category on its own.
+ */
+@Value
+public class CategoryRollup {
+    private static final CategoryRollup NONE = new CategoryRollup(null, null);
+
+    Integer depth;
+    String under;
+
+    public static CategoryRollup none() {
+        return NONE;
+    }
+
+    public static CategoryRollup of(Integer depth, String under) {
+        if (depth != null && depth < 1) {
+            throw new InvalidRequestException("depth must be at least 1");
+        }
+        return depth == null && under == null ? NONE : new CategoryRollup(depth, under);
+    }
+
+    public boolean isNone() {
+        return depth == null && under == null;
+    }
+}
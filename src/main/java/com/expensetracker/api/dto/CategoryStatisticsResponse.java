@@ -0,0 +1,16 @@
+package com.expensetracker.api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class CategoryStatisticsResponse {
+    private String categoryName;
+    private long expenseCount;
+    private BigDecimal median;
+    private BigDecimal p90;
+    private BigDecimal max;
+}
@@ -0,0 +1,15 @@
+package com.expensetracker.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CreateCategoriesRequest {
+    @NotEmpty(message = "At least one category is required")
+    @Size(max = 1000, message = "At most 1000 categories can be created at once")
+    private List<@Valid CreateCategoryRequest> categories;
+}
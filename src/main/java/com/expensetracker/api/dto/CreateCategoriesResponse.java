@@ -0,0 +1,14 @@
+package com.expensetracker.api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CreateCategoriesResponse {
+    private List<CategoryResponse> created;
+    // Requested names that already existed; those categories are left as they were
+    private List<String> existing;
+}
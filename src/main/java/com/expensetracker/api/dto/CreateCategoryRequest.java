@@ -7,4 +7,6 @@ import lombok.Data;
 public class CreateCategoryRequest {
     @NotBlank(message = "Category name is required")
     private String name;
-}
\ No newline at end of file
+
+    private String parentName;
+}
@@ -0,0 +1,32 @@
+package com.expensetracker.api.dto;
+
+import com.expensetracker.api.entity.RecurrenceFrequency;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class CreateRecurringExpenseRequest {
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    @Digits(integer = 15, fraction = 2, message = "Amount must have at most 15 integer digits and 2 decimal places")
+    private BigDecimal amount;
+
+    private String description;
+
+    @NotBlank(message = "Category name is required")
+    private String categoryName;
+
+    @NotNull(message = "Frequency is required")
+    private RecurrenceFrequency frequency;
+
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+}
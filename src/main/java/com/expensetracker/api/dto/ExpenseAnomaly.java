@@ -0,0 +1,19 @@
+package com.expensetracker.api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * How far an expense is from the user's other expenses in its category: {@code deviations} standard
+ * deviations above (positive) or below (negative) their mean.
+ */
+@Data
+@Builder
+public class ExpenseAnomaly {
+    private double deviations;
+    private BigDecimal typicalAmount;
+    private BigDecimal standardDeviation;
+    private long sampleSize;
+}
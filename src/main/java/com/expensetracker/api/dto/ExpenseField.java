@@ -0,0 +1,20 @@
+package com.expensetracker.api.dto;
+
+public enum ExpenseField implements SelectableField {
+    ID("id"),
+    AMOUNT("amount"),
+    DESCRIPTION("description"),
+    DATE("date"),
+    CATEGORY_NAME("categoryName");
+
+    private final String name;
+
+    ExpenseField(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
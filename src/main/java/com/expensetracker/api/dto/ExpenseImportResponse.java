@@ -0,0 +1,19 @@
+package com.expensetracker.api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV import. Only the first errors are listed; {@code errorsTruncated} says whether
+ * {@code rejectedCount} covers more lines than {@code errors} does.
+ */
+@Data
+@Builder
+public class ExpenseImportResponse {
+    private long importedCount;
+    private long rejectedCount;
+    private List<ImportLineError> errors;
+    private boolean errorsTruncated;
+}
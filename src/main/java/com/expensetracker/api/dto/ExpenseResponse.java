@@ -1,5 +1,6 @@
 package com.expensetracker.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
@@ -14,4 +15,8 @@ public class ExpenseResponse {
     private String description;
     private LocalDate date;
     private String categoryName;
-}
\ No newline at end of file
+
+    // Only set on unusually large or small expenses, and only when no fields were selected
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ExpenseAnomaly anomaly;
+}
@@ -0,0 +1,74 @@
+package com.expensetracker.api.dto;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import lombok.EqualsAndHashCode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields a caller asked for with a comma-separated {@code fields} parameter, e.g.
+ * {@code fields=id,amount,date}. No parameter selects every field.
+ */
+@EqualsAndHashCode
+public final class FieldSelection<E extends Enum<E> & SelectableField> {
+    private final Set<E> fields;
+
+    private FieldSelection(Set<E> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    public static <E extends Enum<E> & SelectableField> FieldSelection<E> all(Class<E> type) {
+        return new FieldSelection<>(EnumSet.allOf(type));
+    }
+
+    @SafeVarargs
+    public static <E extends Enum<E> & SelectableField> FieldSelection<E> of(E first, E... rest) {
+        return new FieldSelection<>(EnumSet.of(first, rest));
+    }
+
+    /**
+     * Parses a {@code fields} parameter; {@code null} selects every field, unknown names are rejected.
+     */
+    public static <E extends Enum<E> & SelectableField> FieldSelection<E> parse(String fields, Class<E> type) {
+        if (fields == null) {
+            return all(type);
+        }
+        Set<E> selected = EnumSet.noneOf(type);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            E field = Arrays.stream(type.getEnumConstants())
+                    .filter(candidate -> candidate.getName().equals(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidRequestException("Unknown field '" + trimmed + "'; expected any of "
+                            + Arrays.stream(type.getEnumConstants()).map(SelectableField::getName).collect(Collectors.joining(", "))));
+            selected.add(field);
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidRequestException("fields must name at least one field");
+        }
+        return new FieldSelection<>(selected);
+    }
+
+    public boolean includes(E field) {
+        return fields.contains(field);
+    }
+
+    public boolean isAll() {
+        return fields.size() == fields.iterator().next().getDeclaringClass().getEnumConstants().length;
+    }
+
+    /**
+     * The selected property names, in declaration order.
+     */
+    public Set<String> names() {
+        return fields.stream().map(SelectableField::getName).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
@@ -0,0 +1,21 @@
+package com.expensetracker.api.dto;
+
+import com.expensetracker.api.entity.RecurrenceFrequency;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class RecurringExpenseResponse {
+    private Long id;
+    private BigDecimal amount;
+    private String description;
+    private String categoryName;
+    private RecurrenceFrequency frequency;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalDate nextDueDate;
+}
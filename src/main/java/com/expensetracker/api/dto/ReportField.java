@@ -0,0 +1,21 @@
+package com.expensetracker.api.dto;
+
+public enum ReportField implements SelectableField {
+    YEAR("year"),
+    MONTH("month"),
+    TOTAL_AMOUNT("totalAmount"),
+    EXPENSE_COUNT("expenseCount"),
+    SPENDING_BY_CATEGORY("spendingByCategory"),
+    ALERTS("alerts");
+
+    private final String name;
+
+    ReportField(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
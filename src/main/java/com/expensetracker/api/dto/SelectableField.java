@@ -0,0 +1,8 @@
+package com.expensetracker.api.dto;
+
+/**
+ * A response property that callers can ask for by name in a {@code fields} parameter.
+ */
+public interface SelectableField {
+    String getName();
+}
@@ -0,0 +1,15 @@
+package com.expensetracker.api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class SyncResponse {
+    private List<ExpenseResponse> upserts;
+    private List<Long> deletedIds;
+    private long nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,16 @@
+package com.expensetracker.api.dto;
+
+public enum TimeSeriesInterval {
+    DAY(1),
+    WEEK(7);
+
+    private final int days;
+
+    TimeSeriesInterval(int days) {
+        this.days = days;
+    }
+
+    public int getDays() {
+        return days;
+    }
+}
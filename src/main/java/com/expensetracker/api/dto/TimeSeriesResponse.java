@@ -0,0 +1,25 @@
+package com.expensetracker.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spending per bucket as plain value arrays. Bucket {@code i} covers the {@code interval} starting at
+ * {@code start + i * interval}, so clients can rebuild the dates without one object per bucket.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TimeSeriesResponse {
+    private LocalDate start;
+    private LocalDate end;
+    private TimeSeriesInterval interval;
+    private List<BigDecimal> totals;
+    private Map<String, List<BigDecimal>> byCategory;
+}
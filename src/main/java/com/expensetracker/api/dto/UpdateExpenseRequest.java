@@ -1,5 +1,6 @@
 package com.expensetracker.api.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -11,6 +12,7 @@ import java.time.LocalDate;
 public class UpdateExpenseRequest {
     @NotNull(message = "Amount is required")
     @Positive(message = "Amount must be positive")
+    @Digits(integer = 15, fraction = 2, message = "Amount must have at most 15 integer digits and 2 decimal places")
     private BigDecimal amount;
 
     @NotNull(message = "Date is required")
@@ -0,0 +1,13 @@
+package com.expensetracker.api.dto;
+
+import lombok.Value;
+
+/**
+ * One user's month-end statement, a line of the file {@code MonthEndStatementJob} writes.
+ */
+@Value
+public class UserMonthlyStatement {
+    Long userId;
+    String username;
+    MonthlyReportResponse report;
+}
@@ -13,4 +13,12 @@ public class Category {
 
     @Column(nullable = false, unique = true)
     private String name;
-}
\ No newline at end of file
+
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    // Materialized path of ids from the top-level ancestor down to this category, e.g. /3/17/42/.
+    // The "C" collation makes a plain btree index serve subtree ranges (see schema.sql).
+    @Column(columnDefinition = "varchar(255) COLLATE \"C\"")
+    private String path;
+}
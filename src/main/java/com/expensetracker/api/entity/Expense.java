@@ -5,12 +5,17 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 
+// expenses is partitioned by month on date; its primary key, indexes and foreign keys are owned by
+// schema.sql because Hibernate's schema update cannot see them on a partitioned table. Soft-deleted
+// rows are invisible to every entity query; native SQL must filter on deleted_at itself.
 @Entity
 @Table(name = "expenses")
+@SQLRestriction("deleted_at IS NULL")
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,8 +25,9 @@ public class Expense {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
-    private BigDecimal amount;
+    // Minor units at MinorUnits.SCALE; NOT NULL is applied by schema.sql once legacy rows are converted
+    @Column(name = "amount_minor")
+    private long amountMinor;
 
     @Column(nullable = false)
     private LocalDate date;
@@ -29,10 +35,20 @@ public class Expense {
     private String description;
 
     @ManyToOne
-    @JoinColumn(name = "category_id", nullable = false)
+    @JoinColumn(name = "category_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Category category;
 
     @ManyToOne
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
-}
\ No newline at end of file
+
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    // Set when the expense is deleted; DeletedExpensePurger removes the row once it cannot be restored
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+}
@@ -0,0 +1,52 @@
+package com.expensetracker.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+// Names the archive file generation that currently holds a user's archived expenses. Moving rows
+// between expenses and the archive updates this row in the same transaction.
+@Entity
+@Table(name = "expense_archives", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_expense_archives_user", columnNames = {"user_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseArchive {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Zero until the first file is written
+    @Column(nullable = false)
+    private long generation;
+
+    @Column(name = "expense_count", nullable = false)
+    private int expenseCount;
+
+    @Column(name = "first_date")
+    private LocalDate firstDate;
+
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    // CRC32C of the whole file
+    @Column(nullable = false)
+    private long checksum;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
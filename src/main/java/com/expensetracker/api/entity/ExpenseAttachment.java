@@ -0,0 +1,50 @@
+package com.expensetracker.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A file attached to an expense. The content lives in AttachmentStorage under content_hash, which
+ * several attachments may share; expense_id has no foreign key because expenses is partitioned.
+ */
+@Entity
+@Table(name = "expense_attachments", indexes = {
+        @Index(name = "idx_expense_attachments_expense", columnList = "expense_id"),
+        @Index(name = "idx_expense_attachments_content_hash", columnList = "content_hash")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseAttachment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "expense_id", nullable = false)
+    private Long expenseId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Lower-case hex SHA-256 of the content, also its strong ETag
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,32 @@
+package com.expensetracker.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "expense_tombstones", indexes = {
+        @Index(name = "idx_expense_tombstones_user_change_seq", columnList = "user_id, change_seq")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseTombstone {
+    @Id
+    @Column(name = "expense_id")
+    private Long expenseId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+}
@@ -0,0 +1,19 @@
+package com.expensetracker.api.entity;
+
+import java.time.LocalDate;
+
+public enum RecurrenceFrequency {
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * Date of the {@code n}-th occurrence (0-based). Always derived from the start date so monthly
+     * rules starting on the 31st fall on the last day of shorter months without drifting.
+     */
+    public LocalDate occurrence(LocalDate startDate, long n) {
+        return switch (this) {
+            case WEEKLY -> startDate.plusWeeks(n);
+            case MONTHLY -> startDate.plusMonths(n);
+        };
+    }
+}
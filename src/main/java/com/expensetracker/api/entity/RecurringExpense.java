@@ -0,0 +1,55 @@
+package com.expensetracker.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "recurring_expenses", indexes = {
+        @Index(name = "idx_recurring_expenses_user", columnList = "user_id"),
+        @Index(name = "idx_recurring_expenses_next_due", columnList = "next_due_date, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringExpense {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
+
+    private String description;
+
+    @ManyToOne
+    @JoinColumn(name = "category_id", nullable = false)
+    private Category category;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RecurrenceFrequency frequency;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    // Number of occurrences already materialized as expenses
+    @Column(nullable = false)
+    private int occurrences;
+
+    // Null once the end date has passed
+    @Column(name = "next_due_date")
+    private LocalDate nextDueDate;
+}
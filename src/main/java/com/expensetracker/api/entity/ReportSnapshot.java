@@ -0,0 +1,40 @@
+package com.expensetracker.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "report_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_report_snapshots_month", columnNames = {"user_id", "month_start"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    // Bumped by every write to the month; a snapshot is only stored against the version it was computed at
+    @Column(nullable = false)
+    private long version;
+
+    // The serialized JSON report, or null while the month has changed since it was last computed
+    private byte[] body;
+
+    @Column(name = "computed_at")
+    private Instant computedAt;
+}
@@ -0,0 +1,10 @@
+package com.expensetracker.api.entity;
+
+/**
+ * What a user may do besides managing their own expenses. Registration always creates {@link #USER}s;
+ * operators are promoted to {@link #ADMIN} in the database.
+ */
+public enum Role {
+    USER,
+    ADMIN
+}
@@ -0,0 +1,43 @@
+package com.expensetracker.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigInteger;
+
+/**
+ * Running count, sum and sum of squares of one user's expense amounts in one category, in minor
+ * units. Integer sums are exact, so every write adds or subtracts its own amount without reading the
+ * row first, and mean and variance are derived from them when needed.
+ */
+@Entity
+@Table(name = "spending_moments", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_spending_moments_key", columnNames = {"user_id", "category_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingMoments {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "expense_count", nullable = false)
+    private long expenseCount;
+
+    @Column(name = "amount_sum", nullable = false)
+    private long amountSum;
+
+    @Column(name = "amount_sum_squares", nullable = false, precision = 38, scale = 0)
+    private BigInteger amountSumSquares;
+}
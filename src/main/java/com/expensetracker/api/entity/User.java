@@ -7,19 +7,27 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"))
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String username;
 
     @Column(nullable = false)
     private String password;
+
+    // Nullable for Hibernate's schema update on existing rows; schema.sql fills it and adds the default
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    @Builder.Default
+    private Role role = Role.USER;
 }
\ No newline at end of file
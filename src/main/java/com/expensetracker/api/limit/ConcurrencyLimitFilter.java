@@ -0,0 +1,195 @@
+package com.expensetracker.api.limit;
+
+import com.expensetracker.api.controller.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.server.RequestPath;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admits requests for {@link ConcurrencyLimited} handlers while their class is under its limit and
+ * rejects the rest with 503 and {@code Retry-After}, so a burst of expensive requests is shed
+ * instead of queueing in front of everything else.
+ * <p>
+ * It runs ahead of Spring Security: authenticating a request (a user lookup and a bcrypt check) costs
+ * more than most of the work being protected, so a rejected request should not pay for it. The
+ * handler is found by matching the request against the request mappings of the limited handlers,
+ * and the 503 is rendered by the application's exception handlers. Latency is measured over the
+ * rest of the filter chain, authentication included; responses of 500 and up, and unhandled
+ * exceptions, count as overload.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter implements MeterBinder {
+    private final boolean enabled;
+    private final Map<EndpointClass, GradientConcurrencyLimit> limits;
+    private final Map<EndpointClass, LongAdder> rejected = new EnumMap<>(EndpointClass.class);
+    private final long retryAfterSeconds;
+    private final List<Map.Entry<RequestMappingInfo, EndpointClass>> routes = new ArrayList<>();
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public ConcurrencyLimitFilter(boolean enabled, Map<EndpointClass, GradientConcurrencyLimit> limits,
+                                  long retryAfterSeconds, RequestMappingHandlerMapping handlerMapping,
+                                  HandlerExceptionResolver exceptionResolver) {
+        this.enabled = enabled;
+        this.limits = new EnumMap<>(limits);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.exceptionResolver = exceptionResolver;
+        for (EndpointClass endpointClass : this.limits.keySet()) {
+            rejected.put(endpointClass, new LongAdder());
+        }
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> mapping : handlerMapping.getHandlerMethods().entrySet()) {
+            ConcurrencyLimited limited = mapping.getValue().getMethodAnnotation(ConcurrencyLimited.class);
+            if (limited != null && this.limits.containsKey(limited.value())) {
+                routes.add(Map.entry(mapping.getKey(), limited.value()));
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        if (endpointClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        GradientConcurrencyLimit limit = limits.get(endpointClass);
+        if (!limit.tryAcquire()) {
+            rejected.get(endpointClass).increment();
+            reject(request, response, endpointClass);
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(limit, startNanos));
+            } else {
+                release(limit, startNanos, failed, response);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        limits.forEach((endpointClass, limit) -> {
+            Gauge.builder("api.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                    .description("Current concurrency limit of an endpoint class")
+                    .tag("class", endpointClass.key())
+                    .register(registry);
+            Gauge.builder("api.concurrency.in.flight", limit, GradientConcurrencyLimit::getInFlight)
+                    .description("Requests of an endpoint class in progress")
+                    .tag("class", endpointClass.key())
+                    .register(registry);
+            FunctionCounter.builder("api.concurrency.rejected", rejected.get(endpointClass), LongAdder::sum)
+                    .description("Requests rejected because their endpoint class was at its limit")
+                    .tag("class", endpointClass.key())
+                    .register(registry);
+        });
+    }
+
+    /**
+     * The class of the limited handler the request maps to, or null. The parsed path the mappings
+     * match against is put back as it was, so the dispatcher servlet parses the request as usual.
+     */
+    private EndpointClass classify(HttpServletRequest request) {
+        RequestPath previous = ServletRequestPathUtils.hasParsedRequestPath(request)
+                ? ServletRequestPathUtils.getParsedRequestPath(request) : null;
+        ServletRequestPathUtils.parseAndCache(request);
+        try {
+            for (Map.Entry<RequestMappingInfo, EndpointClass> route : routes) {
+                if (route.getKey().getMatchingCondition(request) != null) {
+                    return route.getValue();
+                }
+            }
+            return null;
+        } finally {
+            ServletRequestPathUtils.setParsedRequestPath(previous, request);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, EndpointClass endpointClass)
+            throws ServletException {
+        ServiceUnavailableException ex = new ServiceUnavailableException(
+                "Too many " + endpointClass.key() + " requests in progress, please retry shortly", retryAfterSeconds);
+        if (exceptionResolver.resolveException(request, response, null, ex) == null) {
+            throw new ServletException(ex);
+        }
+    }
+
+    private static void release(GradientConcurrencyLimit limit, long startNanos, boolean failed,
+                                HttpServletResponse response) {
+        boolean overloaded = failed || response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        limit.release(System.nanoTime() - startNanos, overloaded);
+    }
+
+    /**
+     * Returns the permit of a request that went async once it completes.
+     */
+    private static final class ReleasingListener implements AsyncListener {
+        private final GradientConcurrencyLimit limit;
+        private final long startNanos;
+        private boolean released;
+
+        private ReleasingListener(GradientConcurrencyLimit limit, long startNanos) {
+            this.limit = limit;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(event, false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            finish(event, true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            finish(event, true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        // Timeout and error are followed by complete; the permit goes back once
+        private synchronized void finish(AsyncEvent event, boolean failed) {
+            if (!released) {
+                released = true;
+                release(limit, startNanos, failed, (HttpServletResponse) event.getSuppliedResponse());
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.expensetracker.api.limit;
+
+/**
+ * Groups of endpoints with similar cost, each with its own {@link GradientConcurrencyLimit}, so a
+ * burst on one group cannot use up the capacity the others need.
+ */
+public enum EndpointClass {
+    /** Aggregations over a user's expenses: reports, statistics, anomalies, time series. */
+    REPORTS("reports"),
+    /** Full or filtered lists of expenses and other collections. */
+    LISTINGS("listings"),
+    /** Creating, changing and deleting single resources. */
+    WRITES("writes");
+
+    private final String key;
+
+    EndpointClass(String key) {
+        this.key = key;
+    }
+
+    /**
+     * The name used in properties ({@code app.concurrency-limit.<key>.*}), metric tags and messages.
+     */
+    public String key() {
+        return key;
+    }
+}
@@ -0,0 +1,124 @@
+package com.expensetracker.api.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that adapts to observed latency, after the gradient algorithm of Netflix's
+ * concurrency-limits library. Requests that find the limit reached are rejected rather than queued.
+ * <p>
+ * Latencies are averaged over windows of {@value #WINDOW_SAMPLES} requests (the short-term latency)
+ * and across windows into a slow-moving average (the long-term latency). After each window the
+ * limit moves towards
+ * <pre>
+ * limit * clamp(tolerance * longTerm / shortTerm, 0.5, 1) + sqrt(limit)
+ * </pre>
+ * so it grows by about its square root while latency stays within {@code tolerance} of what it has
+ * been, and shrinks by up to half once requests start to wait on each other. Windows in which fewer
+ * than half the permits were in use say nothing about capacity and leave the limit alone. A request
+ * that failed from overload cuts the limit by a tenth straight away.
+ */
+public class GradientConcurrencyLimit {
+    static final int WINDOW_SAMPLES = 10;
+    // Long-term latency is an average over roughly the last 60 windows
+    private static final double LONG_TERM_WEIGHT = 2.0 / (60 + 1);
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double OVERLOAD_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double longTermNanos;
+    private long windowSumNanos;
+    private int windowSamples;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max, got " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Takes a permit if fewer than {@link #getLimit()} requests are in flight. A successful call must
+     * be followed by exactly one {@link #release}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit along with how long its request took. {@code overloaded} marks a request that
+     * failed for lack of capacity (a timeout or a server error) rather than completing normally.
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            if (overloaded) {
+                setEstimatedLimit(estimatedLimit * OVERLOAD_BACKOFF);
+                return;
+            }
+            windowSumNanos += latencyNanos;
+            if (++windowSamples < WINDOW_SAMPLES) {
+                return;
+            }
+            double shortTermNanos = (double) windowSumNanos / windowSamples;
+            windowSumNanos = 0;
+            windowSamples = 0;
+            int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+            update(shortTermNanos, maxInFlight);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void update(double shortTermNanos, int maxInFlight) {
+        if (longTermNanos == 0) {
+            longTermNanos = shortTermNanos;
+        } else {
+            longTermNanos += (shortTermNanos - longTermNanos) * LONG_TERM_WEIGHT;
+        }
+        // After load has dropped, let the long-term latency catch up rather than allow a burst
+        if (longTermNanos > 2 * shortTermNanos) {
+            longTermNanos *= 0.95;
+        }
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longTermNanos / shortTermNanos));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        setEstimatedLimit(estimatedLimit * (1 - smoothing) + target * smoothing);
+    }
+
+    private void setEstimatedLimit(double value) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, value));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,23 @@
+package com.expensetracker.api.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(AuthenticationEvent.NAME)
+@Label("Authentication")
+@Category("Expense Tracker")
+@Description("Credential check of one request, including the password hash comparison")
+@StackTrace(false)
+public class AuthenticationEvent extends Event {
+    static final String NAME = "expensetracker.Authentication";
+
+    @Label("Username")
+    String username;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,129 @@
+package com.expensetracker.api.profiling;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Opt-in continuous flight recording ({@code app.jfr.enabled}). Events go to disk in chunks under
+ * the JFR repository and are dropped once they are older than {@code app.jfr.max-age-minutes} or
+ * the recording exceeds {@code app.jfr.max-size-mb}, so the recording is a bounded ring buffer that
+ * can run for the life of the process. {@link #dump(int)} copies the last minutes of it to a file.
+ */
+@Slf4j
+@Component
+public class ContinuousRecording {
+    static final String RECORDING_NAME = "expense-tracker-continuous";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final boolean enabled;
+    private final String settings;
+    private final int maxAgeMinutes;
+    private final long maxSizeBytes;
+    private final String repository;
+    private final Path dumpDirectory;
+    private Recording recording;
+
+    public ContinuousRecording(@Value("${app.jfr.enabled:false}") boolean enabled,
+                               @Value("${app.jfr.settings:default}") String settings,
+                               @Value("${app.jfr.max-age-minutes:30}") int maxAgeMinutes,
+                               @Value("${app.jfr.max-size-mb:256}") long maxSizeMegabytes,
+                               @Value("${app.jfr.repository:}") String repository,
+                               @Value("${app.jfr.dump-directory:data/jfr}") String dumpDirectory) {
+        this.enabled = enabled;
+        this.settings = settings;
+        this.maxAgeMinutes = maxAgeMinutes;
+        this.maxSizeBytes = maxSizeMegabytes * 1024 * 1024;
+        this.repository = repository;
+        this.dumpDirectory = Paths.get(dumpDirectory);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || recording != null) {
+            return;
+        }
+        try {
+            if (!repository.isBlank()) {
+                Files.createDirectories(Paths.get(repository));
+                diagnosticCommand("jfrConfigure", "repositorypath=" + repository);
+            }
+            Recording started = new Recording(Configuration.getConfiguration(settings));
+            started.setName(RECORDING_NAME);
+            started.setToDisk(true);
+            started.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            started.setMaxSize(maxSizeBytes);
+            started.start();
+            recording = started;
+            log.info("Continuous flight recording started with '{}' settings, keeping {} minutes up to {} MB",
+                    settings, maxAgeMinutes, maxSizeBytes / (1024 * 1024));
+        } catch (IOException | ParseException | JMException | RuntimeException ex) {
+            log.warn("Could not start the continuous flight recording", ex);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    public synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    public int getMaxAgeMinutes() {
+        return maxAgeMinutes;
+    }
+
+    /**
+     * Writes the events of the last {@code minutes} to a new file in the dump directory and returns
+     * its path. The recording keeps running.
+     */
+    public synchronized Path dump(int minutes) throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("Continuous flight recording is not running");
+        }
+        Files.createDirectories(dumpDirectory);
+        Path file = dumpDirectory.resolve("expense-tracker-" + LocalDateTime.now().format(FILE_TIMESTAMP)
+                + "-last-" + minutes + "m.jfr").toAbsolutePath();
+        try {
+            // JFR.dump is the only supported way to cut a running recording down to its last minutes
+            diagnosticCommand("jfrDump", "name=" + recording.getId(), "maxage=" + minutes + "m",
+                    "filename=" + file);
+        } catch (JMException ex) {
+            throw new IOException("Dumping the flight recording failed", ex);
+        }
+        if (!Files.exists(file)) {
+            throw new IOException("Flight recording dump produced no file: " + file);
+        }
+        log.info("Dumped the last {} minutes of the flight recording to {} ({} bytes)", minutes, file, Files.size(file));
+        return file;
+    }
+
+    private static String diagnosticCommand(String operation, String... arguments) throws JMException {
+        Object output = ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), operation,
+                new Object[]{arguments}, new String[]{String[].class.getName()});
+        return String.valueOf(output);
+    }
+}
@@ -0,0 +1,24 @@
+package com.expensetracker.api.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(ExpenseOperationEvent.NAME)
+@Label("Expense Operation")
+@Category("Expense Tracker")
+@Description("A call into ExpenseService, including its transaction")
+@StackTrace(false)
+public class ExpenseOperationEvent extends Event {
+    static final String NAME = "expensetracker.ExpenseOperation";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Failure")
+    @Description("Exception class when the operation failed")
+    String failure;
+}
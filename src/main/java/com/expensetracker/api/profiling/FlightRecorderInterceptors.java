@@ -0,0 +1,86 @@
+package com.expensetracker.api.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Method interceptors that emit {@link ExpenseOperationEvent}s and {@link RepositoryQueryEvent}s.
+ * Creating an event is cheap and {@code shouldCommit()} is false unless a recording has the event
+ * enabled, so the interceptors stay installed whether or not anything is recording.
+ */
+public final class FlightRecorderInterceptors {
+
+    private FlightRecorderInterceptors() {
+    }
+
+    public static MethodInterceptor expenseOperations() {
+        return invocation -> {
+            ExpenseOperationEvent event = new ExpenseOperationEvent();
+            event.begin();
+            Throwable failure = null;
+            try {
+                return invocation.proceed();
+            } catch (Throwable ex) {
+                failure = ex;
+                throw ex;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = invocation.getMethod().getName();
+                    event.failure = failure == null ? null : failure.getClass().getSimpleName();
+                    event.commit();
+                }
+            }
+        };
+    }
+
+    public static MethodInterceptor repositoryQueries(Class<?> repositoryInterface) {
+        String repository = repositoryInterface.getSimpleName();
+        return invocation -> {
+            RepositoryQueryEvent event = new RepositoryQueryEvent();
+            event.begin();
+            Object result = null;
+            Throwable failure = null;
+            try {
+                result = invocation.proceed();
+                return result;
+            } catch (Throwable ex) {
+                failure = ex;
+                throw ex;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.repository = repository;
+                    event.method = invocation.getMethod().getName();
+                    event.rows = failure == null ? rowCount(result) : 0;
+                    event.failure = failure == null ? null : failure.getClass().getSimpleName();
+                    event.commit();
+                }
+            }
+        };
+    }
+
+    static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        // Entities, projections, counts and existence checks are a single row
+        return 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.expensetracker.api.profiling;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/flightrecording}: GET reports whether the continuous recording runs, POST with
+ * {@code {"minutes": N}} dumps its last N minutes to a file on the server.
+ */
+@Component
+@Endpoint(id = "flightrecording")
+public class FlightRecordingEndpoint {
+    static final int DEFAULT_MINUTES = 5;
+
+    private final ContinuousRecording continuousRecording;
+
+    public FlightRecordingEndpoint(ContinuousRecording continuousRecording) {
+        this.continuousRecording = continuousRecording;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("recording", continuousRecording.isRecording());
+        status.put("maxAgeMinutes", continuousRecording.getMaxAgeMinutes());
+        return status;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> dump(@Nullable Integer minutes) throws IOException {
+        int lastMinutes = minutes == null ? DEFAULT_MINUTES : minutes;
+        if (lastMinutes < 1 || lastMinutes > continuousRecording.getMaxAgeMinutes()) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST,
+                    "minutes must be between 1 and " + continuousRecording.getMaxAgeMinutes());
+        }
+        if (!continuousRecording.isRecording()) {
+            return error(409, "Continuous flight recording is not running; set app.jfr.enabled=true");
+        }
+
+        Path file = continuousRecording.dump(lastMinutes);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("file", file.toString());
+        body.put("sizeBytes", Files.size(file));
+        body.put("minutes", lastMinutes);
+        return new WebEndpointResponse<>(body);
+    }
+
+    private static WebEndpointResponse<Map<String, Object>> error(int status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", message);
+        return new WebEndpointResponse<>(body, status);
+    }
+}
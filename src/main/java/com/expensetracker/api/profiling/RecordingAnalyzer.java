@@ -0,0 +1,159 @@
+package com.expensetracker.api.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offline summary of a flight recording dump: one latency histogram per service operation,
+ * repository query, report kind and authentication outcome. Needs nothing but the JDK:
+ * <pre>
+ * java -cp target/classes com.expensetracker.api.profiling.RecordingAnalyzer dump.jfr
+ * </pre>
+ */
+public final class RecordingAnalyzer {
+    /** Upper bounds of the histogram buckets in milliseconds; the last bucket is open. */
+    static final double[] BUCKET_BOUNDS_MS = {0.1, 0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000};
+    private static final int BAR_WIDTH = 40;
+
+    private RecordingAnalyzer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: RecordingAnalyzer <recording.jfr>");
+            System.exit(2);
+        }
+        print(analyze(Paths.get(args[0])), System.out);
+    }
+
+    /**
+     * Reads the application's events from a recording, keyed by operation in alphabetical order.
+     */
+    static Map<String, OperationLatencies> analyze(Path recording) throws IOException {
+        Map<String, OperationLatencies> operations = new TreeMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String key = operationKey(event);
+                if (key == null) {
+                    continue;
+                }
+                long rows = event.getEventType().getName().equals(RepositoryQueryEvent.NAME) ? event.getLong("rows") : 0;
+                operations.computeIfAbsent(key, ignored -> new OperationLatencies())
+                        .add(event.getDuration().toNanos(), rows);
+            }
+        }
+        return operations;
+    }
+
+    private static String operationKey(RecordedEvent event) {
+        String failure = event.hasField("failure") && event.getString("failure") != null
+                ? " [" + event.getString("failure") + "]" : "";
+        switch (event.getEventType().getName()) {
+            case ExpenseOperationEvent.NAME:
+                return "service " + event.getString("operation") + failure;
+            case RepositoryQueryEvent.NAME:
+                return "query   " + event.getString("repository") + "." + event.getString("method") + failure;
+            case ReportAggregationEvent.NAME:
+                return "report  " + event.getString("kind") + " (" + event.getString("source") + ")";
+            case AuthenticationEvent.NAME:
+                return "auth    " + event.getString("outcome");
+            default:
+                return null;
+        }
+    }
+
+    static void print(Map<String, OperationLatencies> operations, PrintStream out) {
+        if (operations.isEmpty()) {
+            out.println("No expense tracker events in the recording");
+            return;
+        }
+        out.printf(Locale.ROOT, "%-60s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "p50 ms", "p90 ms", "p99 ms", "max ms", "rows/call");
+        operations.forEach((key, latencies) -> out.printf(Locale.ROOT, "%-60s %8d %9.2f %9.2f %9.2f %9.2f %9s%n",
+                key, latencies.count(), latencies.percentileMillis(50), latencies.percentileMillis(90),
+                latencies.percentileMillis(99), latencies.percentileMillis(100),
+                key.startsWith("query")
+                        ? String.format(Locale.ROOT, "%.1f", (double) latencies.rows() / latencies.count()) : ""));
+
+        operations.forEach((key, latencies) -> {
+            out.println();
+            out.println(key);
+            long[] buckets = latencies.histogram();
+            long largest = Arrays.stream(buckets).max().orElse(1);
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] == 0) {
+                    continue;
+                }
+                String label = i < BUCKET_BOUNDS_MS.length ? "< " + BUCKET_BOUNDS_MS[i] : ">= " + BUCKET_BOUNDS_MS[i - 1];
+                int bar = (int) Math.max(1, buckets[i] * BAR_WIDTH / largest);
+                out.printf(Locale.ROOT, "  %10s ms %8d %s%n", label, buckets[i], "#".repeat(bar));
+            }
+        });
+    }
+
+    /**
+     * Durations of one operation; all of them are kept, so percentiles are exact.
+     */
+    static final class OperationLatencies {
+        private long[] durationsNanos = new long[16];
+        private int count;
+        private long rows;
+        private boolean sorted = true;
+
+        void add(long durationNanos, long rowCount) {
+            if (count == durationsNanos.length) {
+                durationsNanos = Arrays.copyOf(durationsNanos, count * 2);
+            }
+            durationsNanos[count++] = durationNanos;
+            rows += rowCount;
+            sorted = false;
+        }
+
+        int count() {
+            return count;
+        }
+
+        long rows() {
+            return rows;
+        }
+
+        /**
+         * Nearest-rank percentile; 100 is the maximum.
+         */
+        double percentileMillis(double percentile) {
+            sort();
+            int rank = (int) Math.ceil(percentile / 100 * count);
+            return durationsNanos[Math.max(0, rank - 1)] / 1e6;
+        }
+
+        long[] histogram() {
+            long[] buckets = new long[BUCKET_BOUNDS_MS.length + 1];
+            for (int i = 0; i < count; i++) {
+                double millis = durationsNanos[i] / 1e6;
+                int bucket = 0;
+                while (bucket < BUCKET_BOUNDS_MS.length && millis >= BUCKET_BOUNDS_MS[bucket]) {
+                    bucket++;
+                }
+                buckets[bucket]++;
+            }
+            return buckets;
+        }
+
+        private void sort() {
+            if (!sorted) {
+                Arrays.sort(durationsNanos, 0, count);
+                sorted = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.expensetracker.api.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Aggregation of expenses into report months. Emitted explicitly by the report methods:
+ * <pre>
+ * ReportAggregationEvent aggregation = ReportAggregationEvent.start("monthly");
+ * ...
+ * aggregation.complete("database", 1, expenses.size());
+ * </pre>
+ */
+@Name(ReportAggregationEvent.NAME)
+@Label("Report Aggregation")
+@Category("Expense Tracker")
+@Description("Aggregation of expenses into a monthly or range report")
+@StackTrace(false)
+public class ReportAggregationEvent extends Event {
+    static final String NAME = "expensetracker.ReportAggregation";
+
+    @Label("Kind")
+    String kind;
+
+    @Label("Source")
+    @Description("analytics-store when served from the in-memory store, database otherwise")
+    String source;
+
+    @Label("Months")
+    int months;
+
+    @Label("Expenses")
+    long expenses;
+
+    public static ReportAggregationEvent start(String kind) {
+        ReportAggregationEvent event = new ReportAggregationEvent();
+        event.kind = kind;
+        event.begin();
+        return event;
+    }
+
+    public void complete(String source, int months, long expenses) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.months = months;
+            this.expenses = expenses;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.expensetracker.api.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(RepositoryQueryEvent.NAME)
+@Label("Repository Query")
+@Category("Expense Tracker")
+@Description("A Spring Data repository call and the number of rows it returned")
+@StackTrace(false)
+public class RepositoryQueryEvent extends Event {
+    static final String NAME = "expensetracker.RepositoryQuery";
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Rows")
+    @Description("Elements of a returned collection, page or slice; 1 or 0 for single results")
+    long rows;
+
+    @Label("Failure")
+    String failure;
+}
@@ -0,0 +1,40 @@
+package com.expensetracker.api.profiling;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Records an {@link AuthenticationEvent} around another provider.
+ */
+public class TimedAuthenticationProvider implements AuthenticationProvider {
+    private final AuthenticationProvider delegate;
+
+    public TimedAuthenticationProvider(AuthenticationProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        AuthenticationEvent event = new AuthenticationEvent();
+        event.begin();
+        String outcome = "failure";
+        try {
+            Authentication result = delegate.authenticate(authentication);
+            outcome = result == null ? "skipped" : "success";
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.username = authentication.getName();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,15 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.entity.Category;
+
+import java.util.List;
+
+public interface CategoryRepositoryCustom {
+
+    /**
+     * Inserts the categories whose names are not taken yet with a single statement and returns the
+     * rows it inserted. A name that already exists, or that a concurrent transaction inserts first,
+     * is skipped instead of failing the statement.
+     */
+    List<Category> insertAllIfAbsent(List<NewCategory> categories);
+}
@@ -0,0 +1,53 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.entity.Category;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+@RequiredArgsConstructor
+class CategoryRepositoryImpl implements CategoryRepositoryCustom {
+
+    // The id is drawn up front so the path, which ends with it, is written by the same insert.
+    // Names that conflict only cost a sequence value.
+    private static final String INSERT_ALL_IF_ABSENT = "INSERT INTO categories (id, name, parent_id, path) " +
+            "SELECT n.id, n.name, n.parent_id, n.parent_path || n.id || '/' " +
+            "FROM (SELECT nextval(pg_get_serial_sequence('categories', 'id')) AS id, k.name, k.parent_id, k.parent_path " +
+            "FROM unnest(?, ?, ?) AS k(name, parent_id, parent_path)) n " +
+            "ON CONFLICT (name) DO NOTHING " +
+            "RETURNING id, name, parent_id, path";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Category> insertAllIfAbsent(List<NewCategory> categories) {
+        if (categories.isEmpty()) {
+            return List.of();
+        }
+        String[] names = new String[categories.size()];
+        Long[] parentIds = new Long[categories.size()];
+        String[] parentPaths = new String[categories.size()];
+        for (int i = 0; i < categories.size(); i++) {
+            names[i] = categories.get(i).getName();
+            parentIds[i] = categories.get(i).getParentId();
+            parentPaths[i] = categories.get(i).getParentPath();
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement insert = connection.prepareStatement(INSERT_ALL_IF_ABSENT);
+            insert.setArray(1, connection.createArrayOf("varchar", names));
+            insert.setArray(2, connection.createArrayOf("bigint", parentIds));
+            insert.setArray(3, connection.createArrayOf("varchar", parentPaths));
+            return insert;
+        }, (rs, rowNum) -> {
+            Category category = new Category();
+            category.setId(rs.getLong("id"));
+            category.setName(rs.getString("name"));
+            category.setParentId(rs.getObject("parent_id", Long.class));
+            category.setPath(rs.getString("path"));
+            return category;
+        });
+    }
+}
@@ -0,0 +1,11 @@
+package com.expensetracker.api.repository;
+
+import java.time.LocalDate;
+
+public interface ExpenseAnalyticsRow {
+    Long getId();
+    LocalDate getDate();
+    long getAmountMinor();
+    Long getCategoryId();
+    String getCategoryName();
+}
@@ -0,0 +1,28 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.entity.ExpenseArchive;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ExpenseArchiveRepository extends JpaRepository<ExpenseArchive, Long> {
+
+    // Makes sure the user's row exists so archive and restore runs can serialize on its row lock
+    @Modifying
+    @Query(value = "INSERT INTO expense_archives (user_id, generation, expense_count, size_bytes, checksum) " +
+            "VALUES (:userId, 0, 0, 0, 0) ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("userId") Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM ExpenseArchive a WHERE a.userId = :userId")
+    Optional<ExpenseArchive> findForUpdate(@Param("userId") Long userId);
+
+    Optional<ExpenseArchive> findByUserId(Long userId);
+}
@@ -1,23 +1,135 @@
 package com.expensetracker.api.repository;
 
 import com.expensetracker.api.entity.Expense;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, ExpenseRepositoryCustom {
     List<Expense> findByUserId(Long userId);
     List<Expense> findByUserIdAndCategoryName(Long userId, String categoryName);
     Optional<Expense> findByIdAndUserId(Long id, Long userId);
 
-    @Query("SELECT e FROM Expense e WHERE e.user.id = :userId " +
-            "AND YEAR(e.date) = :year AND MONTH(e.date) = :month")
-    List<Expense> findByUserIdAndYearAndMonth(@Param("userId") Long userId,
-                                              @Param("year") int year,
-                                              @Param("month") int month);
-}
\ No newline at end of file
+    // A plain range on date (rather than YEAR()/MONTH()) lets PostgreSQL prune to one partition
+    @Query("SELECT e FROM Expense e WHERE e.user.id = :userId AND e.date >= :from AND e.date < :to")
+    List<Expense> findByUserIdAndDateRange(@Param("userId") Long userId,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to);
+
+    @Query("SELECT YEAR(e.date) AS year, MONTH(e.date) AS month, c.name AS categoryName, " +
+            "SUM(e.amountMinor) AS totalMinor, COUNT(e) AS expenseCount " +
+            "FROM Expense e JOIN e.category c " +
+            "WHERE e.user.id = :userId AND e.date >= :from AND e.date < :to " +
+            "GROUP BY YEAR(e.date), MONTH(e.date), c.name")
+    List<MonthlyCategoryTotal> sumByMonthAndCategory(@Param("userId") Long userId,
+                                                     @Param("from") LocalDate from,
+                                                     @Param("to") LocalDate to);
+
+    // Groups by each category's ancestor at :depth, read off its materialized path (the second
+    // segment of /3/17/42/ is 17); shallower categories keep their own id. The subtree filter is a
+    // range on categories.path, answered by idx_categories_path instead of a recursive query.
+    @Query(value = "SELECT CAST(EXTRACT(YEAR FROM e.date) AS int) AS year, CAST(EXTRACT(MONTH FROM e.date) AS int) AS month, " +
+            "COALESCE(CAST(NULLIF(split_part(c.path, '/', :depth + 1), '') AS bigint), c.id) AS categoryId, " +
+            "CAST(SUM(e.amount_minor) AS bigint) AS totalMinor, COUNT(*) AS expenseCount " +
+            "FROM expenses e JOIN categories c ON c.id = e.category_id " +
+            "WHERE e.user_id = :userId AND e.date >= :from AND e.date < :to AND e.deleted_at IS NULL " +
+            "AND c.path >= :pathFrom AND c.path < :pathTo " +
+            "GROUP BY 1, 2, 3", nativeQuery = true)
+    List<MonthlyAncestorTotal> sumByMonthAndAncestor(@Param("userId") Long userId,
+                                                     @Param("from") LocalDate from,
+                                                     @Param("to") LocalDate to,
+                                                     @Param("depth") int depth,
+                                                     @Param("pathFrom") String pathFrom,
+                                                     @Param("pathTo") String pathTo);
+
+    @Query("SELECT YEAR(e.date) AS year, MONTH(e.date) AS month, SUM(e.amountMinor) AS totalMinor, COUNT(e) AS expenseCount " +
+            "FROM Expense e WHERE e.user.id = :userId AND e.date >= :from AND e.date < :to " +
+            "GROUP BY YEAR(e.date), MONTH(e.date)")
+    List<MonthlyTotal> sumByMonth(@Param("userId") Long userId,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
+
+    // Buckets are numbered from :from in steps of :stepDays; generate_series emits a row for every
+    // bucket so days without expenses come back as zero instead of being missing.
+    @Query(value = "SELECT s.idx AS bucket, CAST(NULL AS varchar) AS categoryName, COALESCE(t.total_minor, 0) AS totalMinor " +
+            "FROM generate_series(0, :bucketCount - 1) AS s(idx) " +
+            "LEFT JOIN (SELECT (e.date - CAST(:from AS date)) / :stepDays AS idx, " +
+            "CAST(SUM(e.amount_minor) AS bigint) AS total_minor " +
+            "FROM expenses e WHERE e.user_id = :userId AND e.date >= :from AND e.date < :to AND e.deleted_at IS NULL " +
+            "GROUP BY 1) t ON t.idx = s.idx " +
+            "ORDER BY s.idx", nativeQuery = true)
+    List<TimeSeriesBucket> sumByBucket(@Param("userId") Long userId,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to,
+                                       @Param("stepDays") int stepDays,
+                                       @Param("bucketCount") int bucketCount);
+
+    @Query(value = "SELECT s.idx AS bucket, t.category_name AS categoryName, COALESCE(t.total_minor, 0) AS totalMinor " +
+            "FROM generate_series(0, :bucketCount - 1) AS s(idx) " +
+            "LEFT JOIN (SELECT (e.date - CAST(:from AS date)) / :stepDays AS idx, c.name AS category_name, " +
+            "CAST(SUM(e.amount_minor) AS bigint) AS total_minor " +
+            "FROM expenses e JOIN categories c ON c.id = e.category_id " +
+            "WHERE e.user_id = :userId AND e.date >= :from AND e.date < :to AND e.deleted_at IS NULL " +
+            "GROUP BY 1, 2) t ON t.idx = s.idx " +
+            "ORDER BY s.idx", nativeQuery = true)
+    List<TimeSeriesBucket> sumByBucketAndCategory(@Param("userId") Long userId,
+                                                  @Param("from") LocalDate from,
+                                                  @Param("to") LocalDate to,
+                                                  @Param("stepDays") int stepDays,
+                                                  @Param("bucketCount") int bucketCount);
+
+    @Query("SELECT e.id AS id, e.date AS date, e.amountMinor AS amountMinor, c.id AS categoryId, c.name AS categoryName " +
+            "FROM Expense e JOIN e.category c WHERE e.user.id = :userId ORDER BY e.date")
+    List<ExpenseAnalyticsRow> findAnalyticsRowsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT e.amountMinor FROM Expense e WHERE e.user.id = :userId AND e.category.id = :categoryId " +
+            "AND e.date >= :from AND e.date < :to")
+    List<Long> findAmountsByUserIdAndCategoryIdAndDateRange(@Param("userId") Long userId,
+                                                            @Param("categoryId") Long categoryId,
+                                                            @Param("from") LocalDate from,
+                                                            @Param("to") LocalDate to);
+
+    // Takes each expense back out of its category's moments (o.n, o.s and o.q are the count, sum and
+    // sum of squares of the others) and keeps it when (x - mean)^2 > threshold^2 * variance, with both
+    // sides multiplied by n^2 * (n - 1) so the comparison stays in exact numeric arithmetic
+    @Query(value = "SELECT e.* FROM expenses e " +
+            "JOIN spending_moments m ON m.user_id = e.user_id AND m.category_id = e.category_id " +
+            "CROSS JOIN LATERAL (SELECT m.expense_count - 1 AS n, " +
+            "CAST(m.amount_sum - e.amount_minor AS numeric) AS s, " +
+            "m.amount_sum_squares - CAST(e.amount_minor AS numeric) * e.amount_minor AS q) o " +
+            "WHERE e.user_id = :userId AND e.deleted_at IS NULL AND o.n >= :minSamples AND o.n * o.q - o.s * o.s > 0 " +
+            "AND (CAST(e.amount_minor AS numeric) * o.n - o.s) * (CAST(e.amount_minor AS numeric) * o.n - o.s) * (o.n - 1) " +
+            "> :thresholdSquared * o.n * (o.n * o.q - o.s * o.s) " +
+            "ORDER BY e.date DESC, e.id DESC", nativeQuery = true)
+    List<Expense> findAnomalies(@Param("userId") Long userId,
+                                @Param("minSamples") long minSamples,
+                                @Param("thresholdSquared") BigDecimal thresholdSquared);
+
+    @EntityGraph(attributePaths = "category")
+    List<Expense> findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(Long userId, Long changeSeq, Limit limit);
+
+    // Soft-deleted rows are hidden from entity queries, so undoing a delete goes through SQL
+    @Modifying
+    @Query(value = "UPDATE expenses SET deleted_at = NULL, change_seq = :changeSeq, updated_at = :now " +
+            "WHERE id = :id AND user_id = :userId AND deleted_at >= :restorableSince", nativeQuery = true)
+    int restoreDeleted(@Param("id") Long id,
+                       @Param("userId") Long userId,
+                       @Param("restorableSince") Instant restorableSince,
+                       @Param("changeSeq") Long changeSeq,
+                       @Param("now") Instant now);
+
+    // Also takes the user's change lock until commit (see schema.sql), so draw it before writing anything
+    @Query(value = "SELECT next_expense_change_seq(:userId)", nativeQuery = true)
+    Long nextChangeSeq(@Param("userId") Long userId);
+}
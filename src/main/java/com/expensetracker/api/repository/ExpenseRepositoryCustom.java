@@ -0,0 +1,15 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.dto.ExpenseField;
+import com.expensetracker.api.dto.FieldSelection;
+
+import java.util.List;
+
+public interface ExpenseRepositoryCustom {
+
+    /**
+     * Reads a user's expenses, optionally in one category, selecting only the columns behind the
+     * given fields. Categories are only joined when their name is selected or filtered on.
+     */
+    List<SparseExpenseRow> findSelectedFields(Long userId, String categoryName, FieldSelection<ExpenseField> fields);
+}
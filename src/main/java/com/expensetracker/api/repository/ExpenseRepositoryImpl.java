@@ -0,0 +1,62 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.dto.ExpenseField;
+import com.expensetracker.api.dto.FieldSelection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+class ExpenseRepositoryImpl implements ExpenseRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<SparseExpenseRow> findSelectedFields(Long userId, String categoryName, FieldSelection<ExpenseField> fields) {
+        boolean id = fields.includes(ExpenseField.ID);
+        boolean amount = fields.includes(ExpenseField.AMOUNT);
+        boolean date = fields.includes(ExpenseField.DATE);
+        boolean description = fields.includes(ExpenseField.DESCRIPTION);
+        boolean category = fields.includes(ExpenseField.CATEGORY_NAME);
+
+        List<String> columns = new ArrayList<>();
+        if (id) {
+            columns.add("e.id");
+        }
+        if (amount) {
+            columns.add("e.amount_minor");
+        }
+        if (date) {
+            columns.add("e.date");
+        }
+        if (description) {
+            columns.add("e.description");
+        }
+        if (category) {
+            columns.add("c.name");
+        }
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", columns)).append(" FROM expenses e");
+        if (category || categoryName != null) {
+            sql.append(" JOIN categories c ON c.id = e.category_id");
+        }
+        sql.append(" WHERE e.user_id = ? AND e.deleted_at IS NULL");
+        Object[] arguments = categoryName == null ? new Object[]{userId} : new Object[]{userId, categoryName};
+        if (categoryName != null) {
+            sql.append(" AND c.name = ?");
+        }
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            int column = 1;
+            Long rowId = id ? rs.getLong(column++) : null;
+            Long amountMinor = amount ? rs.getLong(column++) : null;
+            Date rowDate = date ? rs.getDate(column++) : null;
+            String rowDescription = description ? rs.getString(column++) : null;
+            String rowCategory = category ? rs.getString(column) : null;
+            return new SparseExpenseRow(rowId, amountMinor, rowDate == null ? null : rowDate.toLocalDate(),
+                    rowDescription, rowCategory);
+        }, arguments);
+    }
+}
@@ -0,0 +1,13 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.entity.ExpenseTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ExpenseTombstoneRepository extends JpaRepository<ExpenseTombstone, Long> {
+    List<ExpenseTombstone> findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(Long userId, Long changeSeq, Limit limit);
+}
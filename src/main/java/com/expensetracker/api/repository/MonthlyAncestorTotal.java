@@ -0,0 +1,9 @@
+package com.expensetracker.api.repository;
+
+public interface MonthlyAncestorTotal {
+    int getYear();
+    int getMonth();
+    long getCategoryId();
+    long getTotalMinor();
+    long getExpenseCount();
+}
@@ -0,0 +1,9 @@
+package com.expensetracker.api.repository;
+
+public interface MonthlyCategoryTotal {
+    int getYear();
+    int getMonth();
+    String getCategoryName();
+    long getTotalMinor();
+    long getExpenseCount();
+}
@@ -0,0 +1,8 @@
+package com.expensetracker.api.repository;
+
+public interface MonthlyTotal {
+    int getYear();
+    int getMonth();
+    long getTotalMinor();
+    long getExpenseCount();
+}
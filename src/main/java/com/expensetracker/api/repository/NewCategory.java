@@ -0,0 +1,14 @@
+package com.expensetracker.api.repository;
+
+import lombok.Value;
+
+/**
+ * A category to insert under an existing parent, or at the top level when {@code parentId} is null
+ * and {@code parentPath} is {@code "/"}.
+ */
+@Value
+public class NewCategory {
+    String name;
+    Long parentId;
+    String parentPath;
+}
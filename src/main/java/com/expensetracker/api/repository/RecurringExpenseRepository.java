@@ -0,0 +1,17 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.entity.RecurringExpense;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, Long> {
+    @EntityGraph(attributePaths = "category")
+    List<RecurringExpense> findByUserIdOrderByIdAsc(Long userId);
+
+    Optional<RecurringExpense> findByIdAndUserId(Long id, Long userId);
+}
@@ -0,0 +1,57 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.entity.ReportSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReportSnapshotRepository extends JpaRepository<ReportSnapshot, Long> {
+
+    Optional<ReportSnapshot> findByUserIdAndMonthStart(Long userId, LocalDate monthStart);
+
+    // Creates the row when missing, so a snapshot computed concurrently from older data can neither
+    // insert itself nor match the version any more
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO report_snapshots (user_id, month_start, version) VALUES (:userId, :monthStart, 1) " +
+            "ON CONFLICT (user_id, month_start) DO UPDATE " +
+            "SET version = report_snapshots.version + 1, body = NULL, computed_at = NULL", nativeQuery = true)
+    void markStale(@Param("userId") Long userId, @Param("monthStart") LocalDate monthStart);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO report_snapshots (user_id, month_start, version, body, computed_at) " +
+            "VALUES (:userId, :monthStart, 0, :body, now()) " +
+            "ON CONFLICT (user_id, month_start) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("monthStart") LocalDate monthStart,
+                       @Param("body") byte[] body);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE report_snapshots SET body = :body, computed_at = now() " +
+            "WHERE user_id = :userId AND month_start = :monthStart AND version = :version", nativeQuery = true)
+    int storeIfCurrent(@Param("userId") Long userId,
+                       @Param("monthStart") LocalDate monthStart,
+                       @Param("version") long version,
+                       @Param("body") byte[] body);
+
+    // Keyset over user ids; the partition for the month is the only one scanned
+    @Query(value = "SELECT DISTINCT e.user_id FROM expenses e " +
+            "WHERE e.date >= :monthStart AND e.date < :monthEnd AND e.user_id > :afterUserId AND e.deleted_at IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM report_snapshots s WHERE s.user_id = e.user_id " +
+            "AND s.month_start = :monthStart AND s.body IS NOT NULL) " +
+            "ORDER BY e.user_id LIMIT :limit", nativeQuery = true)
+    List<Long> findUsersWithoutSnapshot(@Param("monthStart") LocalDate monthStart,
+                                        @Param("monthEnd") LocalDate monthEnd,
+                                        @Param("afterUserId") long afterUserId,
+                                        @Param("limit") int limit);
+}
@@ -0,0 +1,9 @@
+package com.expensetracker.api.repository;
+
+import java.time.LocalDate;
+
+public interface SketchBucketKey {
+    Long getUserId();
+    Long getCategoryId();
+    LocalDate getMonthStart();
+}
@@ -0,0 +1,17 @@
+package com.expensetracker.api.repository;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * An expense read with only the selected columns; the others are null.
+ */
+@Value
+public class SparseExpenseRow {
+    Long id;
+    Long amountMinor;
+    LocalDate date;
+    String description;
+    String categoryName;
+}
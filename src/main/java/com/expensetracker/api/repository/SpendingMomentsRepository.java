@@ -0,0 +1,12 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.entity.SpendingMoments;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SpendingMomentsRepository extends JpaRepository<SpendingMoments, Long> {
+    List<SpendingMoments> findByUserId(Long userId);
+}
@@ -0,0 +1,44 @@
+package com.expensetracker.api.repository;
+
+import com.expensetracker.api.entity.SpendingSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SpendingSketchRepository extends JpaRepository<SpendingSketch, Long> {
+
+    // Makes sure the bucket row exists so concurrent writers can serialize on its row lock
+    @Modifying
+    @Query(value = "INSERT INTO spending_sketches (user_id, category_id, month_start, sketch) " +
+            "VALUES (:userId, :categoryId, :monthStart, :sketch) " +
+            "ON CONFLICT (user_id, month_start, category_id) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("userId") Long userId,
+                        @Param("categoryId") Long categoryId,
+                        @Param("monthStart") LocalDate monthStart,
+                        @Param("sketch") byte[] sketch);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SpendingSketch s WHERE s.userId = :userId " +
+            "AND s.categoryId = :categoryId AND s.monthStart = :monthStart")
+    Optional<SpendingSketch> findForUpdate(@Param("userId") Long userId,
+                                           @Param("categoryId") Long categoryId,
+                                           @Param("monthStart") LocalDate monthStart);
+
+    @Query(value = "SELECT DISTINCT e.user_id AS userId, e.category_id AS categoryId, " +
+            "CAST(date_trunc('month', e.date) AS date) AS monthStart " +
+            "FROM expenses e WHERE e.deleted_at IS NULL AND NOT EXISTS (SELECT 1 FROM spending_sketches s " +
+            "WHERE s.user_id = e.user_id AND s.category_id = e.category_id " +
+            "AND s.month_start = CAST(date_trunc('month', e.date) AS date))", nativeQuery = true)
+    List<SketchBucketKey> findBucketsWithoutSketch();
+
+    List<SpendingSketch> findByUserIdAndMonthStartBetween(Long userId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,7 @@
+package com.expensetracker.api.repository;
+
+public interface TimeSeriesBucket {
+    int getBucket();
+    String getCategoryName();
+    long getTotalMinor();
+}
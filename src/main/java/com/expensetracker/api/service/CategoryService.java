@@ -1,35 +1,112 @@
 package com.expensetracker.api.service;
 
 import com.expensetracker.api.controller.exception.DuplicateResourceException;
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.controller.exception.ResourceNotFoundException;
+import com.expensetracker.api.dto.CategoryListing;
 import com.expensetracker.api.dto.CategoryResponse;
+import com.expensetracker.api.dto.CreateCategoriesRequest;
+import com.expensetracker.api.dto.CreateCategoriesResponse;
 import com.expensetracker.api.dto.CreateCategoryRequest;
 import com.expensetracker.api.entity.Category;
 import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.repository.NewCategory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates categories with {@code INSERT ... ON CONFLICT (name) DO NOTHING}, so a name taken by a
+ * concurrent request is reported as a duplicate rather than failing on the unique constraint.
+ * Parents are looked up in {@link CategoryTree}, which serves the listing as well.
+ */
 @Service
 @RequiredArgsConstructor
 public class CategoryService {
+    static final int MAX_DEPTH = 8;
 
     private final CategoryRepository categoryRepository;
     private final UserService userService;
+    private final CategoryTree categoryTree;
+
+    public CategoryListing getCategories() {
+        return categoryTree.listing();
+    }
 
+    @Transactional
     public CategoryResponse createCategory(CreateCategoryRequest request) {
         userService.getAuthenticatedUser();
 
-        if (categoryRepository.findByName(request.getName()).isPresent()) {
+        CategoryTree.Node parent = request.getParentName() == null ? null : findParent(request.getParentName());
+        List<Category> created = categoryRepository.insertAllIfAbsent(List.of(newCategory(request.getName(), parent)));
+        if (created.isEmpty()) {
             throw new DuplicateResourceException("Category already exists: " + request.getName());
         }
+        TransactionHooks.afterCommit(categoryTree::refresh);
+
+        return toResponse(created.get(0), request.getParentName());
+    }
+
+    /**
+     * Creates every requested category whose name is free, in one statement. Names that already
+     * exist are returned as such and left unchanged. Parents must exist before the request.
+     */
+    @Transactional
+    public CreateCategoriesResponse createCategories(CreateCategoriesRequest request) {
+        userService.getAuthenticatedUser();
+
+        Map<String, CategoryTree.Node> parents = new HashMap<>();
+        Map<String, CreateCategoryRequest> requested = new LinkedHashMap<>();
+        List<NewCategory> categories = new ArrayList<>();
+        for (CreateCategoryRequest category : request.getCategories()) {
+            if (requested.putIfAbsent(category.getName(), category) != null) {
+                continue;
+            }
+            CategoryTree.Node parent = category.getParentName() == null ? null
+                    : parents.computeIfAbsent(category.getParentName(), this::findParent);
+            categories.add(newCategory(category.getName(), parent));
+        }
 
-        Category category = new Category();
-        category.setName(request.getName());
+        List<CategoryResponse> created = new ArrayList<>();
+        for (Category category : categoryRepository.insertAllIfAbsent(categories)) {
+            created.add(toResponse(category, requested.remove(category.getName()).getParentName()));
+        }
+        if (!created.isEmpty()) {
+            TransactionHooks.afterCommit(categoryTree::refresh);
+        }
+
+        return CreateCategoriesResponse.builder()
+                .created(created)
+                .existing(new ArrayList<>(requested.keySet()))
+                .build();
+    }
 
-        Category saved = categoryRepository.save(category);
+    private CategoryTree.Node findParent(String name) {
+        CategoryTree.Node parent = categoryTree.findByName(name)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + name));
+        if (parent.getDepth() >= MAX_DEPTH) {
+            throw new InvalidRequestException("Categories cannot be nested more than " + MAX_DEPTH + " levels deep");
+        }
+        return parent;
+    }
+
+    private static NewCategory newCategory(String name, CategoryTree.Node parent) {
+        return parent == null
+                ? new NewCategory(name, null, "/")
+                : new NewCategory(name, parent.getId(), parent.getPath());
+    }
 
+    private static CategoryResponse toResponse(Category category, String parentName) {
         return CategoryResponse.builder()
-                .id(saved.getId())
-                .name(saved.getName())
+                .id(category.getId())
+                .name(category.getName())
+                .parentName(parentName)
                 .build();
     }
-}
\ No newline at end of file
+}
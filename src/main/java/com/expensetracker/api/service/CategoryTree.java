@@ -0,0 +1,185 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.dto.CategoryListing;
+import com.expensetracker.api.dto.CategoryResponse;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.repository.CategoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory copy of the category hierarchy, so reports can name the ancestor a category rolls up to
+ * without reading {@code categories}, and the category listing is served without a query. The copy
+ * is an immutable snapshot replaced as a whole: {@code CategoryService} refreshes it after every
+ * change it commits, and a lookup that misses reloads it once, which picks up categories created
+ * through another instance. Misses reload at most once per {@code app.categories.miss-reload-ms},
+ * so requests naming categories that do not exist cannot force a reload each. The listing also
+ * reloads a snapshot older than {@link #LISTING_MAX_AGE}.
+ */
+@Component
+public class CategoryTree {
+    static final Duration LISTING_MAX_AGE = Duration.ofSeconds(30);
+
+    private final CategoryRepository categoryRepository;
+    private final long missReloadNanos;
+
+    private volatile Snapshot snapshot;
+
+    public CategoryTree(CategoryRepository categoryRepository,
+                        @Value("${app.categories.miss-reload-ms:5000}") long missReloadMillis) {
+        this.categoryRepository = categoryRepository;
+        this.missReloadNanos = Duration.ofMillis(missReloadMillis).toNanos();
+    }
+
+    public Optional<Node> findByName(String name) {
+        Snapshot current = current();
+        Node node = current.byName.get(name);
+        if (node == null) {
+            node = reloadAfterMiss(current).byName.get(name);
+        }
+        return Optional.ofNullable(node);
+    }
+
+    public Optional<Node> findById(Long id) {
+        Snapshot current = current();
+        Node node = current.byId.get(id);
+        if (node == null) {
+            node = reloadAfterMiss(current).byId.get(id);
+        }
+        return Optional.ofNullable(node);
+    }
+
+    /**
+     * The category's ancestor at {@code depth} (1 is top level), or the category itself when it
+     * is not that deep.
+     */
+    public Node ancestorAt(Node node, int depth) {
+        return node.getDepth() <= depth ? node : findById(node.ancestorIdAt(depth)).orElse(node);
+    }
+
+    /**
+     * Every category by name, with an ETag derived from their contents, so every instance that
+     * loaded the same categories hands out the same one.
+     */
+    public CategoryListing listing() {
+        Snapshot current = current();
+        if (System.nanoTime() - current.loadedNanos > LISTING_MAX_AGE.toNanos()) {
+            current = load();
+        }
+        return current.listing;
+    }
+
+    public void refresh() {
+        load();
+    }
+
+    // Lookups that missed in the same snapshot wait for a single reload, and none follows until the
+    // interval has passed; changes made here are picked up at once through refresh()
+    private synchronized Snapshot reloadAfterMiss(Snapshot missed) {
+        Snapshot current = snapshot;
+        if (current != missed || System.nanoTime() - current.loadedNanos < missReloadNanos) {
+            return current;
+        }
+        return load();
+    }
+
+    // Loads run one at a time, so a load that read the table before a commit can never replace the
+    // snapshot of a load that started after it
+    private synchronized Snapshot load() {
+        Map<Long, Node> byId = new HashMap<>();
+        Map<String, Node> byName = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            // Rows written before schema.sql backfilled the column are top level
+            String path = category.getPath() != null ? category.getPath() : "/" + category.getId() + "/";
+            Node node = new Node(category.getId(), category.getName(), category.getParentId(), path);
+            byId.put(node.getId(), node);
+            byName.put(node.getName(), node);
+        }
+        Snapshot loaded = new Snapshot(byId, byName, listing(byId), System.nanoTime());
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private static CategoryListing listing(Map<Long, Node> byId) {
+        List<Node> nodes = new ArrayList<>(byId.values());
+        nodes.sort(Comparator.comparing(Node::getName));
+
+        List<CategoryResponse> categories = new ArrayList<>(nodes.size());
+        StringBuilder contents = new StringBuilder();
+        for (Node node : nodes) {
+            Node parent = node.getParentId() == null ? null : byId.get(node.getParentId());
+            categories.add(CategoryResponse.builder()
+                    .id(node.getId())
+                    .name(node.getName())
+                    .parentName(parent == null ? null : parent.getName())
+                    .build());
+            contents.append(node.getId()).append('\t').append(node.getName()).append('\t')
+                    .append(node.getPath()).append('\n');
+        }
+        String eTag = DigestUtils.md5DigestAsHex(contents.toString().getBytes(StandardCharsets.UTF_8));
+        return new CategoryListing(eTag, List.copyOf(categories));
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    private static final class Snapshot {
+        private final Map<Long, Node> byId;
+        private final Map<String, Node> byName;
+        private final CategoryListing listing;
+        private final long loadedNanos;
+
+        private Snapshot(Map<Long, Node> byId, Map<String, Node> byName, CategoryListing listing, long loadedNanos) {
+            this.byId = byId;
+            this.byName = byName;
+            this.listing = listing;
+            this.loadedNanos = loadedNanos;
+        }
+    }
+
+    @lombok.Value
+    public static class Node {
+        Long id;
+        String name;
+        Long parentId;
+        String path;
+
+        public int getDepth() {
+            int separators = 0;
+            for (int i = 0; i < path.length(); i++) {
+                if (path.charAt(i) == '/') {
+                    separators++;
+                }
+            }
+            return separators - 1;
+        }
+
+        public boolean isWithin(Node ancestor) {
+            return path.startsWith(ancestor.path);
+        }
+
+        /**
+         * Upper bound of this category's subtree in path order: {@code /3/17/} becomes
+         * {@code /3/170}, since {@code '0'} sorts right after {@code '/'}.
+         */
+        public String subtreeEnd() {
+            return path.substring(0, path.length() - 1) + '0';
+        }
+
+        private Long ancestorIdAt(int depth) {
+            return Long.valueOf(path.split("/")[depth]);
+        }
+    }
+}
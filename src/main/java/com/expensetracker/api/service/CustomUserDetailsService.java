@@ -22,6 +22,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getUsername())
                 .password(user.getPassword())
+                .roles(user.getRole().name())
                 .build();
     }
 }
\ No newline at end of file
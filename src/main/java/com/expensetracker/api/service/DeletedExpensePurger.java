@@ -0,0 +1,146 @@
+package com.expensetracker.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hard-deletes expenses that were soft-deleted longer than {@code app.soft-delete.undo-window-minutes}
+ * ago and can no longer be restored. Each run ({@code app.soft-delete.purge-cron}) removes them in
+ * batches of {@code app.soft-delete.purge-batch-size}, each its own transaction found through the
+ * partial index on deleted_at, and sleeps {@code app.soft-delete.purge-pause-ms} between batches so
+ * a backlog drains at a bounded rate instead of competing with requests for I/O and vacuum.
+ * <p>
+ * Every node schedules the job, but only the one holding a PostgreSQL session advisory lock runs it.
+ */
+@Slf4j
+@Component
+public class DeletedExpensePurger {
+    // Fixed key shared by all nodes, distinct from the other leader jobs' keys
+    static final long LEADER_LOCK_KEY = 0x5055_5247_4545L;
+
+    // The outer deleted_at check is re-evaluated on rows restored while the batch waited for their lock.
+    // Attachment rows go with their expense; AttachmentGarbageCollector later drops blobs left unused.
+    // Returns the number of candidates found, then the number purged.
+    private static final String DELETE_BATCH = "WITH candidates AS (SELECT id, date FROM expenses WHERE deleted_at < ? LIMIT ?), " +
+            "purged AS (DELETE FROM expenses e USING candidates d " +
+            "WHERE e.id = d.id AND e.date = d.date AND e.deleted_at < ? RETURNING e.id), " +
+            "detached AS (DELETE FROM expense_attachments a USING purged p WHERE a.expense_id = p.id) " +
+            "SELECT (SELECT count(*) FROM candidates), (SELECT count(*) FROM purged)";
+
+    private final DataSource dataSource;
+    private final Duration undoWindow;
+    private final int batchSize;
+    private final long pauseMs;
+
+    public DeletedExpensePurger(DataSource dataSource,
+                                @Value("${app.soft-delete.undo-window-minutes:30}") long undoWindowMinutes,
+                                @Value("${app.soft-delete.purge-batch-size:500}") int batchSize,
+                                @Value("${app.soft-delete.purge-pause-ms:200}") long pauseMs) {
+        this.dataSource = dataSource;
+        this.undoWindow = Duration.ofMinutes(undoWindowMinutes);
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+    }
+
+    /**
+     * Expenses deleted at or after the returned instant can still be restored.
+     */
+    public Instant restorableSince(Instant now) {
+        return now.minus(undoWindow);
+    }
+
+    @Scheduled(cron = "${app.soft-delete.purge-cron:0 */5 * * * *}")
+    public void purge() {
+        try {
+            purgeExpired(Instant.now());
+        } catch (SQLException ex) {
+            log.error("Purging deleted expenses failed; the next run retries", ex);
+        }
+    }
+
+    /**
+     * Removes every expense whose undo window had closed by {@code now}. Returns the number removed,
+     * or -1 when another node currently holds the leader lock.
+     */
+    public long purgeExpired(Instant now) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!tryLeaderLock(connection)) {
+                log.debug("Another node is purging deleted expenses");
+                return -1;
+            }
+            try {
+                return purgeAsLeader(connection, Timestamp.from(restorableSince(now)));
+            } finally {
+                releaseLeaderLock(connection);
+            }
+        }
+    }
+
+    private long purgeAsLeader(Connection connection, Timestamp cutoff) throws SQLException {
+        long startNanos = System.nanoTime();
+        long purged = 0;
+        int batches = 0;
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_BATCH)) {
+            delete.setTimestamp(1, cutoff);
+            delete.setInt(2, batchSize);
+            delete.setTimestamp(3, cutoff);
+            while (true) {
+                int candidates;
+                try (ResultSet counts = delete.executeQuery()) {
+                    counts.next();
+                    candidates = counts.getInt(1);
+                    purged += counts.getInt(2);
+                }
+                batches++;
+                // Rows restored while the batch waited make it come back short; only running out of
+                // candidates means the backlog is gone
+                if (candidates < batchSize || !pause()) {
+                    break;
+                }
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} deleted expenses in {} batches in {} ms", purged, batches,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+        return purged;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean tryLeaderLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, LEADER_LOCK_KEY);
+            try (ResultSet result = lock.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private static void releaseLeaderLock(Connection connection) throws SQLException {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            unlock.setLong(1, LEADER_LOCK_KEY);
+            unlock.execute();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.expensetracker.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Moves expenses older than {@code app.archive.horizon-months} whole months into archive files, one
+ * user per transaction, then drops the month partitions that emptied out. Expenses modified in the
+ * last {@code app.archive.min-idle-days} stay in the database, so restored rows are not archived
+ * again straight away. Nodes may run the job at the same time; the per-user archive row lock makes
+ * the second run find nothing left to move.
+ */
+@Slf4j
+@Component
+public class ExpenseArchiveJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExpenseArchiveService expenseArchiveService;
+    private final ExpensePartitionMaintenance expensePartitionMaintenance;
+    private final boolean enabled;
+    private final int horizonMonths;
+    private final int minIdleDays;
+
+    public ExpenseArchiveJob(JdbcTemplate jdbcTemplate,
+                             ExpenseArchiveService expenseArchiveService,
+                             ExpensePartitionMaintenance expensePartitionMaintenance,
+                             @Value("${app.archive.enabled:false}") boolean enabled,
+                             @Value("${app.archive.horizon-months:24}") int horizonMonths,
+                             @Value("${app.archive.min-idle-days:30}") int minIdleDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expenseArchiveService = expenseArchiveService;
+        this.expensePartitionMaintenance = expensePartitionMaintenance;
+        this.enabled = enabled;
+        this.horizonMonths = horizonMonths;
+        this.minIdleDays = minIdleDays;
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 0 4 * * *}")
+    public void archive() {
+        if (enabled) {
+            archiveBefore(LocalDate.now().withDayOfMonth(1).minusMonths(horizonMonths),
+                    Instant.now().minus(minIdleDays, ChronoUnit.DAYS));
+        }
+    }
+
+    /**
+     * Archives every expense dated before {@code before} and last modified before {@code idleSince}.
+     * Returns the number of expenses moved.
+     */
+    public long archiveBefore(LocalDate before, Instant idleSince) {
+        long startNanos = System.nanoTime();
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT DISTINCT user_id FROM expenses " +
+                        "WHERE date < ? AND deleted_at IS NULL AND (updated_at IS NULL OR updated_at < ?) ORDER BY user_id",
+                Long.class, before, Timestamp.from(idleSince));
+
+        long archived = 0;
+        int failed = 0;
+        for (Long userId : userIds) {
+            try {
+                archived += expenseArchiveService.archiveUser(userId, before, idleSince);
+            } catch (RuntimeException ex) {
+                failed++;
+                log.error("Archiving expenses for user {} failed; they stay in the database until the next run", userId, ex);
+            }
+        }
+        int dropped = expensePartitionMaintenance.dropEmptyPartitionsBefore(before);
+
+        if (archived > 0 || failed > 0 || dropped > 0) {
+            log.info("Archived {} expenses before {} for {} users ({} failed) and dropped {} empty partitions in {} ms",
+                    archived, before, userIds.size() - failed, failed, dropped, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+        return archived;
+    }
+}
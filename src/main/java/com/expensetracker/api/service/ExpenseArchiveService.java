@@ -0,0 +1,256 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.dto.ArchiveRestoreResponse;
+import com.expensetracker.api.entity.ExpenseArchive;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.ExpenseArchiveRepository;
+import com.expensetracker.api.service.analytics.ExpenseAnalyticsStore;
+import com.expensetracker.api.service.archive.ArchivedExpense;
+import com.expensetracker.api.service.archive.ExpenseArchiveFile;
+import com.expensetracker.api.service.archive.ExpenseArchiveStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Moves old expenses between the {@code expenses} table and per-user archive files, and reads them
+ * back for listings and reports.
+ * <p>
+ * Every expense lives in exactly one of the two places. Files are immutable; a move writes the next
+ * file generation first and then, in one transaction, deletes or re-inserts the rows and points the
+ * user's {@code expense_archives} row at the new generation. A crash before commit leaves an unused
+ * file behind and nothing else. The previous generation is kept until the following move so readers
+ * holding an older snapshot can still open it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExpenseArchiveService {
+    private static final String SELECT_TO_ARCHIVE = "SELECT id, date, amount_minor, category_id, description, change_seq " +
+            "FROM expenses WHERE user_id = ? AND date < ? AND deleted_at IS NULL " +
+            "AND (updated_at IS NULL OR updated_at < ?) " +
+            "ORDER BY date, id FOR UPDATE";
+    // Ids rather than the date bound alone, so an expense backdated while we were writing stays put
+    private static final String DELETE_ARCHIVED = "DELETE FROM expenses WHERE user_id = ? AND date < ? AND id = ANY(?)";
+    // Restored rows keep their ids and change sequence numbers; sync clients already hold them
+    private static final String INSERT_RESTORED = "INSERT INTO expenses " +
+            "(id, amount_minor, date, description, category_id, user_id, change_seq, updated_at) " +
+            "SELECT k.id, k.amount_minor, k.date, k.description, k.category_id, ?, k.change_seq, ? " +
+            "FROM unnest(?, ?, ?, ?, ?, ?) AS k(id, amount_minor, date, description, category_id, change_seq)";
+
+    private static final Comparator<ArchivedExpense> ARCHIVE_ORDER =
+            Comparator.comparing(ArchivedExpense::getDate).thenComparingLong(ArchivedExpense::getId);
+
+    private final ExpenseArchiveRepository expenseArchiveRepository;
+    private final ExpenseArchiveStorage expenseArchiveStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExpenseAnalyticsStore expenseAnalyticsStore;
+    private final UserService userService;
+
+    /**
+     * Moves a user's expenses dated before {@code before} and last modified before {@code idleSince}
+     * into their archive. Returns the number of expenses moved.
+     */
+    @Transactional
+    public int archiveUser(Long userId, LocalDate before, Instant idleSince) {
+        ExpenseArchive archive = lockArchive(userId);
+
+        List<ArchivedExpense> moving = jdbcTemplate.query(SELECT_TO_ARCHIVE, (rs, rowNum) -> new ArchivedExpense(
+                rs.getLong("id"),
+                rs.getDate("date").toLocalDate(),
+                rs.getLong("amount_minor"),
+                rs.getLong("category_id"),
+                rs.getString("description"),
+                rs.getLong("change_seq")), userId, Date.valueOf(before), Timestamp.from(idleSince));
+        if (moving.isEmpty()) {
+            return 0;
+        }
+
+        List<ArchivedExpense> rows = new ArrayList<>(readVerified(archive));
+        rows.addAll(moving);
+        rows.sort(ARCHIVE_ORDER);
+        writeGeneration(archive, rows);
+
+        Long[] ids = moving.stream().map(ArchivedExpense::getId).toArray(Long[]::new);
+        int deleted = jdbcTemplate.update(connection -> {
+            PreparedStatement delete = connection.prepareStatement(DELETE_ARCHIVED);
+            delete.setLong(1, userId);
+            delete.setDate(2, Date.valueOf(before));
+            delete.setArray(3, connection.createArrayOf("bigint", ids));
+            return delete;
+        });
+        // The rows are locked, so anything else means the archive would no longer match the table
+        if (deleted != moving.size()) {
+            throw new IllegalStateException("Archived " + moving.size() + " expenses but deleted " + deleted);
+        }
+
+        log.debug("Archived {} expenses for user {} into generation {}", moving.size(), userId, archive.getGeneration());
+        return moving.size();
+    }
+
+    /**
+     * Moves the authenticated user's archived expenses in an inclusive month range back into the
+     * {@code expenses} table, where they can be edited again.
+     */
+    @Transactional
+    public ArchiveRestoreResponse restore(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("Restore range start must not be after its end");
+        }
+        User user = userService.getAuthenticatedUser();
+        ExpenseArchive archive = lockArchive(user.getId());
+
+        LocalDate fromDate = from.atDay(1);
+        LocalDate toDate = to.plusMonths(1).atDay(1);
+        List<ArchivedExpense> restoring = new ArrayList<>();
+        List<ArchivedExpense> remaining = new ArrayList<>();
+        for (ArchivedExpense row : readVerified(archive)) {
+            boolean inRange = !row.getDate().isBefore(fromDate) && row.getDate().isBefore(toDate);
+            (inRange ? restoring : remaining).add(row);
+        }
+
+        if (!restoring.isEmpty()) {
+            writeGeneration(archive, remaining);
+            insertRestored(user.getId(), restoring);
+            log.info("Restored {} archived expenses for user {}", restoring.size(), user.getId());
+        }
+
+        return ArchiveRestoreResponse.builder()
+                .restoredCount(restoring.size())
+                .archivedCount(archive.getExpenseCount())
+                .build();
+    }
+
+    /**
+     * Visits a user's archived expenses dated in {@code [from, to)}. Callers that also read the
+     * {@code expenses} table should do so in the same REPEATABLE READ transaction, so a concurrent
+     * archive run cannot make rows appear twice or not at all.
+     */
+    @Transactional(readOnly = true)
+    public void scan(Long userId, LocalDate from, LocalDate to, ExpenseArchiveFile.RowVisitor visitor) {
+        Optional<ExpenseArchive> archive = expenseArchiveRepository.findByUserId(userId);
+        if (archive.isEmpty() || !overlaps(archive.get(), from, to)) {
+            return;
+        }
+        open(archive.get()).scan(from, to, visitor);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ArchivedExpense> findExpenses(Long userId) {
+        Optional<ExpenseArchive> archive = expenseArchiveRepository.findByUserId(userId);
+        if (archive.isEmpty() || archive.get().getExpenseCount() == 0) {
+            return Collections.emptyList();
+        }
+        return open(archive.get()).readAll();
+    }
+
+    private ExpenseArchive lockArchive(Long userId) {
+        expenseArchiveRepository.insertIfAbsent(userId);
+        return expenseArchiveRepository.findForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("Archive row vanished while locked"));
+    }
+
+    private static boolean overlaps(ExpenseArchive archive, LocalDate from, LocalDate to) {
+        return archive.getExpenseCount() > 0
+                && archive.getFirstDate().isBefore(to)
+                && !archive.getLastDate().isBefore(from);
+    }
+
+    private ExpenseArchiveFile open(ExpenseArchive archive) {
+        try {
+            return expenseArchiveStorage.open(archive.getUserId(), archive.getGeneration(), archive.getSizeBytes());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open expense archive for user " + archive.getUserId(), ex);
+        }
+    }
+
+    private List<ArchivedExpense> readVerified(ExpenseArchive archive) {
+        if (archive.getGeneration() == 0) {
+            return Collections.emptyList();
+        }
+        try {
+            return expenseArchiveStorage.openVerified(archive.getUserId(), archive.getGeneration(),
+                    archive.getSizeBytes(), archive.getChecksum()).readAll();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read expense archive for user " + archive.getUserId(), ex);
+        }
+    }
+
+    private void writeGeneration(ExpenseArchive archive, List<ArchivedExpense> rows) {
+        long userId = archive.getUserId();
+        long generation = archive.getGeneration() + 1;
+        byte[] content = ExpenseArchiveFile.encode(rows);
+        long checksum;
+        try {
+            checksum = expenseArchiveStorage.write(userId, generation, content);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write expense archive for user " + userId, ex);
+        }
+
+        archive.setGeneration(generation);
+        archive.setExpenseCount(rows.size());
+        archive.setFirstDate(rows.isEmpty() ? null : rows.get(0).getDate());
+        archive.setLastDate(rows.isEmpty() ? null : rows.get(rows.size() - 1).getDate());
+        archive.setSizeBytes(content.length);
+        archive.setChecksum(checksum);
+        archive.setUpdatedAt(Instant.now());
+        expenseArchiveRepository.save(archive);
+
+        TransactionHooks.afterCommit(() -> {
+            expenseAnalyticsStore.invalidate(archive.getUserId());
+            try {
+                expenseArchiveStorage.deleteGenerationsBefore(userId, generation - 1);
+            } catch (IOException ex) {
+                log.warn("Could not delete old expense archive generations for user {}", userId, ex);
+            }
+        });
+    }
+
+    private void insertRestored(Long userId, List<ArchivedExpense> rows) {
+        Long[] ids = new Long[rows.size()];
+        Long[] amounts = new Long[rows.size()];
+        Date[] dates = new Date[rows.size()];
+        String[] descriptions = new String[rows.size()];
+        Long[] categoryIds = new Long[rows.size()];
+        Long[] changeSeqs = new Long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ArchivedExpense row = rows.get(i);
+            ids[i] = row.getId();
+            amounts[i] = row.getAmountMinor();
+            dates[i] = Date.valueOf(row.getDate());
+            descriptions[i] = row.getDescription();
+            categoryIds[i] = row.getCategoryId();
+            changeSeqs[i] = row.getChangeSeq();
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement insert = connection.prepareStatement(INSERT_RESTORED);
+            insert.setLong(1, userId);
+            insert.setTimestamp(2, Timestamp.from(Instant.now()));
+            insert.setArray(3, connection.createArrayOf("bigint", ids));
+            insert.setArray(4, connection.createArrayOf("bigint", amounts));
+            insert.setArray(5, connection.createArrayOf("date", dates));
+            insert.setArray(6, connection.createArrayOf("varchar", descriptions));
+            insert.setArray(7, connection.createArrayOf("bigint", categoryIds));
+            insert.setArray(8, connection.createArrayOf("bigint", changeSeqs));
+            return insert;
+        });
+    }
+}
@@ -0,0 +1,245 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.controller.exception.ResourceNotFoundException;
+import com.expensetracker.api.dto.AttachmentResponse;
+import com.expensetracker.api.entity.ExpenseAttachment;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.ExpenseAttachmentRepository;
+import com.expensetracker.api.repository.ExpenseRepository;
+import com.expensetracker.api.service.attachment.AttachmentGarbageCollector;
+import com.expensetracker.api.service.attachment.AttachmentStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Receipts and other files attached to expenses. Contents go to {@link AttachmentStorage}, streamed
+ * from the request body in small chunks so an upload never sits in memory whole, and only metadata is
+ * stored in the database. Uploads are limited to {@code app.attachments.max-bytes}, the types in
+ * {@code app.attachments.content-types} and {@code app.attachments.max-per-expense} files per expense.
+ */
+@Slf4j
+@Service
+public class ExpenseAttachmentService {
+    private static final int MAX_FILE_NAME_LENGTH = 255;
+
+    // Serializes uploads to one expense, so the count the insert checks cannot change before it commits
+    private static final String LOCK_EXPENSE = "SELECT pg_advisory_xact_lock(hashtext('expense_attachments'), hashint8(?))";
+    private static final String INSERT_ATTACHMENT = "INSERT INTO expense_attachments " +
+            "(expense_id, user_id, content_hash, content_type, file_name, size_bytes, created_at) " +
+            "SELECT ?, ?, ?, ?, ?, ?, CAST(? AS timestamp with time zone) " +
+            "WHERE (SELECT count(*) FROM expense_attachments WHERE expense_id = ?) < ? RETURNING id";
+
+    private final DataSource dataSource;
+    private final ExpenseAttachmentRepository expenseAttachmentRepository;
+    private final ExpenseRepository expenseRepository;
+    private final AttachmentStorage attachmentStorage;
+    private final UserService userService;
+    private final long maxBytes;
+    private final int maxPerExpense;
+    private final Set<String> contentTypes;
+
+    public ExpenseAttachmentService(DataSource dataSource,
+                                    ExpenseAttachmentRepository expenseAttachmentRepository,
+                                    ExpenseRepository expenseRepository,
+                                    AttachmentStorage attachmentStorage,
+                                    UserService userService,
+                                    @Value("${app.attachments.max-bytes:10485760}") long maxBytes,
+                                    @Value("${app.attachments.max-per-expense:10}") int maxPerExpense,
+                                    @Value("${app.attachments.content-types:image/jpeg,image/png,image/heic,image/webp,application/pdf}")
+                                    List<String> contentTypes) {
+        this.dataSource = dataSource;
+        this.expenseAttachmentRepository = expenseAttachmentRepository;
+        this.expenseRepository = expenseRepository;
+        this.attachmentStorage = attachmentStorage;
+        this.userService = userService;
+        this.maxBytes = maxBytes;
+        this.maxPerExpense = maxPerExpense;
+        this.contentTypes = contentTypes.stream()
+                .map(type -> type.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Stores {@code content} and attaches it to one of the user's expenses. Everything that can be
+     * checked without the body is checked first, and no database connection is held while it streams.
+     *
+     * @param declaredLength the request's Content-Length, or -1 when it is sent chunked
+     */
+    public AttachmentResponse upload(Long expenseId, String contentType, String fileName, long declaredLength,
+                                     InputStream content) {
+        User user = userService.getAuthenticatedUser();
+        String type = checkContentType(contentType);
+        if (declaredLength > maxBytes) {
+            throw new MaxUploadSizeExceededException(maxBytes);
+        }
+        expenseRepository.findByIdAndUserId(expenseId, user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Expense not found: " + expenseId));
+        // Spares streaming a body that would be turned away; link() enforces the limit
+        if (expenseAttachmentRepository.countByExpenseId(expenseId) >= maxPerExpense) {
+            throw tooManyAttachments();
+        }
+
+        ExpenseAttachment attachment;
+        try {
+            AttachmentStorage.StagedBlob staged = attachmentStorage.stage(content, maxBytes);
+            try (Connection connection = dataSource.getConnection()) {
+                attachment = ExpenseAttachment.builder()
+                        .expenseId(expenseId)
+                        .userId(user.getId())
+                        .contentHash(staged.getContentHash())
+                        .contentType(type)
+                        .fileName(cleanFileName(fileName))
+                        .sizeBytes(staged.getSize())
+                        .createdAt(Instant.now())
+                        .build();
+                attachment.setId(link(connection, staged, attachment));
+            } finally {
+                attachmentStorage.discard(staged);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not store the attachment", ex);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not attach a file to expense " + expenseId, ex);
+        }
+        log.debug("Attached {} bytes ({}) to expense {}", attachment.getSizeBytes(), attachment.getContentHash(), expenseId);
+        return toResponse(attachment);
+    }
+
+    public List<AttachmentResponse> getAttachments(Long expenseId) {
+        User user = userService.getAuthenticatedUser();
+        return expenseAttachmentRepository.findByExpenseIdAndUserIdOrderByIdAsc(expenseId, user.getId()).stream()
+                .map(ExpenseAttachmentService::toResponse)
+                .toList();
+    }
+
+    public ExpenseAttachment getAttachment(Long expenseId, Long attachmentId) {
+        User user = userService.getAuthenticatedUser();
+        return expenseAttachmentRepository.findByIdAndExpenseIdAndUserId(attachmentId, expenseId, user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Attachment not found: " + attachmentId));
+    }
+
+    public Path contentPath(ExpenseAttachment attachment) {
+        return attachmentStorage.pathOf(attachment.getContentHash());
+    }
+
+    /**
+     * Removes the attachment's metadata; the content is deleted by the garbage collector once no other
+     * attachment shares it.
+     */
+    @Transactional
+    public void deleteAttachment(Long expenseId, Long attachmentId) {
+        expenseAttachmentRepository.delete(getAttachment(expenseId, attachmentId));
+    }
+
+    // The expense lock is taken first and held to the commit, so concurrent uploads to one expense
+    // count each other's rows and cannot exceed the limit together. The blob lock keeps the garbage
+    // collector from deleting a stored copy of this content between publishing and the commit of the
+    // row that refers to it; content is published only once the row is in.
+    private long link(Connection connection, AttachmentStorage.StagedBlob staged, ExpenseAttachment attachment)
+            throws SQLException, IOException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (PreparedStatement lock = connection.prepareStatement(LOCK_EXPENSE)) {
+                lock.setLong(1, attachment.getExpenseId());
+                lock.execute();
+            }
+            AttachmentGarbageCollector.lockBlobShared(connection, staged.getContentHash());
+            long id;
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_ATTACHMENT)) {
+                insert.setLong(1, attachment.getExpenseId());
+                insert.setLong(2, attachment.getUserId());
+                insert.setString(3, attachment.getContentHash());
+                insert.setString(4, attachment.getContentType());
+                insert.setString(5, attachment.getFileName());
+                insert.setLong(6, attachment.getSizeBytes());
+                insert.setTimestamp(7, Timestamp.from(attachment.getCreatedAt()));
+                insert.setLong(8, attachment.getExpenseId());
+                insert.setInt(9, maxPerExpense);
+                try (ResultSet keys = insert.executeQuery()) {
+                    if (!keys.next()) {
+                        throw tooManyAttachments();
+                    }
+                    id = keys.getLong(1);
+                }
+            }
+            attachmentStorage.publish(staged);
+            connection.commit();
+            return id;
+        } catch (SQLException | IOException | RuntimeException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private InvalidRequestException tooManyAttachments() {
+        return new InvalidRequestException("An expense can have at most " + maxPerExpense + " attachments");
+    }
+
+    private String checkContentType(String contentType) {
+        if (contentType == null) {
+            throw new InvalidRequestException("Content-Type is required");
+        }
+        String type;
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            type = (mediaType.getType() + "/" + mediaType.getSubtype()).toLowerCase(Locale.ROOT);
+        } catch (InvalidMediaTypeException ex) {
+            throw new InvalidRequestException("Invalid Content-Type: " + contentType);
+        }
+        if (!contentTypes.contains(type)) {
+            throw new InvalidRequestException("Unsupported attachment type: " + type);
+        }
+        return type;
+    }
+
+    // Keeps only the last path segment of names browsers send with a directory, without control characters
+    private static String cleanFileName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String name = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1)
+                .replaceAll("\\p{Cntrl}", "")
+                .trim();
+        if (name.isEmpty()) {
+            return null;
+        }
+        return name.length() > MAX_FILE_NAME_LENGTH ? name.substring(0, MAX_FILE_NAME_LENGTH) : name;
+    }
+
+    private static AttachmentResponse toResponse(ExpenseAttachment attachment) {
+        return AttachmentResponse.builder()
+                .id(attachment.getId())
+                .expenseId(attachment.getExpenseId())
+                .fileName(attachment.getFileName())
+                .contentType(attachment.getContentType())
+                .size(attachment.getSizeBytes())
+                .sha256(attachment.getContentHash())
+                .createdAt(attachment.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,315 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.dto.ExpenseImportResponse;
+import com.expensetracker.api.dto.ImportLineError;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.service.analytics.ExpenseAnalyticsStore;
+import com.expensetracker.api.service.importer.CsvRecord;
+import com.expensetracker.api.service.importer.CsvRecordReader;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports bank-statement CSV files with columns {@code date}, {@code amount}, {@code category} and an
+ * optional {@code description}, in any order and matched case-insensitively by the header line.
+ * <p>
+ * The file is parsed one record at a time and valid rows are streamed into {@code expenses} with a
+ * single {@code COPY ... FROM STDIN}, written in chunks of {@code app.import.chunk-rows} rows, so
+ * memory use does not depend on the file size. Rows failing the same checks as
+ * {@code CreateExpenseRequest} are skipped and reported by line number. Accepted rows commit together
+ * with their spending sketch updates, so a failed import leaves nothing behind and can simply be
+ * retried.
+ */
+@Slf4j
+@Service
+public class ExpenseImportService {
+    static final int MAX_REPORTED_ERRORS = 1000;
+    static final int MAX_DESCRIPTION_LENGTH = 255;
+    private static final int MAX_INTEGER_DIGITS = 15;
+    // Bounds the per-import category cache for files with many distinct (mostly unknown) names
+    private static final int MAX_CACHED_CATEGORIES = 1024;
+
+    // id, change_seq and updated_at come from the column defaults; the user's change lock is taken
+    // first, as for every writer drawing change sequence numbers (see lock_expense_changes in schema.sql)
+    private static final String LOCK_CHANGES = "SELECT lock_expense_changes(?)";
+    private static final String COPY_EXPENSES = "COPY expenses (amount_minor, date, description, category_id, user_id) " +
+            "FROM STDIN (FORMAT csv)";
+
+    private final DataSource dataSource;
+    private final CategoryRepository categoryRepository;
+    private final UserService userService;
+    private final ExpenseAnalyticsStore expenseAnalyticsStore;
+    private final SpendingAnomalyService spendingAnomalyService;
+    private final int chunkRows;
+
+    public ExpenseImportService(DataSource dataSource,
+                                CategoryRepository categoryRepository,
+                                UserService userService,
+                                ExpenseAnalyticsStore expenseAnalyticsStore,
+                                SpendingAnomalyService spendingAnomalyService,
+                                @Value("${app.import.chunk-rows:5000}") int chunkRows) {
+        this.dataSource = dataSource;
+        this.categoryRepository = categoryRepository;
+        this.userService = userService;
+        this.expenseAnalyticsStore = expenseAnalyticsStore;
+        this.spendingAnomalyService = spendingAnomalyService;
+        this.chunkRows = chunkRows;
+    }
+
+    public ExpenseImportResponse importCsv(InputStream input) {
+        User user = userService.getAuthenticatedUser();
+        CsvRecordReader reader = new CsvRecordReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        long startNanos = System.nanoTime();
+        try {
+            Columns columns = readHeader(reader);
+            ImportRun run = new ImportRun(user.getId(), columns);
+            try (Connection connection = dataSource.getConnection()) {
+                run.copy(connection, reader);
+            }
+            expenseAnalyticsStore.invalidate(user.getId());
+            spendingAnomalyService.evict(List.of(user.getId()));
+            log.info("Imported {} expenses for user {} ({} rejected) in {} ms", run.imported, user.getId(),
+                    run.rejected, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return ExpenseImportResponse.builder()
+                    .importedCount(run.imported)
+                    .rejectedCount(run.rejected)
+                    .errors(run.errors)
+                    .errorsTruncated(run.rejected > run.errors.size())
+                    .build();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read the uploaded CSV file", ex);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not import expenses for user " + user.getId(), ex);
+        }
+    }
+
+    private static Columns readHeader(CsvRecordReader reader) throws IOException {
+        CsvRecord header = reader.next();
+        while (header != null && header.isBlank()) {
+            header = reader.next();
+        }
+        if (header == null) {
+            throw new InvalidRequestException("CSV file is empty");
+        }
+        if (header.getError() != null) {
+            throw new InvalidRequestException("Invalid CSV header on line " + header.getLine() + ": " + header.getError());
+        }
+
+        Map<String, Integer> positions = new HashMap<>();
+        List<String> names = header.getFields();
+        for (int i = 0; i < names.size(); i++) {
+            positions.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("date", "amount", "category")) {
+            if (!positions.containsKey(required)) {
+                throw new InvalidRequestException("CSV header is missing the '" + required + "' column");
+            }
+        }
+        return new Columns(positions.get("date"), positions.get("amount"), positions.get("category"),
+                positions.getOrDefault("description", -1));
+    }
+
+    /**
+     * State of one import: the category cache, the current chunk of encoded rows and the report.
+     */
+    private class ImportRun {
+        private final long userId;
+        private final Columns columns;
+        private final Map<String, Optional<Long>> categoryIds = new HashMap<>();
+        private final SpendingSketchBatch sketches = new SpendingSketchBatch();
+        private final SpendingMomentsBatch moments = new SpendingMomentsBatch();
+        private final StaleReportMonths staleReports = new StaleReportMonths(LocalDate.now());
+        private final StringBuilder chunk = new StringBuilder();
+        private final List<ImportLineError> errors = new ArrayList<>();
+        private int chunkSize;
+        private long imported;
+        private long rejected;
+
+        ImportRun(long userId, Columns columns) {
+            this.userId = userId;
+            this.columns = columns;
+        }
+
+        void copy(Connection connection, CsvRecordReader reader) throws IOException, SQLException {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement lock = connection.prepareStatement(LOCK_CHANGES)) {
+                    lock.setLong(1, userId);
+                    lock.execute();
+                }
+                CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_EXPENSES);
+                try {
+                    for (CsvRecord record = reader.next(); record != null; record = reader.next()) {
+                        if (!record.isBlank()) {
+                            accept(record);
+                        }
+                        if (chunkSize == chunkRows) {
+                            flush(copyIn);
+                        }
+                    }
+                    flush(copyIn);
+                    copyIn.endCopy();
+                } finally {
+                    if (copyIn.isActive()) {
+                        copyIn.cancelCopy();
+                    }
+                }
+                sketches.mergeInto(connection);
+                moments.mergeInto(connection);
+                staleReports.markInto(connection);
+                connection.commit();
+            } catch (IOException | SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+
+        private void accept(CsvRecord record) {
+            String problem = record.getError();
+            if (problem == null) {
+                problem = appendRow(record.getFields());
+            }
+            if (problem == null) {
+                chunkSize++;
+                imported++;
+                return;
+            }
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportLineError(record.getLine(), problem));
+            }
+        }
+
+        /**
+         * Validates one row and appends it to the chunk in COPY's CSV format. Returns why the row was
+         * rejected, or {@code null} when it was appended.
+         */
+        private String appendRow(List<String> fields) {
+            if (fields.size() <= columns.maxIndex()) {
+                return "Expected at least " + (columns.maxIndex() + 1) + " fields but found " + fields.size();
+            }
+
+            String amountText = fields.get(columns.getAmount()).trim();
+            if (amountText.isEmpty()) {
+                return "Amount is required";
+            }
+            BigDecimal amount;
+            try {
+                amount = new BigDecimal(amountText).stripTrailingZeros();
+            } catch (NumberFormatException ex) {
+                return "Invalid amount: " + amountText;
+            }
+            if (amount.signum() <= 0) {
+                return "Amount must be positive";
+            }
+            if (amount.scale() > MinorUnits.SCALE || amount.precision() - amount.scale() > MAX_INTEGER_DIGITS) {
+                return "Amount must have at most 15 integer digits and 2 decimal places";
+            }
+
+            String dateText = fields.get(columns.getDate()).trim();
+            if (dateText.isEmpty()) {
+                return "Date is required";
+            }
+            LocalDate date;
+            try {
+                date = LocalDate.parse(dateText);
+            } catch (DateTimeParseException ex) {
+                return "Invalid date: " + dateText + " (expected yyyy-MM-dd)";
+            }
+
+            String categoryName = fields.get(columns.getCategory()).trim();
+            if (categoryName.isEmpty()) {
+                return "Category name is required";
+            }
+            Optional<Long> categoryId = resolveCategory(categoryName);
+            if (categoryId.isEmpty()) {
+                return "Category not found: " + categoryName;
+            }
+
+            String description = columns.getDescription() < 0 ? "" : fields.get(columns.getDescription());
+            if (description.length() > MAX_DESCRIPTION_LENGTH) {
+                return "Description must be at most " + MAX_DESCRIPTION_LENGTH + " characters";
+            }
+            if (description.indexOf('\0') >= 0) {
+                return "Description must not contain NUL characters";
+            }
+
+            long amountMinor = MinorUnits.fromDecimal(amount);
+            chunk.append(amountMinor).append(',').append(date).append(',');
+            // An unquoted empty field is NULL in COPY's CSV format, a quoted one is an empty string
+            if (!description.isEmpty()) {
+                chunk.append('"').append(description.replace("\"", "\"\"")).append('"');
+            }
+            chunk.append(',').append(categoryId.get()).append(',').append(userId).append('\n');
+            sketches.add(userId, categoryId.get(), date, amountMinor);
+            moments.add(userId, categoryId.get(), amountMinor);
+            staleReports.add(userId, date);
+            return null;
+        }
+
+        private Optional<Long> resolveCategory(String name) {
+            Optional<Long> cached = categoryIds.get(name);
+            if (cached != null) {
+                return cached;
+            }
+            Optional<Long> id = categoryRepository.findByName(name).map(Category::getId);
+            if (categoryIds.size() < MAX_CACHED_CATEGORIES) {
+                categoryIds.put(name, id);
+            }
+            return id;
+        }
+
+        private void flush(CopyIn copyIn) throws SQLException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            chunk.setLength(0);
+            chunkSize = 0;
+        }
+    }
+
+    @lombok.Value
+    private static class Columns {
+        int date;
+        int amount;
+        int category;
+        int description;
+
+        int maxIndex() {
+            return Math.max(Math.max(date, amount), Math.max(category, description));
+        }
+    }
+}
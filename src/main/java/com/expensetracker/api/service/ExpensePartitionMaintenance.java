@@ -0,0 +1,96 @@
+package com.expensetracker.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps monthly partitions of {@code expenses} in place around the current month, far enough back
+ * for typical backdated entries and ahead for upcoming ones. Expenses dated outside every partition
+ * land in {@code expenses_default}; their months get their own partition on the next run.
+ * The work is done by the {@code ensure_expense_partition} function from schema.sql, which is
+ * idempotent and serialized across nodes. Runs on the cron schedule and, unless
+ * {@code app.schema.maintain-at-startup} is off, once at startup.
+ */
+@Slf4j
+@Component
+public class ExpensePartitionMaintenance {
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String MONTH_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'expenses'::regclass AND c.relname ~ '^expenses_[0-9]{4}_[0-9]{2}$'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsBehind;
+    private final int monthsAhead;
+    private final boolean runAtStartup;
+
+    public ExpensePartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                       @Value("${app.partitions.months-behind:12}") int monthsBehind,
+                                       @Value("${app.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${app.schema.maintain-at-startup:true}") boolean runAtStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsBehind = monthsBehind;
+        this.monthsAhead = monthsAhead;
+        this.runAtStartup = runAtStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsAtStartup() {
+        if (runAtStartup) {
+            ensurePartitions();
+        }
+    }
+
+    @Scheduled(cron = "${app.partitions.cron:0 30 3 * * *}")
+    public void ensurePartitions() {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        for (int i = -monthsBehind; i <= monthsAhead; i++) {
+            ensurePartition(currentMonth.plusMonths(i));
+        }
+
+        List<LocalDate> parkedMonths = jdbcTemplate.queryForList(
+                "SELECT DISTINCT CAST(date_trunc('month', date) AS date) FROM expenses_default", LocalDate.class);
+        if (!parkedMonths.isEmpty()) {
+            log.info("Moving expenses for {} months out of the default partition", parkedMonths.size());
+            parkedMonths.forEach(this::ensurePartition);
+        }
+    }
+
+    /**
+     * Drops month partitions that end on or before {@code before} and hold no rows. Returns the
+     * number dropped; a partition whose lock could not be taken quickly is left for the next run.
+     */
+    public int dropEmptyPartitionsBefore(LocalDate before) {
+        int dropped = 0;
+        for (String partition : jdbcTemplate.queryForList(MONTH_PARTITIONS, String.class)) {
+            YearMonth month = YearMonth.parse(partition.substring("expenses_".length()), PARTITION_MONTH);
+            if (month.plusMonths(1).atDay(1).isAfter(before)) {
+                continue;
+            }
+            try {
+                if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT drop_empty_expense_partition(?)", Boolean.class, month.atDay(1)))) {
+                    dropped++;
+                }
+            } catch (DataAccessException ex) {
+                log.warn("Could not drop empty partition {}; retrying on the next run", partition, ex);
+            }
+        }
+        return dropped;
+    }
+
+    private void ensurePartition(LocalDate month) {
+        jdbcTemplate.queryForList("SELECT ensure_expense_partition(?)", month);
+    }
+}
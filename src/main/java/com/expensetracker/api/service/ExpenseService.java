@@ -1,68 +1,165 @@
 package com.expensetracker.api.service;
 
+import com.expensetracker.api.controller.exception.InvalidRequestException;
 import com.expensetracker.api.controller.exception.ResourceNotFoundException;
+import com.expensetracker.api.dto.CategoryRollup;
 import com.expensetracker.api.dto.CreateExpenseRequest;
+import com.expensetracker.api.dto.ExpenseAnomaly;
+import com.expensetracker.api.dto.ExpenseField;
 import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.dto.FieldSelection;
 import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.expensetracker.api.dto.ReportField;
+import com.expensetracker.api.dto.SyncResponse;
+import com.expensetracker.api.dto.TimeSeriesInterval;
+import com.expensetracker.api.dto.TimeSeriesResponse;
 import com.expensetracker.api.dto.UpdateExpenseRequest;
 import com.expensetracker.api.entity.Category;
 import com.expensetracker.api.entity.Expense;
+import com.expensetracker.api.entity.ExpenseTombstone;
 import com.expensetracker.api.entity.User;
+import com.expensetracker.api.profiling.ReportAggregationEvent;
 import com.expensetracker.api.repository.CategoryRepository;
 import com.expensetracker.api.repository.ExpenseRepository;
-import com.expensetracker.api.repository.UserRepository;
+import com.expensetracker.api.repository.ExpenseTombstoneRepository;
+import com.expensetracker.api.repository.MonthlyAncestorTotal;
+import com.expensetracker.api.repository.MonthlyCategoryTotal;
+import com.expensetracker.api.repository.MonthlyTotal;
+import com.expensetracker.api.repository.ReportSnapshotRepository;
+import com.expensetracker.api.repository.SparseExpenseRow;
+import com.expensetracker.api.repository.TimeSeriesBucket;
+import com.expensetracker.api.service.analytics.ExpenseAnalyticsStore;
+import com.expensetracker.api.service.analytics.MonthlySpending;
+import com.expensetracker.api.service.archive.ArchivedExpense;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ExpenseService {
+    private static final int MAX_SYNC_PAGE_SIZE = 1000;
+    private static final int MAX_REPORT_MONTHS = 120;
+    private static final int MAX_TIME_SERIES_BUCKETS = 1000;
+    private static final long ALERT_THRESHOLD_MINOR = MinorUnits.fromDecimal(BigDecimal.valueOf(2000));
+
     private final ExpenseRepository expenseRepository;
+    private final ExpenseTombstoneRepository expenseTombstoneRepository;
     private final CategoryRepository categoryRepository;
     private final UserService userService;
+    private final ExpenseAnalyticsStore expenseAnalyticsStore;
+    private final SpendingStatisticsService spendingStatisticsService;
+    private final ExpenseArchiveService expenseArchiveService;
+    private final CategoryTree categoryTree;
+    private final ReportSnapshotRepository reportSnapshotRepository;
+    private final SpendingAnomalyService spendingAnomalyService;
+    private final DeletedExpensePurger deletedExpensePurger;
 
+    @Transactional
     public ExpenseResponse createExpense(CreateExpenseRequest request) {
         User user = userService.getAuthenticatedUser();
+        long changeSeq = expenseRepository.nextChangeSeq(user.getId());
 
         Category category = categoryRepository.findByName(request.getCategoryName())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + request.getCategoryName()));
 
         Expense expense = Expense.builder()
-                .amount(request.getAmount())
+                .amountMinor(MinorUnits.fromDecimal(request.getAmount()))
                 .description(request.getDescription())
                 .category(category)
                 .date(request.getDate())
                 .user(user)
+                .changeSeq(changeSeq)
+                .updatedAt(Instant.now())
                 .build();
 
         Expense saved = expenseRepository.save(expense);
-        return toExpenseResponse(saved);
+        spendingStatisticsService.recordCreated(saved);
+        ExpenseAnomaly anomaly = spendingAnomalyService.recordCreated(user.getId(), category.getId(),
+                saved.getAmountMinor());
+        expenseAnalyticsStore.recordSaved(saved);
+        markReportStale(user.getId(), saved.getDate());
+        ExpenseResponse response = toExpenseResponse(saved);
+        response.setAnomaly(anomaly);
+        return response;
     }
 
+    // Reads that combine archived and live expenses use one snapshot, so a concurrent archive run
+    // cannot make an expense show up twice or not at all
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public List<ExpenseResponse> getAllExpenses() {
+        return getAllExpenses(FieldSelection.all(ExpenseField.class));
+    }
+
+    /**
+     * Returns the user's expenses with only the selected fields set; the database is only asked for
+     * the columns behind them.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<ExpenseResponse> getAllExpenses(FieldSelection<ExpenseField> fields) {
         User user = userService.getAuthenticatedUser();
-        return expenseRepository.findByUserId(user.getId())
-                .stream()
-                .map(this::toExpenseResponse)
-                .collect(Collectors.toList());
+        List<ExpenseResponse> expenses = archivedExpenses(user.getId(), null, fields);
+        if (fields.isAll()) {
+            expenseRepository.findByUserId(user.getId())
+                    .stream()
+                    .map(this::toExpenseResponse)
+                    .forEach(expenses::add);
+            spendingAnomalyService.flag(user.getId(), expenses);
+        } else {
+            expenseRepository.findSelectedFields(user.getId(), null, fields)
+                    .stream()
+                    .map(ExpenseService::toExpenseResponse)
+                    .forEach(expenses::add);
+        }
+        return expenses;
     }
 
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public List<ExpenseResponse> getExpensesByCategory(String categoryName) {
+        return getExpensesByCategory(categoryName, FieldSelection.all(ExpenseField.class));
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<ExpenseResponse> getExpensesByCategory(String categoryName, FieldSelection<ExpenseField> fields) {
         User user = userService.getAuthenticatedUser();
-        return expenseRepository.findByUserIdAndCategoryName(user.getId(), categoryName)
-                .stream()
-                .map(this::toExpenseResponse)
-                .collect(Collectors.toList());
+        List<ExpenseResponse> expenses = archivedExpenses(user.getId(), categoryName, fields);
+        if (fields.isAll()) {
+            expenseRepository.findByUserIdAndCategoryName(user.getId(), categoryName)
+                    .stream()
+                    .map(this::toExpenseResponse)
+                    .forEach(expenses::add);
+            spendingAnomalyService.flag(user.getId(), expenses);
+        } else {
+            expenseRepository.findSelectedFields(user.getId(), categoryName, fields)
+                    .stream()
+                    .map(ExpenseService::toExpenseResponse)
+                    .forEach(expenses::add);
+        }
+        return expenses;
     }
 
+    @Transactional
     public ExpenseResponse updateExpense(Long id, UpdateExpenseRequest request) {
         User user = userService.getAuthenticatedUser();
+        long changeSeq = expenseRepository.nextChangeSeq(user.getId());
 
         Expense expense = expenseRepository.findByIdAndUserId(id, user.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found: " + id));
@@ -70,67 +167,584 @@ public class ExpenseService {
         Category category = categoryRepository.findByName(request.getCategoryName())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + request.getCategoryName()));
 
-        expense.setAmount(request.getAmount());
+        Long previousCategoryId = expense.getCategory().getId();
+        LocalDate previousDate = expense.getDate();
+        long previousAmountMinor = expense.getAmountMinor();
+
+        expense.setAmountMinor(MinorUnits.fromDecimal(request.getAmount()));
         expense.setDescription(request.getDescription());
         expense.setCategory(category);
         expense.setDate(request.getDate());
+        expense.setChangeSeq(changeSeq);
+        expense.setUpdatedAt(Instant.now());
 
         Expense updated = expenseRepository.save(expense);
-        return toExpenseResponse(updated);
+        spendingStatisticsService.rebuildMoved(user.getId(), previousCategoryId, previousDate,
+                category.getId(), updated.getDate());
+        ExpenseAnomaly anomaly = spendingAnomalyService.recordUpdated(user.getId(), previousCategoryId,
+                previousAmountMinor, category.getId(), updated.getAmountMinor());
+        expenseAnalyticsStore.recordSaved(updated);
+        markReportStale(user.getId(), previousDate);
+        if (!YearMonth.from(previousDate).equals(YearMonth.from(updated.getDate()))) {
+            markReportStale(user.getId(), updated.getDate());
+        }
+        ExpenseResponse response = toExpenseResponse(updated);
+        response.setAnomaly(anomaly);
+        return response;
     }
 
+    @Transactional
     public void deleteExpense(Long id) {
         User user = userService.getAuthenticatedUser();
+        long changeSeq = expenseRepository.nextChangeSeq(user.getId());
 
         Expense expense = expenseRepository.findByIdAndUserId(id, user.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found: " + id));
 
-        expenseRepository.delete(expense);
+        // Only marked; DeletedExpensePurger removes the row once the undo window has passed
+        Instant now = Instant.now();
+        expense.setDeletedAt(now);
+        expenseRepository.save(expense);
+        expenseTombstoneRepository.save(ExpenseTombstone.builder()
+                .expenseId(expense.getId())
+                .userId(user.getId())
+                .changeSeq(changeSeq)
+                .deletedAt(now)
+                .build());
+        spendingStatisticsService.rebuild(user.getId(), expense.getCategory().getId(), expense.getDate());
+        spendingAnomalyService.recordDeleted(user.getId(), expense.getCategory().getId(), expense.getAmountMinor());
+        expenseAnalyticsStore.recordDeleted(user.getId(), expense.getId());
+        markReportStale(user.getId(), expense.getDate());
     }
 
+    /**
+     * Undoes {@link #deleteExpense} for an expense deleted within the undo window. The expense gets a
+     * new change sequence number, so sync clients see it again after its deletion.
+     */
+    @Transactional
+    public ExpenseResponse restoreExpense(Long id) {
+        User user = userService.getAuthenticatedUser();
+
+        Instant now = Instant.now();
+        int restored = expenseRepository.restoreDeleted(id, user.getId(), deletedExpensePurger.restorableSince(now),
+                expenseRepository.nextChangeSeq(user.getId()), now);
+        if (restored == 0) {
+            throw new ResourceNotFoundException("No deleted expense to restore: " + id);
+        }
+        Expense expense = expenseRepository.findByIdAndUserId(id, user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Expense not found: " + id));
+
+        spendingStatisticsService.rebuild(user.getId(), expense.getCategory().getId(), expense.getDate());
+        ExpenseAnomaly anomaly = spendingAnomalyService.recordCreated(user.getId(), expense.getCategory().getId(),
+                expense.getAmountMinor());
+        expenseAnalyticsStore.recordSaved(expense);
+        markReportStale(user.getId(), expense.getDate());
+        ExpenseResponse response = toExpenseResponse(expense);
+        response.setAnomaly(anomaly);
+        return response;
+    }
+
+    /**
+     * The user's live expenses that are unusually large or small for their category, newest first;
+     * see {@link SpendingAnomalyService}.
+     */
+    @Transactional(readOnly = true)
+    public List<ExpenseResponse> getAnomalies() {
+        User user = userService.getAuthenticatedUser();
+        List<ExpenseResponse> anomalies = spendingAnomalyService.findAnomalies(user.getId())
+                .stream()
+                .map(this::toExpenseResponse)
+                .collect(Collectors.toCollection(ArrayList::new));
+        spendingAnomalyService.flag(user.getId(), anomalies);
+        return anomalies;
+    }
+
+    // One snapshot for both queries, so a deletion committing in between is seen by both or neither.
+    // Writers commit each user's changes in sequence order (see ExpenseRepository.nextChangeSeq), so
+    // nothing below the returned cursor can still appear.
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SyncResponse getChangesSince(long cursor, int limit) {
+        User user = userService.getAuthenticatedUser();
+        int pageSize = Math.max(1, Math.min(limit, MAX_SYNC_PAGE_SIZE));
+
+        // Fetch one extra row from each source so we can tell whether another page exists
+        List<Expense> changed = expenseRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+                user.getId(), cursor, Limit.of(pageSize + 1));
+        List<ExpenseTombstone> deleted = expenseTombstoneRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+                user.getId(), cursor, Limit.of(pageSize + 1));
+
+        List<ExpenseResponse> upserts = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        long nextCursor = cursor;
+        int i = 0;
+        int j = 0;
+        while (upserts.size() + deletedIds.size() < pageSize && (i < changed.size() || j < deleted.size())) {
+            if (j == deleted.size()
+                    || (i < changed.size() && changed.get(i).getChangeSeq() < deleted.get(j).getChangeSeq())) {
+                Expense expense = changed.get(i++);
+                upserts.add(toExpenseResponse(expense));
+                nextCursor = expense.getChangeSeq();
+            } else {
+                ExpenseTombstone tombstone = deleted.get(j++);
+                deletedIds.add(tombstone.getExpenseId());
+                nextCursor = tombstone.getChangeSeq();
+            }
+        }
+
+        spendingAnomalyService.flag(user.getId(), upserts);
+        return SyncResponse.builder()
+                .upserts(upserts)
+                .deletedIds(deletedIds)
+                .nextCursor(nextCursor)
+                .hasMore(i < changed.size() || j < deleted.size())
+                .build();
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public MonthlyReportResponse getMonthlyReport(int year, int month) {
+        return getMonthlyReport(year, month, FieldSelection.all(ReportField.class));
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public MonthlyReportResponse getMonthlyReport(int year, int month, FieldSelection<ReportField> fields) {
+        return getMonthlyReport(year, month, fields, CategoryRollup.none());
+    }
+
+    /**
+     * Builds a monthly report; when neither per-category spending nor alerts are selected, only
+     * the month's total and count are read from the database.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public MonthlyReportResponse getMonthlyReport(int year, int month, FieldSelection<ReportField> fields,
+                                                  CategoryRollup rollup) {
+        long analyticsStamp = expenseAnalyticsStore.writeStamp();
+        YearMonth reportMonth = toReportMonth(year, month);
+        User user = userService.getAuthenticatedUser();
+        return monthlyReport(user.getId(), reportMonth, fields, rollup, analyticsStamp);
+    }
+
+    /**
+     * The full monthly report of any user, for work outside a user's request such as report snapshots.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public MonthlyReportResponse getMonthlyReportForUser(Long userId, YearMonth reportMonth) {
+        return monthlyReport(userId, reportMonth, FieldSelection.all(ReportField.class), CategoryRollup.none(),
+                expenseAnalyticsStore.writeStamp());
+    }
+
+    // analyticsStamp is the analytics store's write stamp, read before the transaction's first query
+    private MonthlyReportResponse monthlyReport(Long userId, YearMonth reportMonth, FieldSelection<ReportField> fields,
+                                                CategoryRollup rollup, long analyticsStamp) {
+        ReportAggregationEvent aggregation = ReportAggregationEvent.start("monthly");
+        if (!rollup.isNone()) {
+            MonthlySpending spending = sumByMonthAndAncestor(userId, reportMonth, reportMonth, rollup).get(0);
+            aggregation.complete("database", 1, spending.getExpenseCount());
+            return buildReport(spending);
+        }
+        Optional<List<MonthlySpending>> cached = expenseAnalyticsStore.aggregate(userId, reportMonth, reportMonth,
+                analyticsStamp);
+        if (cached.isPresent()) {
+            MonthlySpending spending = withArchived(userId, reportMonth, cached.get()).get(0);
+            aggregation.complete("analytics-store", 1, spending.getExpenseCount());
+            return buildReport(spending);
+        }
+        if (!needsCategories(fields)) {
+            MonthlyReportResponse report = monthlyTotals(userId, reportMonth, reportMonth).get(0);
+            aggregation.complete("database", 1, report.getExpenseCount());
+            return report;
+        }
+
+        List<Expense> expenses = expenseRepository.findByUserIdAndDateRange(
+                userId, reportMonth.atDay(1), reportMonth.plusMonths(1).atDay(1));
+
+        Map<String, long[]> totals = new HashMap<>();
+        for (Expense expense : expenses) {
+            long[] total = totals.computeIfAbsent(expense.getCategory().getName(), key -> new long[1]);
+            total[0] = Math.addExact(total[0], expense.getAmountMinor());
+        }
+
+        Map<String, Long> spendingByCategory = new HashMap<>();
+        totals.forEach((categoryName, total) -> spendingByCategory.put(categoryName, total[0]));
+
+        MonthlySpending spending = withArchived(userId, reportMonth,
+                List.of(new MonthlySpending(reportMonth, spendingByCategory, expenses.size()))).get(0);
+        aggregation.complete("database", 1, spending.getExpenseCount());
+        return buildReport(spending);
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<MonthlyReportResponse> getRangeReport(YearMonth from, YearMonth to) {
+        return getRangeReport(from, to, FieldSelection.all(ReportField.class));
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<MonthlyReportResponse> getRangeReport(YearMonth from, YearMonth to, FieldSelection<ReportField> fields) {
+        return getRangeReport(from, to, fields, CategoryRollup.none());
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<MonthlyReportResponse> getRangeReport(YearMonth from, YearMonth to, FieldSelection<ReportField> fields,
+                                                      CategoryRollup rollup) {
+        long analyticsStamp = expenseAnalyticsStore.writeStamp();
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("Report range start must not be after its end");
+        }
+        if (ChronoUnit.MONTHS.between(from, to) >= MAX_REPORT_MONTHS) {
+            throw new InvalidRequestException("Report range must not exceed " + MAX_REPORT_MONTHS + " months");
+        }
+
         User user = userService.getAuthenticatedUser();
 
-        List<Expense> expenses = expenseRepository.findByUserIdAndYearAndMonth(user.getId(), year, month);
+        ReportAggregationEvent aggregation = ReportAggregationEvent.start("range");
+        if (!rollup.isNone()) {
+            List<MonthlySpending> spending = sumByMonthAndAncestor(user.getId(), from, to, rollup);
+            aggregation.complete("database", spending.size(),
+                    spending.stream().mapToLong(MonthlySpending::getExpenseCount).sum());
+            return spending.stream()
+                    .map(ExpenseService::buildReport)
+                    .collect(Collectors.toList());
+        }
+        Optional<List<MonthlySpending>> cached = expenseAnalyticsStore.aggregate(user.getId(), from, to, analyticsStamp);
+        if (cached.isEmpty() && !needsCategories(fields)) {
+            List<MonthlyReportResponse> reports = monthlyTotals(user.getId(), from, to);
+            aggregation.complete("database", reports.size(),
+                    reports.stream().mapToLong(MonthlyReportResponse::getExpenseCount).sum());
+            return reports;
+        }
+        List<MonthlySpending> spending = withArchived(user.getId(), from,
+                cached.orElseGet(() -> sumByMonthAndCategory(user.getId(), from, to)));
+        aggregation.complete(cached.isPresent() ? "analytics-store" : "database", spending.size(),
+                spending.stream().mapToLong(MonthlySpending::getExpenseCount).sum());
 
-        BigDecimal totalAmount = expenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return spending.stream()
+                .map(ExpenseService::buildReport)
+                .collect(Collectors.toList());
+    }
 
-        Map<String, BigDecimal> spendingByCategory = expenses.stream()
-                .collect(Collectors.groupingBy(
-                        expense -> expense.getCategory().getName(),
-                        Collectors.reducing(BigDecimal.ZERO, Expense::getAmount, BigDecimal::add)
-                ));
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public TimeSeriesResponse getTimeSeries(LocalDate from, LocalDate to, TimeSeriesInterval interval, boolean byCategory) {
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("Time series start must not be after its end");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        long bucketCount = (days + interval.getDays() - 1) / interval.getDays();
+        if (bucketCount > MAX_TIME_SERIES_BUCKETS) {
+            throw new InvalidRequestException("Time series must not exceed " + MAX_TIME_SERIES_BUCKETS + " buckets");
+        }
 
-        List<String> alerts = generateAlerts(spendingByCategory);
+        User user = userService.getAuthenticatedUser();
+        int buckets = (int) bucketCount;
+        LocalDate toExclusive = to.plusDays(1);
+
+        if (!byCategory) {
+            List<TimeSeriesBucket> rows = expenseRepository.sumByBucket(
+                    user.getId(), from, toExclusive, interval.getDays(), buckets);
+            long[] totals = new long[buckets];
+            for (TimeSeriesBucket row : rows) {
+                totals[row.getBucket()] = row.getTotalMinor();
+            }
+            addArchivedBuckets(user.getId(), from, toExclusive, interval, totals, null);
+            return TimeSeriesResponse.builder()
+                    .start(from)
+                    .end(to)
+                    .interval(interval)
+                    .totals(toDecimals(totals))
+                    .build();
+        }
+
+        List<TimeSeriesBucket> rows = expenseRepository.sumByBucketAndCategory(
+                user.getId(), from, toExclusive, interval.getDays(), buckets);
+        long[] totals = new long[buckets];
+        Map<String, long[]> series = new TreeMap<>();
+        for (TimeSeriesBucket row : rows) {
+            // Gap rows carry no category; they only guarantee that every bucket is present
+            if (row.getCategoryName() == null) {
+                continue;
+            }
+            series.computeIfAbsent(row.getCategoryName(), key -> new long[buckets])[row.getBucket()] = row.getTotalMinor();
+            totals[row.getBucket()] = Math.addExact(totals[row.getBucket()], row.getTotalMinor());
+        }
+        addArchivedBuckets(user.getId(), from, toExclusive, interval, totals, series);
+
+        Map<String, List<BigDecimal>> byCategoryValues = new TreeMap<>();
+        series.forEach((categoryName, values) -> byCategoryValues.put(categoryName, toDecimals(values)));
+
+        return TimeSeriesResponse.builder()
+                .start(from)
+                .end(to)
+                .interval(interval)
+                .totals(toDecimals(totals))
+                .byCategory(byCategoryValues)
+                .build();
+    }
+
+    /**
+     * Adds archived expenses to time series buckets, and to per-category series when given.
+     */
+    private void addArchivedBuckets(Long userId, LocalDate from, LocalDate toExclusive, TimeSeriesInterval interval,
+                                    long[] totals, Map<String, long[]> series) {
+        int fromDay = (int) from.toEpochDay();
+        Map<Long, long[]> seriesByCategoryId = new HashMap<>();
+        expenseArchiveService.scan(userId, from, toExclusive, (epochDay, amountMinor, categoryId) -> {
+            int bucket = (epochDay - fromDay) / interval.getDays();
+            totals[bucket] = Math.addExact(totals[bucket], amountMinor);
+            if (series != null) {
+                long[] values = seriesByCategoryId.computeIfAbsent(categoryId, key -> new long[totals.length]);
+                values[bucket] = Math.addExact(values[bucket], amountMinor);
+            }
+        });
+        if (seriesByCategoryId.isEmpty()) {
+            return;
+        }
+
+        Map<Long, String> categoryNames = categoryNames(seriesByCategoryId.keySet());
+        seriesByCategoryId.forEach((categoryId, values) -> {
+            long[] merged = series.computeIfAbsent(categoryNames.get(categoryId), key -> new long[totals.length]);
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] = Math.addExact(merged[i], values[i]);
+            }
+        });
+    }
+
+    /**
+     * Adds archived expenses to consecutive months of live spending starting at {@code from}.
+     */
+    private List<MonthlySpending> withArchived(Long userId, YearMonth from, List<MonthlySpending> spending) {
+        int months = spending.size();
+        Map<Long, long[]> totalsByCategoryId = new HashMap<>();
+        int[] counts = new int[months];
+        expenseArchiveService.scan(userId, from.atDay(1), from.plusMonths(months).atDay(1), (epochDay, amountMinor, categoryId) -> {
+            int month = (int) ChronoUnit.MONTHS.between(from, YearMonth.from(LocalDate.ofEpochDay(epochDay)));
+            long[] totals = totalsByCategoryId.computeIfAbsent(categoryId, key -> new long[months]);
+            totals[month] = Math.addExact(totals[month], amountMinor);
+            counts[month]++;
+        });
+        if (totalsByCategoryId.isEmpty()) {
+            return spending;
+        }
+
+        Map<Long, String> categoryNames = categoryNames(totalsByCategoryId.keySet());
+        List<MonthlySpending> merged = new ArrayList<>(months);
+        for (int month = 0; month < months; month++) {
+            MonthlySpending live = spending.get(month);
+            if (counts[month] == 0) {
+                merged.add(live);
+                continue;
+            }
+            Map<String, Long> spendingByCategory = new HashMap<>(live.getSpendingByCategoryMinor());
+            for (Map.Entry<Long, long[]> entry : totalsByCategoryId.entrySet()) {
+                if (entry.getValue()[month] != 0) {
+                    spendingByCategory.merge(categoryNames.get(entry.getKey()), entry.getValue()[month], Math::addExact);
+                }
+            }
+            merged.add(new MonthlySpending(live.getMonth(), spendingByCategory, live.getExpenseCount() + counts[month]));
+        }
+        return merged;
+    }
+
+    private List<ExpenseResponse> archivedExpenses(Long userId, String categoryName, FieldSelection<ExpenseField> fields) {
+        List<ExpenseResponse> responses = new ArrayList<>();
+        List<ArchivedExpense> archived = expenseArchiveService.findExpenses(userId);
+        if (archived.isEmpty()) {
+            return responses;
+        }
+
+        boolean withCategory = fields.includes(ExpenseField.CATEGORY_NAME);
+        Map<Long, String> categoryNames = categoryName == null && !withCategory ? Map.of() : categoryNames(archived.stream()
+                .map(ArchivedExpense::getCategoryId)
+                .collect(Collectors.toSet()));
+        for (ArchivedExpense expense : archived) {
+            String expenseCategory = categoryNames.get(expense.getCategoryId());
+            if (categoryName == null || categoryName.equals(expenseCategory)) {
+                responses.add(ExpenseResponse.builder()
+                        .id(fields.includes(ExpenseField.ID) ? expense.getId() : null)
+                        .amount(fields.includes(ExpenseField.AMOUNT) ? MinorUnits.toDecimal(expense.getAmountMinor()) : null)
+                        .description(fields.includes(ExpenseField.DESCRIPTION) ? expense.getDescription() : null)
+                        .categoryName(withCategory ? expenseCategory : null)
+                        .date(fields.includes(ExpenseField.DATE) ? expense.getDate() : null)
+                        .build());
+            }
+        }
+        return responses;
+    }
+
+    private static boolean needsCategories(FieldSelection<ReportField> fields) {
+        return fields.includes(ReportField.SPENDING_BY_CATEGORY) || fields.includes(ReportField.ALERTS);
+    }
+
+    /**
+     * Reports with only totals and counts for consecutive months, live and archived expenses
+     * included, without reading categories.
+     */
+    private List<MonthlyReportResponse> monthlyTotals(Long userId, YearMonth from, YearMonth to) {
+        int months = (int) ChronoUnit.MONTHS.between(from, to) + 1;
+        long[] totals = new long[months];
+        int[] counts = new int[months];
+        for (MonthlyTotal total : expenseRepository.sumByMonth(userId, from.atDay(1), to.plusMonths(1).atDay(1))) {
+            int month = (int) ChronoUnit.MONTHS.between(from, YearMonth.of(total.getYear(), total.getMonth()));
+            totals[month] = total.getTotalMinor();
+            counts[month] = (int) total.getExpenseCount();
+        }
+        expenseArchiveService.scan(userId, from.atDay(1), to.plusMonths(1).atDay(1), (epochDay, amountMinor, categoryId) -> {
+            int month = (int) ChronoUnit.MONTHS.between(from, YearMonth.from(LocalDate.ofEpochDay(epochDay)));
+            totals[month] = Math.addExact(totals[month], amountMinor);
+            counts[month]++;
+        });
+
+        List<MonthlyReportResponse> reports = new ArrayList<>(months);
+        for (int month = 0; month < months; month++) {
+            YearMonth reportMonth = from.plusMonths(month);
+            reports.add(MonthlyReportResponse.builder()
+                    .year(reportMonth.getYear())
+                    .month(reportMonth.getMonthValue())
+                    .totalAmount(MinorUnits.toDecimal(totals[month]))
+                    .expenseCount(counts[month])
+                    .build());
+        }
+        return reports;
+    }
+
+    private Map<Long, String> categoryNames(Collection<Long> categoryIds) {
+        return categoryRepository.findAllById(categoryIds)
+                .stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+    }
+
+    private static List<BigDecimal> toDecimals(long[] minorAmounts) {
+        return Arrays.stream(minorAmounts)
+                .mapToObj(MinorUnits::toDecimal)
+                .collect(Collectors.toList());
+    }
+
+    private List<MonthlySpending> sumByMonthAndCategory(Long userId, YearMonth from, YearMonth to) {
+        List<MonthlyCategoryTotal> totals = expenseRepository.sumByMonthAndCategory(
+                userId, from.atDay(1), to.plusMonths(1).atDay(1));
+
+        Map<YearMonth, Map<String, Long>> spendingByMonth = new HashMap<>();
+        Map<YearMonth, Integer> countByMonth = new HashMap<>();
+        for (MonthlyCategoryTotal total : totals) {
+            YearMonth month = YearMonth.of(total.getYear(), total.getMonth());
+            spendingByMonth.computeIfAbsent(month, key -> new HashMap<>())
+                    .put(total.getCategoryName(), total.getTotalMinor());
+            countByMonth.merge(month, (int) total.getExpenseCount(), Integer::sum);
+        }
+
+        List<MonthlySpending> spending = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            spending.add(new MonthlySpending(month,
+                    spendingByMonth.getOrDefault(month, new HashMap<>()),
+                    countByMonth.getOrDefault(month, 0)));
+        }
+        return spending;
+    }
+
+    /**
+     * Spending per month rolled up the category hierarchy by one grouped query. The analytics store
+     * keeps no hierarchy, so rollups always come from the database; archived expenses are rolled up
+     * through the cached category tree.
+     */
+    private List<MonthlySpending> sumByMonthAndAncestor(Long userId, YearMonth from, YearMonth to, CategoryRollup rollup) {
+        CategoryTree.Node root = rollup.getUnder() == null ? null : categoryTree.findByName(rollup.getUnder())
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + rollup.getUnder()));
+        int depth = rollup.getDepth() != null ? rollup.getDepth() : root.getDepth() + 1;
+
+        int months = (int) ChronoUnit.MONTHS.between(from, to) + 1;
+        List<Map<String, Long>> spendingByMonth = new ArrayList<>(months);
+        for (int month = 0; month < months; month++) {
+            spendingByMonth.add(new HashMap<>());
+        }
+        int[] counts = new int[months];
+
+        for (MonthlyAncestorTotal total : expenseRepository.sumByMonthAndAncestor(userId,
+                from.atDay(1), to.plusMonths(1).atDay(1), depth,
+                root == null ? "/" : root.getPath(), root == null ? "0" : root.subtreeEnd())) {
+            int month = (int) ChronoUnit.MONTHS.between(from, YearMonth.of(total.getYear(), total.getMonth()));
+            String categoryName = categoryTree.findById(total.getCategoryId()).orElseThrow().getName();
+            spendingByMonth.get(month).merge(categoryName, total.getTotalMinor(), Math::addExact);
+            counts[month] += (int) total.getExpenseCount();
+        }
+        expenseArchiveService.scan(userId, from.atDay(1), to.plusMonths(1).atDay(1), (epochDay, amountMinor, categoryId) -> {
+            CategoryTree.Node category = categoryTree.findById(categoryId).orElseThrow();
+            if (root != null && !category.isWithin(root)) {
+                return;
+            }
+            int month = (int) ChronoUnit.MONTHS.between(from, YearMonth.from(LocalDate.ofEpochDay(epochDay)));
+            spendingByMonth.get(month).merge(categoryTree.ancestorAt(category, depth).getName(), amountMinor, Math::addExact);
+            counts[month]++;
+        });
+
+        List<MonthlySpending> spending = new ArrayList<>(months);
+        for (int month = 0; month < months; month++) {
+            spending.add(new MonthlySpending(from.plusMonths(month), spendingByMonth.get(month), counts[month]));
+        }
+        return spending;
+    }
+
+    static MonthlyReportResponse buildReport(MonthlySpending spending) {
+        long totalMinor = 0;
+        Map<String, BigDecimal> spendingByCategory = new HashMap<>();
+        for (Map.Entry<String, Long> entry : spending.getSpendingByCategoryMinor().entrySet()) {
+            totalMinor = Math.addExact(totalMinor, entry.getValue());
+            spendingByCategory.put(entry.getKey(), MinorUnits.toDecimal(entry.getValue()));
+        }
+
+        List<String> alerts = generateAlerts(spending.getSpendingByCategoryMinor());
 
         return MonthlyReportResponse.builder()
-                .year(year)
-                .month(month)
-                .totalAmount(totalAmount)
-                .expenseCount(expenses.size())
+                .year(spending.getMonth().getYear())
+                .month(spending.getMonth().getMonthValue())
+                .totalAmount(MinorUnits.toDecimal(totalMinor))
+                .expenseCount(spending.getExpenseCount())
                 .spendingByCategory(spendingByCategory)
                 .alerts(alerts)
                 .build();
     }
 
-    private List<String> generateAlerts(Map<String, BigDecimal> spendingByCategory) {
+    /**
+     * Marks the snapshot of an ended month stale within the writer's transaction; see
+     * {@link ReportSnapshotService}.
+     */
+    private void markReportStale(Long userId, LocalDate date) {
+        if (StaleReportMonths.hasEnded(date, LocalDate.now())) {
+            reportSnapshotRepository.markStale(userId, date.withDayOfMonth(1));
+        }
+    }
+
+    static YearMonth toReportMonth(int year, int month) {
+        try {
+            return YearMonth.of(year, month);
+        } catch (DateTimeException ex) {
+            throw new InvalidRequestException("Invalid report month: " + year + "-" + month);
+        }
+    }
+
+    private static List<String> generateAlerts(Map<String, Long> spendingByCategoryMinor) {
         List<String> alerts = new ArrayList<>();
 
-        spendingByCategory.forEach((category, amount) -> {
-            if (amount.compareTo(BigDecimal.valueOf(2000)) > 0) {
-                alerts.add(String.format("Warning: You spent %.2f on %s this month!", amount, category));
+        spendingByCategoryMinor.forEach((category, amountMinor) -> {
+            if (amountMinor > ALERT_THRESHOLD_MINOR) {
+                alerts.add(String.format("Warning: You spent %.2f on %s this month!",
+                        MinorUnits.toDecimal(amountMinor), category));
             }
         });
 
         return alerts;
     }
 
+    private static ExpenseResponse toExpenseResponse(SparseExpenseRow row) {
+        return ExpenseResponse.builder()
+                .id(row.getId())
+                .amount(row.getAmountMinor() == null ? null : MinorUnits.toDecimal(row.getAmountMinor()))
+                .description(row.getDescription())
+                .categoryName(row.getCategoryName())
+                .date(row.getDate())
+                .build();
+    }
+
     private ExpenseResponse toExpenseResponse(Expense expense) {
         return ExpenseResponse.builder()
                 .id(expense.getId())
-                .amount(expense.getAmount())
+                .amount(MinorUnits.toDecimal(expense.getAmountMinor()))
                 .description(expense.getDescription())
                 .categoryName(expense.getCategory().getName())
                 .date(expense.getDate())
@@ -0,0 +1,22 @@
+package com.expensetracker.api.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts are stored and aggregated as {@code long} counts of the smallest currency unit at a
+ * fixed scale, and only turned into {@link BigDecimal} at the API boundary.
+ */
+public final class MinorUnits {
+    public static final int SCALE = 2;
+
+    private MinorUnits() {
+    }
+
+    public static long fromDecimal(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, SCALE);
+    }
+}
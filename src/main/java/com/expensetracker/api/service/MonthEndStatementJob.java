@@ -0,0 +1,265 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.dto.UserMonthlyStatement;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes every user's monthly report for a closed month to {@code statements-yyyy-MM.jsonl} in
+ * {@code app.statements.directory}, one JSON line per user in user id order.
+ * <p>
+ * User ids are split into ranges of {@code app.statements.chunk-users}, which
+ * {@code app.statements.parallelism} workers aggregate and serialize concurrently, each on one pooled
+ * connection. Finished ranges are appended strictly in order, and at most two per worker wait in
+ * memory. Every {@code app.statements.checkpoint-interval-ms}, and when a range fails, the file is fsynced and a
+ * checkpoint records how far it got, so a run that crashed or failed resumes from there when it is
+ * started again for the same month. The file only gets its final name once complete.
+ */
+@Slf4j
+@Component
+public class MonthEndStatementJob {
+
+    private final MonthEndStatementReader reader;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int parallelism;
+    private final int chunkUsers;
+    private final long checkpointIntervalNanos;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("month-end-statements-"));
+
+    private volatile Progress progress;
+
+    public MonthEndStatementJob(MonthEndStatementReader reader,
+                                ObjectMapper objectMapper,
+                                @Value("${app.statements.directory:data/statements}") String directory,
+                                @Value("${app.statements.parallelism:4}") int parallelism,
+                                @Value("${app.statements.chunk-users:1000}") int chunkUsers,
+                                @Value("${app.statements.checkpoint-interval-ms:5000}") long checkpointIntervalMs) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.parallelism = parallelism;
+        this.chunkUsers = chunkUsers;
+        this.checkpointIntervalNanos = TimeUnit.MILLISECONDS.toNanos(checkpointIntervalMs);
+    }
+
+    /**
+     * The current or last run on this node, or null if there was none since startup.
+     */
+    public Progress getProgress() {
+        return progress;
+    }
+
+    public Path outputFile(YearMonth month) {
+        return directory.resolve("statements-" + month + ".jsonl");
+    }
+
+    /**
+     * Starts or resumes the run for {@code month} in the background.
+     *
+     * @throws IllegalStateException if a run is in progress or the month's file is already complete
+     */
+    public synchronized Progress start(YearMonth month) {
+        if (progress != null && progress.getState() == State.RUNNING) {
+            throw new IllegalStateException("Statements for " + progress.getMonth() + " are being generated");
+        }
+        if (Files.exists(outputFile(month))) {
+            throw new IllegalStateException("Statements for " + month + " were already generated; delete "
+                    + outputFile(month) + " to generate them again");
+        }
+        progress = Progress.started(month);
+        runner.execute(() -> {
+            try {
+                run(month);
+            } catch (IOException | RuntimeException ex) {
+                log.error("Generating statements for {} failed; starting it again resumes from the last checkpoint",
+                        month, ex);
+                progress = progress.failed(ex.toString());
+            }
+        });
+        return progress;
+    }
+
+    /**
+     * Generates the month's file, resuming from its checkpoint if there is one, on the calling thread.
+     */
+    void run(YearMonth month) throws IOException {
+        long startNanos = System.nanoTime();
+        Files.createDirectories(directory);
+        Path output = outputFile(month);
+        Path partial = output.resolveSibling(output.getFileName() + ".partial");
+        Path checkpointFile = output.resolveSibling(output.getFileName() + ".checkpoint");
+
+        StatementCheckpoint checkpoint = StatementCheckpoint.read(checkpointFile).orElse(null);
+        if (checkpoint == null) {
+            checkpoint = StatementCheckpoint.start(reader.maxUserId());
+            checkpoint.write(checkpointFile);
+        } else {
+            log.info("Resuming statements for {} at user id {}", month, checkpoint.getNextUserId());
+        }
+        progress = Progress.started(month).advance(checkpoint);
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                new CustomizableThreadFactory("month-end-statements-worker-"));
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Anything past the checkpoint was written by the run that stopped and is read again
+            channel.truncate(checkpoint.getBytes());
+            channel.position(checkpoint.getBytes());
+
+            Deque<Chunk> inFlight = new ArrayDeque<>();
+            long nextUserId = checkpoint.getNextUserId();
+            StatementCheckpoint written = checkpoint;
+            long checkpointedNanos = System.nanoTime();
+            try {
+                while (!written.isDone()) {
+                    while (inFlight.size() < 2 * parallelism && nextUserId <= written.getLastUserId()) {
+                        long fromUserId = nextUserId;
+                        long toUserId = Math.min(fromUserId + chunkUsers, written.getLastUserId() + 1);
+                        inFlight.add(new Chunk(toUserId, workers.submit(() -> encode(reader.read(month, fromUserId, toUserId)))));
+                        nextUserId = toUserId;
+                    }
+
+                    Chunk chunk = inFlight.poll();
+                    EncodedChunk encoded = await(chunk);
+                    ByteBuffer buffer = ByteBuffer.wrap(encoded.getLines());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    written = written.advance(chunk.getToUserId(), channel.position(), encoded.getUsers());
+                    progress = progress.advance(written);
+
+                    if (System.nanoTime() - checkpointedNanos >= checkpointIntervalNanos) {
+                        checkpoint = save(channel, written, checkpointFile);
+                        checkpointedNanos = System.nanoTime();
+                    }
+                }
+            } catch (IOException | RuntimeException ex) {
+                // Keep what was written before the failure; only a crash loses up to one interval
+                if (written != checkpoint) {
+                    try {
+                        save(channel, written, checkpointFile);
+                    } catch (IOException saveEx) {
+                        ex.addSuppressed(saveEx);
+                    }
+                }
+                throw ex;
+            }
+            checkpoint = written;
+            channel.force(true);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        Files.move(partial, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.delete(checkpointFile);
+        progress = progress.completed();
+        log.info("Wrote {} statements for {} to {} in {} ms", checkpoint.getUsers(), month, output,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private static StatementCheckpoint save(FileChannel channel, StatementCheckpoint checkpoint, Path file)
+            throws IOException {
+        // The checkpoint must never point past what is on disk
+        channel.force(false);
+        checkpoint.write(file);
+        return checkpoint;
+    }
+
+    // Runs on the workers, so the writer only appends bytes
+    private EncodedChunk encode(List<UserMonthlyStatement> statements) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (UserMonthlyStatement statement : statements) {
+            objectMapper.writeValue(lines, statement);
+            lines.write('\n');
+        }
+        return new EncodedChunk(lines.toByteArray(), statements.size());
+    }
+
+    private static EncodedChunk await(Chunk chunk) throws IOException {
+        try {
+            return chunk.getEncoded().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating statements", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @lombok.Value
+    public static class Progress {
+        YearMonth month;
+        State state;
+        Instant startedAt;
+        long lastUserId;
+        long nextUserId;
+        long usersWritten;
+        String error;
+
+        static Progress started(YearMonth month) {
+            return new Progress(month, State.RUNNING, Instant.now(), 0, 0, 0, null);
+        }
+
+        Progress advance(StatementCheckpoint checkpoint) {
+            return new Progress(month, state, startedAt, checkpoint.getLastUserId(), checkpoint.getNextUserId(),
+                    checkpoint.getUsers(), null);
+        }
+
+        Progress completed() {
+            return new Progress(month, State.COMPLETED, startedAt, lastUserId, nextUserId, usersWritten, null);
+        }
+
+        Progress failed(String error) {
+            return new Progress(month, State.FAILED, startedAt, lastUserId, nextUserId, usersWritten, error);
+        }
+    }
+
+    @lombok.Value
+    private static class Chunk {
+        long toUserId;
+        Future<EncodedChunk> encoded;
+    }
+
+    @lombok.Value
+    private static class EncodedChunk {
+        byte[] lines;
+        int users;
+    }
+}
@@ -0,0 +1,89 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.dto.UserMonthlyStatement;
+import com.expensetracker.api.service.analytics.MonthlySpending;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the month-end statements of a range of user ids with one grouped query over the month's
+ * partition, plus the archive files of those users whose archive covers the month.
+ */
+@Component
+@RequiredArgsConstructor
+public class MonthEndStatementReader {
+
+    private static final String FIND_USERS = "SELECT id, username FROM users WHERE id >= ? AND id < ? ORDER BY id";
+    private static final String SUM_BY_USER_AND_CATEGORY = "SELECT user_id, category_id, " +
+            "SUM(amount_minor) AS total_minor, COUNT(*) AS expense_count FROM expenses " +
+            "WHERE date >= ? AND date < ? AND user_id >= ? AND user_id < ? AND deleted_at IS NULL " +
+            "GROUP BY user_id, category_id";
+    private static final String FIND_ARCHIVED_USERS = "SELECT user_id FROM expense_archives " +
+            "WHERE user_id >= ? AND user_id < ? AND expense_count > 0 AND first_date < ? AND last_date >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExpenseArchiveService expenseArchiveService;
+    private final CategoryTree categoryTree;
+
+    public long maxUserId() {
+        Long maxUserId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        return maxUserId == null ? 0 : maxUserId;
+    }
+
+    /**
+     * Statements of every user with an id in {@code [fromUserId, toUserId)}, in id order, including
+     * users who spent nothing that month. Live and archived rows are read in one REPEATABLE READ
+     * transaction, so a concurrent archive run cannot count a row twice or miss it.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<UserMonthlyStatement> read(YearMonth month, long fromUserId, long toUserId) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        Map<Long, String> usernames = new LinkedHashMap<>();
+        jdbcTemplate.query(FIND_USERS, rs -> {
+            usernames.put(rs.getLong("id"), rs.getString("username"));
+        }, fromUserId, toUserId);
+
+        Map<Long, Map<String, Long>> spending = new HashMap<>();
+        Map<Long, int[]> counts = new HashMap<>();
+        jdbcTemplate.query(SUM_BY_USER_AND_CATEGORY, rs -> {
+            long userId = rs.getLong("user_id");
+            add(spending, counts, userId, rs.getLong("category_id"), rs.getLong("total_minor"), rs.getInt("expense_count"));
+        }, Date.valueOf(from), Date.valueOf(to), fromUserId, toUserId);
+
+        List<Long> archivedUserIds = jdbcTemplate.queryForList(FIND_ARCHIVED_USERS, Long.class,
+                fromUserId, toUserId, Date.valueOf(to), Date.valueOf(from));
+        for (Long userId : archivedUserIds) {
+            expenseArchiveService.scan(userId, from, to, (epochDay, amountMinor, categoryId) ->
+                    add(spending, counts, userId, categoryId, amountMinor, 1));
+        }
+
+        List<UserMonthlyStatement> statements = new ArrayList<>(usernames.size());
+        usernames.forEach((userId, username) -> {
+            MonthlySpending monthly = new MonthlySpending(month, spending.getOrDefault(userId, Map.of()),
+                    counts.getOrDefault(userId, new int[1])[0]);
+            statements.add(new UserMonthlyStatement(userId, username, ExpenseService.buildReport(monthly)));
+        });
+        return statements;
+    }
+
+    private void add(Map<Long, Map<String, Long>> spending, Map<Long, int[]> counts,
+                     long userId, long categoryId, long amountMinor, int expenseCount) {
+        String categoryName = categoryTree.findById(categoryId).orElseThrow().getName();
+        spending.computeIfAbsent(userId, key -> new HashMap<>()).merge(categoryName, amountMinor, Math::addExact);
+        counts.computeIfAbsent(userId, key -> new int[1])[0] += expenseCount;
+    }
+}
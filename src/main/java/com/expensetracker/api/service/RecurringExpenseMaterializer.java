@@ -0,0 +1,282 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.entity.RecurrenceFrequency;
+import com.expensetracker.api.service.analytics.ExpenseAnalyticsStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns due recurring expense templates into expenses. Works directly on JDBC and binds each chunk
+ * as column arrays, so thousands of templates cost a handful of statements. Each chunk's expenses
+ * commit together with the template updates, so a crash never produces duplicates.
+ * <p>
+ * Every node schedules the job, but only the one holding a PostgreSQL session advisory lock runs it.
+ * Templates remember how many occurrences were already created, so a run after downtime catches up on
+ * every missed period.
+ */
+@Slf4j
+@Component
+public class RecurringExpenseMaterializer {
+    // Fixed key shared by all nodes; pg_try_advisory_lock admits a single holder cluster-wide
+    static final long LEADER_LOCK_KEY = 0x5245_4355_5252L;
+
+    // Keyset on (next_due_date, id); processed templates move past today and drop out of the range
+    private static final String SELECT_DUE = "SELECT id, user_id, category_id, amount_minor, description, frequency, " +
+            "start_date, end_date, occurrences, next_due_date FROM recurring_expenses " +
+            "WHERE next_due_date <= ? AND (next_due_date, id) > (?, ?) ORDER BY next_due_date, id LIMIT ?";
+    // Change locks of the chunk's users, taken in ascending id order before any change sequence number
+    // is drawn; see lock_expense_changes in schema.sql
+    private static final String LOCK_CHANGES = "SELECT lock_expense_changes(u) FROM unnest(?) AS u ORDER BY u";
+    // Each chunk is bound as column arrays, so one statement carries every row regardless of size
+    private static final String INSERT_EXPENSES = "INSERT INTO expenses " +
+            "(amount_minor, date, description, category_id, user_id, change_seq, updated_at) " +
+            "SELECT k.amount_minor, k.date, k.description, k.category_id, k.user_id, nextval('expense_change_seq'), ? " +
+            "FROM unnest(?, ?, ?, ?, ?) AS k(amount_minor, date, description, category_id, user_id)";
+    private static final String ADVANCE_TEMPLATES = "UPDATE recurring_expenses r " +
+            "SET occurrences = k.occurrences, next_due_date = k.next_due_date " +
+            "FROM unnest(?, ?, ?) AS k(id, occurrences, next_due_date) WHERE r.id = k.id";
+
+    private final DataSource dataSource;
+    private final ExpenseAnalyticsStore expenseAnalyticsStore;
+    private final SpendingAnomalyService spendingAnomalyService;
+    private final int batchSize;
+
+    public RecurringExpenseMaterializer(DataSource dataSource,
+                                        ExpenseAnalyticsStore expenseAnalyticsStore,
+                                        SpendingAnomalyService spendingAnomalyService,
+                                        @Value("${app.recurring.batch-size:5000}") int batchSize) {
+        this.dataSource = dataSource;
+        this.expenseAnalyticsStore = expenseAnalyticsStore;
+        this.spendingAnomalyService = spendingAnomalyService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${app.recurring.cron:0 */10 * * * *}")
+    public void materializeDue() {
+        try {
+            materializeDue(LocalDate.now());
+        } catch (SQLException ex) {
+            log.error("Recurring expense materialization failed; due templates will be retried on the next run", ex);
+        }
+    }
+
+    /**
+     * Creates every occurrence due on or before {@code today}. Returns the number of expenses created,
+     * or -1 when another node currently holds the leader lock.
+     */
+    public long materializeDue(LocalDate today) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!tryLeaderLock(connection)) {
+                log.debug("Another node is materializing recurring expenses");
+                return -1;
+            }
+            try {
+                return materializeAsLeader(connection, today);
+            } finally {
+                releaseLeaderLock(connection);
+            }
+        }
+    }
+
+    private long materializeAsLeader(Connection connection, LocalDate today) throws SQLException {
+        long startNanos = System.nanoTime();
+        long templates = 0;
+        long created = 0;
+        LocalDate afterDueDate = LocalDate.of(1, 1, 1);
+        long afterId = 0;
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            while (true) {
+                List<DueTemplate> due = loadDue(connection, today, afterDueDate, afterId);
+                if (due.isEmpty()) {
+                    break;
+                }
+                Set<Long> touchedUsers = new HashSet<>();
+                created += materializeChunk(connection, due, today, touchedUsers);
+                connection.commit();
+
+                touchedUsers.forEach(expenseAnalyticsStore::invalidate);
+                spendingAnomalyService.evict(touchedUsers);
+                templates += due.size();
+                DueTemplate last = due.get(due.size() - 1);
+                afterDueDate = last.getNextDueDate();
+                afterId = last.getId();
+            }
+        } catch (SQLException | RuntimeException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        if (templates > 0) {
+            log.info("Materialized {} expenses from {} recurring templates in {} ms",
+                    created, templates, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+        return created;
+    }
+
+    private List<DueTemplate> loadDue(Connection connection, LocalDate today, LocalDate afterDueDate, long afterId)
+            throws SQLException {
+        List<DueTemplate> due = new ArrayList<>(batchSize);
+        try (PreparedStatement select = connection.prepareStatement(SELECT_DUE)) {
+            select.setObject(1, today);
+            select.setObject(2, afterDueDate);
+            select.setLong(3, afterId);
+            select.setInt(4, batchSize);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    due.add(new DueTemplate(
+                            rows.getLong("id"),
+                            rows.getLong("user_id"),
+                            rows.getLong("category_id"),
+                            rows.getLong("amount_minor"),
+                            rows.getString("description"),
+                            RecurrenceFrequency.valueOf(rows.getString("frequency")),
+                            rows.getObject("start_date", LocalDate.class),
+                            rows.getObject("end_date", LocalDate.class),
+                            rows.getInt("occurrences"),
+                            rows.getObject("next_due_date", LocalDate.class)));
+                }
+            }
+        }
+        return due;
+    }
+
+    private long materializeChunk(Connection connection, List<DueTemplate> due, LocalDate today,
+                                  Set<Long> touchedUsers) throws SQLException {
+        List<Long> amounts = new ArrayList<>();
+        List<Date> dates = new ArrayList<>();
+        List<String> descriptions = new ArrayList<>();
+        List<Long> categoryIds = new ArrayList<>();
+        List<Long> userIds = new ArrayList<>();
+        Long[] templateIds = new Long[due.size()];
+        Integer[] occurrences = new Integer[due.size()];
+        Date[] nextDueDates = new Date[due.size()];
+        SpendingSketchBatch sketches = new SpendingSketchBatch();
+        SpendingMomentsBatch moments = new SpendingMomentsBatch();
+        StaleReportMonths staleReports = new StaleReportMonths(today);
+
+        for (int i = 0; i < due.size(); i++) {
+            DueTemplate template = due.get(i);
+            Schedule schedule = schedule(template, today);
+            for (LocalDate date : schedule.getDates()) {
+                amounts.add(template.getAmountMinor());
+                dates.add(Date.valueOf(date));
+                descriptions.add(template.getDescription());
+                categoryIds.add(template.getCategoryId());
+                userIds.add(template.getUserId());
+                sketches.add(template.getUserId(), template.getCategoryId(), date, template.getAmountMinor());
+                moments.add(template.getUserId(), template.getCategoryId(), template.getAmountMinor());
+                staleReports.add(template.getUserId(), date);
+            }
+            if (!schedule.getDates().isEmpty()) {
+                touchedUsers.add(template.getUserId());
+            }
+            templateIds[i] = template.getId();
+            occurrences[i] = schedule.getOccurrences();
+            nextDueDates[i] = schedule.getNextDueDate() == null ? null : Date.valueOf(schedule.getNextDueDate());
+        }
+
+        if (!amounts.isEmpty()) {
+            try (PreparedStatement lock = connection.prepareStatement(LOCK_CHANGES)) {
+                lock.setArray(1, connection.createArrayOf("bigint", touchedUsers.stream().sorted().toArray()));
+                lock.execute();
+            }
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_EXPENSES)) {
+                insert.setTimestamp(1, Timestamp.from(Instant.now()));
+                insert.setArray(2, connection.createArrayOf("bigint", amounts.toArray()));
+                insert.setArray(3, connection.createArrayOf("date", dates.toArray()));
+                insert.setArray(4, connection.createArrayOf("varchar", descriptions.toArray()));
+                insert.setArray(5, connection.createArrayOf("bigint", categoryIds.toArray()));
+                insert.setArray(6, connection.createArrayOf("bigint", userIds.toArray()));
+                insert.executeUpdate();
+            }
+        }
+
+        try (PreparedStatement advance = connection.prepareStatement(ADVANCE_TEMPLATES)) {
+            advance.setArray(1, connection.createArrayOf("bigint", templateIds));
+            advance.setArray(2, connection.createArrayOf("integer", occurrences));
+            advance.setArray(3, connection.createArrayOf("date", nextDueDates));
+            advance.executeUpdate();
+        }
+
+        sketches.mergeInto(connection);
+        moments.mergeInto(connection);
+        staleReports.markInto(connection);
+        return amounts.size();
+    }
+
+    /**
+     * Lists the occurrences of {@code template} due on or before {@code today} that have not been
+     * created yet, and where the template stands afterwards.
+     */
+    static Schedule schedule(DueTemplate template, LocalDate today) {
+        List<LocalDate> dates = new ArrayList<>();
+        int occurrences = template.getOccurrences();
+        LocalDate next = template.getFrequency().occurrence(template.getStartDate(), occurrences);
+        while (!next.isAfter(today) && (template.getEndDate() == null || !next.isAfter(template.getEndDate()))) {
+            dates.add(next);
+            occurrences++;
+            next = template.getFrequency().occurrence(template.getStartDate(), occurrences);
+        }
+        boolean finished = template.getEndDate() != null && next.isAfter(template.getEndDate());
+        return new Schedule(dates, occurrences, finished ? null : next);
+    }
+
+    private static boolean tryLeaderLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, LEADER_LOCK_KEY);
+            try (ResultSet result = lock.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private static void releaseLeaderLock(Connection connection) throws SQLException {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            unlock.setLong(1, LEADER_LOCK_KEY);
+            unlock.execute();
+        }
+    }
+
+    @lombok.Value
+    static class DueTemplate {
+        long id;
+        long userId;
+        long categoryId;
+        long amountMinor;
+        String description;
+        RecurrenceFrequency frequency;
+        LocalDate startDate;
+        LocalDate endDate;
+        int occurrences;
+        LocalDate nextDueDate;
+    }
+
+    @lombok.Value
+    static class Schedule {
+        List<LocalDate> dates;
+        int occurrences;
+        LocalDate nextDueDate;
+    }
+}
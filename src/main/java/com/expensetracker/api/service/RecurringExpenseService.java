@@ -0,0 +1,87 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.controller.exception.ResourceNotFoundException;
+import com.expensetracker.api.dto.CreateRecurringExpenseRequest;
+import com.expensetracker.api.dto.RecurringExpenseResponse;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.entity.RecurringExpense;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.repository.RecurringExpenseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class RecurringExpenseService {
+
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final CategoryRepository categoryRepository;
+    private final UserService userService;
+
+    /**
+     * Stores the template only; occurrences up to today, including past ones, are created by
+     * {@link RecurringExpenseMaterializer} on its next run.
+     */
+    public RecurringExpenseResponse createRecurringExpense(CreateRecurringExpenseRequest request) {
+        if (request.getEndDate() != null && request.getEndDate().isBefore(request.getStartDate())) {
+            throw new InvalidRequestException("End date must not be before start date");
+        }
+
+        User user = userService.getAuthenticatedUser();
+
+        Category category = categoryRepository.findByName(request.getCategoryName())
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + request.getCategoryName()));
+
+        RecurringExpense recurringExpense = RecurringExpense.builder()
+                .amountMinor(MinorUnits.fromDecimal(request.getAmount()))
+                .description(request.getDescription())
+                .category(category)
+                .user(user)
+                .frequency(request.getFrequency())
+                .startDate(request.getStartDate())
+                .endDate(request.getEndDate())
+                .occurrences(0)
+                .nextDueDate(request.getStartDate())
+                .build();
+
+        return toRecurringExpenseResponse(recurringExpenseRepository.save(recurringExpense));
+    }
+
+    public List<RecurringExpenseResponse> getRecurringExpenses() {
+        User user = userService.getAuthenticatedUser();
+        return recurringExpenseRepository.findByUserIdOrderByIdAsc(user.getId())
+                .stream()
+                .map(this::toRecurringExpenseResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Stops future occurrences; expenses already created from the template are kept.
+     */
+    public void deleteRecurringExpense(Long id) {
+        User user = userService.getAuthenticatedUser();
+
+        RecurringExpense recurringExpense = recurringExpenseRepository.findByIdAndUserId(id, user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Recurring expense not found: " + id));
+
+        recurringExpenseRepository.delete(recurringExpense);
+    }
+
+    private RecurringExpenseResponse toRecurringExpenseResponse(RecurringExpense recurringExpense) {
+        return RecurringExpenseResponse.builder()
+                .id(recurringExpense.getId())
+                .amount(MinorUnits.toDecimal(recurringExpense.getAmountMinor()))
+                .description(recurringExpense.getDescription())
+                .categoryName(recurringExpense.getCategory().getName())
+                .frequency(recurringExpense.getFrequency())
+                .startDate(recurringExpense.getStartDate())
+                .endDate(recurringExpense.getEndDate())
+                .nextDueDate(recurringExpense.getNextDueDate())
+                .build();
+    }
+}
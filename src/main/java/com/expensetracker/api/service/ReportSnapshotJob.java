@@ -0,0 +1,127 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.repository.ReportSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes report snapshots for the month that closed most recently, so the first reads after
+ * month end do not all aggregate raw rows. Each run warms at most {@code app.report-snapshots.batch-size}
+ * users, in user id order, and the job runs every few minutes ({@code app.report-snapshots.cron}), so
+ * the work trickles into the database over the days after a month closes instead of arriving at once.
+ * <p>
+ * Every node schedules the job, but only the one holding a PostgreSQL session advisory lock runs a
+ * batch. A node that found nothing left to warm skips the query until the next month closes.
+ */
+@Slf4j
+@Component
+public class ReportSnapshotJob {
+    // Fixed key shared by all nodes, distinct from RecurringExpenseMaterializer.LEADER_LOCK_KEY
+    static final long LEADER_LOCK_KEY = 0x5245_504F_5254L;
+
+    private final DataSource dataSource;
+    private final ReportSnapshotService reportSnapshotService;
+    private final ReportSnapshotRepository reportSnapshotRepository;
+    private final int batchSize;
+
+    // Only touched by the scheduler thread
+    private YearMonth warmedMonth;
+    private YearMonth cursorMonth;
+    private long cursorUserId;
+
+    public ReportSnapshotJob(DataSource dataSource,
+                             ReportSnapshotService reportSnapshotService,
+                             ReportSnapshotRepository reportSnapshotRepository,
+                             @Value("${app.report-snapshots.batch-size:200}") int batchSize) {
+        this.dataSource = dataSource;
+        this.reportSnapshotService = reportSnapshotService;
+        this.reportSnapshotRepository = reportSnapshotRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${app.report-snapshots.cron:0 */5 * * * *}")
+    public void warm() {
+        if (!reportSnapshotService.isEnabled()) {
+            return;
+        }
+        YearMonth month = reportSnapshotService.lastClosedMonth(LocalDate.now());
+        if (month.equals(warmedMonth)) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            if (!tryLeaderLock(connection)) {
+                log.debug("Another node is warming report snapshots");
+                return;
+            }
+            try {
+                if (warmBatch(month) < batchSize) {
+                    warmedMonth = month;
+                }
+            } finally {
+                releaseLeaderLock(connection);
+            }
+        } catch (SQLException ex) {
+            log.error("Warming report snapshots failed; the next run retries", ex);
+        }
+    }
+
+    /**
+     * Computes snapshots for the next batch of users with expenses in {@code month} but no snapshot.
+     * Returns how many users the batch held; fewer than the batch size means the month is done.
+     */
+    int warmBatch(YearMonth month) {
+        if (!month.equals(cursorMonth)) {
+            cursorMonth = month;
+            cursorUserId = 0;
+        }
+        long startNanos = System.nanoTime();
+        List<Long> userIds = reportSnapshotRepository.findUsersWithoutSnapshot(
+                month.atDay(1), month.plusMonths(1).atDay(1), cursorUserId, batchSize);
+
+        int failed = 0;
+        for (Long userId : userIds) {
+            try {
+                reportSnapshotService.snapshot(userId, month);
+            } catch (RuntimeException ex) {
+                failed++;
+                log.error("Computing the {} report snapshot for user {} failed; it is computed on first read instead",
+                        month, userId, ex);
+            }
+            cursorUserId = userId;
+        }
+
+        if (!userIds.isEmpty()) {
+            log.info("Warmed {} report snapshots for {} ({} failed) in {} ms", userIds.size() - failed, month, failed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+        return userIds.size();
+    }
+
+    private static boolean tryLeaderLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, LEADER_LOCK_KEY);
+            try (ResultSet result = lock.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private static void releaseLeaderLock(Connection connection) throws SQLException {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            unlock.setLong(1, LEADER_LOCK_KEY);
+            unlock.execute();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.entity.ReportSnapshot;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.ReportSnapshotRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * Serves the plain JSON monthly report of closed months, those that ended more than
+ * {@code app.report-snapshots.grace-days} days ago, from a stored snapshot of its serialized bytes.
+ * A snapshot is computed on the first request or by {@link ReportSnapshotJob}.
+ * <p>
+ * Every write to an ended month bumps the month's snapshot version and clears its bytes in the
+ * writer's transaction. A snapshot is only stored if the version it read before computing the
+ * report is still current, so a report computed from data that a concurrent write changed is
+ * returned once but never kept.
+ */
+@Service
+public class ReportSnapshotService {
+
+    private final ExpenseService expenseService;
+    private final UserService userService;
+    private final ReportSnapshotRepository reportSnapshotRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int graceDays;
+
+    public ReportSnapshotService(ExpenseService expenseService,
+                                 UserService userService,
+                                 ReportSnapshotRepository reportSnapshotRepository,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.report-snapshots.enabled:true}") boolean enabled,
+                                 @Value("${app.report-snapshots.grace-days:3}") int graceDays) {
+        this.expenseService = expenseService;
+        this.userService = userService;
+        this.reportSnapshotRepository = reportSnapshotRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.graceDays = graceDays;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The authenticated user's full monthly report as JSON, from the snapshot when the month is closed.
+     */
+    public byte[] getMonthlyReportJson(int year, int month) {
+        YearMonth reportMonth = ExpenseService.toReportMonth(year, month);
+        User user = userService.getAuthenticatedUser();
+        if (!enabled || !isClosed(reportMonth, LocalDate.now())) {
+            return serialize(expenseService.getMonthlyReportForUser(user.getId(), reportMonth));
+        }
+        return snapshot(user.getId(), reportMonth);
+    }
+
+    /**
+     * Returns the stored snapshot of a closed month, computing and storing it when there is none.
+     */
+    public byte[] snapshot(Long userId, YearMonth month) {
+        LocalDate monthStart = month.atDay(1);
+        Optional<ReportSnapshot> stored = reportSnapshotRepository.findByUserIdAndMonthStart(userId, monthStart);
+        if (stored.isPresent() && stored.get().getBody() != null) {
+            return stored.get().getBody();
+        }
+
+        // The version is read before the report, so any write the report misses has already bumped it
+        byte[] body = serialize(expenseService.getMonthlyReportForUser(userId, month));
+        if (stored.isEmpty()) {
+            reportSnapshotRepository.insertIfAbsent(userId, monthStart, body);
+        } else {
+            reportSnapshotRepository.storeIfCurrent(userId, monthStart, stored.get().getVersion(), body);
+        }
+        return body;
+    }
+
+    /**
+     * Whether {@code month} ended more than the grace period before {@code today}.
+     */
+    public boolean isClosed(YearMonth month, LocalDate today) {
+        return !today.isBefore(month.plusMonths(1).atDay(1).plusDays(graceDays));
+    }
+
+    /**
+     * The most recent month that is closed on {@code today}.
+     */
+    public YearMonth lastClosedMonth(LocalDate today) {
+        return YearMonth.from(today.minusDays(graceDays)).minusMonths(1);
+    }
+
+    private byte[] serialize(Object report) {
+        try {
+            return objectMapper.writeValueAsBytes(report);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize monthly report", ex);
+        }
+    }
+}
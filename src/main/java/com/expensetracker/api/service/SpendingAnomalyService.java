@@ -0,0 +1,204 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.dto.ExpenseAnomaly;
+import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.entity.Expense;
+import com.expensetracker.api.entity.SpendingMoments;
+import com.expensetracker.api.repository.ExpenseRepository;
+import com.expensetracker.api.repository.SpendingMomentsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Flags expenses that are unusually large or small for their category, by how many standard
+ * deviations they are from the mean of the user's other expenses there.
+ * <p>
+ * Every create, update and delete adjusts the user's {@link SpendingMoments} with one upsert whose
+ * result scores the written expense, so writes never read the category's history. Reads score
+ * expenses against moments cached per user ({@code app.anomalies.cached-users} at most), loaded with
+ * one query on a miss and dropped when a write to the user commits. An expense is only flagged once
+ * at least {@code app.anomalies.min-samples} other expenses share its category, and when it lies more
+ * than {@code app.anomalies.threshold} standard deviations from their mean.
+ */
+@Service
+public class SpendingAnomalyService {
+    private final JdbcTemplate jdbcTemplate;
+    private final SpendingMomentsRepository spendingMomentsRepository;
+    private final ExpenseRepository expenseRepository;
+    private final CategoryTree categoryTree;
+    private final double threshold;
+    private final int minSamples;
+    private final int cachedUsers;
+
+    // Guarded by "this"; access order makes the eldest entry the least recently used user
+    private final LinkedHashMap<Long, Map<Long, SpendingMoments>> momentsByUser = new LinkedHashMap<>(64, 0.75f, true);
+    // Bumped by every eviction, so a load that raced with a write is not cached
+    private long evictions;
+
+    public SpendingAnomalyService(JdbcTemplate jdbcTemplate,
+                                  SpendingMomentsRepository spendingMomentsRepository,
+                                  ExpenseRepository expenseRepository,
+                                  CategoryTree categoryTree,
+                                  @Value("${app.anomalies.threshold:3.0}") double threshold,
+                                  @Value("${app.anomalies.min-samples:10}") int minSamples,
+                                  @Value("${app.anomalies.cached-users:10000}") int cachedUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.spendingMomentsRepository = spendingMomentsRepository;
+        this.expenseRepository = expenseRepository;
+        this.categoryTree = categoryTree;
+        this.threshold = threshold;
+        // The sample variance of the other expenses needs at least two of them
+        this.minSamples = Math.max(minSamples, 2);
+        this.cachedUsers = cachedUsers;
+    }
+
+    public ExpenseAnomaly recordCreated(Long userId, Long categoryId, long amountMinor) {
+        SpendingMomentsBatch batch = new SpendingMomentsBatch();
+        batch.add(userId, categoryId, amountMinor);
+        return score(apply(userId, batch), categoryId, amountMinor);
+    }
+
+    public ExpenseAnomaly recordUpdated(Long userId, Long previousCategoryId, long previousAmountMinor,
+                                        Long categoryId, long amountMinor) {
+        SpendingMomentsBatch batch = new SpendingMomentsBatch();
+        batch.remove(userId, previousCategoryId, previousAmountMinor);
+        batch.add(userId, categoryId, amountMinor);
+        return score(apply(userId, batch), categoryId, amountMinor);
+    }
+
+    public void recordDeleted(Long userId, Long categoryId, long amountMinor) {
+        SpendingMomentsBatch batch = new SpendingMomentsBatch();
+        batch.remove(userId, categoryId, amountMinor);
+        apply(userId, batch);
+    }
+
+    /**
+     * Drops the cached moments of users whose expenses were written outside this service, such as by
+     * {@link SpendingMomentsBatch#mergeInto} in a bulk writer's own transaction. Call after it commits.
+     */
+    public void evict(Collection<Long> userIds) {
+        synchronized (this) {
+            userIds.forEach(momentsByUser::remove);
+            evictions++;
+        }
+    }
+
+    /**
+     * Sets {@link ExpenseResponse#getAnomaly()} on the responses that are unusual. Responses without an
+     * amount or category are left alone.
+     */
+    public void flag(Long userId, List<ExpenseResponse> responses) {
+        Map<Long, SpendingMoments> moments = null;
+        for (ExpenseResponse response : responses) {
+            if (response.getAmount() == null || response.getCategoryName() == null) {
+                continue;
+            }
+            Optional<CategoryTree.Node> category = categoryTree.findByName(response.getCategoryName());
+            if (category.isEmpty()) {
+                continue;
+            }
+            if (moments == null) {
+                moments = moments(userId);
+            }
+            response.setAnomaly(score(moments.get(category.get().getId()),
+                    MinorUnits.fromDecimal(response.getAmount())));
+        }
+    }
+
+    /**
+     * The user's live expenses that are currently unusual, newest first, found by the database from the
+     * stored moments.
+     */
+    public List<Expense> findAnomalies(Long userId) {
+        return expenseRepository.findAnomalies(userId, minSamples, BigDecimal.valueOf(threshold * threshold));
+    }
+
+    private List<SpendingMoments> apply(Long userId, SpendingMomentsBatch batch) {
+        List<SpendingMoments> merged = jdbcTemplate.execute(batch::mergeInto);
+        TransactionHooks.afterCommit(() -> evict(List.of(userId)));
+        return merged;
+    }
+
+    private Map<Long, SpendingMoments> moments(Long userId) {
+        long loadedAfter;
+        synchronized (this) {
+            Map<Long, SpendingMoments> cached = momentsByUser.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            loadedAfter = evictions;
+        }
+        Map<Long, SpendingMoments> loaded = new HashMap<>();
+        for (SpendingMoments moments : spendingMomentsRepository.findByUserId(userId)) {
+            loaded.put(moments.getCategoryId(), moments);
+        }
+        synchronized (this) {
+            if (evictions == loadedAfter) {
+                momentsByUser.put(userId, loaded);
+                if (momentsByUser.size() > cachedUsers) {
+                    momentsByUser.remove(momentsByUser.keySet().iterator().next());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private ExpenseAnomaly score(List<SpendingMoments> merged, Long categoryId, long amountMinor) {
+        return merged.stream()
+                .filter(moments -> moments.getCategoryId().equals(categoryId))
+                .findFirst()
+                .map(moments -> score(moments, amountMinor))
+                .orElse(null);
+    }
+
+    /**
+     * Scores an expense against moments that include it, by first taking it back out. Returns null
+     * unless the expense is unusual.
+     */
+    ExpenseAnomaly score(SpendingMoments moments, long amountMinor) {
+        if (moments == null) {
+            return null;
+        }
+        long others = moments.getExpenseCount() - 1;
+        if (others < minSamples) {
+            return null;
+        }
+        BigInteger amount = BigInteger.valueOf(amountMinor);
+        BigInteger count = BigInteger.valueOf(others);
+        BigInteger sum = BigInteger.valueOf(moments.getAmountSum()).subtract(amount);
+        BigInteger sumOfSquares = moments.getAmountSumSquares().subtract(amount.multiply(amount));
+
+        // n * sum(x^2) - sum(x)^2 is n * (n - 1) times the sample variance, exactly
+        BigInteger scaledVariance = count.multiply(sumOfSquares).subtract(sum.multiply(sum));
+        if (scaledVariance.signum() <= 0) {
+            return null;
+        }
+        double mean = sum.doubleValue() / others;
+        double standardDeviation = Math.sqrt(scaledVariance.doubleValue() / ((double) others * (others - 1)));
+        double deviations = (amountMinor - mean) / standardDeviation;
+        if (Math.abs(deviations) <= threshold) {
+            return null;
+        }
+        return ExpenseAnomaly.builder()
+                .deviations(BigDecimal.valueOf(deviations).setScale(2, RoundingMode.HALF_UP).doubleValue())
+                .typicalAmount(toAmount(mean))
+                .standardDeviation(toAmount(standardDeviation))
+                .sampleSize(others)
+                .build();
+    }
+
+    private static BigDecimal toAmount(double minor) {
+        return BigDecimal.valueOf(minor).movePointLeft(MinorUnits.SCALE).setScale(MinorUnits.SCALE, RoundingMode.HALF_UP);
+    }
+}
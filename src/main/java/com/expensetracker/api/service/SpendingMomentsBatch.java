@@ -0,0 +1,122 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.entity.SpendingMoments;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects what a write adds to and removes from each user's per-category moments and applies it with
+ * one upsert, in the writer's transaction. The changes are plain sums, so the upsert never reads the
+ * row first and concurrent writers only wait on each other's row lock for the statement itself.
+ */
+final class SpendingMomentsBatch {
+    // Rows are upserted in key order, so two writers touching the same keys cannot deadlock
+    private static final String MERGE_MOMENTS = "INSERT INTO spending_moments " +
+            "(user_id, category_id, expense_count, amount_sum, amount_sum_squares) " +
+            "SELECT * FROM unnest(?, ?, ?, ?, CAST(? AS numeric[])) " +
+            "AS d(user_id, category_id, expense_count, amount_sum, amount_sum_squares) " +
+            "ORDER BY d.user_id, d.category_id " +
+            "ON CONFLICT (user_id, category_id) DO UPDATE SET " +
+            "expense_count = spending_moments.expense_count + EXCLUDED.expense_count, " +
+            "amount_sum = spending_moments.amount_sum + EXCLUDED.amount_sum, " +
+            "amount_sum_squares = spending_moments.amount_sum_squares + EXCLUDED.amount_sum_squares " +
+            "RETURNING id, user_id, category_id, expense_count, amount_sum, amount_sum_squares";
+
+    private final Map<Key, Delta> deltas = new HashMap<>();
+
+    void add(long userId, long categoryId, long amountMinor) {
+        deltas.computeIfAbsent(new Key(userId, categoryId), key -> new Delta()).add(1, amountMinor);
+    }
+
+    void remove(long userId, long categoryId, long amountMinor) {
+        deltas.computeIfAbsent(new Key(userId, categoryId), key -> new Delta()).add(-1, amountMinor);
+    }
+
+    boolean isEmpty() {
+        return deltas.isEmpty();
+    }
+
+    Set<Long> userIds() {
+        Set<Long> userIds = new HashSet<>();
+        deltas.keySet().forEach(key -> userIds.add(key.getUserId()));
+        return userIds;
+    }
+
+    /**
+     * Applies the collected changes within the connection's current transaction and returns the
+     * resulting rows. The rows stay locked until it commits.
+     */
+    List<SpendingMoments> mergeInto(Connection connection) throws SQLException {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+        Long[] userIds = new Long[deltas.size()];
+        Long[] categoryIds = new Long[deltas.size()];
+        Long[] counts = new Long[deltas.size()];
+        Long[] sums = new Long[deltas.size()];
+        BigDecimal[] sumsOfSquares = new BigDecimal[deltas.size()];
+        int i = 0;
+        for (Map.Entry<Key, Delta> entry : deltas.entrySet()) {
+            userIds[i] = entry.getKey().getUserId();
+            categoryIds[i] = entry.getKey().getCategoryId();
+            counts[i] = entry.getValue().count;
+            sums[i] = entry.getValue().sum;
+            sumsOfSquares[i] = new BigDecimal(entry.getValue().sumOfSquares);
+            i++;
+        }
+
+        List<SpendingMoments> merged = new ArrayList<>(deltas.size());
+        try (PreparedStatement merge = connection.prepareStatement(MERGE_MOMENTS)) {
+            merge.setArray(1, connection.createArrayOf("bigint", userIds));
+            merge.setArray(2, connection.createArrayOf("bigint", categoryIds));
+            merge.setArray(3, connection.createArrayOf("bigint", counts));
+            merge.setArray(4, connection.createArrayOf("bigint", sums));
+            merge.setArray(5, connection.createArrayOf("numeric", sumsOfSquares));
+            try (ResultSet rows = merge.executeQuery()) {
+                while (rows.next()) {
+                    merged.add(SpendingMoments.builder()
+                            .id(rows.getLong("id"))
+                            .userId(rows.getLong("user_id"))
+                            .categoryId(rows.getLong("category_id"))
+                            .expenseCount(rows.getLong("expense_count"))
+                            .amountSum(rows.getLong("amount_sum"))
+                            .amountSumSquares(rows.getBigDecimal("amount_sum_squares").toBigIntegerExact())
+                            .build());
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static final class Delta {
+        private long count;
+        private long sum;
+        private BigInteger sumOfSquares = BigInteger.ZERO;
+
+        void add(int sign, long amountMinor) {
+            BigInteger amount = BigInteger.valueOf(amountMinor);
+            count += sign;
+            sum += sign * amountMinor;
+            sumOfSquares = sign > 0
+                    ? sumOfSquares.add(amount.multiply(amount))
+                    : sumOfSquares.subtract(amount.multiply(amount));
+        }
+    }
+
+    @lombok.Value
+    private static class Key {
+        long userId;
+        long categoryId;
+    }
+}
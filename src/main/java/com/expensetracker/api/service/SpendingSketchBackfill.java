@@ -0,0 +1,59 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.repository.SketchBucketKey;
+import com.expensetracker.api.repository.SpendingSketchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Builds sketches for expenses written before statistics existed. Runs at startup, unless
+ * {@code app.schema.maintain-at-startup} is off, until it has completed once; completion is
+ * recorded in {@code completed_migrations}, so later starts skip the scan for missing buckets.
+ * Every writer keeps sketches up to date from then on.
+ */
+@Slf4j
+@Component
+public class SpendingSketchBackfill {
+    static final String MIGRATION = "spending_sketch_backfill";
+
+    private final SpendingSketchRepository spendingSketchRepository;
+    private final SpendingStatisticsService spendingStatisticsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public SpendingSketchBackfill(SpendingSketchRepository spendingSketchRepository,
+                                  SpendingStatisticsService spendingStatisticsService,
+                                  JdbcTemplate jdbcTemplate,
+                                  @Value("${app.schema.maintain-at-startup:true}") boolean enabled) {
+        this.spendingSketchRepository = spendingSketchRepository;
+        this.spendingStatisticsService = spendingStatisticsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!enabled || isCompleted()) {
+            return;
+        }
+        List<SketchBucketKey> missing = spendingSketchRepository.findBucketsWithoutSketch();
+        if (!missing.isEmpty()) {
+            log.info("Building {} missing spending sketches", missing.size());
+            for (SketchBucketKey key : missing) {
+                spendingStatisticsService.rebuild(key.getUserId(), key.getCategoryId(), key.getMonthStart());
+            }
+        }
+        jdbcTemplate.update("INSERT INTO completed_migrations (name) VALUES (?) ON CONFLICT DO NOTHING", MIGRATION);
+    }
+
+    private boolean isCompleted() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM completed_migrations WHERE name = ?)", Boolean.class, MIGRATION));
+    }
+}
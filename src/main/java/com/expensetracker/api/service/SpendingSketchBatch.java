@@ -0,0 +1,100 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.service.analytics.QuantileSketch;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the amounts of a batch of new expenses per sketch bucket and folds them into
+ * {@code spending_sketches} with three statements, rather than one locked read-modify-write per
+ * bucket as {@link SpendingStatisticsService#recordCreated} does for single expenses.
+ */
+final class SpendingSketchBatch {
+    private static final byte[] EMPTY_SKETCH = new QuantileSketch().toBytes();
+
+    private static final String INSERT_MISSING_SKETCHES = "INSERT INTO spending_sketches (user_id, category_id, month_start, sketch) " +
+            "SELECT k.user_id, k.category_id, k.month_start, ? FROM unnest(?, ?, ?) AS k(user_id, category_id, month_start) " +
+            "ON CONFLICT (user_id, month_start, category_id) DO NOTHING";
+    // Same lock order as SpendingStatisticsService.rebuildMoved for any single user's buckets
+    private static final String LOCK_SKETCHES = "SELECT s.id, s.user_id, s.category_id, s.month_start, s.sketch " +
+            "FROM spending_sketches s JOIN unnest(?, ?, ?) AS k(user_id, category_id, month_start) " +
+            "ON s.user_id = k.user_id AND s.category_id = k.category_id AND s.month_start = k.month_start " +
+            "ORDER BY s.month_start, s.category_id, s.user_id FOR UPDATE OF s";
+    private static final String UPDATE_SKETCHES = "UPDATE spending_sketches s SET sketch = k.sketch " +
+            "FROM unnest(?, ?) AS k(id, sketch) WHERE s.id = k.id";
+
+    private final Map<Bucket, QuantileSketch> sketches = new HashMap<>();
+
+    void add(long userId, long categoryId, LocalDate date, long amountMinor) {
+        sketches.computeIfAbsent(new Bucket(userId, categoryId, date.withDayOfMonth(1)), key -> new QuantileSketch())
+                .add(amountMinor);
+    }
+
+    /**
+     * Merges the collected sketches into the stored ones within the connection's current transaction.
+     * The bucket rows stay locked until it commits.
+     */
+    void mergeInto(Connection connection) throws SQLException {
+        if (sketches.isEmpty()) {
+            return;
+        }
+        Long[] userIds = new Long[sketches.size()];
+        Long[] categoryIds = new Long[sketches.size()];
+        Date[] monthStarts = new Date[sketches.size()];
+        int i = 0;
+        for (Bucket bucket : sketches.keySet()) {
+            userIds[i] = bucket.getUserId();
+            categoryIds[i] = bucket.getCategoryId();
+            monthStarts[i] = Date.valueOf(bucket.getMonthStart());
+            i++;
+        }
+
+        try (PreparedStatement insertMissing = connection.prepareStatement(INSERT_MISSING_SKETCHES)) {
+            insertMissing.setBytes(1, EMPTY_SKETCH);
+            insertMissing.setArray(2, connection.createArrayOf("bigint", userIds));
+            insertMissing.setArray(3, connection.createArrayOf("bigint", categoryIds));
+            insertMissing.setArray(4, connection.createArrayOf("date", monthStarts));
+            insertMissing.executeUpdate();
+        }
+
+        List<Long> sketchIds = new ArrayList<>(sketches.size());
+        List<byte[]> mergedSketches = new ArrayList<>(sketches.size());
+        try (PreparedStatement lock = connection.prepareStatement(LOCK_SKETCHES)) {
+            lock.setArray(1, connection.createArrayOf("bigint", userIds));
+            lock.setArray(2, connection.createArrayOf("bigint", categoryIds));
+            lock.setArray(3, connection.createArrayOf("date", monthStarts));
+            try (ResultSet rows = lock.executeQuery()) {
+                while (rows.next()) {
+                    Bucket bucket = new Bucket(rows.getLong("user_id"), rows.getLong("category_id"),
+                            rows.getObject("month_start", LocalDate.class));
+                    QuantileSketch merged = QuantileSketch.fromBytes(rows.getBytes("sketch"));
+                    merged.merge(sketches.get(bucket));
+                    sketchIds.add(rows.getLong("id"));
+                    mergedSketches.add(merged.toBytes());
+                }
+            }
+        }
+
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_SKETCHES)) {
+            update.setArray(1, connection.createArrayOf("bigint", sketchIds.toArray()));
+            update.setArray(2, connection.createArrayOf("bytea", mergedSketches.toArray(new byte[0][])));
+            update.executeUpdate();
+        }
+    }
+
+    @lombok.Value
+    private static class Bucket {
+        long userId;
+        long categoryId;
+        LocalDate monthStart;
+    }
+}
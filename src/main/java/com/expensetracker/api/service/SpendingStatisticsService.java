@@ -0,0 +1,149 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.dto.CategoryStatisticsResponse;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.entity.Expense;
+import com.expensetracker.api.entity.SpendingSketch;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.repository.ExpenseRepository;
+import com.expensetracker.api.repository.SpendingSketchRepository;
+import com.expensetracker.api.service.analytics.QuantileSketch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one {@link QuantileSketch} per user, category and month so per-transaction statistics for
+ * any range can be answered by merging a handful of small sketches instead of sorting raw rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class SpendingStatisticsService {
+    private static final int MAX_STATISTICS_MONTHS = 120;
+    private static final byte[] EMPTY_SKETCH = new QuantileSketch().toBytes();
+
+    private final SpendingSketchRepository spendingSketchRepository;
+    private final ExpenseRepository expenseRepository;
+    private final CategoryRepository categoryRepository;
+    private final UserService userService;
+    private final ExpenseArchiveService expenseArchiveService;
+
+    /**
+     * Adds a newly created expense to its bucket's sketch.
+     */
+    @Transactional
+    public void recordCreated(Expense expense) {
+        SpendingSketch bucket = lockBucket(expense.getUser().getId(), expense.getCategory().getId(), expense.getDate());
+        QuantileSketch sketch = QuantileSketch.fromBytes(bucket.getSketch());
+        sketch.add(expense.getAmountMinor());
+        bucket.setSketch(sketch.toBytes());
+        spendingSketchRepository.save(bucket);
+    }
+
+    /**
+     * Recomputes a bucket from its expenses. Sketches cannot remove values, so updates and deletes
+     * rebuild the month they touched; the bucket row lock keeps concurrent creates from interleaving.
+     * Archived expenses of the month are included, so a late edit next to archived rows keeps them.
+     */
+    @Transactional
+    public void rebuild(Long userId, Long categoryId, LocalDate date) {
+        SpendingSketch bucket = lockBucket(userId, categoryId, date);
+        LocalDate monthStart = bucket.getMonthStart();
+        List<Long> amounts = new ArrayList<>(expenseRepository.findAmountsByUserIdAndCategoryIdAndDateRange(
+                userId, categoryId, monthStart, monthStart.plusMonths(1)));
+        expenseArchiveService.scan(userId, monthStart, monthStart.plusMonths(1), (epochDay, amountMinor, archivedCategoryId) -> {
+            if (archivedCategoryId == categoryId) {
+                amounts.add(amountMinor);
+            }
+        });
+
+        if (amounts.isEmpty()) {
+            spendingSketchRepository.delete(bucket);
+            return;
+        }
+
+        QuantileSketch sketch = new QuantileSketch();
+        amounts.forEach(sketch::add);
+        bucket.setSketch(sketch.toBytes());
+        spendingSketchRepository.save(bucket);
+    }
+
+    /**
+     * Rebuilds both buckets an updated expense may have moved between, locking them in a fixed
+     * order so two updates moving expenses in opposite directions cannot deadlock.
+     */
+    @Transactional
+    public void rebuildMoved(Long userId, Long fromCategoryId, LocalDate fromDate, Long toCategoryId, LocalDate toDate) {
+        int order = fromDate.withDayOfMonth(1).compareTo(toDate.withDayOfMonth(1));
+        if (order == 0) {
+            order = fromCategoryId.compareTo(toCategoryId);
+        }
+        if (order == 0) {
+            rebuild(userId, toCategoryId, toDate);
+        } else if (order < 0) {
+            rebuild(userId, fromCategoryId, fromDate);
+            rebuild(userId, toCategoryId, toDate);
+        } else {
+            rebuild(userId, toCategoryId, toDate);
+            rebuild(userId, fromCategoryId, fromDate);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategoryStatisticsResponse> getStatistics(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("Statistics range start must not be after its end");
+        }
+        if (ChronoUnit.MONTHS.between(from, to) >= MAX_STATISTICS_MONTHS) {
+            throw new InvalidRequestException("Statistics range must not exceed " + MAX_STATISTICS_MONTHS + " months");
+        }
+
+        User user = userService.getAuthenticatedUser();
+        List<SpendingSketch> buckets = spendingSketchRepository.findByUserIdAndMonthStartBetween(
+                user.getId(), from.atDay(1), to.atDay(1));
+
+        Map<Long, QuantileSketch> sketchByCategory = new HashMap<>();
+        for (SpendingSketch bucket : buckets) {
+            sketchByCategory.computeIfAbsent(bucket.getCategoryId(), key -> new QuantileSketch())
+                    .merge(QuantileSketch.fromBytes(bucket.getSketch()));
+        }
+
+        Map<Long, String> categoryNames = categoryRepository.findAllById(sketchByCategory.keySet())
+                .stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+
+        return sketchByCategory.entrySet().stream()
+                .map(entry -> toStatisticsResponse(categoryNames.get(entry.getKey()), entry.getValue()))
+                .sorted(Comparator.comparing(CategoryStatisticsResponse::getCategoryName))
+                .collect(Collectors.toList());
+    }
+
+    private SpendingSketch lockBucket(Long userId, Long categoryId, LocalDate date) {
+        LocalDate monthStart = date.withDayOfMonth(1);
+        spendingSketchRepository.insertIfAbsent(userId, categoryId, monthStart, EMPTY_SKETCH);
+        return spendingSketchRepository.findForUpdate(userId, categoryId, monthStart)
+                .orElseThrow(() -> new IllegalStateException("Sketch bucket vanished while locked"));
+    }
+
+    private CategoryStatisticsResponse toStatisticsResponse(String categoryName, QuantileSketch sketch) {
+        return CategoryStatisticsResponse.builder()
+                .categoryName(categoryName)
+                .expenseCount(sketch.getCount())
+                .median(MinorUnits.toDecimal(sketch.quantile(0.5)))
+                .p90(MinorUnits.toDecimal(sketch.quantile(0.9)))
+                .max(MinorUnits.toDecimal(sketch.getMax()))
+                .build();
+    }
+}
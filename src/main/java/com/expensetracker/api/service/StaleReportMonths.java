@@ -0,0 +1,68 @@
+package com.expensetracker.api.service;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The months a batch of new expenses lands in, for marking their report snapshots stale with one
+ * statement in the writer's transaction, the bulk counterpart of
+ * {@code ReportSnapshotRepository.markStale}. Only months that have ended, or end today, can have a
+ * snapshot by the time the batch commits; current and future months are skipped.
+ */
+final class StaleReportMonths {
+    private static final String MARK_STALE = "INSERT INTO report_snapshots (user_id, month_start, version) " +
+            "SELECT k.user_id, k.month_start, 1 FROM unnest(?, ?) AS k(user_id, month_start) " +
+            "ON CONFLICT (user_id, month_start) DO UPDATE " +
+            "SET version = report_snapshots.version + 1, body = NULL, computed_at = NULL";
+
+    private final LocalDate today;
+    private final Set<UserMonth> months = new HashSet<>();
+
+    StaleReportMonths(LocalDate today) {
+        this.today = today;
+    }
+
+    void add(long userId, LocalDate date) {
+        if (hasEnded(date, today)) {
+            months.add(new UserMonth(userId, date.withDayOfMonth(1)));
+        }
+    }
+
+    void markInto(Connection connection) throws SQLException {
+        if (months.isEmpty()) {
+            return;
+        }
+        Long[] userIds = new Long[months.size()];
+        Date[] monthStarts = new Date[months.size()];
+        int i = 0;
+        for (UserMonth month : months) {
+            userIds[i] = month.getUserId();
+            monthStarts[i] = Date.valueOf(month.getMonthStart());
+            i++;
+        }
+        try (PreparedStatement markStale = connection.prepareStatement(MARK_STALE)) {
+            markStale.setArray(1, connection.createArrayOf("bigint", userIds));
+            markStale.setArray(2, connection.createArrayOf("date", monthStarts));
+            markStale.executeUpdate();
+        }
+    }
+
+    /**
+     * Whether the month of {@code date} has ended by the end of {@code today}; writes to it must mark
+     * its snapshot stale. Taking today into account covers a month closing while the write commits.
+     */
+    static boolean hasEnded(LocalDate date, LocalDate today) {
+        return !date.withDayOfMonth(1).plusMonths(1).isAfter(today.plusDays(1));
+    }
+
+    @lombok.Value
+    private static class UserMonth {
+        long userId;
+        LocalDate monthStart;
+    }
+}
@@ -0,0 +1,64 @@
+package com.expensetracker.api.service;
+
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * How far a month-end statement run got: every user below {@code nextUserId} is in the first
+ * {@code bytes} bytes of the partial file. {@code lastUserId} is fixed when the run first starts, so
+ * a resumed run covers the same users.
+ */
+@Value
+class StatementCheckpoint {
+    long lastUserId;
+    long nextUserId;
+    long bytes;
+    long users;
+
+    static StatementCheckpoint start(long lastUserId) {
+        return new StatementCheckpoint(lastUserId, 0, 0, 0);
+    }
+
+    StatementCheckpoint advance(long nextUserId, long bytes, int users) {
+        return new StatementCheckpoint(lastUserId, nextUserId, bytes, this.users + users);
+    }
+
+    boolean isDone() {
+        return nextUserId > lastUserId;
+    }
+
+    static Optional<StatementCheckpoint> read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        String[] fields = Files.readString(file, StandardCharsets.US_ASCII).trim().split(" ");
+        if (fields.length != 4) {
+            throw new IOException("Malformed statement checkpoint " + file);
+        }
+        return Optional.of(new StatementCheckpoint(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+    }
+
+    /**
+     * Replaces the checkpoint file durably (temporary file, fsync, atomic rename).
+     */
+    void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        String line = lastUserId + " " + nextUserId + " " + bytes + " " + users + "\n";
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -5,36 +5,68 @@ import com.expensetracker.api.controller.exception.ResourceNotFoundException;
 import com.expensetracker.api.dto.RegisterRequest;
 import com.expensetracker.api.entity.User;
 import com.expensetracker.api.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.expensetracker.api.timing.RequestTimings;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @Service
-@RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final Executor insertExecutor;
+
+    public UserService(UserRepository userRepository, PasswordHashingService passwordHashingService,
+                       @Qualifier("applicationTaskExecutor") Executor insertExecutor) {
+        this.userRepository = userRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.insertExecutor = insertExecutor;
+    }
+
+    public CompletableFuture<User> register(RegisterRequest request) {
+        // The insert waits on a database connection; off the hashing pool, so its threads only hash
+        return passwordHashingService.encode(request.getPassword())
+                .thenApplyAsync(encodedPassword -> createUser(request.getUsername(), encodedPassword), insertExecutor);
+    }
 
-    public User register(RegisterRequest request) {
-        if (userRepository.findByUsername(request.getUsername()).isPresent()) {
-            throw new DuplicateResourceException("Username already exists");
+    public User getAuthenticatedUser() {
+        try (RequestTimings.Section ignored = RequestTimings.start(RequestTimings.Phase.USER_LOOKUP)) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String username = authentication.getName();
+            return userRepository.findByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
         }
+    }
 
+    private User createUser(String username, String encodedPassword) {
         User user = User.builder()
-                .username(request.getUsername())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .username(username)
+                .password(encodedPassword)
                 .build();
 
-        return userRepository.save(user);
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException ex) {
+            if (violatesUsernameConstraint(ex)) {
+                throw new DuplicateResourceException("Username already exists");
+            }
+            throw ex;
+        }
     }
 
-    public User getAuthenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+    private static boolean violatesUsernameConstraint(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return User.USERNAME_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
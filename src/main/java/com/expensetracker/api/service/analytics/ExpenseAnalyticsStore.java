@@ -0,0 +1,206 @@
+package com.expensetracker.api.service.analytics;
+
+import com.expensetracker.api.entity.Expense;
+import com.expensetracker.api.repository.ExpenseAnalyticsRow;
+import com.expensetracker.api.repository.ExpenseRepository;
+import com.expensetracker.api.service.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional in-process store that keeps recently active users' expenses as primitive columns so
+ * monthly and range reports can be aggregated without loading entities. Users are loaded lazily on
+ * their first report, kept current by {@code ExpenseService} writes, and evicted least recently
+ * used first once the memory budget is exceeded.
+ */
+@Component
+public class ExpenseAnalyticsStore {
+    private static final int WRITE_STAMP_STRIPES = 1024;
+
+    private final ExpenseRepository expenseRepository;
+    private final boolean enabled;
+    private final long memoryBudgetBytes;
+
+    // Guarded by "this"; access order makes iteration start at the least recently used user
+    private final LinkedHashMap<Long, UserExpenseColumns> columnsByUser = new LinkedHashMap<>(64, 0.75f, true);
+    // Each stripe holds the clock value of the last write to one of its users
+    private final long[] writeStamps = new long[WRITE_STAMP_STRIPES];
+    private long writeClock;
+    private long usedBytes;
+
+    private final Map<Integer, String> categoryNames = new ConcurrentHashMap<>();
+
+    public ExpenseAnalyticsStore(ExpenseRepository expenseRepository,
+                                 @Value("${app.analytics.enabled:false}") boolean enabled,
+                                 @Value("${app.analytics.memory-budget-bytes:67108864}") long memoryBudgetBytes) {
+        this.expenseRepository = expenseRepository;
+        this.enabled = enabled;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The current write stamp. A report reads it before its transaction runs its first query, and so
+     * before the snapshot a cache miss loads the user's columns from is taken, and passes it to
+     * {@link #aggregate}.
+     */
+    public synchronized long writeStamp() {
+        return writeClock;
+    }
+
+    /**
+     * Returns one entry per month in the inclusive range, or empty when the store is disabled.
+     * {@code readStamp} is the {@link #writeStamp()} read before the calling transaction's snapshot;
+     * columns loaded in that snapshot are only kept when no write to the user committed since.
+     */
+    public Optional<List<MonthlySpending>> aggregate(Long userId, YearMonth from, YearMonth to, long readStamp) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        UserExpenseColumns columns = columnsFor(userId, readStamp);
+
+        int months = (int) (to.getYear() * 12L + to.getMonthValue() - from.getYear() * 12L - from.getMonthValue()) + 1;
+        int[] monthStartDays = new int[months + 1];
+        for (int i = 0; i <= months; i++) {
+            monthStartDays[i] = (int) from.plusMonths(i).atDay(1).toEpochDay();
+        }
+
+        UserExpenseColumns.MonthlyTotals totals = columns.aggregate(monthStartDays);
+        int slotCount = totals.slotCategoryIds.length;
+
+        List<MonthlySpending> result = new ArrayList<>(months);
+        for (int month = 0; month < months; month++) {
+            Map<String, Long> spendingByCategory = new HashMap<>();
+            int expenseCount = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                int cell = month * slotCount + slot;
+                if (totals.counts[cell] > 0) {
+                    spendingByCategory.put(categoryNames.get(totals.slotCategoryIds[slot]), totals.totals[cell]);
+                    expenseCount += totals.counts[cell];
+                }
+            }
+            result.add(new MonthlySpending(from.plusMonths(month), spendingByCategory, expenseCount));
+        }
+        return Optional.of(result);
+    }
+
+    public void recordSaved(Expense expense) {
+        if (!enabled) {
+            return;
+        }
+        Long userId = expense.getUser().getId();
+        long id = expense.getId();
+        int epochDay = (int) expense.getDate().toEpochDay();
+        long amount = expense.getAmountMinor();
+        int categoryId = Math.toIntExact(expense.getCategory().getId());
+        categoryNames.putIfAbsent(categoryId, expense.getCategory().getName());
+
+        TransactionHooks.afterCommit(() -> {
+            UserExpenseColumns columns = touchForWrite(userId);
+            if (columns != null) {
+                columns.upsert(id, epochDay, amount, categoryId);
+                reaccount(userId, columns);
+            }
+        });
+    }
+
+    public void recordDeleted(Long userId, Long expenseId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            UserExpenseColumns columns = touchForWrite(userId);
+            if (columns != null) {
+                columns.remove(expenseId);
+            }
+        });
+    }
+
+    /**
+     * Drops a user's columns after their expenses were written outside {@code ExpenseService}; the
+     * next report reloads them from the database.
+     */
+    public synchronized void invalidate(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        writeStamps[stripe(userId)] = ++writeClock;
+        UserExpenseColumns removed = columnsByUser.remove(userId);
+        if (removed != null) {
+            usedBytes -= removed.accountedBytes;
+        }
+    }
+
+    private UserExpenseColumns columnsFor(Long userId, long readStamp) {
+        synchronized (this) {
+            UserExpenseColumns cached = columnsByUser.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        UserExpenseColumns loaded = new UserExpenseColumns();
+        for (ExpenseAnalyticsRow row : expenseRepository.findAnalyticsRowsByUserId(userId)) {
+            int categoryId = Math.toIntExact(row.getCategoryId());
+            categoryNames.putIfAbsent(categoryId, row.getCategoryName());
+            loaded.append(row.getId(), (int) row.getDate().toEpochDay(), row.getAmountMinor(), categoryId);
+        }
+
+        synchronized (this) {
+            // A write for this user committed after the caller's snapshot may have been taken. The
+            // columns still match that snapshot, so they serve this report, but they may miss the write
+            if (writeStamps[stripe(userId)] > readStamp) {
+                return loaded;
+            }
+            UserExpenseColumns raced = columnsByUser.get(userId);
+            if (raced != null) {
+                return raced;
+            }
+            columnsByUser.put(userId, loaded);
+            loaded.accountedBytes = loaded.estimatedBytes();
+            usedBytes += loaded.accountedBytes;
+            evictOverBudget();
+        }
+        return loaded;
+    }
+
+    private synchronized UserExpenseColumns touchForWrite(Long userId) {
+        writeStamps[stripe(userId)] = ++writeClock;
+        return columnsByUser.get(userId);
+    }
+
+    private synchronized void reaccount(Long userId, UserExpenseColumns columns) {
+        if (columnsByUser.get(userId) != columns) {
+            return;
+        }
+        long bytes = columns.estimatedBytes();
+        usedBytes += bytes - columns.accountedBytes;
+        columns.accountedBytes = bytes;
+        evictOverBudget();
+    }
+
+    private void evictOverBudget() {
+        Iterator<UserExpenseColumns> eldestFirst = columnsByUser.values().iterator();
+        while (usedBytes > memoryBudgetBytes && eldestFirst.hasNext()) {
+            usedBytes -= eldestFirst.next().accountedBytes;
+            eldestFirst.remove();
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return (int) (userId & (WRITE_STAMP_STRIPES - 1));
+    }
+}
@@ -0,0 +1,13 @@
+package com.expensetracker.api.service.analytics;
+
+import lombok.Value;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+@Value
+public class MonthlySpending {
+    YearMonth month;
+    Map<String, Long> spendingByCategoryMinor;
+    int expenseCount;
+}
@@ -0,0 +1,147 @@
+package com.expensetracker.api.service.analytics;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile sketch over positive minor-unit amounts with a fixed relative error.
+ * <p>
+ * Values are counted in logarithmic bins whose bounds grow by {@code (1 + a) / (1 - a)}, so any
+ * quantile is reported within {@value #RELATIVE_ACCURACY} of the exact value at that rank. Bins
+ * depend only on the value, which makes merging two sketches exact and order independent. The
+ * minimum and maximum are tracked exactly.
+ */
+public final class QuantileSketch {
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    private final TreeMap<Integer, Long> bins = new TreeMap<>();
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void add(long amountMinor) {
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Sketch values must be positive: " + amountMinor);
+        }
+        bins.merge(binIndex(amountMinor), 1L, Long::sum);
+        count++;
+        min = Math.min(min, amountMinor);
+        max = Math.max(max, amountMinor);
+    }
+
+    public void merge(QuantileSketch other) {
+        other.bins.forEach((index, binCount) -> bins.merge(index, binCount, Long::sum));
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Estimates the value at rank {@code floor(quantile * (count - 1))} of the sorted inputs.
+     */
+    public long quantile(double quantile) {
+        if (count == 0) {
+            throw new IllegalStateException("Sketch is empty");
+        }
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            seen += bin.getValue();
+            if (seen > rank) {
+                return Math.max(min, Math.min(max, Math.round(binValue(bin.getKey()))));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Encodes as a version byte, count, min, max, bin count and then (index delta, bin count) pairs, all
+     * as variable-length integers. A month of a user's spending in one category is typically a few
+     * dozen bytes.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + bins.size() * 3);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, count);
+        writeVarLong(out, count == 0 ? 0 : min);
+        writeVarLong(out, max);
+        writeVarLong(out, bins.size());
+        int previous = 0;
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            writeVarLong(out, bin.getKey() - previous);
+            writeVarLong(out, bin.getValue());
+            previous = bin.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        byte version = in.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported sketch format: " + version);
+        }
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.count = readVarLong(in);
+        long min = readVarLong(in);
+        sketch.min = sketch.count == 0 ? Long.MAX_VALUE : min;
+        sketch.max = readVarLong(in);
+        long binCount = readVarLong(in);
+        int index = 0;
+        for (long i = 0; i < binCount; i++) {
+            index += (int) readVarLong(in);
+            sketch.bins.put(index, readVarLong(in));
+        }
+        return sketch;
+    }
+
+    private static int binIndex(long value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private static double binValue(int index) {
+        // Midpoint (in relative terms) of (gamma^(index-1), gamma^index]
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
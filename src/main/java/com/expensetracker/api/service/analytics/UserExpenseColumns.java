@@ -0,0 +1,171 @@
+package com.expensetracker.api.service.analytics;
+
+import java.util.Arrays;
+
+/**
+ * One user's expenses as parallel primitive columns sorted by day. Categories are mapped to dense
+ * per-user slots so aggregation can index straight into a flat {@code long[]}.
+ */
+final class UserExpenseColumns {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long OBJECT_OVERHEAD_BYTES = 128;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private int[] slotCategoryIds = new int[4];
+    private int slotCount;
+
+    long accountedBytes;
+
+    synchronized void append(long id, int epochDay, long amount, int categoryId) {
+        ensureCapacity(size + 1);
+        ids[size] = id;
+        epochDays[size] = epochDay;
+        amounts[size] = amount;
+        slots[size] = slotOf(categoryId);
+        size++;
+    }
+
+    synchronized void upsert(long id, int epochDay, long amount, int categoryId) {
+        int existing = indexOf(id);
+        if (existing >= 0) {
+            removeAt(existing);
+        }
+        ensureCapacity(size + 1);
+        int at = upperBound(epochDay);
+        int tail = size - at;
+        System.arraycopy(ids, at, ids, at + 1, tail);
+        System.arraycopy(epochDays, at, epochDays, at + 1, tail);
+        System.arraycopy(amounts, at, amounts, at + 1, tail);
+        System.arraycopy(slots, at, slots, at + 1, tail);
+        ids[at] = id;
+        epochDays[at] = epochDay;
+        amounts[at] = amount;
+        slots[at] = slotOf(categoryId);
+        size++;
+    }
+
+    synchronized void remove(long id) {
+        int existing = indexOf(id);
+        if (existing >= 0) {
+            removeAt(existing);
+        }
+    }
+
+    /**
+     * Sums amounts per (month, category slot) for rows whose day falls in
+     * {@code [monthStartDays[0], monthStartDays[months])}. The loop itself allocates nothing.
+     */
+    synchronized MonthlyTotals aggregate(int[] monthStartDays) {
+        int months = monthStartDays.length - 1;
+        long[] totals = new long[months * slotCount];
+        int[] counts = new int[months * slotCount];
+
+        int month = 0;
+        for (int i = lowerBound(monthStartDays[0]); i < size; i++) {
+            int day = epochDays[i];
+            while (month < months && day >= monthStartDays[month + 1]) {
+                month++;
+            }
+            if (month == months) {
+                break;
+            }
+            int cell = month * slotCount + slots[i];
+            totals[cell] = Math.addExact(totals[cell], amounts[i]);
+            counts[cell]++;
+        }
+        return new MonthlyTotals(Arrays.copyOf(slotCategoryIds, slotCount), totals, counts);
+    }
+
+    synchronized long estimatedBytes() {
+        return OBJECT_OVERHEAD_BYTES
+                + (long) ids.length * (Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES)
+                + (long) slotCategoryIds.length * Integer.BYTES;
+    }
+
+    private int indexOf(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        int tail = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, tail);
+        System.arraycopy(epochDays, index + 1, epochDays, index, tail);
+        System.arraycopy(amounts, index + 1, amounts, index, tail);
+        System.arraycopy(slots, index + 1, slots, index, tail);
+        size--;
+    }
+
+    private int lowerBound(int epochDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(int epochDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] <= epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int slotOf(int categoryId) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotCategoryIds[slot] == categoryId) {
+                return slot;
+            }
+        }
+        if (slotCount == slotCategoryIds.length) {
+            slotCategoryIds = Arrays.copyOf(slotCategoryIds, slotCount * 2);
+        }
+        slotCategoryIds[slotCount] = categoryId;
+        return slotCount++;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        slots = Arrays.copyOf(slots, capacity);
+    }
+
+    static final class MonthlyTotals {
+        final int[] slotCategoryIds;
+        final long[] totals;
+        final int[] counts;
+
+        MonthlyTotals(int[] slotCategoryIds, long[] totals, int[] counts) {
+            this.slotCategoryIds = slotCategoryIds;
+            this.totals = totals;
+            this.counts = counts;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.expensetracker.api.service.archive;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+public class ArchivedExpense {
+    long id;
+    LocalDate date;
+    long amountMinor;
+    long categoryId;
+    String description;
+    long changeSeq;
+}
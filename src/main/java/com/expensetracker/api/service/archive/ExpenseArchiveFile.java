@@ -0,0 +1,370 @@
+package com.expensetracker.api.service.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Columnar, compressed file holding one user's archived expenses.
+ * <p>
+ * Rows are sorted by date and split into one row group per month. Within a group every column is
+ * encoded on its own (days as deltas, ids and change sequences as zig-zag deltas, everything else as
+ * varints), deflated, and protected by a CRC32C. A directory at the start of the file records each
+ * group's day range and the location of its column chunks, so a read only inflates the groups and
+ * columns it needs. The directory carries its own CRC32C, checked whenever a file is opened.
+ * <p>
+ * Layout: magic, version, group count, directory CRC, directory, column chunks.
+ */
+public final class ExpenseArchiveFile {
+    static final int MAGIC = 0x45585041;
+    static final byte FORMAT_VERSION = 1;
+
+    private static final int ID = 0;
+    private static final int DAY = 1;
+    private static final int AMOUNT = 2;
+    private static final int CATEGORY = 3;
+    private static final int CHANGE_SEQ = 4;
+    private static final int DESCRIPTION = 5;
+    private static final int COLUMN_COUNT = 6;
+
+    private static final int HEADER_BYTES = Integer.BYTES + 1 + Integer.BYTES + Integer.BYTES;
+    private static final int CHUNK_ENTRY_BYTES = 4 * Integer.BYTES;
+    private static final int GROUP_ENTRY_BYTES = 3 * Integer.BYTES + COLUMN_COUNT * CHUNK_ENTRY_BYTES;
+
+    private final ByteBuffer content;
+    private final int groupCount;
+
+    private ExpenseArchiveFile(ByteBuffer content, int groupCount) {
+        this.content = content;
+        this.groupCount = groupCount;
+    }
+
+    /**
+     * Receives the columns needed for aggregation, one row at a time, without materializing rows.
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(int epochDay, long amountMinor, long categoryId);
+    }
+
+    /**
+     * Encodes rows that are already sorted by date (and by id within a day).
+     */
+    public static byte[] encode(List<ArchivedExpense> rows) {
+        List<List<ArchivedExpense>> groups = new ArrayList<>();
+        YearMonth groupMonth = null;
+        for (ArchivedExpense row : rows) {
+            YearMonth month = YearMonth.from(row.getDate());
+            if (groupMonth != null && month.isBefore(groupMonth)) {
+                throw new IllegalArgumentException("Archived rows must be sorted by date");
+            }
+            if (!month.equals(groupMonth)) {
+                groups.add(new ArrayList<>());
+                groupMonth = month;
+            }
+            groups.get(groups.size() - 1).add(row);
+        }
+
+        ByteBuffer directory = ByteBuffer.allocate(groups.size() * GROUP_ENTRY_BYTES);
+        ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+        int dataStart = HEADER_BYTES + directory.capacity();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            for (List<ArchivedExpense> group : groups) {
+                int firstDay = (int) group.get(0).getDate().toEpochDay();
+                directory.putInt(firstDay);
+                directory.putInt((int) group.get(group.size() - 1).getDate().toEpochDay());
+                directory.putInt(group.size());
+                for (int column = 0; column < COLUMN_COUNT; column++) {
+                    byte[] raw = encodeColumn(group, column, firstDay);
+                    byte[] compressed = deflate(deflater, raw);
+                    directory.putInt(Math.addExact(dataStart, chunks.size()));
+                    directory.putInt(compressed.length);
+                    directory.putInt(raw.length);
+                    directory.putInt(crc(ByteBuffer.wrap(compressed)));
+                    chunks.writeBytes(compressed);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+
+        directory.flip();
+        ByteBuffer file = ByteBuffer.allocate(Math.addExact(dataStart, chunks.size()));
+        file.putInt(MAGIC);
+        file.put(FORMAT_VERSION);
+        file.putInt(groups.size());
+        file.putInt(crc(directory.duplicate()));
+        file.put(directory);
+        file.put(chunks.toByteArray());
+        return file.array();
+    }
+
+    /**
+     * Reads a file's header and directory. Column chunks are only read, checked and inflated when a
+     * query needs them, so {@code content} can be a memory-mapped view of a file much larger than
+     * what a query touches.
+     */
+    public static ExpenseArchiveFile open(ByteBuffer content) {
+        ByteBuffer header = content.duplicate();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+            throw new IllegalStateException("Not an expense archive file");
+        }
+        byte version = header.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported expense archive version: " + version);
+        }
+        int groupCount = header.getInt();
+        int directoryCrc = header.getInt();
+        if (groupCount < 0 || (long) groupCount * GROUP_ENTRY_BYTES > header.remaining()) {
+            throw new IllegalStateException("Expense archive directory is truncated");
+        }
+        ByteBuffer directory = header.slice(HEADER_BYTES, groupCount * GROUP_ENTRY_BYTES);
+        if (crc(directory) != directoryCrc) {
+            throw new IllegalStateException("Expense archive directory checksum mismatch");
+        }
+        return new ExpenseArchiveFile(content.duplicate(), groupCount);
+    }
+
+    public int rowCount() {
+        int rows = 0;
+        for (int group = 0; group < groupCount; group++) {
+            rows += groupInt(group, 2);
+        }
+        return rows;
+    }
+
+    /**
+     * Visits every row dated in {@code [from, to)}, inflating only the day, amount and category
+     * columns of the row groups overlapping that range.
+     */
+    public void scan(LocalDate from, LocalDate to, RowVisitor visitor) {
+        int fromDay = epochDay(from);
+        int toDay = epochDay(to);
+        for (int group = 0; group < groupCount; group++) {
+            if (!overlaps(group, fromDay, toDay)) {
+                continue;
+            }
+            int rows = groupInt(group, 2);
+            ColumnReader days = column(group, DAY);
+            ColumnReader amounts = column(group, AMOUNT);
+            ColumnReader categories = column(group, CATEGORY);
+            int day = groupInt(group, 0);
+            for (int i = 0; i < rows; i++) {
+                day += (int) days.readVarLong();
+                long amount = amounts.readZigZag();
+                long categoryId = categories.readVarLong();
+                if (day >= fromDay && day < toDay) {
+                    visitor.visit(day, amount, categoryId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Materializes every row dated in {@code [from, to)}.
+     */
+    public List<ArchivedExpense> read(LocalDate from, LocalDate to) {
+        int fromDay = epochDay(from);
+        int toDay = epochDay(to);
+        List<ArchivedExpense> result = new ArrayList<>();
+        for (int group = 0; group < groupCount; group++) {
+            if (!overlaps(group, fromDay, toDay)) {
+                continue;
+            }
+            int rows = groupInt(group, 2);
+            ColumnReader ids = column(group, ID);
+            ColumnReader days = column(group, DAY);
+            ColumnReader amounts = column(group, AMOUNT);
+            ColumnReader categories = column(group, CATEGORY);
+            ColumnReader changeSeqs = column(group, CHANGE_SEQ);
+            ColumnReader descriptions = column(group, DESCRIPTION);
+            int day = groupInt(group, 0);
+            long id = 0;
+            long changeSeq = 0;
+            for (int i = 0; i < rows; i++) {
+                day += (int) days.readVarLong();
+                id += ids.readZigZag();
+                changeSeq += changeSeqs.readZigZag();
+                long amount = amounts.readZigZag();
+                long categoryId = categories.readVarLong();
+                String description = descriptions.readString();
+                if (day >= fromDay && day < toDay) {
+                    result.add(new ArchivedExpense(id, LocalDate.ofEpochDay(day), amount, categoryId, description, changeSeq));
+                }
+            }
+        }
+        return result;
+    }
+
+    public List<ArchivedExpense> readAll() {
+        return read(LocalDate.MIN, LocalDate.MAX);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    private boolean overlaps(int group, int fromDay, int toDay) {
+        return groupInt(group, 0) < toDay && groupInt(group, 1) >= fromDay;
+    }
+
+    private int groupInt(int group, int field) {
+        return content.getInt(HEADER_BYTES + group * GROUP_ENTRY_BYTES + field * Integer.BYTES);
+    }
+
+    private ColumnReader column(int group, int column) {
+        int entry = HEADER_BYTES + group * GROUP_ENTRY_BYTES + 3 * Integer.BYTES + column * CHUNK_ENTRY_BYTES;
+        int offset = content.getInt(entry);
+        int compressedLength = content.getInt(entry + Integer.BYTES);
+        int rawLength = content.getInt(entry + 2 * Integer.BYTES);
+        int expectedCrc = content.getInt(entry + 3 * Integer.BYTES);
+        if (offset < 0 || compressedLength < 0 || (long) offset + compressedLength > content.limit()) {
+            throw new IllegalStateException("Expense archive chunk lies outside the file");
+        }
+
+        ByteBuffer chunk = content.slice(offset, compressedLength);
+        if (crc(chunk) != expectedCrc) {
+            throw new IllegalStateException("Expense archive chunk checksum mismatch");
+        }
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(chunk);
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != rawLength) {
+                throw new IllegalStateException("Expense archive chunk is truncated");
+            }
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Expense archive chunk is corrupt", ex);
+        } finally {
+            inflater.end();
+        }
+        return new ColumnReader(raw);
+    }
+
+    private static byte[] encodeColumn(List<ArchivedExpense> group, int column, int firstDay) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long previous = column == DAY ? firstDay : 0;
+        for (ArchivedExpense row : group) {
+            switch (column) {
+                case ID -> {
+                    writeZigZag(out, row.getId() - previous);
+                    previous = row.getId();
+                }
+                case DAY -> {
+                    long day = row.getDate().toEpochDay();
+                    writeVarLong(out, day - previous);
+                    previous = day;
+                }
+                case AMOUNT -> writeZigZag(out, row.getAmountMinor());
+                case CATEGORY -> writeVarLong(out, row.getCategoryId());
+                case CHANGE_SEQ -> {
+                    writeZigZag(out, row.getChangeSeq() - previous);
+                    previous = row.getChangeSeq();
+                }
+                case DESCRIPTION -> {
+                    // Length + 1, so zero can stand for a null description
+                    if (row.getDescription() == null) {
+                        writeVarLong(out, 0);
+                    } else {
+                        byte[] utf8 = row.getDescription().getBytes(StandardCharsets.UTF_8);
+                        writeVarLong(out, utf8.length + 1L);
+                        out.writeBytes(utf8);
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown column: " + column);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    private static int crc(ByteBuffer bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static void writeZigZag(ByteArrayOutputStream out, long value) {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static final class ColumnReader {
+        private final byte[] bytes;
+        private int position;
+
+        ColumnReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position == bytes.length) {
+                    throw new IllegalStateException("Expense archive column ended early");
+                }
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed varint in expense archive column");
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            int length = Math.toIntExact(readVarLong());
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length > bytes.length - position) {
+                throw new IllegalStateException("Expense archive column ended early");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
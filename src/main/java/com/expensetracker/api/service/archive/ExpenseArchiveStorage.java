@@ -0,0 +1,120 @@
+package com.expensetracker.api.service.archive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Stores archive files on local disk as {@code <directory>/<shard>/<userId>-<generation>.exparc}.
+ * A file is never modified once written: each archive or restore writes the next generation, and the
+ * database row naming the current generation commits together with the expense rows it replaces.
+ */
+@Component
+public class ExpenseArchiveStorage {
+    private static final String SUFFIX = ".exparc";
+    private static final int SHARDS = 1000;
+
+    private final Path directory;
+
+    public ExpenseArchiveStorage(@Value("${app.archive.directory:data/archive}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Writes a generation durably (temporary file, fsync, atomic rename) and returns the CRC32C of
+     * the whole file.
+     */
+    public long write(long userId, long generation, byte[] content) throws IOException {
+        Path target = pathOf(userId, generation);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), userId + "-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return checksum(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Maps a generation read-only. The mapping stays valid after the file is replaced or deleted, so
+     * a reader that already opened a generation is unaffected by a concurrent archive run.
+     */
+    public ExpenseArchiveFile open(long userId, long generation, long expectedSize) throws IOException {
+        return ExpenseArchiveFile.open(map(userId, generation, expectedSize));
+    }
+
+    /**
+     * Maps a generation and checks the CRC32C of the whole file before opening it; used whenever
+     * archived rows are about to be rewritten or moved back into the database.
+     */
+    public ExpenseArchiveFile openVerified(long userId, long generation, long expectedSize, long expectedChecksum)
+            throws IOException {
+        MappedByteBuffer content = map(userId, generation, expectedSize);
+        if (checksum(content) != expectedChecksum) {
+            throw new IllegalStateException("Checksum mismatch in expense archive " + pathOf(userId, generation));
+        }
+        return ExpenseArchiveFile.open(content);
+    }
+
+    /**
+     * Deletes a user's generations older than {@code generation}.
+     */
+    public void deleteGenerationsBefore(long userId, long generation) throws IOException {
+        Path shard = pathOf(userId, generation).getParent();
+        if (!Files.isDirectory(shard)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, userId + "-*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String suffix = name.substring(name.indexOf('-') + 1, name.length() - SUFFIX.length());
+                try {
+                    if (Long.parseLong(suffix) < generation) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        }
+    }
+
+    Path pathOf(long userId, long generation) {
+        return directory.resolve(String.format("%03d", userId % SHARDS)).resolve(userId + "-" + generation + SUFFIX);
+    }
+
+    private MappedByteBuffer map(long userId, long generation, long expectedSize) throws IOException {
+        Path path = pathOf(userId, generation);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != expectedSize) {
+                throw new IllegalStateException("Expense archive " + path + " has " + channel.size()
+                        + " bytes, expected " + expectedSize);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedSize);
+        }
+    }
+
+    private static long checksum(ByteBuffer content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content.duplicate());
+        return crc.getValue();
+    }
+}
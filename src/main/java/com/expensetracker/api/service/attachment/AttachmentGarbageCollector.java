@@ -0,0 +1,238 @@
+package com.expensetracker.api.service.attachment;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Deletes stored blobs that no attachment refers to any more, and staging files left behind by uploads
+ * that died more than {@code app.attachments.gc-grace-minutes} ago. Runs on
+ * {@code app.attachments.gc-cron}; every node schedules it, but only the one holding a PostgreSQL
+ * session advisory lock runs it.
+ * <p>
+ * An upload that reuses a stored blob must not lose it to a collection running at the same time. Each
+ * hash has a transaction-level advisory lock: uploads take it shared before checking for the blob and
+ * keep it until their attachment row commits, and a blob is only deleted under the exclusive lock after
+ * checking once more that nothing refers to it.
+ */
+@Slf4j
+@Component
+public class AttachmentGarbageCollector {
+    // Fixed key shared by all nodes, distinct from the other leader jobs' keys
+    static final long LEADER_LOCK_KEY = 0x4154_4348_4743L;
+    // First key of every blob lock; the two-key lock space does not overlap the one-key space above
+    private static final int BLOB_LOCK_SPACE = 0x4154_4348;
+    private static final int LOOKUP_BATCH = 500;
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}");
+
+    private static final String FIND_REFERENCED = "SELECT DISTINCT content_hash FROM expense_attachments " +
+            "WHERE content_hash = ANY(?)";
+    private static final String IS_REFERENCED = "SELECT 1 FROM expense_attachments WHERE content_hash = ? LIMIT 1";
+
+    private final DataSource dataSource;
+    private final AttachmentStorage attachmentStorage;
+    private final Duration grace;
+
+    public AttachmentGarbageCollector(DataSource dataSource,
+                                      AttachmentStorage attachmentStorage,
+                                      @Value("${app.attachments.gc-grace-minutes:60}") long graceMinutes) {
+        this.dataSource = dataSource;
+        this.attachmentStorage = attachmentStorage;
+        this.grace = Duration.ofMinutes(graceMinutes);
+    }
+
+    /**
+     * Holds the blob's lock shared until the connection's current transaction ends.
+     */
+    public static void lockBlobShared(Connection connection, String contentHash) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_advisory_xact_lock_shared(?, ?)")) {
+            lock.setInt(1, BLOB_LOCK_SPACE);
+            lock.setInt(2, blobLockKey(contentHash));
+            lock.execute();
+        }
+    }
+
+    @Scheduled(cron = "${app.attachments.gc-cron:0 15 * * * *}")
+    public void collectGarbage() {
+        try {
+            collect(Instant.now());
+        } catch (SQLException | IOException | UncheckedIOException ex) {
+            log.error("Collecting orphaned attachments failed; the next run retries", ex);
+        }
+    }
+
+    /**
+     * Deletes every unreferenced blob and every staging file last written before {@code now} minus the
+     * grace period. Returns the number of blobs deleted, or -1 when another node holds the leader lock.
+     */
+    public long collect(Instant now) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!tryLeaderLock(connection)) {
+                log.debug("Another node is collecting orphaned attachments");
+                return -1;
+            }
+            try {
+                return collectAsLeader(connection, now.minus(grace));
+            } finally {
+                releaseLeaderLock(connection);
+            }
+        }
+    }
+
+    private long collectAsLeader(Connection connection, Instant staleBefore) throws SQLException, IOException {
+        long startNanos = System.nanoTime();
+        int staging = deleteStaleStagingFiles(staleBefore);
+
+        long scanned = 0;
+        long deleted = 0;
+        List<Path> batch = new ArrayList<>(LOOKUP_BATCH);
+        Path root = attachmentStorage.directory();
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> files = Files.walk(root)) {
+                Iterable<Path> blobs = files
+                        .filter(path -> !path.startsWith(attachmentStorage.stagingDirectory()))
+                        .filter(path -> BLOB_NAME.matcher(path.getFileName().toString()).matches())
+                        .filter(Files::isRegularFile)::iterator;
+                for (Path blob : blobs) {
+                    batch.add(blob);
+                    scanned++;
+                    if (batch.size() == LOOKUP_BATCH) {
+                        deleted += deleteUnreferenced(connection, batch);
+                        batch.clear();
+                    }
+                }
+            }
+            deleted += deleteUnreferenced(connection, batch);
+        }
+        if (deleted > 0 || staging > 0) {
+            log.info("Deleted {} orphaned attachment blobs of {} and {} stale uploads in {} ms", deleted, scanned,
+                    staging, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+        return deleted;
+    }
+
+    private int deleteUnreferenced(Connection connection, List<Path> blobs) throws SQLException, IOException {
+        if (blobs.isEmpty()) {
+            return 0;
+        }
+        String[] hashes = blobs.stream().map(blob -> blob.getFileName().toString()).toArray(String[]::new);
+        Set<String> referenced = new HashSet<>();
+        try (PreparedStatement find = connection.prepareStatement(FIND_REFERENCED)) {
+            find.setArray(1, connection.createArrayOf("varchar", hashes));
+            try (ResultSet rows = find.executeQuery()) {
+                while (rows.next()) {
+                    referenced.add(rows.getString(1));
+                }
+            }
+        }
+
+        int deleted = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (!referenced.contains(hashes[i]) && deleteIfStillUnreferenced(connection, hashes[i], blobs.get(i))) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private boolean deleteIfStillUnreferenced(Connection connection, String contentHash, Path blob)
+            throws SQLException, IOException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            boolean deleted = false;
+            // An upload holding the lock is about to refer to the blob; the next run looks again
+            if (tryLockBlobExclusive(connection, contentHash) && !isReferenced(connection, contentHash)) {
+                deleted = Files.deleteIfExists(blob);
+            }
+            connection.commit();
+            return deleted;
+        } catch (SQLException | IOException | RuntimeException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private int deleteStaleStagingFiles(Instant staleBefore) throws IOException {
+        Path staging = attachmentStorage.stagingDirectory();
+        if (!Files.isDirectory(staging)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(staging)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(staleBefore) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (NoSuchFileException ignored) {
+                    // Published or discarded meanwhile
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean isReferenced(Connection connection, String contentHash) throws SQLException {
+        try (PreparedStatement find = connection.prepareStatement(IS_REFERENCED)) {
+            find.setString(1, contentHash);
+            try (ResultSet rows = find.executeQuery()) {
+                return rows.next();
+            }
+        }
+    }
+
+    private static boolean tryLockBlobExclusive(Connection connection, String contentHash) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_xact_lock(?, ?)")) {
+            lock.setInt(1, BLOB_LOCK_SPACE);
+            lock.setInt(2, blobLockKey(contentHash));
+            try (ResultSet result = lock.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    // Different hashes may share a key; that only makes an upload and a collection wait for each other
+    private static int blobLockKey(String contentHash) {
+        return Integer.parseUnsignedInt(contentHash.substring(0, 8), 16);
+    }
+
+    private static boolean tryLeaderLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, LEADER_LOCK_KEY);
+            try (ResultSet result = lock.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private static void releaseLeaderLock(Connection connection) throws SQLException {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            unlock.setLong(1, LEADER_LOCK_KEY);
+            unlock.execute();
+        }
+    }
+}
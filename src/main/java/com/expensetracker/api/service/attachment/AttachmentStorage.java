@@ -0,0 +1,118 @@
+package com.expensetracker.api.service.attachment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stores attachment contents on local disk by their SHA-256, as {@code <directory>/ab/cd/abcd...}, so
+ * identical receipts are kept once however many expenses they are attached to. A blob is never
+ * modified once in place; the database only holds its hash, and {@code AttachmentGarbageCollector}
+ * deletes blobs no attachment refers to.
+ * <p>
+ * Uploads are staged under {@code <directory>/staging} while they are hashed, and moved into place only
+ * once the hash is known.
+ */
+@Component
+public class AttachmentStorage {
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final String STAGING = "staging";
+
+    private final Path directory;
+
+    public AttachmentStorage(@Value("${app.attachments.directory:data/attachments}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Copies {@code content} to a staging file in fixed-size chunks, hashing it on the way, and fsyncs
+     * it. Fails with {@link MaxUploadSizeExceededException} as soon as more than {@code maxBytes} arrive,
+     * without reading the rest.
+     */
+    public StagedBlob stage(InputStream content, long maxBytes) throws IOException {
+        Path staging = directory.resolve(STAGING);
+        Files.createDirectories(staging);
+        Path temp = Files.createTempFile(staging, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                byte[] chunk = new byte[CHUNK_BYTES];
+                for (int read = content.read(chunk); read != -1; read = content.read(chunk)) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new MaxUploadSizeExceededException(maxBytes);
+                    }
+                    digest.update(chunk, 0, read);
+                    ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                channel.force(true);
+            }
+            return new StagedBlob(HexFormat.of().formatHex(digest.digest()), size, temp);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+    }
+
+    /**
+     * Moves a staged upload into place under its hash, or drops it when that content is already stored.
+     * Callers hold the hash's lock (see {@code AttachmentGarbageCollector}) so the existing blob cannot
+     * be collected in between.
+     */
+    public void publish(StagedBlob staged) throws IOException {
+        Path target = pathOf(staged.getContentHash());
+        if (Files.exists(target)) {
+            Files.deleteIfExists(staged.getPath());
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Files.move(staged.getPath(), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void discard(StagedBlob staged) throws IOException {
+        Files.deleteIfExists(staged.getPath());
+    }
+
+    public Path pathOf(String contentHash) {
+        return directory.resolve(contentHash.substring(0, 2)).resolve(contentHash.substring(2, 4)).resolve(contentHash);
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    Path stagingDirectory() {
+        return directory.resolve(STAGING);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    @lombok.Value
+    public static class StagedBlob {
+        String contentHash;
+        long size;
+        Path path;
+    }
+}
@@ -0,0 +1,20 @@
+package com.expensetracker.api.service.importer;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One CSV record and the line it starts on. {@code error} is set when the record is malformed; its
+ * fields are then whatever could be read and should not be used.
+ */
+@Value
+public class CsvRecord {
+    long line;
+    List<String> fields;
+    String error;
+
+    public boolean isBlank() {
+        return error == null && fields.size() == 1 && fields.get(0).isBlank();
+    }
+}
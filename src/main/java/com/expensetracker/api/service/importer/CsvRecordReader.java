@@ -0,0 +1,148 @@
+package com.expensetracker.api.service.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks, and
+ * records end at LF or CRLF. Only the current record is held in memory, and field length and count
+ * are capped, so a malformed or hostile file cannot grow it without bound. A record that breaks the
+ * format is returned with an error instead of failing the whole read.
+ */
+public class CsvRecordReader {
+    static final int MAX_FIELD_LENGTH = 4096;
+    static final int MAX_FIELDS = 64;
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private boolean started;
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the next record, or {@code null} once the input is exhausted.
+     */
+    public CsvRecord next() throws IOException {
+        if (!started) {
+            started = true;
+            // A UTF-8 byte order mark decodes to U+FEFF; spreadsheet exports like to add one
+            if (peek() == '\uFEFF') {
+                position++;
+            }
+        }
+        if (peek() == EOF) {
+            return null;
+        }
+
+        long startLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        String error = null;
+        boolean quoted = false;
+        boolean afterQuote = false;
+
+        while (true) {
+            int c = read();
+            if (quoted) {
+                if (c == EOF) {
+                    error = firstError(error, "Unterminated quoted field");
+                    break;
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        position++;
+                        error = append(field, '"', error);
+                    } else {
+                        quoted = false;
+                        afterQuote = true;
+                    }
+                    continue;
+                }
+                if (c == '\n') {
+                    line++;
+                }
+                error = append(field, (char) c, error);
+                continue;
+            }
+
+            if (c == EOF || c == '\n' || c == '\r' || c == ',') {
+                if (fields.size() < MAX_FIELDS) {
+                    fields.add(field.toString());
+                } else {
+                    error = firstError(error, "More than " + MAX_FIELDS + " fields");
+                }
+                field.setLength(0);
+                afterQuote = false;
+                if (c == ',') {
+                    continue;
+                }
+                if (c == '\r' && peek() == '\n') {
+                    position++;
+                }
+                if (c != EOF) {
+                    line++;
+                }
+                break;
+            }
+            if (afterQuote) {
+                error = firstError(error, "Unexpected character after closing quote");
+                continue;
+            }
+            if (c == '"' && field.length() == 0) {
+                quoted = true;
+                continue;
+            }
+            error = append(field, (char) c, error);
+        }
+        return new CsvRecord(startLine, fields, error);
+    }
+
+    private static String append(StringBuilder field, char c, String error) {
+        if (field.length() < MAX_FIELD_LENGTH) {
+            field.append(c);
+            return error;
+        }
+        return firstError(error, "Field longer than " + MAX_FIELD_LENGTH + " characters");
+    }
+
+    private static String firstError(String error, String candidate) {
+        return error != null ? error : candidate;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != EOF) {
+            position++;
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
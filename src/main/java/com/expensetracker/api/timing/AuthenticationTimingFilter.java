@@ -0,0 +1,22 @@
+package com.expensetracker.api.timing;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Registered right after the security filter chain, so reaching it ends the authentication phase.
+ */
+public class AuthenticationTimingFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        RequestTimings.markAuthenticated();
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,94 @@
+package com.expensetracker.api.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outermost filter: times the request, adds the {@code Server-Timing} header and logs the statement
+ * list of requests over the duration or statement thresholds.
+ * <p>
+ * The body is not buffered: the header is set before the response can commit and replaced with the
+ * final timings, serialization included, when the response is still uncommitted at the end (see
+ * {@link ServerTimingResponseWrapper}). Requests that go async are finished by the async dispatch,
+ * which passes through here again.
+ */
+@Slf4j
+public class RequestTimingFilter extends OncePerRequestFilter {
+    static final String SERVER_TIMING = "Server-Timing";
+    private static final String TIMINGS_ATTRIBUTE = RequestTimingFilter.class.getName() + ".timings";
+
+    private final boolean enabled;
+    private final long slowThresholdNanos;
+    private final int statementThreshold;
+
+    public RequestTimingFilter(boolean enabled, long slowThresholdMillis, int statementThreshold) {
+        this.enabled = enabled;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.statementThreshold = statementThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings timings = (RequestTimings) request.getAttribute(TIMINGS_ATTRIBUTE);
+        ServerTimingResponseWrapper timed = WebUtils.getNativeResponse(response, ServerTimingResponseWrapper.class);
+        if (timings == null) {
+            timings = new RequestTimings();
+            request.setAttribute(TIMINGS_ATTRIBUTE, timings);
+        }
+        if (timed == null) {
+            timed = new ServerTimingResponseWrapper(response, timings);
+        }
+
+        RequestTimings.bind(timings);
+        try {
+            chain.doFilter(request, timed);
+        } finally {
+            RequestTimings.unbind();
+            if (!request.isAsyncStarted()) {
+                timings.finish();
+                timed.stamp();
+                logIfExpensive(request, timed.getStatus(), timings);
+            }
+        }
+    }
+
+    private void logIfExpensive(HttpServletRequest request, int status, RequestTimings timings) {
+        boolean slow = timings.totalNanos() >= slowThresholdNanos;
+        boolean chatty = timings.statementCount() >= statementThreshold;
+        if (!slow && !chatty) {
+            return;
+        }
+        List<String> statements = timings.statements();
+        StringBuilder message = new StringBuilder()
+                .append(slow ? "Slow" : "Chatty").append(" request ")
+                .append(request.getMethod()).append(' ').append(request.getRequestURI())
+                .append(" -> ").append(status).append(": ").append(timings.toServerTiming());
+        for (String statement : statements) {
+            message.append("\n  ").append(statement);
+        }
+        if (timings.statementCount() > statements.size()) {
+            message.append("\n  ... and ").append(timings.statementCount() - statements.size()).append(" more");
+        }
+        log.warn(message.toString());
+    }
+}
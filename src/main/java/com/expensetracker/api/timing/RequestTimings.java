@@ -0,0 +1,177 @@
+package com.expensetracker.api.timing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Where one request spent its time, collected on the request thread while {@code app.request-timing}
+ * is enabled. Instrumented code calls the static methods, which do nothing unless a request is
+ * being timed on the current thread.
+ * <p>
+ * Phases may nest inside one another (repository calls run SQL, authentication looks up users);
+ * each phase only counts the outermost section on its own, so phases overlap rather than add up to
+ * the total.
+ */
+public final class RequestTimings {
+    static final int MAX_RECORDED_STATEMENTS = 100;
+    private static final int MAX_STATEMENT_LENGTH = 300;
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final Section NO_SECTION = () -> {
+    };
+
+    public enum Phase {
+        AUTHENTICATION("auth"),
+        USER_LOOKUP("user"),
+        REPOSITORY("repo"),
+        SQL("sql"),
+        SERIALIZATION("ser");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    /**
+     * A timed section; closing it adds its duration to the phase it was opened for.
+     */
+    public interface Section extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final long startNanos = System.nanoTime();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final int[] depth = new int[Phase.values().length];
+    private final long[] openedNanos = new long[Phase.values().length];
+    private final List<String> statements = new ArrayList<>();
+    private int statementCount;
+    private boolean authenticated;
+    private long serializationStartNanos;
+    private long endNanos;
+
+    RequestTimings() {
+    }
+
+    static void bind(RequestTimings timings) {
+        CURRENT.set(timings);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    public static Section start(Phase phase) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return NO_SECTION;
+        }
+        timings.open(phase);
+        return () -> timings.close(phase);
+    }
+
+    /**
+     * Records one executed SQL statement; its execution time goes to {@link Phase#SQL}.
+     */
+    public static void recordStatement(String sql, long nanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return;
+        }
+        timings.statementCount++;
+        timings.phaseNanos[Phase.SQL.ordinal()] += nanos;
+        if (timings.statements.size() < MAX_RECORDED_STATEMENTS) {
+            String text = sql == null ? "<batch>" : sql.replaceAll("\\s+", " ").trim();
+            if (text.length() > MAX_STATEMENT_LENGTH) {
+                text = text.substring(0, MAX_STATEMENT_LENGTH) + "...";
+            }
+            timings.statements.add(String.format(Locale.ROOT, "%8.2f ms  %s", nanos / 1e6, text));
+        }
+    }
+
+    /**
+     * Marks the end of the security filter chain; everything before it counts as authentication.
+     */
+    static void markAuthenticated() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null && !timings.authenticated) {
+            timings.authenticated = true;
+            timings.phaseNanos[Phase.AUTHENTICATION.ordinal()] = System.nanoTime() - timings.startNanos;
+        }
+    }
+
+    /**
+     * Marks the start of response body conversion; it lasts until the request is finished.
+     */
+    static void markSerializationStart() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null && timings.serializationStartNanos == 0) {
+            timings.serializationStartNanos = System.nanoTime();
+        }
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+        if (serializationStartNanos != 0) {
+            phaseNanos[Phase.SERIALIZATION.ordinal()] = endNanos - serializationStartNanos;
+        }
+    }
+
+    long totalNanos() {
+        return (endNanos == 0 ? System.nanoTime() : endNanos) - startNanos;
+    }
+
+    int statementCount() {
+        return statementCount;
+    }
+
+    List<String> statements() {
+        return statements;
+    }
+
+    /**
+     * Formats the phases as a {@code Server-Timing} header value, durations in milliseconds. Before
+     * {@link #finish()}, serialization and the total run up to now.
+     */
+    String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            long nanos = phaseNanos[phase.ordinal()];
+            if (phase == Phase.SERIALIZATION && endNanos == 0 && serializationStartNanos != 0) {
+                nanos = System.nanoTime() - serializationStartNanos;
+            }
+            if (nanos == 0 && phase != Phase.SQL) {
+                continue;
+            }
+            header.append(phase.metricName).append(";dur=").append(millis(nanos));
+            if (phase == Phase.SQL) {
+                header.append(";desc=\"").append(statementCount).append(" statements\"");
+            }
+            header.append(", ");
+        }
+        return header.append("total;dur=").append(millis(totalNanos())).toString();
+    }
+
+    private void open(Phase phase) {
+        if (depth[phase.ordinal()]++ == 0) {
+            openedNanos[phase.ordinal()] = System.nanoTime();
+        }
+    }
+
+    private void close(Phase phase) {
+        if (--depth[phase.ordinal()] == 0) {
+            phaseNanos[phase.ordinal()] += System.nanoTime() - openedNanos[phase.ordinal()];
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,182 @@
+package com.expensetracker.api.timing;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * Passes the body straight through and sets {@code Server-Timing}, with the timings up to that
+ * point, just before the response can commit: before a flush or an error, before a body write that
+ * could overflow the response buffer or complete the declared content length, and before the first
+ * character written through the writer, whose encoded size is not known here. Message converters
+ * flush once the body is written, so most responses carry their serialization time; a body larger
+ * than the buffer carries the time to its first bufferful. {@link RequestTimingFilter} replaces the
+ * header with the final timings if the response is still uncommitted at the end of the request.
+ */
+final class ServerTimingResponseWrapper extends HttpServletResponseWrapper {
+    private final RequestTimings timings;
+    private boolean stamped;
+    private long bytesWritten;
+    private long contentLength = -1;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    ServerTimingResponseWrapper(HttpServletResponse response, RequestTimings timings) {
+        super(response);
+        this.timings = timings;
+    }
+
+    /**
+     * Sets the header from the timings so far, unless the response is already committed.
+     */
+    void stamp() {
+        if (!isCommitted()) {
+            setHeader(RequestTimingFilter.SERVER_TIMING, timings.toServerTiming());
+        }
+    }
+
+    private void beforeCommit() {
+        if (!stamped) {
+            stamped = true;
+            stamp();
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new HookedOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new HookedWriter(super.getWriter()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        contentLength = len;
+        super.setContentLength(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        contentLength = len;
+        super.setContentLengthLong(len);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        beforeCommit();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        beforeCommit();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        beforeCommit();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        beforeCommit();
+        super.sendRedirect(location);
+    }
+
+    private final class HookedOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        private HookedOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            beforeWrite(1);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            beforeWrite(len);
+            delegate.write(b, off, len);
+        }
+
+        private void beforeWrite(int len) {
+            bytesWritten += len;
+            if (bytesWritten > getBufferSize() || (contentLength >= 0 && bytesWritten >= contentLength)) {
+                beforeCommit();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            beforeCommit();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            beforeCommit();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+
+    private final class HookedWriter extends Writer {
+        private final PrintWriter delegate;
+
+        private HookedWriter(PrintWriter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] buffer, int off, int len) {
+            beforeCommit();
+            delegate.write(buffer, off, len);
+        }
+
+        @Override
+        public void write(String string, int off, int len) {
+            beforeCommit();
+            delegate.write(string, off, len);
+        }
+
+        @Override
+        public void flush() {
+            beforeCommit();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() {
+            beforeCommit();
+            delegate.close();
+        }
+    }
+}
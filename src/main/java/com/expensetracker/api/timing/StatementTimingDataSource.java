@@ -0,0 +1,78 @@
+package com.expensetracker.api.timing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements report each execution to {@link RequestTimings}. Only
+ * installed while request timing is enabled; everything else is passed straight to the pool's
+ * connection, including {@code unwrap} for driver-specific APIs.
+ */
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    public StatementTimingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementTimingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    String name = method.getName();
+                    if (name.equals("prepareStatement")) {
+                        return wrap((Statement) result, PreparedStatement.class, (String) args[0]);
+                    }
+                    if (name.equals("prepareCall")) {
+                        return wrap((Statement) result, CallableStatement.class, (String) args[0]);
+                    }
+                    if (name.equals("createStatement")) {
+                        return wrap((Statement) result, Statement.class, null);
+                    }
+                    return result;
+                });
+    }
+
+    private static Object wrap(Statement statement, Class<? extends Statement> type, String preparedSql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            long startNanos = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                RequestTimings.recordStatement(sql, System.nanoTime() - startNanos);
+            }
+        };
+        return Proxy.newProxyInstance(StatementTimingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+CREATE SEQUENCE IF NOT EXISTS expense_change_seq;
+
+UPDATE expenses
+SET change_seq = nextval('expense_change_seq'),
+    updated_at = COALESCE(updated_at, now())
+WHERE change_seq IS NULL;
+
+-- Amounts moved from numeric(38,2) to BIGINT minor units (scale 2, see MinorUnits.SCALE)
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'expenses' AND column_name = 'amount') THEN
+        UPDATE expenses SET amount_minor = ROUND(amount * 100) WHERE amount_minor IS NULL;
+        ALTER TABLE expenses DROP COLUMN amount;
+    END IF;
+END $$;
+
+ALTER TABLE expenses ALTER COLUMN amount_minor SET NOT NULL;
+
+-- Bulk writers (COPY imports) leave these to the database instead of allocating them per row
+ALTER TABLE expenses ALTER COLUMN change_seq SET DEFAULT nextval('expense_change_seq');
+ALTER TABLE expenses ALTER COLUMN updated_at SET DEFAULT now();
+
+-- Writers take the user's change lock before drawing change sequence numbers and hold it until they
+-- commit, so each user's changes commit in sequence order and a sync cursor never passes a number
+-- that is still to commit. Writers locking several users lock them in ascending id order.
+CREATE OR REPLACE FUNCTION lock_expense_changes(p_user_id bigint) RETURNS void AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('expense_changes'), hashint8(p_user_id));
+END $$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION next_expense_change_seq(p_user_id bigint) RETURNS bigint AS $$
+BEGIN
+    PERFORM lock_expense_changes(p_user_id);
+    RETURN nextval('expense_change_seq');
+END $$ LANGUAGE plpgsql;
+
+-- Soft deletes; added here because Hibernate's schema update does not see the partitioned table
+ALTER TABLE expenses ADD COLUMN IF NOT EXISTS deleted_at timestamp(6) with time zone;
+
+-- Expenses are range partitioned by month on date. Creates the month's partition if it is missing,
+-- moving any rows that were parked in the default partition meanwhile.
+CREATE OR REPLACE FUNCTION ensure_expense_partition(p_day date) RETURNS void AS $$
+DECLARE
+    month_start date := date_trunc('month', p_day)::date;
+    month_end date := (date_trunc('month', p_day) + interval '1 month')::date;
+    partition_name text := 'expenses_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+    -- Serializes callers across nodes; the lock is released at commit
+    PERFORM pg_advisory_xact_lock(hashtext('ensure_expense_partition'));
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE expenses INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM expenses_default WHERE date >= %L AND date < %L RETURNING *) INSERT INTO %I SELECT * FROM moved',
+                   month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE expenses ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, month_start, month_end);
+END $$ LANGUAGE plpgsql;
+
+-- Drops a month partition that archiving has emptied, handing its table and index space back to the
+-- operating system. The parent is locked before the partition, the order queries take them in, and
+-- lock_timeout keeps the brief exclusive lock from queueing behind long-running readers.
+CREATE OR REPLACE FUNCTION drop_empty_expense_partition(p_day date) RETURNS boolean AS $$
+DECLARE
+    partition_name text := 'expenses_' || to_char(date_trunc('month', p_day), 'YYYY_MM');
+    has_rows boolean;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('ensure_expense_partition'));
+    IF to_regclass(partition_name) IS NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I)', partition_name) INTO has_rows;
+    IF has_rows THEN
+        RETURN false;
+    END IF;
+    SET LOCAL lock_timeout = '2s';
+    EXECUTE format('LOCK TABLE expenses, %I IN ACCESS EXCLUSIVE MODE', partition_name);
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I)', partition_name) INTO has_rows;
+    IF has_rows THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('DROP TABLE %I', partition_name);
+    RETURN true;
+END $$ LANGUAGE plpgsql;
+
+-- Hibernate creates expenses as a plain table; convert it once, keeping its columns and data. The
+-- primary key must include the partition key, so it becomes (id, date).
+DO $$
+DECLARE
+    month_start date;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('expenses')) = 'r' THEN
+        ALTER TABLE expenses RENAME TO expenses_unpartitioned;
+        ALTER TABLE expenses_unpartitioned RENAME CONSTRAINT expenses_pkey TO expenses_unpartitioned_pkey;
+        ALTER INDEX IF EXISTS idx_expenses_user_date RENAME TO idx_expenses_unpartitioned_user_date;
+        ALTER INDEX IF EXISTS idx_expenses_user_change_seq RENAME TO idx_expenses_unpartitioned_user_change_seq;
+
+        CREATE TABLE expenses (LIKE expenses_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (date);
+        CREATE SEQUENCE expense_id_seq OWNED BY expenses.id;
+        PERFORM setval('expense_id_seq', COALESCE((SELECT max(id) FROM expenses_unpartitioned), 0) + 1, false);
+        ALTER TABLE expenses ALTER COLUMN id SET DEFAULT nextval('expense_id_seq');
+        ALTER TABLE expenses ADD CONSTRAINT expenses_pkey PRIMARY KEY (id, date);
+        CREATE INDEX idx_expenses_live_user_date ON expenses (user_id, date) WHERE deleted_at IS NULL;
+        CREATE INDEX idx_expenses_live_user_change_seq ON expenses (user_id, change_seq) WHERE deleted_at IS NULL;
+
+        ALTER TABLE expenses ADD CONSTRAINT fk_expenses_category FOREIGN KEY (category_id) REFERENCES categories (id);
+        ALTER TABLE expenses ADD CONSTRAINT fk_expenses_user FOREIGN KEY (user_id) REFERENCES users (id);
+
+        CREATE TABLE expenses_default PARTITION OF expenses DEFAULT;
+        FOR month_start IN SELECT DISTINCT date_trunc('month', date)::date FROM expenses_unpartitioned LOOP
+            PERFORM ensure_expense_partition(month_start);
+        END LOOP;
+
+        INSERT INTO expenses SELECT * FROM expenses_unpartitioned;
+        DROP TABLE expenses_unpartitioned;
+    END IF;
+END $$;
+
+-- Categories that predate the hierarchy are top-level. Subtrees are path ranges: everything under
+-- /3/17/ lies in ['/3/17/', '/3/170'), because '0' sorts right after '/'.
+UPDATE categories SET path = '/' || id || '/' WHERE path IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_categories_path ON categories (path);
+
+-- Users that predate roles are ordinary users. Hibernate adds the column as nullable; once filled it
+-- gets a default, so users inserted outside JPA are ordinary users too. Runs once.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'users' AND column_name = 'role'
+                 AND is_nullable = 'YES') THEN
+        UPDATE users SET role = 'USER' WHERE role IS NULL;
+        ALTER TABLE users ALTER COLUMN role SET DEFAULT 'USER';
+        ALTER TABLE users ALTER COLUMN role SET NOT NULL;
+    END IF;
+END $$;
+
+-- The username unique constraint used to carry a generated name; registration now tells a taken
+-- username from other violations by the constraint name, so only the named one is kept
+DO $$
+DECLARE
+    generated text;
+BEGIN
+    FOR generated IN SELECT c.conname FROM pg_constraint c
+                     WHERE c.conrelid = to_regclass('users') AND c.contype = 'u' AND c.conname <> 'uk_users_username'
+                       AND c.conkey = ARRAY[(SELECT attnum FROM pg_attribute
+                                             WHERE attrelid = to_regclass('users') AND attname = 'username')] LOOP
+        EXECUTE format('ALTER TABLE users DROP CONSTRAINT %I', generated);
+    END LOOP;
+END $$;
+
+-- One-time migrations record their completion here, so later starts skip them
+CREATE TABLE IF NOT EXISTS completed_migrations (
+    name text PRIMARY KEY,
+    completed_at timestamp(6) with time zone NOT NULL DEFAULT now()
+);
+
+-- Moments for expenses written before anomaly detection existed. Runs once; the lock keeps nodes
+-- starting together from both counting them. A table that already has moments was filled by an
+-- earlier version of this step. Expenses archived by then are not counted.
+DO $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('completed_migrations'), hashtext('spending_moments_backfill'));
+    IF EXISTS (SELECT 1 FROM completed_migrations WHERE name = 'spending_moments_backfill') THEN
+        RETURN;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM spending_moments) THEN
+        INSERT INTO spending_moments (user_id, category_id, expense_count, amount_sum, amount_sum_squares)
+        SELECT user_id, category_id, count(*), sum(amount_minor), sum(CAST(amount_minor AS numeric) * amount_minor)
+        FROM expenses
+        WHERE deleted_at IS NULL
+        GROUP BY user_id, category_id;
+    END IF;
+    INSERT INTO completed_migrations (name) VALUES ('spending_moments_backfill');
+END $$;
+
+-- Reads only ever want live expenses, so their indexes leave soft-deleted rows out, and the purger
+-- finds expired ones through an index holding nothing else
+CREATE INDEX IF NOT EXISTS idx_expenses_live_user_date ON expenses (user_id, date) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_expenses_live_user_change_seq ON expenses (user_id, change_seq) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_expenses_deleted_at ON expenses (deleted_at) WHERE deleted_at IS NOT NULL;
+DROP INDEX IF EXISTS idx_expenses_user_date;
+DROP INDEX IF EXISTS idx_expenses_user_change_seq;
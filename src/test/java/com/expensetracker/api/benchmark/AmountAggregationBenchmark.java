@@ -0,0 +1,66 @@
+package com.expensetracker.api.benchmark;
+
+import com.expensetracker.api.service.MinorUnits;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summing a month's worth of amounts per category: the previous BigDecimal reduction against
+ * overflow-checked long arithmetic on minor units.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dbenchmark=AmountAggregationBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AmountAggregationBenchmark {
+
+    private static final int CATEGORIES = 8;
+
+    @Param({"100", "10000", "1000000"})
+    public int rows;
+
+    private BigDecimal[] decimalAmounts;
+    private long[] minorAmounts;
+    private int[] categories;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        decimalAmounts = new BigDecimal[rows];
+        minorAmounts = new long[rows];
+        categories = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            long cents = 1 + random.nextInt(50_000);
+            decimalAmounts[i] = BigDecimal.valueOf(cents, MinorUnits.SCALE);
+            minorAmounts[i] = cents;
+            categories[i] = random.nextInt(CATEGORIES);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal[] bigDecimal() {
+        BigDecimal[] totals = new BigDecimal[CATEGORIES];
+        Arrays.fill(totals, BigDecimal.ZERO);
+        for (int i = 0; i < rows; i++) {
+            totals[categories[i]] = totals[categories[i]].add(decimalAmounts[i]);
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public long[] minorUnits() {
+        long[] totals = new long[CATEGORIES];
+        for (int i = 0; i < rows; i++) {
+            totals[categories[i]] = Math.addExact(totals[categories[i]], minorAmounts[i]);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,86 @@
+package com.expensetracker.api.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files, say from the previous commit and this one, benchmark by
+ * benchmark and parameter by parameter, and exits with status 1 when any score is more than the
+ * threshold worse (slower for time modes, lower for throughput):
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec@compare -Dcompare.baseline=base.json -Dcompare.current=target/jmh-result.json
+ * </pre>
+ * Benchmarks found in only one of the files are listed but do not fail the comparison.
+ */
+public final class BenchmarkComparison {
+    private static final double DEFAULT_THRESHOLD = 0.10;
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold=0.10]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            double afterScore = after.path("primaryMetric").path("score").asDouble();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-70s %12s -> %12.3f %s  (new)%n", entry.getKey(), "", afterScore, unit);
+                continue;
+            }
+            double beforeScore = before.path("primaryMetric").path("score").asDouble();
+            double change = (afterScore - beforeScore) / beforeScore;
+            // In throughput mode higher is better; in every other mode it is a time per operation
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            boolean regressed = higherIsBetter ? change < -threshold : change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-70s %12.3f -> %12.3f %s  %+.1f%%%s%n", entry.getKey(), beforeScore, afterScore,
+                    unit, change * 100, regressed ? "  REGRESSION" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-70s (missing)%n", key);
+            }
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The results in a file by benchmark name and parameters, such as
+     * {@code ScaleBenchmark.listExpenses rows=10000}.
+     */
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replaceFirst("^.*\\.(\\w+\\.\\w+)$", "$1"));
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
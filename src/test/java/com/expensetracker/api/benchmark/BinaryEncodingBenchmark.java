@@ -0,0 +1,150 @@
+package com.expensetracker.api.benchmark;
+
+import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding an expense list and a year of monthly reports as JSON, CBOR and Smile, with
+ * the mappers configured the way the application configures them (ISO date strings for JSON,
+ * numeric dates for the binary formats). Payload sizes are printed once per trial.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dbenchmark=BinaryEncodingBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryEncodingBenchmark {
+
+    private static final String[] CATEGORIES = {"Food", "Groceries", "Transport", "Rent", "Utilities", "Coffee",
+            "Entertainment", "Health", "Clothing", "Travel", "Gifts", "Subscriptions"};
+    private static final String[] DESCRIPTIONS = {"Lunch with the team", "Weekly groceries", "Metro card top-up",
+            "Monthly rent", "Electricity bill", "Flat white", "Cinema tickets", "Pharmacy", "Winter jacket",
+            "Train to Tabriz", "Birthday present", "Music streaming"};
+    private static final TypeReference<List<ExpenseView>> EXPENSE_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<List<ReportView>> REPORT_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"5000"})
+    public int expenses;
+
+    private ObjectMapper mapper;
+    private List<ExpenseResponse> expenseList;
+    private List<MonthlyReportResponse> reports;
+    private byte[] encodedExpenses;
+    private byte[] encodedReports;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor()
+                    .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile()
+                    .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+            default -> throw new IllegalArgumentException(format);
+        };
+
+        Random random = new Random(42);
+        LocalDate firstDay = LocalDate.of(2025, 1, 1);
+        expenseList = new ArrayList<>(expenses);
+        for (int i = 0; i < expenses; i++) {
+            int kind = random.nextInt(CATEGORIES.length);
+            expenseList.add(ExpenseResponse.builder()
+                    .id(1_000_000L + i)
+                    .amount(BigDecimal.valueOf(1 + random.nextInt(50_000), 2))
+                    .description(DESCRIPTIONS[kind])
+                    .date(firstDay.plusDays(random.nextInt(365)))
+                    .categoryName(CATEGORIES[kind])
+                    .build());
+        }
+
+        reports = new ArrayList<>();
+        for (int month = 1; month <= 12; month++) {
+            Map<String, BigDecimal> spending = new LinkedHashMap<>();
+            long total = 0;
+            for (String category : CATEGORIES) {
+                long cents = random.nextInt(2_000_000);
+                spending.put(category, BigDecimal.valueOf(cents, 2));
+                total += cents;
+            }
+            YearMonth reportMonth = YearMonth.of(2025, month);
+            reports.add(MonthlyReportResponse.builder()
+                    .year(reportMonth.getYear())
+                    .month(reportMonth.getMonthValue())
+                    .totalAmount(BigDecimal.valueOf(total, 2))
+                    .expenseCount(400 + random.nextInt(100))
+                    .spendingByCategory(spending)
+                    .alerts(List.of())
+                    .build());
+        }
+
+        encodedExpenses = mapper.writeValueAsBytes(expenseList);
+        encodedReports = mapper.writeValueAsBytes(reports);
+        System.out.printf("%n%s payload: %d expenses = %d bytes, 12 monthly reports = %d bytes%n",
+                format, expenses, encodedExpenses.length, encodedReports.length);
+    }
+
+    @Benchmark
+    public byte[] encodeExpenses() throws IOException {
+        return mapper.writeValueAsBytes(expenseList);
+    }
+
+    @Benchmark
+    public List<ExpenseView> decodeExpenses() throws IOException {
+        return mapper.readValue(encodedExpenses, EXPENSE_LIST);
+    }
+
+    @Benchmark
+    public byte[] encodeReports() throws IOException {
+        return mapper.writeValueAsBytes(reports);
+    }
+
+    @Benchmark
+    public List<ReportView> decodeReports() throws IOException {
+        return mapper.readValue(encodedReports, REPORT_LIST);
+    }
+
+    /**
+     * What a consumer decodes an expense into.
+     */
+    public static class ExpenseView {
+        public Long id;
+        public BigDecimal amount;
+        public String description;
+        public LocalDate date;
+        public String categoryName;
+    }
+
+    public static class ReportView {
+        public int year;
+        public int month;
+        public BigDecimal totalAmount;
+        public int expenseCount;
+        public Map<String, BigDecimal> spendingByCategory;
+        public List<String> alerts;
+    }
+}
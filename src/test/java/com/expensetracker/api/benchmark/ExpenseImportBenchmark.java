@@ -0,0 +1,122 @@
+package com.expensetracker.api.benchmark;
+
+import com.expensetracker.api.ExpenseTrackerApiApplication;
+import com.expensetracker.api.dto.CreateExpenseRequest;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.repository.UserRepository;
+import com.expensetracker.api.service.ExpenseImportService;
+import com.expensetracker.api.service.ExpenseService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing a bank statement: the streaming COPY import against one {@code createExpense} call per
+ * row. Scores are per row, so their ratio is the throughput gain.
+ * <p>
+ * Needs a running PostgreSQL ({@code docker compose up -d postgres}); point it elsewhere with the
+ * usual {@code SPRING_DATASOURCE_*} environment variables. Each trial uses a throwaway user whose rows are deleted afterwards.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dbenchmark=ExpenseImportBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExpenseImportBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final String CATEGORY = "Benchmark Groceries";
+
+    private ConfigurableApplicationContext context;
+    private ExpenseImportService expenseImportService;
+    private ExpenseService expenseService;
+    private User user;
+    private byte[] csv;
+    private List<CreateExpenseRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplication application = new SpringApplication(ExpenseTrackerApiApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run("--spring.jpa.show-sql=false", "--logging.level.root=WARN");
+        expenseImportService = context.getBean(ExpenseImportService.class);
+        expenseService = context.getBean(ExpenseService.class);
+
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        if (categoryRepository.findByName(CATEGORY).isEmpty()) {
+            Category category = new Category();
+            category.setName(CATEGORY);
+            categoryRepository.save(category);
+        }
+        user = context.getBean(UserRepository.class).save(User.builder()
+                .username("import_benchmark_" + System.nanoTime())
+                .password("unused")
+                .build());
+        // JMH calls setup and benchmark methods from different threads
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder("date,amount,category,description\n");
+        requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            LocalDate date = LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365));
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(50_000), 2);
+            String description = "Card payment #" + i;
+            content.append(date).append(',').append(amount).append(',').append(CATEGORY).append(',')
+                    .append(description).append('\n');
+
+            CreateExpenseRequest request = new CreateExpenseRequest();
+            request.setDate(date);
+            request.setAmount(amount);
+            request.setCategoryName(CATEGORY);
+            request.setDescription(description);
+            requests.add(request);
+        }
+        csv = content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM expenses WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM spending_sketches WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long copyImport() {
+        return expenseImportService.importCsv(new ByteArrayInputStream(csv)).getImportedCount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long createExpensePerRow() {
+        long created = 0;
+        for (CreateExpenseRequest request : requests) {
+            created += expenseService.createExpense(request).getId() != null ? 1 : 0;
+        }
+        return created;
+    }
+}
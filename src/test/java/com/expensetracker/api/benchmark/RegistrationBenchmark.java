@@ -0,0 +1,89 @@
+package com.expensetracker.api.benchmark;
+
+import com.expensetracker.api.controller.exception.ServiceUnavailableException;
+import com.expensetracker.api.dto.RegisterRequest;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.UserRepository;
+import com.expensetracker.api.service.PasswordHashingService;
+import com.expensetracker.api.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Concurrent registrations with 32 request threads competing for the password hashing pool.
+ * Compares hashing on the request thread with the bounded pool and reports how many
+ * registrations were shed with 503 instead of queueing.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dbenchmark=RegistrationBenchmark}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(32)
+public class RegistrationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Registration {
+        private final AtomicLong sequence = new AtomicLong();
+
+        PasswordEncoder passwordEncoder;
+        PasswordHashingService passwordHashingService;
+        UserService userService;
+
+        @Setup
+        public void setUp() {
+            UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+            when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            passwordEncoder = new BCryptPasswordEncoder();
+            passwordHashingService = new PasswordHashingService(passwordEncoder,
+                    Runtime.getRuntime().availableProcessors(), 64);
+            userService = new UserService(userRepository, passwordHashingService, Runnable::run);
+        }
+
+        @TearDown
+        public void tearDown() {
+            passwordHashingService.shutdown();
+        }
+
+        RegisterRequest nextRequest() {
+            RegisterRequest request = new RegisterRequest();
+            request.setUsername("user_" + sequence.incrementAndGet());
+            request.setPassword("benchmark-password");
+            return request;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long registered;
+        public long shed;
+    }
+
+    @Benchmark
+    public String hashOnRequestThread(Registration registration) {
+        return registration.passwordEncoder.encode(registration.nextRequest().getPassword());
+    }
+
+    @Benchmark
+    public User hashOnBoundedPool(Registration registration, Outcome outcome) {
+        try {
+            User user = registration.userService.register(registration.nextRequest()).join();
+            outcome.registered++;
+            return user;
+        } catch (ServiceUnavailableException ex) {
+            outcome.shed++;
+            return null;
+        }
+    }
+}
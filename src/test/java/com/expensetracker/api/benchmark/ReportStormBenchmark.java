@@ -0,0 +1,146 @@
+package com.expensetracker.api.benchmark;
+
+import com.expensetracker.api.ExpenseTrackerApiApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency of creating an expense while {@code stormClients} clients request five-year range
+ * reports as fast as they can, with the concurrency limits on and off. The score distribution
+ * (p50, p99, ...) is what matters: without limits every report runs at once and the write waits
+ * for the CPU and database connections behind them; with limits the excess reports are shed with
+ * 503 and the write goes through. Storm clients wait as long as {@code Retry-After} says before
+ * trying again, as well-behaved clients do.
+ * <p>
+ * The application runs in process on a random port, on the 10^5 row data set of
+ * {@link SyntheticExpenseData} (seeded on first use); its users' passwords are hashed at a low
+ * bcrypt cost, so that logging in does not dominate. Needs a running PostgreSQL, as for
+ * {@link ScaleBenchmark}:
+ * <pre>
+ * mvn -Pbenchmark test -Dbenchmark=ReportStormBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ReportStormBenchmark {
+
+    private static final long ROWS = 100_000;
+    private static final int YEARS = 5;
+
+    @Param({"true", "false"})
+    public boolean limited;
+
+    // 0 measures the write on an idle server, for reference
+    @Param({"32"})
+    public int stormClients;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final LongAdder reportsServed = new LongAdder();
+    private final LongAdder reportsShed = new LongAdder();
+    private final LongAdder writesShed = new LongAdder();
+    private final List<Thread> storm = new ArrayList<>();
+    private ConfigurableApplicationContext context;
+    private SyntheticExpenseData.Dataset dataset;
+    private String baseUrl;
+    private volatile boolean stormRunning;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SpringApplication application = new SpringApplication(ExpenseTrackerApiApplication.class);
+        context = application.run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                "--app.concurrency-limit.enabled=" + limited, "--app.schema.maintain-at-startup=false",
+                "--app.report-snapshots.cron=-", "--app.recurring.cron=-", "--app.partitions.cron=-",
+                "--app.archive.cron=-", "--app.soft-delete.purge-cron=-", "--app.attachments.gc-cron=-");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        try (Connection connection = context.getBean(DataSource.class).getConnection()) {
+            dataset = SyntheticExpenseData.findOrSeed(connection, ROWS, YEARS, 42);
+        }
+
+        stormRunning = true;
+        YearMonth to = YearMonth.now();
+        String path = "/api/expenses/report/range?from=" + to.minusYears(YEARS).plusMonths(1) + "&to=" + to;
+        long users = dataset.getLastUserId() - dataset.getFirstUserId();
+        for (int i = 0; i < stormClients; i++) {
+            String username = dataset.getUserPrefix() + (i * users / stormClients);
+            Thread thread = new Thread(() -> runStormClient(username, path), "report-storm-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            storm.add(thread);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        stormRunning = false;
+        for (Thread thread : storm) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        System.out.printf("%nReports served %,d, shed %,d; writes shed %,d%n",
+                reportsServed.sum(), reportsShed.sum(), writesShed.sum());
+        context.close();
+    }
+
+    @Benchmark
+    public int createExpense() throws Exception {
+        String body = "{\"amount\":12.50,\"date\":\"" + LocalDate.now() + "\",\"categoryName\":\"" +
+                dataset.getCategories().get(0) + "\",\"description\":\"report storm benchmark\"}";
+        HttpResponse<Void> response = client.send(request("/api/expenses", dataset.getUserPrefix() + "0")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 503) {
+            writesShed.increment();
+        } else if (response.statusCode() != 200) {
+            throw new IllegalStateException("Creating an expense failed with " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private void runStormClient(String username, String path) {
+        HttpRequest report = request(path, username).GET().build();
+        while (stormRunning) {
+            try {
+                HttpResponse<Void> response = client.send(report, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 503) {
+                    reportsShed.increment();
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(response.headers().firstValueAsLong("Retry-After").orElse(1)));
+                } else {
+                    reportsServed.increment();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                // Keep storming; a closed connection under load is part of the picture
+            }
+        }
+    }
+
+    private HttpRequest.Builder request(String path, String username) {
+        String credentials = username + ":" + SyntheticExpenseData.PASSWORD;
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Basic " +
+                        Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+    }
+}
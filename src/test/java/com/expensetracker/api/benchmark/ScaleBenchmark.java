@@ -0,0 +1,138 @@
+package com.expensetracker.api.benchmark;
+
+import com.expensetracker.api.ExpenseTrackerApiApplication;
+import com.expensetracker.api.dto.ExpenseField;
+import com.expensetracker.api.dto.FieldSelection;
+import com.expensetracker.api.service.ExpenseService;
+import com.expensetracker.api.service.MonthEndStatementReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The main read paths at 10^4 and 10^6 expenses, on data from {@link SyntheticExpenseData}:
+ * listing a user's expenses, filtering them by category, a monthly and a twelve-month report, and
+ * exporting one chunk of month-end statements (the unit the statement job writes). Per-user
+ * operations take turns over {@value #SAMPLED_USERS} users spread over the data set, so the score
+ * reflects the mix of light and heavy users rather than a single one. Reports and the export cover
+ * the last full month of the data set, so a kept data set is measured the same way on any later day.
+ * <p>
+ * A data set is seeded on first use and kept, so later runs (and other commits) measure the same
+ * rows. 10^8 ({@code -p rows=100000000}) is left out of the default run: seeding it takes hours and
+ * tens of gigabytes, and it has not been measured. Every scale seeded into the same
+ * database shares its tables, so run one scale per database for figures that compare cleanly.
+ * Scheduled jobs and startup backfills are switched off so they do not run during measurement.
+ * <p>
+ * Needs a running PostgreSQL ({@code docker compose up -d postgres}); point it elsewhere with the
+ * usual {@code SPRING_DATASOURCE_*} environment variables. Results go to {@code target/jmh-result.json},
+ * or wherever {@code -Dbenchmark.result} names, to compare between commits:
+ * <pre>
+ * mvn -Pbenchmark test -Dbenchmark=ScaleBenchmark -Dbenchmark.args="-p rows=10000,1000000"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScaleBenchmark {
+
+    static final int SAMPLED_USERS = 64;
+    private static final int YEARS = 5;
+    private static final long SEED = 42;
+    private static final int STATEMENT_CHUNK_USERS = 1000;
+
+    @Param({"10000", "1000000"})
+    public long rows;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseService expenseService;
+    private MonthEndStatementReader monthEndStatementReader;
+    private SyntheticExpenseData.Dataset dataset;
+    private String[] usernames;
+    private String category;
+    private YearMonth month;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        SpringApplication application = new SpringApplication(ExpenseTrackerApiApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run("--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                "--app.schema.maintain-at-startup=false",
+                "--app.report-snapshots.cron=-", "--app.recurring.cron=-", "--app.partitions.cron=-",
+                "--app.archive.cron=-", "--app.soft-delete.purge-cron=-", "--app.attachments.gc-cron=-");
+        expenseService = context.getBean(ExpenseService.class);
+        monthEndStatementReader = context.getBean(MonthEndStatementReader.class);
+
+        try (Connection connection = context.getBean(DataSource.class).getConnection()) {
+            dataset = SyntheticExpenseData.findOrSeed(connection, rows, YEARS, SEED);
+        }
+        long users = dataset.getLastUserId() - dataset.getFirstUserId() + 1;
+        int sampled = (int) Math.min(SAMPLED_USERS, users);
+        usernames = new String[sampled];
+        for (int i = 0; i < sampled; i++) {
+            // Seeded users are numbered in id order
+            usernames[i] = dataset.getUserPrefix() + (i * users / sampled);
+        }
+        category = dataset.getCategories().get(0);
+        month = YearMonth.from(dataset.getLastDay()).minusMonths(1);
+        // JMH calls setup and benchmark methods from different threads
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int listExpenses() {
+        nextUser();
+        return expenseService.getAllExpenses(FieldSelection.all(ExpenseField.class)).size();
+    }
+
+    @Benchmark
+    public int filterByCategory() {
+        nextUser();
+        return expenseService.getExpensesByCategory(category, FieldSelection.all(ExpenseField.class)).size();
+    }
+
+    @Benchmark
+    public Object monthlyReport() {
+        nextUser();
+        return expenseService.getMonthlyReport(month.getYear(), month.getMonthValue());
+    }
+
+    @Benchmark
+    public int yearReport() {
+        nextUser();
+        return expenseService.getRangeReport(month.minusMonths(11), month).size();
+    }
+
+    @Benchmark
+    public int exportStatements() {
+        long users = dataset.getLastUserId() - dataset.getFirstUserId() + 1;
+        long chunks = Math.max(1, users / STATEMENT_CHUNK_USERS);
+        long fromUserId = dataset.getFirstUserId() + (next++ % chunks) * STATEMENT_CHUNK_USERS;
+        List<?> statements = monthEndStatementReader.read(month, fromUserId, fromUserId + STATEMENT_CHUNK_USERS);
+        return statements.size();
+    }
+
+    private void nextUser() {
+        String username = usernames[next++ % usernames.length];
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+}
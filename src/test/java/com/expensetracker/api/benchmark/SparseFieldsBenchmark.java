@@ -0,0 +1,122 @@
+package com.expensetracker.api.benchmark;
+
+import com.expensetracker.api.ExpenseTrackerApiApplication;
+import com.expensetracker.api.config.FieldSelectionConfig;
+import com.expensetracker.api.dto.ExpenseField;
+import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.dto.FieldSelection;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.repository.UserRepository;
+import com.expensetracker.api.service.ExpenseImportService;
+import com.expensetracker.api.service.ExpenseService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing expenses with every field against {@code fields=id,amount,date}: reading the rows and
+ * serializing them to JSON the way the controller does. Scores are per row; the JSON size per row
+ * is printed once per trial.
+ * <p>
+ * Needs a running PostgreSQL ({@code docker compose up -d postgres}); point it elsewhere with the
+ * usual {@code SPRING_DATASOURCE_*} environment variables. Each trial uses a throwaway user whose
+ * rows are deleted afterwards.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dbenchmark=SparseFieldsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SparseFieldsBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final String CATEGORY = "Benchmark Groceries";
+
+    @Param({"all", "id,amount,date"})
+    public String fields;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseService expenseService;
+    private FieldSelection<ExpenseField> selection;
+    private ObjectWriter writer;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        SpringApplication application = new SpringApplication(ExpenseTrackerApiApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run("--spring.jpa.show-sql=false", "--logging.level.root=WARN");
+        expenseService = context.getBean(ExpenseService.class);
+
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        if (categoryRepository.findByName(CATEGORY).isEmpty()) {
+            Category category = new Category();
+            category.setName(CATEGORY);
+            categoryRepository.save(category);
+        }
+        user = context.getBean(UserRepository.class).save(User.builder()
+                .username("fields_benchmark_" + System.nanoTime())
+                .password("unused")
+                .build());
+        // JMH calls setup and benchmark methods from different threads
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder("date,amount,category,description\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append(LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365))).append(',')
+                    .append(BigDecimal.valueOf(1 + random.nextInt(50_000), 2)).append(',')
+                    .append(CATEGORY).append(",Card payment at store #").append(random.nextInt(500)).append('\n');
+        }
+        context.getBean(ExpenseImportService.class)
+                .importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        selection = FieldSelection.parse(fields.equals("all") ? null : fields, ExpenseField.class);
+        writer = context.getBean(ObjectMapper.class).writer(new SimpleFilterProvider()
+                .addFilter(FieldSelectionConfig.FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(selection.names())));
+        System.out.printf("%nfields=%s: %d bytes of JSON per row%n", fields, writer.writeValueAsBytes(list()).length / ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM expenses WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM spending_sketches WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public byte[] listAndSerialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(list());
+    }
+
+    private List<ExpenseResponse> list() {
+        return expenseService.getAllExpenses(selection);
+    }
+}
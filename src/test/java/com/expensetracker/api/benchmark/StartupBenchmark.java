@@ -0,0 +1,191 @@
+package com.expensetracker.api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cold start of the packaged application as a separate process: time until it reports readiness
+ * (after schema work and startup jobs) and the latency of the first authenticated request. Compares
+ * the plain executable jar with the {@code fast-startup} build (AOT-processed beans, class data
+ * sharing archive, no schema work at startup).
+ * <p>
+ * Build both artifacts and start PostgreSQL first; the launched processes use the usual
+ * {@code SPRING_DATASOURCE_*} environment variables:
+ * <pre>
+ * mvn -Pfast-startup package -DskipTests
+ * mvn -Pbenchmark test -Dbenchmark=StartupBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String USERNAME = "startup_benchmark";
+    private static final String PASSWORD = "startup-benchmark";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    @Param({"jar", "fast-startup"})
+    public String build;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Process process;
+    private int port;
+
+    @Setup(Level.Trial)
+    public void registerUser() throws Exception {
+        startAndAwaitReady();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"username\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD + "\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        // 409 when an earlier run already registered the user
+        if (response.statusCode() != 200 && response.statusCode() != 409) {
+            throw new IllegalStateException("Registration failed with " + response.statusCode() + ": " + response.body());
+        }
+        stop();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            process = null;
+        }
+    }
+
+    @Benchmark
+    public void startupToReady() throws Exception {
+        startAndAwaitReady();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Started {
+        @Setup(Level.Invocation)
+        public void start(StartupBenchmark benchmark) throws Exception {
+            benchmark.startAndAwaitReady();
+        }
+    }
+
+    @Benchmark
+    public int firstRequest(Started started) throws Exception {
+        YearMonth month = YearMonth.now();
+        String credentials = Base64.getEncoder().encodeToString(
+                (USERNAME + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(
+                                uri("/api/expenses/report?year=" + month.getYear() + "&month=" + month.getMonthValue()))
+                        .header("Authorization", "Basic " + credentials)
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("First request failed with " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    /**
+     * Starts the application and waits for the readiness change to ACCEPTING_TRAFFIC, which follows
+     * the ApplicationReadyEvent listeners.
+     */
+    void startAndAwaitReady() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        Path workingDirectory;
+        if (build.equals("fast-startup")) {
+            workingDirectory = Path.of("target", "fast-startup");
+            // The class path has to match the training run, which used the jar name relative to this directory
+            command.addAll(List.of("-XX:SharedArchiveFile=application.jsa", "-Dspring.aot.enabled=true",
+                    "-Dspring.profiles.active=fast-startup", "-jar", applicationJar(workingDirectory).getFileName().toString()));
+        } else {
+            workingDirectory = Path.of(".");
+            command.addAll(List.of("-jar", applicationJar(Path.of("target")).toString()));
+        }
+        command.add("--server.port=" + port);
+        command.add("--logging.level.org.springframework.boot.availability=DEBUG");
+
+        process = new ProcessBuilder(command)
+                .directory(workingDirectory.toFile())
+                .redirectErrorStream(true)
+                .start();
+        CompletableFuture<Void> ready = CompletableFuture.runAsync(() -> awaitReadiness(process));
+        try {
+            ready.get(STARTUP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception ex) {
+            stop();
+            throw ex;
+        }
+    }
+
+    private static void awaitReadiness(Process process) {
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.contains("ACCEPTING_TRAFFIC")) {
+                    // Keep draining so the process never blocks on a full pipe
+                    Thread drain = new Thread(() -> {
+                        try {
+                            while (output.readLine() != null) {
+                                // discard
+                            }
+                        } catch (IOException ignored) {
+                            // The process was stopped
+                        }
+                    });
+                    drain.setDaemon(true);
+                    drain.start();
+                    return;
+                }
+                if (line.contains("Application run failed")) {
+                    throw new IllegalStateException("Application failed to start: " + line);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        throw new IllegalStateException("Application exited before becoming ready");
+    }
+
+    private static Path applicationJar(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches("expense-tracker-api-.*\\.jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No application jar in " + directory
+                            + "; run mvn -Pfast-startup package -DskipTests first"));
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
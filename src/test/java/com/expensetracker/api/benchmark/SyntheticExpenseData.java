@@ -0,0 +1,446 @@
+package com.expensetracker.api.benchmark;
+
+import com.expensetracker.api.service.analytics.QuantileSketch;
+import lombok.Value;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds a data set of a given number of expenses, shaped like real spending, for benchmarks at scale:
+ * <ul>
+ *   <li>about {@value #MEAN_ROWS_PER_USER} expenses per user on average, log-normally spread, so a
+ *       few heavy users have tens of times more than the median one;</li>
+ *   <li>a fixed list of categories with Zipf-like popularity, which each user skews further;</li>
+ *   <li>amounts log-normal around a typical amount per category (rent barely varies, dining out a
+ *       lot);</li>
+ *   <li>dates over the last {@code years}, denser towards today.</li>
+ * </ul>
+ * Users are named {@code synthetic<rows>_<n>} and log in with {@value #PASSWORD}. Expenses are
+ * streamed into the month partitions with {@code COPY}, one transaction per
+ * {@value #ROWS_PER_TRANSACTION} rows. Each transaction also stores the spending sketches of the
+ * users completed in it, built while their rows are generated, and the users' spending moments are
+ * computed at the end. The application's sketch backfill does not run again once it has completed,
+ * so the data set is complete without it.
+ * <p>
+ * Run it on its own against the usual {@code SPRING_DATASOURCE_*} database, after the application
+ * has created the schema once:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec@seed -Dseed.rows=1000000
+ * </pre>
+ */
+public final class SyntheticExpenseData {
+    public static final String PASSWORD = "synthetic";
+    static final int MEAN_ROWS_PER_USER = 1000;
+    private static final int ROWS_PER_TRANSACTION = 1_000_000;
+    private static final int ROWS_PER_WRITE = 10_000;
+    private static final int MERCHANTS_PER_CATEGORY = 40;
+    private static final int LAST_DAY_USERS = 64;
+    // The lowest bcrypt cost, so that logging in does not dominate load tests
+    private static final int BCRYPT_STRENGTH = 4;
+
+    private static final String COPY_EXPENSES = "COPY expenses (amount_minor, date, description, category_id, user_id) " +
+            "FROM STDIN (FORMAT csv)";
+    private static final String INSERT_USERS = "INSERT INTO users (username, password) " +
+            "SELECT ? || g, ? FROM generate_series(0, ? - 1) AS g ORDER BY g RETURNING id";
+    private static final String INSERT_MOMENTS = "INSERT INTO spending_moments " +
+            "(user_id, category_id, expense_count, amount_sum, amount_sum_squares) " +
+            "SELECT user_id, category_id, count(*), sum(amount_minor), sum(CAST(amount_minor AS numeric) * amount_minor) " +
+            "FROM expenses WHERE user_id BETWEEN ? AND ? AND deleted_at IS NULL GROUP BY user_id, category_id " +
+            "ON CONFLICT (user_id, category_id) DO NOTHING";
+    private static final String INSERT_SKETCHES = "INSERT INTO spending_sketches (user_id, category_id, month_start, sketch) " +
+            "SELECT * FROM unnest(?, ?, ?, ?)";
+
+    // Name, typical amount in minor units, log-normal sigma; in order of popularity
+    private static final Object[][] CATEGORIES = {
+            {"Groceries", 4_500L, 0.6},
+            {"Dining Out", 2_800L, 0.7},
+            {"Transport", 1_200L, 0.8},
+            {"Coffee", 450L, 0.3},
+            {"Shopping", 6_000L, 1.0},
+            {"Utilities", 9_000L, 0.4},
+            {"Entertainment", 3_500L, 0.8},
+            {"Health", 5_000L, 0.9},
+            {"Subscriptions", 1_300L, 0.4},
+            {"Fuel", 5_500L, 0.3},
+            {"Travel", 40_000L, 1.0},
+            {"Gifts", 5_000L, 0.8},
+            {"Education", 20_000L, 0.9},
+            {"Insurance", 15_000L, 0.3},
+            {"Rent", 150_000L, 0.1},
+    };
+
+    private SyntheticExpenseData() {
+    }
+
+    /**
+     * The data set of {@code rows} expenses seeded earlier, if there is one.
+     */
+    public static Optional<Dataset> find(Connection connection, long rows) throws SQLException {
+        String prefix = prefix(rows);
+        try (PreparedStatement find = connection.prepareStatement(
+                "SELECT min(id), max(id) FROM users WHERE starts_with(username, ?)")) {
+            find.setString(1, prefix);
+            try (ResultSet result = find.executeQuery()) {
+                result.next();
+                long firstUserId = result.getLong(1);
+                if (result.wasNull()) {
+                    return Optional.empty();
+                }
+                long lastUserId = result.getLong(2);
+                // Moments are computed last, so the last user has them only if seeding finished
+                try (PreparedStatement complete = connection.prepareStatement(
+                        "SELECT 1 FROM spending_moments WHERE user_id = ? LIMIT 1")) {
+                    complete.setLong(1, lastUserId);
+                    try (ResultSet moments = complete.executeQuery()) {
+                        if (!moments.next()) {
+                            throw new IllegalStateException("The " + rows + " row data set was not seeded completely; "
+                                    + "delete the users named " + prefix + "* and their expenses first");
+                        }
+                    }
+                }
+                return Optional.of(new Dataset(prefix, firstUserId, lastUserId, rows, categoryNames(),
+                        lastDay(connection, firstUserId, lastUserId)));
+            }
+        }
+    }
+
+    /**
+     * Returns the data set of {@code rows} expenses, seeding it first when there is none. The seed
+     * makes the data reproducible.
+     */
+    public static Dataset findOrSeed(Connection connection, long rows, int years, long seed) throws SQLException {
+        Optional<Dataset> existing = find(connection, rows);
+        return existing.isPresent() ? existing.get() : seed(connection, rows, years, seed);
+    }
+
+    public static Dataset seed(Connection connection, long rows, int years, long seed) throws SQLException {
+        long startNanos = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusYears(years).plusDays(1);
+        int days = (int) (today.toEpochDay() - firstDay.toEpochDay()) + 1;
+        YearMonth firstMonth = YearMonth.from(firstDay);
+
+        createPartitions(connection, firstDay, today);
+        long[] categoryIds = createCategories(connection);
+        long[] userIds = createUsers(connection, prefix(rows), (int) Math.max(1, rows / MEAN_ROWS_PER_USER));
+        long[] rowsPerUser = spread(random, rows, userIds.length);
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        CopyIn copyIn = null;
+        try {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            copyIn = pgConnection.getCopyAPI().copyIn(COPY_EXPENSES);
+            StringBuilder chunk = new StringBuilder(ROWS_PER_WRITE * 64);
+            long written = 0;
+            double[] categoryWeights = new double[categoryIds.length];
+            // The current user's sketches by category and month; completed users' wait in pendingSketches
+            QuantileSketch[][] userSketches = new QuantileSketch[categoryIds.length][
+                    (int) firstMonth.until(YearMonth.from(today), ChronoUnit.MONTHS) + 1];
+            SketchRows pendingSketches = new SketchRows();
+            for (int user = 0; user < userIds.length; user++) {
+                userCategoryWeights(random, categoryWeights);
+                for (long n = 0; n < rowsPerUser[user]; n++) {
+                    int category = pick(random, categoryWeights);
+                    appendRow(chunk, random, category, categoryIds[category], userIds[user], firstDay, days,
+                            userSketches[category], firstMonth);
+                    written++;
+                    if (written % ROWS_PER_WRITE == 0) {
+                        write(copyIn, chunk);
+                    }
+                    if (written % ROWS_PER_TRANSACTION == 0) {
+                        write(copyIn, chunk);
+                        copyIn.endCopy();
+                        pendingSketches.insert(connection);
+                        connection.commit();
+                        System.out.printf("Seeded %,d of %,d expenses%n", written, rows);
+                        copyIn = pgConnection.getCopyAPI().copyIn(COPY_EXPENSES);
+                    }
+                }
+                pendingSketches.take(userIds[user], categoryIds, userSketches, firstMonth);
+            }
+            write(copyIn, chunk);
+            copyIn.endCopy();
+            pendingSketches.insert(connection);
+            connection.commit();
+        } catch (SQLException | RuntimeException ex) {
+            if (copyIn != null && copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        try (PreparedStatement moments = connection.prepareStatement(INSERT_MOMENTS)) {
+            moments.setLong(1, userIds[0]);
+            moments.setLong(2, userIds[userIds.length - 1]);
+            moments.executeUpdate();
+        }
+        try (PreparedStatement analyze = connection.prepareStatement("ANALYZE expenses")) {
+            analyze.execute();
+        }
+        System.out.printf("Seeded %,d expenses for %,d users in %,d ms%n", rows, userIds.length,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return new Dataset(prefix(rows), userIds[0], userIds[userIds.length - 1], rows, categoryNames(),
+                lastDay(connection, userIds[0], userIds[userIds.length - 1]));
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 1) {
+            System.err.println("Usage: SyntheticExpenseData <rows> [years] [seed]");
+            System.exit(2);
+        }
+        long rows = Long.parseLong(args[0]);
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        try (Connection connection = DriverManager.getConnection(
+                env("SPRING_DATASOURCE_URL", "jdbc:postgresql://localhost:5432/expense_tracker"),
+                env("SPRING_DATASOURCE_USERNAME", "user"),
+                env("SPRING_DATASOURCE_PASSWORD", "1234"))) {
+            Dataset dataset = findOrSeed(connection, rows, years, seed);
+            System.out.printf("Users %s* (ids %d to %d), password '%s'%n", dataset.getUserPrefix(),
+                    dataset.getFirstUserId(), dataset.getLastUserId(), PASSWORD);
+        }
+    }
+
+    private static void appendRow(StringBuilder chunk, SplittableRandom random, int category, long categoryId,
+                                  long userId, LocalDate firstDay, int days, QuantileSketch[] monthSketches,
+                                  YearMonth firstMonth) {
+        long typicalMinor = (Long) CATEGORIES[category][1];
+        double sigma = (Double) CATEGORIES[category][2];
+        long amountMinor = Math.max(1, Math.round(typicalMinor * Math.exp(sigma * random.nextGaussian())));
+        // u^1.5 leans towards 0, so recent days get more expenses than old ones
+        int daysAgo = (int) (days * Math.pow(random.nextDouble(), 1.5));
+        LocalDate date = firstDay.plusDays(days - 1 - daysAgo);
+        int month = (int) firstMonth.until(YearMonth.from(date), ChronoUnit.MONTHS);
+        if (monthSketches[month] == null) {
+            monthSketches[month] = new QuantileSketch();
+        }
+        monthSketches[month].add(amountMinor);
+
+        chunk.append(amountMinor).append(',').append(date).append(',');
+        // Four in ten expenses have no description; an empty unquoted field is NULL
+        if (random.nextInt(10) >= 4) {
+            chunk.append(CATEGORIES[category][0]).append(" merchant ").append(random.nextInt(MERCHANTS_PER_CATEGORY));
+        }
+        chunk.append(',').append(categoryId).append(',').append(userId).append('\n');
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        if (chunk.length() == 0) {
+            return;
+        }
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    // Log-normal user sizes scaled to add up to exactly rows, with at least one expense each
+    private static long[] spread(SplittableRandom random, long rows, int users) {
+        double[] weights = new double[users];
+        double total = 0;
+        for (int i = 0; i < users; i++) {
+            weights[i] = Math.exp(random.nextGaussian());
+            total += weights[i];
+        }
+        long[] counts = new long[users];
+        long assigned = 0;
+        for (int i = 0; i < users; i++) {
+            counts[i] = Math.max(1, (long) (rows * weights[i] / total));
+            assigned += counts[i];
+        }
+        for (int i = 0; assigned != rows; i = (i + 1) % users) {
+            if (assigned < rows) {
+                counts[i]++;
+                assigned++;
+            } else if (counts[i] > 1) {
+                counts[i]--;
+                assigned--;
+            }
+        }
+        return counts;
+    }
+
+    // Zipf-like popularity (1/rank), scaled per user so that users differ in what they spend on
+    private static void userCategoryWeights(SplittableRandom random, double[] weights) {
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Math.exp(0.5 * random.nextGaussian()) / (i + 1);
+            total += weights[i];
+        }
+        double cumulative = 0;
+        for (int i = 0; i < weights.length; i++) {
+            cumulative += weights[i] / total;
+            weights[i] = cumulative;
+        }
+    }
+
+    private static int pick(SplittableRandom random, double[] cumulativeWeights) {
+        double u = random.nextDouble();
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (u < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private static void createPartitions(Connection connection, LocalDate from, LocalDate to) throws SQLException {
+        try (PreparedStatement ensure = connection.prepareStatement("SELECT ensure_expense_partition(?)")) {
+            for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+                ensure.setDate(1, Date.valueOf(month.atDay(1)));
+                ensure.execute();
+            }
+        }
+    }
+
+    private static long[] createCategories(Connection connection) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO categories (name) SELECT unnest(?) ON CONFLICT (name) DO NOTHING")) {
+            insert.setArray(1, connection.createArrayOf("varchar", categoryNames().toArray()));
+            insert.executeUpdate();
+        }
+        try (PreparedStatement paths = connection.prepareStatement(
+                "UPDATE categories SET path = '/' || id || '/' WHERE path IS NULL")) {
+            paths.executeUpdate();
+        }
+        long[] ids = new long[CATEGORIES.length];
+        try (PreparedStatement find = connection.prepareStatement("SELECT id FROM categories WHERE name = ?")) {
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                find.setString(1, (String) CATEGORIES[i][0]);
+                try (ResultSet result = find.executeQuery()) {
+                    result.next();
+                    ids[i] = result.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static long[] createUsers(Connection connection, String prefix, int users) throws SQLException {
+        // Hashed once; every synthetic user shares the password
+        String password = new BCryptPasswordEncoder(BCRYPT_STRENGTH).encode(PASSWORD);
+        long[] ids = new long[users];
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_USERS)) {
+            insert.setString(1, prefix);
+            insert.setString(2, password);
+            insert.setInt(3, users);
+            try (ResultSet result = insert.executeQuery()) {
+                for (int i = 0; result.next(); i++) {
+                    ids[i] = result.getLong(1);
+                }
+            }
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // The newest expense date among the first LAST_DAY_USERS users: one index probe per user and
+    // partition, and the seeding day itself in practice, since dates are densest towards it
+    private static LocalDate lastDay(Connection connection, long firstUserId, long lastUserId) throws SQLException {
+        try (PreparedStatement find = connection.prepareStatement("SELECT max(d.last_day) FROM users u " +
+                "CROSS JOIN LATERAL (SELECT max(e.date) AS last_day FROM expenses e " +
+                "WHERE e.user_id = u.id AND e.deleted_at IS NULL) d WHERE u.id BETWEEN ? AND ?")) {
+            find.setLong(1, firstUserId);
+            find.setLong(2, Math.min(lastUserId, firstUserId + LAST_DAY_USERS - 1));
+            try (ResultSet result = find.executeQuery()) {
+                result.next();
+                return result.getObject(1, LocalDate.class);
+            }
+        }
+    }
+
+    private static List<String> categoryNames() {
+        List<String> names = new ArrayList<>(CATEGORIES.length);
+        for (Object[] category : CATEGORIES) {
+            names.add((String) category[0]);
+        }
+        return names;
+    }
+
+    private static String prefix(long rows) {
+        return "synthetic" + rows + "_";
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? fallback : value;
+    }
+
+    /**
+     * Serialized sketches of completed users, inserted with the transaction that holds their rows.
+     */
+    private static final class SketchRows {
+        private final List<Long> userIds = new ArrayList<>();
+        private final List<Long> categoryIds = new ArrayList<>();
+        private final List<Date> monthStarts = new ArrayList<>();
+        private final List<byte[]> sketches = new ArrayList<>();
+
+        // Moves the user's sketches here and clears them for the next user
+        void take(long userId, long[] categoryIdsByIndex, QuantileSketch[][] userSketches, YearMonth firstMonth) {
+            for (int category = 0; category < userSketches.length; category++) {
+                for (int month = 0; month < userSketches[category].length; month++) {
+                    if (userSketches[category][month] != null) {
+                        userIds.add(userId);
+                        categoryIds.add(categoryIdsByIndex[category]);
+                        monthStarts.add(Date.valueOf(firstMonth.plusMonths(month).atDay(1)));
+                        sketches.add(userSketches[category][month].toBytes());
+                        userSketches[category][month] = null;
+                    }
+                }
+            }
+        }
+
+        void insert(Connection connection) throws SQLException {
+            if (sketches.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SKETCHES)) {
+                insert.setArray(1, connection.createArrayOf("bigint", userIds.toArray()));
+                insert.setArray(2, connection.createArrayOf("bigint", categoryIds.toArray()));
+                insert.setArray(3, connection.createArrayOf("date", monthStarts.toArray()));
+                insert.setArray(4, connection.createArrayOf("bytea", sketches.toArray(new byte[0][])));
+                insert.executeUpdate();
+            }
+            userIds.clear();
+            categoryIds.clear();
+            monthStarts.clear();
+            sketches.clear();
+        }
+    }
+
+    /**
+     * A seeded data set: its users have consecutive ids, its categories are listed most popular
+     * first, and its expenses end on {@code lastDay}, the day it was seeded.
+     */
+    @Value
+    public static class Dataset {
+        String userPrefix;
+        long firstUserId;
+        long lastUserId;
+        long rows;
+        List<String> categories;
+        LocalDate lastDay;
+    }
+}
@@ -0,0 +1,97 @@
+package com.expensetracker.api.config;
+
+import com.expensetracker.api.controller.AuthController;
+import com.expensetracker.api.entity.Role;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.UserRepository;
+import com.expensetracker.api.service.CustomUserDetailsService;
+import com.expensetracker.api.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// No actuator endpoints are mapped in this slice, so a request that gets past security ends in 404
+@WebMvcTest(AuthController.class)
+@Import({SecurityConfig.class, CustomUserDetailsService.class})
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        String password = passwordEncoder.encode("password123");
+        when(userRepository.findByUsername("broke_developer")).thenReturn(Optional.of(
+                User.builder().id(1L).username("broke_developer").password(password).build()));
+        when(userRepository.findByUsername("operator")).thenReturn(Optional.of(
+                User.builder().id(2L).username("operator").password(password).role(Role.ADMIN).build()));
+    }
+
+    @Test
+    void actuator_OrdinaryUser_IsForbidden() throws Exception {
+        mockMvc.perform(get("/actuator/metrics").with(httpBasic("broke_developer", "password123")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/actuator/flightrecording").with(httpBasic("broke_developer", "password123")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void actuator_Admin_IsAllowed() throws Exception {
+        mockMvc.perform(get("/actuator/metrics").with(httpBasic("operator", "password123")))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/actuator/flightrecording").with(httpBasic("operator", "password123")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void statements_OrdinaryUser_IsForbidden() throws Exception {
+        mockMvc.perform(post("/actuator/statements")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"year\": 2025, \"month\": 10}")
+                        .with(httpBasic("broke_developer", "password123")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/statements").with(httpBasic("broke_developer", "password123")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void statements_Admin_IsAllowed() throws Exception {
+        mockMvc.perform(get("/actuator/statements").with(httpBasic("operator", "password123")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void health_OrdinaryUser_IsAllowed() throws Exception {
+        mockMvc.perform(get("/actuator/health").with(httpBasic("broke_developer", "password123")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void actuator_Anonymous_IsUnauthorized() throws Exception {
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -2,6 +2,7 @@ package com.expensetracker.api.controller;
 
 import com.expensetracker.api.controller.exception.CustomExceptionHandler;
 import com.expensetracker.api.controller.exception.DuplicateResourceException;
+import com.expensetracker.api.controller.exception.ServiceUnavailableException;
 import com.expensetracker.api.dto.RegisterRequest;
 import com.expensetracker.api.entity.User;
 import com.expensetracker.api.service.UserService;
@@ -15,11 +16,17 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AuthController.class)
@@ -54,11 +61,15 @@ class AuthControllerTest {
                 .password("encoded_password")
                 .build();
 
-        when(userService.register(any(RegisterRequest.class))).thenReturn(user);
+        when(userService.register(any(RegisterRequest.class))).thenReturn(CompletableFuture.completedFuture(user));
 
-        mockMvc.perform(post("/api/auth/register")
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("User registered successfully"))
                 .andExpect(jsonPath("$.username").value("coffee_addict"));
@@ -70,13 +81,34 @@ class AuthControllerTest {
         request.setPassword("123456");
 
         when(userService.register(any(RegisterRequest.class)))
-                .thenThrow(new DuplicateResourceException("Username already exists: broke_developer"));
+                .thenReturn(CompletableFuture.failedFuture(
+                        new DuplicateResourceException("Username already exists: broke_developer")));
 
-        mockMvc.perform(post("/api/auth/register")
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isConflict())
                 .andExpect(jsonPath("$.message").value("Username already exists: broke_developer"))
                 .andExpect(jsonPath("$.timestamp").exists());
     }
+
+    @Test
+    void register_HashingPoolSaturated_ReturnsServiceUnavailable() throws Exception {
+        request.setUsername("rush_hour");
+        request.setPassword("123456");
+
+        when(userService.register(any(RegisterRequest.class)))
+                .thenThrow(new ServiceUnavailableException("Too many registrations in progress, please retry shortly", 1));
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.message").value("Too many registrations in progress, please retry shortly"));
+    }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.expensetracker.api.controller;
 
 import com.expensetracker.api.controller.exception.CustomExceptionHandler;
+import com.expensetracker.api.dto.CategoryListing;
 import com.expensetracker.api.dto.CategoryResponse;
+import com.expensetracker.api.dto.CreateCategoriesRequest;
+import com.expensetracker.api.dto.CreateCategoriesResponse;
 import com.expensetracker.api.dto.CreateCategoryRequest;
 import com.expensetracker.api.service.CategoryService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -16,9 +19,14 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -62,4 +70,61 @@ class CategoryControllerTest {
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.name").value("Junk food"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getCategories_ReturnsETag() throws Exception {
+        when(categoryService.getCategories()).thenReturn(new CategoryListing("abc123", List.of(
+                CategoryResponse.builder().id(1L).name("Food").build(),
+                CategoryResponse.builder().id(5L).name("Groceries").parentName("Food").build())));
+
+        mockMvc.perform(get("/api/categories"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(jsonPath("$[1].name").value("Groceries"))
+                .andExpect(jsonPath("$[1].parentName").value("Food"));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getCategories_MatchingETag_ReturnsNotModified() throws Exception {
+        when(categoryService.getCategories()).thenReturn(new CategoryListing("abc123", List.of()));
+
+        mockMvc.perform(get("/api/categories").header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void createCategories_Success() throws Exception {
+        request.setName("Travel");
+        CreateCategoriesRequest bulkRequest = new CreateCategoriesRequest();
+        bulkRequest.setCategories(List.of(request));
+
+        when(categoryService.createCategories(any(CreateCategoriesRequest.class))).thenReturn(CreateCategoriesResponse.builder()
+                .created(List.of(CategoryResponse.builder().id(20L).name("Travel").build()))
+                .existing(List.of())
+                .build());
+
+        mockMvc.perform(post("/api/categories/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bulkRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created[0].id").value(20))
+                .andExpect(jsonPath("$.existing").isEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void createCategories_BlankName_ReturnsBadRequest() throws Exception {
+        CreateCategoriesRequest bulkRequest = new CreateCategoriesRequest();
+        bulkRequest.setCategories(List.of(request));
+
+        mockMvc.perform(post("/api/categories/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bulkRequest)))
+                .andExpect(status().isBadRequest());
+    }
+}
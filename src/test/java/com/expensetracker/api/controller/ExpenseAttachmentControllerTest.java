@@ -0,0 +1,166 @@
+package com.expensetracker.api.controller;
+
+import com.expensetracker.api.controller.exception.CustomExceptionHandler;
+import com.expensetracker.api.dto.AttachmentResponse;
+import com.expensetracker.api.entity.ExpenseAttachment;
+import com.expensetracker.api.service.ExpenseAttachmentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ExpenseAttachmentController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import(CustomExceptionHandler.class)
+class ExpenseAttachmentControllerTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final String ETAG = "\"" + HASH + "\"";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExpenseAttachmentService expenseAttachmentService;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ExpenseAttachment attachment = ExpenseAttachment.builder()
+                .id(7L)
+                .expenseId(3L)
+                .userId(1L)
+                .contentHash(HASH)
+                .contentType("application/pdf")
+                .fileName("receipt.pdf")
+                .sizeBytes(CONTENT.length())
+                .createdAt(Instant.parse("2025-10-01T10:00:00Z"))
+                .build();
+        Path file = Files.writeString(directory.resolve(HASH), CONTENT);
+        when(expenseAttachmentService.getAttachment(3L, 7L)).thenReturn(attachment);
+        when(expenseAttachmentService.contentPath(attachment)).thenReturn(file);
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void download_WholeFile() throws Exception {
+        mockMvc.perform(get("/api/expenses/3/attachments/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length()))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void download_Range_ReturnsPartialContent() throws Exception {
+        mockMvc.perform(get("/api/expenses/3/attachments/7").header(HttpHeaders.RANGE, "bytes=5-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-9/20"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 5))
+                .andExpect(content().string("56789"));
+
+        mockMvc.perform(get("/api/expenses/3/attachments/7").header(HttpHeaders.RANGE, "bytes=-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 16-19/20"))
+                .andExpect(content().string("ghij"));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void download_RangeWithStaleIfRange_ReturnsWholeFile() throws Exception {
+        mockMvc.perform(get("/api/expenses/3/attachments/7")
+                        .header(HttpHeaders.RANGE, "bytes=5-9")
+                        .header(HttpHeaders.IF_RANGE, "\"something-else\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void download_RangePastEnd_ReturnsNotSatisfiable() throws Exception {
+        mockMvc.perform(get("/api/expenses/3/attachments/7").header(HttpHeaders.RANGE, "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */20"));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void download_MatchingETag_ReturnsNotModified() throws Exception {
+        mockMvc.perform(get("/api/expenses/3/attachments/7").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void download_SendfileSupported_LeavesBodyToConnector() throws Exception {
+        mockMvc.perform(get("/api/expenses/3/attachments/7")
+                        .header(HttpHeaders.RANGE, "bytes=2-")
+                        .requestAttr(ExpenseAttachmentController.SENDFILE_SUPPORTED, true))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 18))
+                .andExpect(request().attribute(ExpenseAttachmentController.SENDFILE_FILENAME,
+                        directory.resolve(HASH).toRealPath().toString()))
+                .andExpect(request().attribute(ExpenseAttachmentController.SENDFILE_START, 2L))
+                .andExpect(request().attribute(ExpenseAttachmentController.SENDFILE_END, 20L))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void upload_StreamsBodyToService() throws Exception {
+        when(expenseAttachmentService.upload(eq(3L), eq("image/png"), eq("lunch.png"), eq(4L), any(InputStream.class)))
+                .thenReturn(AttachmentResponse.builder().id(8L).expenseId(3L).size(4).build());
+
+        mockMvc.perform(post("/api/expenses/3/attachments")
+                        .param("filename", "lunch.png")
+                        .contentType("image/png")
+                        .content("\u0089PNG".getBytes(StandardCharsets.ISO_8859_1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(8))
+                .andExpect(jsonPath("$.size").value(4));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void upload_TooLarge_ReturnsPayloadTooLarge() throws Exception {
+        when(expenseAttachmentService.upload(eq(3L), eq("application/pdf"), eq(null), eq(3L), any(InputStream.class)))
+                .thenThrow(new MaxUploadSizeExceededException(2));
+
+        mockMvc.perform(post("/api/expenses/3/attachments")
+                        .contentType("application/pdf")
+                        .content("pdf"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+}
@@ -1,14 +1,35 @@
 package com.expensetracker.api.controller;
 
+import com.expensetracker.api.config.BinaryContentConfig;
+import com.expensetracker.api.config.FieldSelectionConfig;
 import com.expensetracker.api.controller.exception.CustomExceptionHandler;
+import com.expensetracker.api.controller.exception.InvalidRequestException;
 import com.expensetracker.api.controller.exception.ResourceNotFoundException;
+import com.expensetracker.api.dto.ArchiveRestoreResponse;
+import com.expensetracker.api.dto.CategoryRollup;
+import com.expensetracker.api.dto.CategoryStatisticsResponse;
 import com.expensetracker.api.dto.CreateExpenseRequest;
+import com.expensetracker.api.dto.ExpenseField;
+import com.expensetracker.api.dto.ExpenseImportResponse;
 import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.dto.FieldSelection;
+import com.expensetracker.api.dto.ImportLineError;
 import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.expensetracker.api.dto.ReportField;
+import com.expensetracker.api.dto.SyncResponse;
+import com.expensetracker.api.dto.TimeSeriesInterval;
+import com.expensetracker.api.dto.TimeSeriesResponse;
 import com.expensetracker.api.dto.UpdateExpenseRequest;
+import com.expensetracker.api.service.ExpenseArchiveService;
+import com.expensetracker.api.service.ExpenseImportService;
 import com.expensetracker.api.service.ExpenseService;
+import com.expensetracker.api.service.ReportSnapshotService;
+import com.expensetracker.api.service.SpendingStatisticsService;
 import com.expensetracker.api.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,27 +38,34 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ExpenseController.class)
-@Import(CustomExceptionHandler.class)
+@Import({CustomExceptionHandler.class, FieldSelectionConfig.class})
 @AutoConfigureMockMvc(addFilters = false)
 class ExpenseControllerTest {
 
+    private static final FieldSelection<ExpenseField> ALL_EXPENSE_FIELDS = FieldSelection.all(ExpenseField.class);
+    private static final FieldSelection<ReportField> ALL_REPORT_FIELDS = FieldSelection.all(ReportField.class);
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -47,6 +75,18 @@ class ExpenseControllerTest {
     @MockBean
     private ExpenseService expenseService;
 
+    @MockBean
+    private SpendingStatisticsService spendingStatisticsService;
+
+    @MockBean
+    private ExpenseArchiveService expenseArchiveService;
+
+    @MockBean
+    private ExpenseImportService expenseImportService;
+
+    @MockBean
+    private ReportSnapshotService reportSnapshotService;
+
     private CreateExpenseRequest request;
 
     @BeforeEach
@@ -139,7 +179,7 @@ class ExpenseControllerTest {
                         .build()
         );
 
-        when(expenseService.getAllExpenses()).thenReturn(responses);
+        when(expenseService.getAllExpenses(ALL_EXPENSE_FIELDS)).thenReturn(responses);
 
         mockMvc.perform(get("/api/expenses"))
                 .andExpect(status().isOk())
@@ -162,7 +202,7 @@ class ExpenseControllerTest {
                         .build()
         );
 
-        when(expenseService.getExpensesByCategory("Food")).thenReturn(responses);
+        when(expenseService.getExpensesByCategory("Food", ALL_EXPENSE_FIELDS)).thenReturn(responses);
 
         mockMvc.perform(get("/api/expenses/category/Food"))
                 .andExpect(status().isOk())
@@ -222,6 +262,17 @@ class ExpenseControllerTest {
                 .andExpect(jsonPath("$.timestamp").exists());
     }
 
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void restoreExpense_UndoWindowClosed_ReturnsNotFound() throws Exception {
+        when(expenseService.restoreExpense(7L))
+                .thenThrow(new ResourceNotFoundException("No deleted expense to restore: 7"));
+
+        mockMvc.perform(post("/api/expenses/7/restore"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("No deleted expense to restore: 7"));
+    }
+
     @Test
     @WithMockUser(username = "broke_developer")
     void createExpense_InvalidArguments_ReturnsValidationFailed() throws Exception {
@@ -240,6 +291,24 @@ class ExpenseControllerTest {
                 .andExpect(jsonPath("$.errors.categoryName").value("Category name is required"));
     }
 
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void createExpense_MoreThanTwoDecimals_ReturnsValidationFailed() throws Exception {
+        request.setAmount(new BigDecimal("10.005"));
+        request.setDescription("Fractional cent");
+        request.setCategoryName("Food");
+        request.setDate(LocalDate.of(2025, 11, 18));
+
+        mockMvc.perform(post("/api/expenses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.amount")
+                        .value("Amount must have at most 15 integer digits and 2 decimal places"));
+
+        verifyNoInteractions(expenseService);
+    }
+
     @Test
     @WithMockUser(username = "broke_developer")
     void getMonthlyReport_Success() throws Exception {
@@ -256,12 +325,13 @@ class ExpenseControllerTest {
                 .alerts(List.of("Spending too much money on coffee... like a usual developer."))
                 .build();
 
-        when(expenseService.getMonthlyReport(2025, 11)).thenReturn(report);
+        when(reportSnapshotService.getMonthlyReportJson(2025, 11)).thenReturn(objectMapper.writeValueAsBytes(report));
 
         mockMvc.perform(get("/api/expenses/report")
                         .param("year", "2025")
                         .param("month", "11"))
                 .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.year").value(2025))
                 .andExpect(jsonPath("$.month").value(11))
                 .andExpect(jsonPath("$.totalAmount").value(2800.00))
@@ -270,4 +340,341 @@ class ExpenseControllerTest {
                 .andExpect(jsonPath("$.spendingByCategory.Food").value(500.00))
                 .andExpect(jsonPath("$.alerts[0]").value("Spending too much money on coffee... like a usual developer."));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getAllExpenses_Cbor() throws Exception {
+        ExpenseResponse expense = ExpenseResponse.builder()
+                .id(7L)
+                .amount(new BigDecimal("35.20"))
+                .description("Late night kebab")
+                .categoryName("Food")
+                .date(LocalDate.of(2025, 11, 21))
+                .build();
+
+        when(expenseService.getAllExpenses(ALL_EXPENSE_FIELDS)).thenReturn(List.of(expense));
+
+        byte[] body = mockMvc.perform(get("/api/expenses").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode decoded = new CBORMapper().readTree(body);
+        assertEquals(7, decoded.get(0).get("id").asInt());
+        assertEquals(0, new BigDecimal("35.20").compareTo(decoded.get(0).get("amount").decimalValue()));
+        assertEquals("[2025,11,21]", decoded.get(0).get("date").toString());
+        assertEquals("Food", decoded.get(0).get("categoryName").asText());
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getMonthlyReport_Smile() throws Exception {
+        MonthlyReportResponse report = MonthlyReportResponse.builder()
+                .year(2025)
+                .month(11)
+                .totalAmount(new BigDecimal("2800.00"))
+                .expenseCount(3)
+                .spendingByCategory(Map.of("Coffee", new BigDecimal("2800.00")))
+                .alerts(List.of())
+                .build();
+
+        when(expenseService.getMonthlyReport(2025, 11, ALL_REPORT_FIELDS, CategoryRollup.none())).thenReturn(report);
+
+        byte[] body = mockMvc.perform(get("/api/expenses/report")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .accept(BinaryContentConfig.APPLICATION_SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryContentConfig.APPLICATION_SMILE_VALUE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode decoded = new SmileMapper().readTree(body);
+        assertEquals(2025, decoded.get("year").asInt());
+        assertEquals(0, new BigDecimal("2800.00").compareTo(decoded.get("totalAmount").decimalValue()));
+        assertEquals(0, new BigDecimal("2800.00").compareTo(decoded.get("spendingByCategory").get("Coffee").decimalValue()));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getAllExpenses_DefaultsToJson() throws Exception {
+        when(expenseService.getAllExpenses(ALL_EXPENSE_FIELDS)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/expenses").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getAllExpenses_SparseFields() throws Exception {
+        ExpenseResponse expense = ExpenseResponse.builder()
+                .id(7L)
+                .amount(BigDecimal.valueOf(35.00))
+                .date(LocalDate.of(2025, 11, 21))
+                .build();
+
+        when(expenseService.getAllExpenses(FieldSelection.of(ExpenseField.ID, ExpenseField.AMOUNT, ExpenseField.DATE)))
+                .thenReturn(List.of(expense));
+
+        mockMvc.perform(get("/api/expenses").param("fields", "id,amount,date"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].amount").value(35.00))
+                .andExpect(jsonPath("$[0].date").value("2025-11-21"))
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].categoryName").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getMonthlyReport_SparseFields() throws Exception {
+        MonthlyReportResponse report = MonthlyReportResponse.builder()
+                .year(2025)
+                .month(11)
+                .totalAmount(BigDecimal.valueOf(2800.00))
+                .expenseCount(3)
+                .build();
+
+        when(expenseService.getMonthlyReport(2025, 11, FieldSelection.of(ReportField.MONTH, ReportField.TOTAL_AMOUNT),
+                CategoryRollup.none()))
+                .thenReturn(report);
+
+        mockMvc.perform(get("/api/expenses/report")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("fields", "month,totalAmount"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.month").value(11))
+                .andExpect(jsonPath("$.totalAmount").value(2800.00))
+                .andExpect(jsonPath("$.year").doesNotExist())
+                .andExpect(jsonPath("$.expenseCount").doesNotExist())
+                .andExpect(jsonPath("$.spendingByCategory").doesNotExist())
+                .andExpect(jsonPath("$.alerts").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getAllExpenses_UnknownField() throws Exception {
+        mockMvc.perform(get("/api/expenses").param("fields", "id,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(
+                        "Unknown field 'password'; expected any of id, amount, description, date, categoryName"));
+
+        verifyNoInteractions(expenseService);
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getChanges_Success() throws Exception {
+        SyncResponse sync = SyncResponse.builder()
+                .upserts(List.of(ExpenseResponse.builder()
+                        .id(7L)
+                        .amount(BigDecimal.valueOf(35.00))
+                        .description("Late night kebab")
+                        .categoryName("Food")
+                        .date(LocalDate.of(2025, 11, 21))
+                        .build()))
+                .deletedIds(List.of(3L))
+                .nextCursor(42L)
+                .hasMore(false)
+                .build();
+
+        when(expenseService.getChangesSince(40L, 100)).thenReturn(sync);
+
+        mockMvc.perform(get("/api/expenses/sync")
+                        .param("cursor", "40")
+                        .param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserts[0].id").value(7))
+                .andExpect(jsonPath("$.deletedIds[0]").value(3))
+                .andExpect(jsonPath("$.nextCursor").value(42))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getRangeReport_Success() throws Exception {
+        List<MonthlyReportResponse> reports = List.of(
+                MonthlyReportResponse.builder()
+                        .year(2025)
+                        .month(10)
+                        .totalAmount(BigDecimal.ZERO)
+                        .expenseCount(0)
+                        .spendingByCategory(Map.of())
+                        .alerts(List.of())
+                        .build(),
+                MonthlyReportResponse.builder()
+                        .year(2025)
+                        .month(11)
+                        .totalAmount(BigDecimal.valueOf(500.00))
+                        .expenseCount(2)
+                        .spendingByCategory(Map.of("Food", BigDecimal.valueOf(500.00)))
+                        .alerts(List.of())
+                        .build()
+        );
+
+        when(expenseService.getRangeReport(YearMonth.of(2025, 10), YearMonth.of(2025, 11), ALL_REPORT_FIELDS, CategoryRollup.none())).thenReturn(reports);
+
+        mockMvc.perform(get("/api/expenses/report/range")
+                        .param("from", "2025-10")
+                        .param("to", "2025-11"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].month").value(10))
+                .andExpect(jsonPath("$[0].expenseCount").value(0))
+                .andExpect(jsonPath("$[1].month").value(11))
+                .andExpect(jsonPath("$[1].spendingByCategory.Food").value(500.00));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getRangeReport_InvalidRange_ReturnsBadRequest() throws Exception {
+        when(expenseService.getRangeReport(YearMonth.of(2025, 12), YearMonth.of(2025, 1), ALL_REPORT_FIELDS, CategoryRollup.none()))
+                .thenThrow(new InvalidRequestException("Report range start must not be after its end"));
+
+        mockMvc.perform(get("/api/expenses/report/range")
+                        .param("from", "2025-12")
+                        .param("to", "2025-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Report range start must not be after its end"));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getRangeReport_RolledUp() throws Exception {
+        List<MonthlyReportResponse> reports = List.of(MonthlyReportResponse.builder()
+                .year(2025)
+                .month(11)
+                .totalAmount(BigDecimal.valueOf(120.00))
+                .expenseCount(3)
+                .spendingByCategory(Map.of("Groceries", BigDecimal.valueOf(120.00)))
+                .alerts(List.of())
+                .build());
+
+        when(expenseService.getRangeReport(YearMonth.of(2025, 11), YearMonth.of(2025, 11), ALL_REPORT_FIELDS,
+                CategoryRollup.of(2, "Food"))).thenReturn(reports);
+
+        mockMvc.perform(get("/api/expenses/report/range")
+                        .param("from", "2025-11")
+                        .param("to", "2025-11")
+                        .param("depth", "2")
+                        .param("under", "Food"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].spendingByCategory.Groceries").value(120.00));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getMonthlyReport_ZeroDepth_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/expenses/report")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("depth", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("depth must be at least 1"));
+
+        verifyNoInteractions(expenseService);
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getRangeReport_MalformedMonth_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/expenses/report/range")
+                        .param("from", "November")
+                        .param("to", "2025-11"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value for parameter: from"));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getTimeSeries_Success() throws Exception {
+        TimeSeriesResponse response = TimeSeriesResponse.builder()
+                .start(LocalDate.of(2025, 11, 1))
+                .end(LocalDate.of(2025, 11, 14))
+                .interval(TimeSeriesInterval.WEEK)
+                .totals(List.of(new BigDecimal("12.50"), new BigDecimal("0.00")))
+                .build();
+
+        when(expenseService.getTimeSeries(LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 14),
+                TimeSeriesInterval.WEEK, false)).thenReturn(response);
+
+        mockMvc.perform(get("/api/expenses/timeseries")
+                        .param("from", "2025-11-01")
+                        .param("to", "2025-11-14")
+                        .param("interval", "WEEK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.interval").value("WEEK"))
+                .andExpect(jsonPath("$.totals[0]").value(12.50))
+                .andExpect(jsonPath("$.totals[1]").value(0.00))
+                .andExpect(jsonPath("$.byCategory").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getTimeSeries_UnknownInterval_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/expenses/timeseries")
+                        .param("from", "2025-11-01")
+                        .param("to", "2025-11-14")
+                        .param("interval", "FORTNIGHT"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value for parameter: interval"));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getStatistics_Success() throws Exception {
+        when(spendingStatisticsService.getStatistics(YearMonth.of(2025, 10), YearMonth.of(2025, 11))).thenReturn(List.of(
+                CategoryStatisticsResponse.builder()
+                        .categoryName("Food")
+                        .expenseCount(5)
+                        .median(new BigDecimal("30.00"))
+                        .p90(new BigDecimal("40.00"))
+                        .max(new BigDecimal("500.00"))
+                        .build()
+        ));
+
+        mockMvc.perform(get("/api/expenses/statistics")
+                        .param("from", "2025-10")
+                        .param("to", "2025-11"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].categoryName").value("Food"))
+                .andExpect(jsonPath("$[0].expenseCount").value(5))
+                .andExpect(jsonPath("$[0].median").value(30.00))
+                .andExpect(jsonPath("$[0].p90").value(40.00))
+                .andExpect(jsonPath("$[0].max").value(500.00));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void restoreArchived_Success() throws Exception {
+        when(expenseArchiveService.restore(YearMonth.of(2022, 1), YearMonth.of(2022, 3))).thenReturn(
+                ArchiveRestoreResponse.builder().restoredCount(12).archivedCount(40).build());
+
+        mockMvc.perform(post("/api/expenses/archive/restore")
+                        .param("from", "2022-01")
+                        .param("to", "2022-03"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.restoredCount").value(12))
+                .andExpect(jsonPath("$.archivedCount").value(40));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void importExpenses_ReturnsLineReport() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "statement.csv", "text/csv",
+                "date,amount,category\n2025-11-01,5,Food\n2025-11-02,-1,Food\n".getBytes());
+        when(expenseImportService.importCsv(any())).thenReturn(ExpenseImportResponse.builder()
+                .importedCount(1)
+                .rejectedCount(1)
+                .errors(List.of(new ImportLineError(3, "Amount must be positive")))
+                .errorsTruncated(false)
+                .build());
+
+        mockMvc.perform(multipart("/api/expenses/import").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(1))
+                .andExpect(jsonPath("$.rejectedCount").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("Amount must be positive"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.expensetracker.api.controller;
+
+import com.expensetracker.api.controller.exception.CustomExceptionHandler;
+import com.expensetracker.api.dto.CreateRecurringExpenseRequest;
+import com.expensetracker.api.dto.RecurringExpenseResponse;
+import com.expensetracker.api.entity.RecurrenceFrequency;
+import com.expensetracker.api.service.RecurringExpenseService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(RecurringExpenseController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import(CustomExceptionHandler.class)
+class RecurringExpenseControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private RecurringExpenseService recurringExpenseService;
+
+    private CreateRecurringExpenseRequest request;
+
+    @BeforeEach
+    void setUp() {
+        request = new CreateRecurringExpenseRequest();
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void createRecurringExpense_Success() throws Exception {
+        request.setAmount(new BigDecimal("1200.00"));
+        request.setDescription("Rent");
+        request.setCategoryName("Housing");
+        request.setFrequency(RecurrenceFrequency.MONTHLY);
+        request.setStartDate(LocalDate.of(2025, 1, 31));
+
+        RecurringExpenseResponse response = RecurringExpenseResponse.builder()
+                .id(5L)
+                .amount(new BigDecimal("1200.00"))
+                .description("Rent")
+                .categoryName("Housing")
+                .frequency(RecurrenceFrequency.MONTHLY)
+                .startDate(LocalDate.of(2025, 1, 31))
+                .nextDueDate(LocalDate.of(2025, 1, 31))
+                .build();
+
+        when(recurringExpenseService.createRecurringExpense(any(CreateRecurringExpenseRequest.class))).thenReturn(response);
+
+        mockMvc.perform(post("/api/recurring-expenses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(5))
+                .andExpect(jsonPath("$.frequency").value("MONTHLY"))
+                .andExpect(jsonPath("$.nextDueDate").value("2025-01-31"));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void createRecurringExpense_MissingFrequency_ReturnsValidationFailed() throws Exception {
+        request.setAmount(new BigDecimal("1200.00"));
+        request.setCategoryName("Housing");
+        request.setStartDate(LocalDate.of(2025, 1, 31));
+
+        mockMvc.perform(post("/api/recurring-expenses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(recurringExpenseService);
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void getRecurringExpenses_Success() throws Exception {
+        when(recurringExpenseService.getRecurringExpenses()).thenReturn(List.of(
+                RecurringExpenseResponse.builder()
+                        .id(5L)
+                        .amount(new BigDecimal("9.99"))
+                        .categoryName("Subscriptions")
+                        .frequency(RecurrenceFrequency.WEEKLY)
+                        .startDate(LocalDate.of(2025, 9, 1))
+                        .build()
+        ));
+
+        mockMvc.perform(get("/api/recurring-expenses"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].frequency").value("WEEKLY"))
+                .andExpect(jsonPath("$[0].amount").value(9.99));
+    }
+
+    @Test
+    @WithMockUser(username = "broke_developer")
+    void deleteRecurringExpense_Success() throws Exception {
+        doNothing().when(recurringExpenseService).deleteRecurringExpense(5L);
+
+        mockMvc.perform(delete("/api/recurring-expenses/5"))
+                .andExpect(status().isOk());
+
+        verify(recurringExpenseService).deleteRecurringExpense(5L);
+    }
+}
@@ -0,0 +1,127 @@
+package com.expensetracker.api.integration;
+
+import com.expensetracker.api.dto.CreateExpenseRequest;
+import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.expensetracker.api.dto.RegisterRequest;
+import com.expensetracker.api.service.ExpensePartitionMaintenance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@Disabled("Requires Docker to be running. Enable manually to run integration tests with real PostgreSQL container.")
+class ExpensePartitioningIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExpensePartitionMaintenance expensePartitionMaintenance;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+    }
+
+    @Test
+    void monthQueries_TouchOnlyTheirMonthPartitions() {
+        // setUp
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername("partition_user");
+        registerRequest.setPassword("partition123");
+        restTemplate.postForEntity(baseUrl + "/api/auth/register", registerRequest, Map.class);
+
+        HttpHeaders headers = createAuthHeaders("partition_user", "partition123");
+        restTemplate.exchange(baseUrl + "/api/categories", HttpMethod.POST,
+                new HttpEntity<>(Map.of("name", "Food"), headers), Map.class);
+
+        // Old enough to land in the default partition until maintenance gives them their own months
+        for (LocalDate date : List.of(LocalDate.of(2020, 10, 5), LocalDate.of(2020, 11, 5), LocalDate.of(2020, 12, 5))) {
+            CreateExpenseRequest expense = new CreateExpenseRequest();
+            expense.setAmount(BigDecimal.valueOf(100));
+            expense.setCategoryName("Food");
+            expense.setDate(date);
+            ResponseEntity<Map> response = restTemplate.exchange(baseUrl + "/api/expenses", HttpMethod.POST,
+                    new HttpEntity<>(expense, headers), Map.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+        }
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT count(*) FROM expenses_default", Integer.class));
+
+        expensePartitionMaintenance.ensurePartitions();
+
+        // assert
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM expenses_default", Integer.class));
+
+        String monthPlan = explain("SELECT * FROM expenses WHERE user_id = ? AND date >= ? AND date < ?",
+                1L, LocalDate.of(2020, 11, 1), LocalDate.of(2020, 12, 1));
+        assertTrue(monthPlan.contains("expenses_2020_11"), monthPlan);
+        assertFalse(monthPlan.contains("expenses_2020_10"), monthPlan);
+        assertFalse(monthPlan.contains("expenses_2020_12"), monthPlan);
+        assertFalse(monthPlan.contains("expenses_default"), monthPlan);
+
+        String rangePlan = explain("SELECT date_trunc('month', date), sum(amount_minor) FROM expenses " +
+                        "WHERE user_id = ? AND date >= ? AND date < ? GROUP BY 1",
+                1L, LocalDate.of(2020, 11, 1), LocalDate.of(2021, 1, 1));
+        assertTrue(rangePlan.contains("expenses_2020_11"), rangePlan);
+        assertTrue(rangePlan.contains("expenses_2020_12"), rangePlan);
+        assertFalse(rangePlan.contains("expenses_2020_10"), rangePlan);
+
+        ResponseEntity<MonthlyReportResponse> report = restTemplate.exchange(
+                baseUrl + "/api/expenses/report?year=2020&month=11", HttpMethod.GET,
+                new HttpEntity<>(headers), MonthlyReportResponse.class);
+        assertEquals(HttpStatus.OK, report.getStatusCode());
+        assertEquals(1, report.getBody().getExpenseCount());
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(report.getBody().getTotalAmount()));
+    }
+
+    private String explain(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+
+    private HttpHeaders createAuthHeaders(String username, String password) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBasicAuth(username, password);
+        return headers;
+    }
+}
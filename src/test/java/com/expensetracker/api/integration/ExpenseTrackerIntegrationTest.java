@@ -111,7 +111,7 @@ class ExpenseTrackerIntegrationTest {
 
         assertEquals(HttpStatus.OK, expense1Response.getStatusCode());
         assertNotNull(expense1Response.getBody());
-        assertEquals(BigDecimal.valueOf(800.00), expense1Response.getBody().getAmount());
+        assertEquals(new BigDecimal("800.00"), expense1Response.getBody().getAmount());
 
         System.out.println("✅ Step 3a: First expense created (800.00)");
 
@@ -131,7 +131,7 @@ class ExpenseTrackerIntegrationTest {
         );
 
         assertEquals(HttpStatus.OK, expense2Response.getStatusCode());
-        assertEquals(BigDecimal.valueOf(900.00), expense2Response.getBody().getAmount());
+        assertEquals(new BigDecimal("900.00"), expense2Response.getBody().getAmount());
 
         System.out.println("✅ Step 3b: Second expense created (900.00)");
 
@@ -151,7 +151,7 @@ class ExpenseTrackerIntegrationTest {
         );
 
         assertEquals(HttpStatus.OK, expense3Response.getStatusCode());
-        assertEquals(BigDecimal.valueOf(700.00), expense3Response.getBody().getAmount());
+        assertEquals(new BigDecimal("700.00"), expense3Response.getBody().getAmount());
 
         System.out.println("✅ Step 3c: Third expense created (700.00)");
 
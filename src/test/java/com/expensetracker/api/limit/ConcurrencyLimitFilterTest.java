@@ -0,0 +1,129 @@
+package com.expensetracker.api.limit;
+
+import com.expensetracker.api.controller.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private final RequestMappingHandlerMapping handlerMapping = new RequestMappingHandlerMapping();
+
+    private final GradientConcurrencyLimit reports = new GradientConcurrencyLimit(1, 1, 1, 1.5, 0.2);
+    private final GradientConcurrencyLimit writes = new GradientConcurrencyLimit(10, 1, 10, 1.5, 0.2);
+
+    // Stands in for the application's exception handlers
+    private final HandlerExceptionResolver exceptionResolver = (request, response, handler, ex) -> {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(((ServiceUnavailableException) ex).getRetryAfterSeconds()));
+        return new ModelAndView();
+    };
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Handlers handlers = new Handlers();
+        handlerMapping.registerMapping(RequestMappingInfo.paths("/api/expenses/report").methods(RequestMethod.GET).build(),
+                handlers, Handlers.class.getMethod("report"));
+        handlerMapping.registerMapping(RequestMappingInfo.paths("/api/expenses/{id}").methods(RequestMethod.PUT).build(),
+                handlers, Handlers.class.getMethod("write"));
+        handlerMapping.registerMapping(RequestMappingInfo.paths("/api/expenses/sync").methods(RequestMethod.GET).build(),
+                handlers, Handlers.class.getMethod("unlimited"));
+    }
+
+    @Test
+    void doFilter_ClassAtLimit_RejectsOnlyThatClass() throws Exception {
+        // setUp
+        ConcurrencyLimitFilter filter = filter(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        MockHttpServletResponse unlimited = new MockHttpServletResponse();
+
+        // The second report arrives while the first is still in progress
+        FilterChain first = (request, response) -> {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/expenses/report"), shed, new MockFilterChain());
+            filter.doFilter(new MockHttpServletRequest("PUT", "/api/expenses/7"), write, new MockFilterChain());
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/expenses/sync"), unlimited, new MockFilterChain());
+            assertEquals(1.0, registry.get("api.concurrency.in.flight").tag("class", "reports").gauge().value());
+        };
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/expenses/report");
+        filter.doFilter(request, new MockHttpServletResponse(), first);
+
+        // assert
+        assertEquals(503, shed.getStatus());
+        assertEquals("2", shed.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, write.getStatus());
+        assertEquals(200, unlimited.getStatus());
+        assertEquals(0, reports.getInFlight());
+        assertEquals(0, writes.getInFlight());
+        assertFalse(ServletRequestPathUtils.hasParsedRequestPath(request));
+        assertEquals(1.0, registry.get("api.concurrency.rejected").tag("class", "reports").functionCounter().count());
+        assertEquals(0.0, registry.get("api.concurrency.rejected").tag("class", "writes").functionCounter().count());
+        assertEquals(1.0, registry.get("api.concurrency.limit").tag("class", "reports").gauge().value());
+    }
+
+    @Test
+    void doFilter_ServerError_CountsAsOverload() throws Exception {
+        // setUp
+        ConcurrencyLimitFilter filter = filter(true);
+
+        filter.doFilter(new MockHttpServletRequest("PUT", "/api/expenses/7"), new MockHttpServletResponse(),
+                (request, response) -> ((HttpServletResponse) response).setStatus(500));
+
+        // assert
+        assertEquals(9, writes.getLimit());
+        assertEquals(0, writes.getInFlight());
+    }
+
+    @Test
+    void doFilter_Disabled_AdmitsEverything() throws Exception {
+        // setUp
+        ConcurrencyLimitFilter filter = filter(false);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/expenses/report"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(new MockHttpServletRequest("GET", "/api/expenses/report"),
+                        second, new MockFilterChain()));
+
+        // assert
+        assertEquals(200, second.getStatus());
+        assertEquals(0, reports.getInFlight());
+    }
+
+    private ConcurrencyLimitFilter filter(boolean enabled) {
+        return new ConcurrencyLimitFilter(enabled, Map.of(EndpointClass.REPORTS, reports, EndpointClass.WRITES, writes),
+                2, handlerMapping, exceptionResolver);
+    }
+
+    public static class Handlers {
+
+        @ConcurrencyLimited(EndpointClass.REPORTS)
+        public void report() {
+        }
+
+        @ConcurrencyLimited(EndpointClass.WRITES)
+        public void write() {
+        }
+
+        public void unlimited() {
+        }
+    }
+}
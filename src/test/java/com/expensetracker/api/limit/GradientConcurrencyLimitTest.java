@@ -0,0 +1,102 @@
+package com.expensetracker.api.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientConcurrencyLimitTest {
+
+    @Test
+    void tryAcquire_AtLimit_RejectsUntilReleased() {
+        // setUp
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(2, 1, 10, 1.5, 0.2);
+
+        // assert
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+
+        limit.release(millis(10), false);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void release_SteadyLatencyAtFullUse_RaisesLimitToMax() {
+        // setUp
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(4, 1, 12, 1.5, 0.2);
+
+        runWindows(limit, 50, millis(10));
+
+        // assert
+        assertEquals(12, limit.getLimit());
+    }
+
+    @Test
+    void release_LatencyRisingAtFullUse_LowersLimit() {
+        // setUp
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(30, 1, 30, 1.5, 0.2);
+        runWindows(limit, 20, millis(10));
+        assertEquals(30, limit.getLimit());
+
+        runWindows(limit, 5, millis(60));
+
+        // assert
+        assertTrue(limit.getLimit() < 20, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void release_LittleOfLimitInUse_KeepsLimit() {
+        // setUp
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 50, 1.5, 0.2);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(millis(10), false);
+        }
+
+        // assert
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void release_Overloaded_BacksOffButNotBelowMin() {
+        // setUp
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 8, 50, 1.5, 0.2);
+
+        limit.tryAcquire();
+        limit.release(millis(10), true);
+        assertEquals(9, limit.getLimit());
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire();
+            limit.release(millis(10), true);
+        }
+
+        // assert
+        assertEquals(8, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    // Fills the limit and releases every permit with the same latency, window after window
+    private static void runWindows(GradientConcurrencyLimit limit, int windows, long latencyNanos) {
+        for (int window = 0; window < windows; window++) {
+            int released = 0;
+            while (released < GradientConcurrencyLimit.WINDOW_SAMPLES) {
+                int acquired = 0;
+                while (limit.tryAcquire()) {
+                    acquired++;
+                }
+                for (int i = 0; i < acquired; i++) {
+                    limit.release(latencyNanos, false);
+                }
+                released += acquired;
+            }
+        }
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,63 @@
+package com.expensetracker.api.profiling;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingEndpointTest {
+
+    @Test
+    void dumpWithoutRecordingIsConflict(@TempDir Path directory) throws Exception {
+        // setUp
+        ContinuousRecording recording = new ContinuousRecording(false, "default", 30, 16, "", directory.toString());
+        FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint(recording);
+        recording.start();
+
+        WebEndpointResponse<Map<String, Object>> response = endpoint.dump(5);
+
+        // assert
+        assertEquals(409, response.getStatus());
+        assertEquals(false, endpoint.status().get("recording"));
+    }
+
+    @Test
+    void dumpRejectsMinutesBeyondMaxAge(@TempDir Path directory) throws Exception {
+        // setUp
+        ContinuousRecording recording = new ContinuousRecording(true, "default", 30, 16, "", directory.toString());
+        FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint(recording);
+
+        WebEndpointResponse<Map<String, Object>> response = endpoint.dump(31);
+
+        // assert
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, response.getStatus());
+    }
+
+    @Test
+    void dumpsLastMinutesOfRunningRecording(@TempDir Path directory) throws Exception {
+        // setUp
+        ContinuousRecording recording = new ContinuousRecording(true, "default", 30, 16, "", directory.toString());
+        FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint(recording);
+        recording.start();
+        try {
+            ExpenseOperationEvent event = new ExpenseOperationEvent();
+            event.operation = "createExpense";
+            event.commit();
+
+            WebEndpointResponse<Map<String, Object>> response = endpoint.dump(1);
+
+            // assert
+            assertEquals(WebEndpointResponse.STATUS_OK, response.getStatus());
+            Path file = Path.of((String) response.getBody().get("file"));
+            assertTrue(Files.size(file) > 0);
+            assertTrue(RecordingAnalyzer.analyze(file).containsKey("service createExpense"));
+        } finally {
+            recording.stop();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.expensetracker.api.profiling;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordingAnalyzerTest {
+
+    @Test
+    void summarizesEventsPerOperation(@TempDir Path directory) throws Exception {
+        // setUp
+        Path dump = directory.resolve("dump.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ExpenseOperationEvent.class);
+            recording.enable(RepositoryQueryEvent.class);
+            recording.enable(ReportAggregationEvent.class);
+            recording.start();
+
+            for (int i = 0; i < 3; i++) {
+                ExpenseOperationEvent operation = new ExpenseOperationEvent();
+                operation.begin();
+                Thread.sleep(2);
+                operation.operation = "getMonthlyReport";
+                operation.commit();
+            }
+            RepositoryQueryEvent query = new RepositoryQueryEvent();
+            query.begin();
+            query.repository = "ExpenseRepository";
+            query.method = "findByUserId";
+            query.rows = 42;
+            query.commit();
+            ReportAggregationEvent.start("monthly").complete("database", 1, 42);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        Map<String, RecordingAnalyzer.OperationLatencies> operations = RecordingAnalyzer.analyze(dump);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RecordingAnalyzer.print(operations, new PrintStream(output, true, StandardCharsets.UTF_8));
+
+        // assert
+        assertEquals(List.of("query   ExpenseRepository.findByUserId", "report  monthly (database)",
+                "service getMonthlyReport"), List.copyOf(operations.keySet()));
+        RecordingAnalyzer.OperationLatencies service = operations.get("service getMonthlyReport");
+        assertEquals(3, service.count());
+        assertTrue(service.percentileMillis(50) >= 2, "p50 " + service.percentileMillis(50));
+        assertEquals(3, Arrays.stream(service.histogram()).sum());
+        assertEquals(42, operations.get("query   ExpenseRepository.findByUserId").rows());
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("42.0"));
+    }
+
+    @Test
+    void percentilesUseNearestRank() {
+        // setUp
+        RecordingAnalyzer.OperationLatencies latencies = new RecordingAnalyzer.OperationLatencies();
+        for (int millis = 100; millis >= 1; millis--) {
+            latencies.add(millis * 1_000_000L, 0);
+        }
+
+        // assert
+        assertEquals(50.0, latencies.percentileMillis(50));
+        assertEquals(99.0, latencies.percentileMillis(99));
+        assertEquals(100.0, latencies.percentileMillis(100));
+        long[] histogram = latencies.histogram();
+        assertEquals(2, histogram[4]);
+        assertEquals(100, Arrays.stream(histogram).sum());
+    }
+
+    @Test
+    void rowCountsFollowTheResultShape() {
+        assertEquals(0, FlightRecorderInterceptors.rowCount(null));
+        assertEquals(3, FlightRecorderInterceptors.rowCount(List.of(1, 2, 3)));
+        assertEquals(2, FlightRecorderInterceptors.rowCount(new PageImpl<>(List.of("a", "b"))));
+        assertEquals(0, FlightRecorderInterceptors.rowCount(Optional.empty()));
+        assertEquals(1, FlightRecorderInterceptors.rowCount(Optional.of("a")));
+        assertEquals(1, FlightRecorderInterceptors.rowCount(7L));
+    }
+}
@@ -1,11 +1,16 @@
 package com.expensetracker.api.service;
 
 import com.expensetracker.api.controller.exception.DuplicateResourceException;
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.controller.exception.ResourceNotFoundException;
 import com.expensetracker.api.dto.CategoryResponse;
+import com.expensetracker.api.dto.CreateCategoriesRequest;
+import com.expensetracker.api.dto.CreateCategoriesResponse;
 import com.expensetracker.api.dto.CreateCategoryRequest;
 import com.expensetracker.api.entity.Category;
 import com.expensetracker.api.entity.User;
 import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.repository.NewCategory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,10 +18,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +35,9 @@ class CategoryServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private CategoryTree categoryTree;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -47,13 +57,8 @@ class CategoryServiceTest {
         CreateCategoryRequest request = new CreateCategoryRequest();
         request.setName("Junk food");
 
-        Category savedCategory = new Category();
-        savedCategory.setId(1L);
-        savedCategory.setName("Junk food");
-
-        when(userService.getAuthenticatedUser()).thenReturn(user);
-        when(categoryRepository.findByName("Junk food")).thenReturn(Optional.empty());
-        when(categoryRepository.save(any(Category.class))).thenReturn(savedCategory);
+        when(categoryRepository.insertAllIfAbsent(List.of(new NewCategory("Junk food", null, "/"))))
+                .thenReturn(List.of(category(1L, "Junk food", null, "/1/")));
 
         CategoryResponse response = categoryService.createCategory(request);
 
@@ -61,9 +66,64 @@ class CategoryServiceTest {
         assertNotNull(response);
         assertEquals(1L, response.getId());
         assertEquals("Junk food", response.getName());
+        assertNull(response.getParentName());
         verify(userService).getAuthenticatedUser();
-        verify(categoryRepository).findByName("Junk food");
-        verify(categoryRepository).save(any(Category.class));
+        verify(categoryRepository).insertAllIfAbsent(anyList());
+        verify(categoryTree).refresh();
+    }
+
+    @Test
+    void createCategory_WithParent_ExtendsParentPath() {
+        // setUp
+        CreateCategoryRequest request = new CreateCategoryRequest();
+        request.setName("Organic");
+        request.setParentName("Groceries");
+
+        when(categoryTree.findByName("Groceries"))
+                .thenReturn(Optional.of(new CategoryTree.Node(5L, "Groceries", 1L, "/1/5/")));
+        when(categoryRepository.insertAllIfAbsent(List.of(new NewCategory("Organic", 5L, "/1/5/"))))
+                .thenReturn(List.of(category(9L, "Organic", 5L, "/1/5/9/")));
+
+        CategoryResponse response = categoryService.createCategory(request);
+
+        // assert
+        assertEquals(9L, response.getId());
+        assertEquals("Groceries", response.getParentName());
+    }
+
+    @Test
+    void createCategory_UnknownParent_ThrowsException() {
+        // setUp
+        CreateCategoryRequest request = new CreateCategoryRequest();
+        request.setName("Organic");
+        request.setParentName("Nope");
+
+        when(categoryTree.findByName("Nope")).thenReturn(Optional.empty());
+
+        ResourceNotFoundException exception = assertThrows(
+                ResourceNotFoundException.class,
+                () -> categoryService.createCategory(request)
+        );
+
+        // assert
+        assertEquals("Category not found: Nope", exception.getMessage());
+        verify(categoryRepository, never()).insertAllIfAbsent(any());
+    }
+
+    @Test
+    void createCategory_TooDeep_ThrowsException() {
+        // setUp
+        CreateCategoryRequest request = new CreateCategoryRequest();
+        request.setName("Leaf");
+        request.setParentName("Deep");
+
+        when(categoryTree.findByName("Deep"))
+                .thenReturn(Optional.of(new CategoryTree.Node(8L, "Deep", 7L, "/1/2/3/4/5/6/7/8/")));
+
+        assertThrows(InvalidRequestException.class, () -> categoryService.createCategory(request));
+
+        // assert
+        verify(categoryRepository, never()).insertAllIfAbsent(any());
     }
 
     @Test
@@ -72,11 +132,8 @@ class CategoryServiceTest {
         CreateCategoryRequest request = new CreateCategoryRequest();
         request.setName("Food");
 
-        Category existingCategory = new Category();
-        existingCategory.setId(1L);
-        existingCategory.setName("Food");
-
-        when(categoryRepository.findByName("Food")).thenReturn(Optional.of(existingCategory));
+        // The insert skips the name, whether it existed before or a concurrent request inserted it first
+        when(categoryRepository.insertAllIfAbsent(anyList())).thenReturn(List.of());
 
         DuplicateResourceException exception = assertThrows(
                 DuplicateResourceException.class,
@@ -85,7 +142,64 @@ class CategoryServiceTest {
 
         // assert
         assertTrue(exception.getMessage().contains("Category already exists"));
-        verify(categoryRepository).findByName("Food");
-        verify(categoryRepository, never()).save(any());
+        verify(categoryTree, never()).refresh();
+    }
+
+    @Test
+    void createCategories_InsertsFreeNamesOnceAndListsTheRest() {
+        // setUp
+        CreateCategoriesRequest request = new CreateCategoriesRequest();
+        request.setCategories(List.of(
+                categoryRequest("Travel", null),
+                categoryRequest("Organic", "Groceries"),
+                categoryRequest("Food", null),
+                categoryRequest("Travel", null)));
+
+        when(categoryTree.findByName("Groceries"))
+                .thenReturn(Optional.of(new CategoryTree.Node(5L, "Groceries", 1L, "/1/5/")));
+        when(categoryRepository.insertAllIfAbsent(List.of(
+                new NewCategory("Travel", null, "/"),
+                new NewCategory("Organic", 5L, "/1/5/"),
+                new NewCategory("Food", null, "/"))))
+                .thenReturn(List.of(category(20L, "Travel", null, "/20/"), category(21L, "Organic", 5L, "/1/5/21/")));
+
+        CreateCategoriesResponse response = categoryService.createCategories(request);
+
+        // assert
+        assertEquals(2, response.getCreated().size());
+        assertEquals("Travel", response.getCreated().get(0).getName());
+        assertEquals("Groceries", response.getCreated().get(1).getParentName());
+        assertEquals(List.of("Food"), response.getExisting());
+        verify(categoryTree).refresh();
+    }
+
+    @Test
+    void createCategories_UnknownParent_InsertsNothing() {
+        // setUp
+        CreateCategoriesRequest request = new CreateCategoriesRequest();
+        request.setCategories(List.of(categoryRequest("Travel", null), categoryRequest("Organic", "Nope")));
+
+        when(categoryTree.findByName("Nope")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> categoryService.createCategories(request));
+
+        // assert
+        verify(categoryRepository, never()).insertAllIfAbsent(any());
+    }
+
+    private static CreateCategoryRequest categoryRequest(String name, String parentName) {
+        CreateCategoryRequest request = new CreateCategoryRequest();
+        request.setName(name);
+        request.setParentName(parentName);
+        return request;
+    }
+
+    private static Category category(Long id, String name, Long parentId, String path) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        category.setParentId(parentId);
+        category.setPath(path);
+        return category;
     }
-}
\ No newline at end of file
+}
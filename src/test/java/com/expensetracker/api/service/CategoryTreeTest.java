@@ -0,0 +1,115 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.dto.CategoryListing;
+import com.expensetracker.api.dto.CategoryResponse;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryTreeTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    private CategoryTree categoryTree;
+
+    @BeforeEach
+    void setUp() {
+        // No interval between reloads on a miss, unless a test sets one
+        categoryTree = new CategoryTree(categoryRepository, 0);
+        when(categoryRepository.findAll()).thenReturn(List.of(
+                category(1L, "Food", null, "/1/"),
+                category(5L, "Groceries", 1L, "/1/5/"),
+                category(9L, "Organic", 5L, "/1/5/9/"),
+                category(12L, "Rent", null, null)));
+    }
+
+    @Test
+    void ancestorAt_RollsUpDeeperCategoriesOnly() {
+        CategoryTree.Node organic = categoryTree.findByName("Organic").orElseThrow();
+
+        // assert
+        assertEquals(3, organic.getDepth());
+        assertEquals("Food", categoryTree.ancestorAt(organic, 1).getName());
+        assertEquals("Groceries", categoryTree.ancestorAt(organic, 2).getName());
+        assertEquals("Organic", categoryTree.ancestorAt(organic, 5).getName());
+        assertTrue(organic.isWithin(categoryTree.findByName("Food").orElseThrow()));
+        assertFalse(organic.isWithin(categoryTree.findByName("Rent").orElseThrow()));
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void subtreeEnd_BoundsDescendantsInPathOrder() {
+        CategoryTree.Node groceries = categoryTree.findByName("Groceries").orElseThrow();
+
+        // assert
+        assertEquals("/1/50", groceries.subtreeEnd());
+        assertTrue("/1/5/9/".compareTo(groceries.subtreeEnd()) < 0);
+        assertTrue("/1/50/".compareTo(groceries.subtreeEnd()) >= 0);
+        assertEquals("/12/", categoryTree.findById(12L).orElseThrow().getPath());
+    }
+
+    @Test
+    void findByName_Missing_ReloadsOnce() {
+        // assert
+        assertTrue(categoryTree.findByName("Travel").isEmpty());
+        verify(categoryRepository, times(2)).findAll();
+    }
+
+    @Test
+    void findByName_RepeatedMissesWithinInterval_ReloadOnlyOnChange() {
+        // setUp
+        categoryTree = new CategoryTree(categoryRepository, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(categoryTree.findByName("Travel").isEmpty());
+            assertTrue(categoryTree.findById(404L).isEmpty());
+        }
+
+        // assert
+        verify(categoryRepository, times(1)).findAll();
+
+        // A committed change still shows up at once
+        when(categoryRepository.findAll()).thenReturn(List.of(category(20L, "Travel", null, "/20/")));
+        categoryTree.refresh();
+        assertEquals(20L, categoryTree.findByName("Travel").orElseThrow().getId());
+    }
+
+    @Test
+    void listing_SortsByNameWithStableETag() {
+        CategoryListing listing = categoryTree.listing();
+
+        // assert
+        assertEquals(List.of("Food", "Groceries", "Organic", "Rent"),
+                listing.getCategories().stream().map(CategoryResponse::getName).toList());
+        assertEquals("Groceries", listing.getCategories().get(2).getParentName());
+        assertNull(listing.getCategories().get(0).getParentName());
+
+        categoryTree.refresh();
+        assertEquals(listing.getETag(), categoryTree.listing().getETag());
+
+        when(categoryRepository.findAll()).thenReturn(List.of(category(1L, "Food", null, "/1/")));
+        categoryTree.refresh();
+        assertNotEquals(listing.getETag(), categoryTree.listing().getETag());
+        assertThrows(UnsupportedOperationException.class, () -> categoryTree.listing().getCategories().clear());
+    }
+
+    private static Category category(Long id, String name, Long parentId, String path) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        category.setParentId(parentId);
+        category.setPath(path);
+        return category;
+    }
+}
@@ -0,0 +1,44 @@
+package com.expensetracker.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DeletedExpensePurgerTest {
+
+    @Test
+    void purgeExpired_BatchShortenedByRestores_KeepsGoingUntilCandidatesRunOut() throws Exception {
+        // setUp
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement leaderLock = mock(PreparedStatement.class);
+        PreparedStatement delete = mock(PreparedStatement.class);
+        ResultSet locked = mock(ResultSet.class);
+        ResultSet counts = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(leaderLock);
+        when(connection.prepareStatement(startsWith("WITH candidates"))).thenReturn(delete);
+        when(leaderLock.executeQuery()).thenReturn(locked);
+        when(locked.next()).thenReturn(true);
+        when(locked.getBoolean(1)).thenReturn(true);
+        when(delete.executeQuery()).thenReturn(counts);
+        when(counts.next()).thenReturn(true);
+        // A full batch where two candidates were restored meanwhile, then the last partial batch
+        when(counts.getInt(1)).thenReturn(10, 4);
+        when(counts.getInt(2)).thenReturn(8, 4);
+
+        long purged = new DeletedExpensePurger(dataSource, 30, 10, 0).purgeExpired(Instant.now());
+
+        // assert
+        assertEquals(12, purged);
+        verify(delete, times(2)).executeQuery();
+    }
+}
@@ -0,0 +1,135 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.controller.exception.ResourceNotFoundException;
+import com.expensetracker.api.entity.Expense;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.ExpenseAttachmentRepository;
+import com.expensetracker.api.repository.ExpenseRepository;
+import com.expensetracker.api.service.attachment.AttachmentStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpenseAttachmentServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private ExpenseAttachmentRepository expenseAttachmentRepository;
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private AttachmentStorage attachmentStorage;
+
+    @Mock
+    private UserService userService;
+
+    private ExpenseAttachmentService expenseAttachmentService;
+
+    private final InputStream body = new ByteArrayInputStream(new byte[16]);
+
+    @BeforeEach
+    void setUp() {
+        expenseAttachmentService = new ExpenseAttachmentService(dataSource, expenseAttachmentRepository,
+                expenseRepository, attachmentStorage, userService, 1000, 2, List.of("image/png", "application/pdf"));
+        when(userService.getAuthenticatedUser()).thenReturn(User.builder().id(1L).username("testuser").build());
+    }
+
+    @Test
+    void upload_UnsupportedType_ThrowsBeforeReadingBody() {
+        // assert
+        InvalidRequestException ex = assertThrows(InvalidRequestException.class,
+                () -> expenseAttachmentService.upload(3L, "text/html; charset=utf-8", null, 16, body));
+        assertEquals("Unsupported attachment type: text/html", ex.getMessage());
+        verifyNoInteractions(expenseRepository, attachmentStorage);
+    }
+
+    @Test
+    void upload_DeclaredLengthOverLimit_ThrowsBeforeReadingBody() {
+        // assert
+        assertThrows(MaxUploadSizeExceededException.class,
+                () -> expenseAttachmentService.upload(3L, "IMAGE/PNG", null, 1001, body));
+        verifyNoInteractions(expenseRepository, attachmentStorage);
+    }
+
+    @Test
+    void upload_OtherUsersExpense_ThrowsNotFound() {
+        // setUp
+        when(expenseRepository.findByIdAndUserId(3L, 1L)).thenReturn(Optional.empty());
+
+        // assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> expenseAttachmentService.upload(3L, "application/pdf", "receipt.pdf", -1, body));
+        verifyNoInteractions(attachmentStorage);
+    }
+
+    @Test
+    void upload_ExpenseAtAttachmentLimit_Throws() {
+        // setUp
+        when(expenseRepository.findByIdAndUserId(3L, 1L)).thenReturn(Optional.of(Expense.builder().id(3L).build()));
+        when(expenseAttachmentRepository.countByExpenseId(3L)).thenReturn(2L);
+
+        // assert
+        InvalidRequestException ex = assertThrows(InvalidRequestException.class,
+                () -> expenseAttachmentService.upload(3L, "application/pdf", "receipt.pdf", -1, body));
+        assertEquals("An expense can have at most 2 attachments", ex.getMessage());
+        verifyNoInteractions(attachmentStorage);
+    }
+
+    @Test
+    void upload_LimitReachedWhileStreaming_RollsBackWithoutPublishing() throws Exception {
+        // setUp
+        when(expenseRepository.findByIdAndUserId(3L, 1L)).thenReturn(Optional.of(Expense.builder().id(3L).build()));
+        when(expenseAttachmentRepository.countByExpenseId(3L)).thenReturn(1L);
+        AttachmentStorage.StagedBlob staged = new AttachmentStorage.StagedBlob("ab".repeat(32), 16, Path.of("staged"));
+        when(attachmentStorage.stage(body, 1000)).thenReturn(staged);
+        Connection connection = mock(Connection.class);
+        PreparedStatement lock = mock(PreparedStatement.class);
+        PreparedStatement insert = mock(PreparedStatement.class);
+        ResultSet noRow = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(lock);
+        when(connection.prepareStatement(startsWith("INSERT"))).thenReturn(insert);
+        when(insert.executeQuery()).thenReturn(noRow);
+
+        // Another upload to the expense committed after the early count; the insert sees it
+        InvalidRequestException ex = assertThrows(InvalidRequestException.class,
+                () -> expenseAttachmentService.upload(3L, "application/pdf", "receipt.pdf", -1, body));
+
+        // assert
+        assertEquals("An expense can have at most 2 attachments", ex.getMessage());
+        InOrder order = inOrder(connection, lock, insert);
+        order.verify(connection).prepareStatement(contains("pg_advisory_xact_lock(hashtext('expense_attachments')"));
+        order.verify(lock).setLong(1, 3L);
+        order.verify(insert).setInt(9, 2);
+        order.verify(insert).executeQuery();
+        order.verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(attachmentStorage, never()).publish(any());
+        verify(attachmentStorage).discard(staged);
+    }
+}
@@ -0,0 +1,196 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.dto.ExpenseImportResponse;
+import com.expensetracker.api.dto.ImportLineError;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.service.analytics.ExpenseAnalyticsStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExpenseImportServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private CopyManager copyManager;
+
+    @Mock
+    private CopyIn copyIn;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ExpenseAnalyticsStore expenseAnalyticsStore;
+
+    @Mock
+    private SpendingAnomalyService spendingAnomalyService;
+
+    private Connection connection;
+    private List<String> copiedChunks;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("broke_developer");
+        when(userService.getAuthenticatedUser()).thenReturn(user);
+
+        Category food = new Category();
+        food.setId(3L);
+        food.setName("Food");
+        when(categoryRepository.findByName("Food")).thenReturn(Optional.of(food));
+        when(categoryRepository.findByName(argThat(name -> !"Food".equals(name)))).thenReturn(Optional.empty());
+
+        // Statements issued for the sketch merge only need to run, not return anything
+        connection = mock(Connection.class, RETURNS_MOCKS);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+
+        copiedChunks = new ArrayList<>();
+        doAnswer(invocation -> {
+            byte[] bytes = invocation.getArgument(0);
+            copiedChunks.add(new String(bytes, invocation.getArgument(1), invocation.getArgument(2), StandardCharsets.UTF_8));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    void importCsv_ValidRows_StreamsThemThroughCopy() throws Exception {
+        // setUp
+        String csv = "Category,Date,Amount,Description\n"
+                + "Food,2025-11-01,12.50,\"Lunch, \"\"big\"\" one\"\n"
+                + "Food,2025-11-02,8,\n";
+
+        ExpenseImportResponse response = service(5000).importCsv(csv(csv));
+
+        // assert
+        assertEquals(2, response.getImportedCount());
+        assertEquals(0, response.getRejectedCount());
+        assertTrue(response.getErrors().isEmpty());
+        assertEquals(List.of("1250,2025-11-01,\"Lunch, \"\"big\"\" one\",3,7\n800,2025-11-02,,3,7\n"), copiedChunks);
+        verify(categoryRepository, times(1)).findByName("Food");
+        verify(copyIn).endCopy();
+        verify(connection).commit();
+        verify(expenseAnalyticsStore).invalidate(7L);
+    }
+
+    @Test
+    void importCsv_InvalidRows_AreSkippedAndReportedByLine() throws Exception {
+        // setUp
+        String csv = "date,amount,category,description\n"
+                + "2025-11-01,-5,Food,Refund\n"
+                + "2025-13-01,5,Food,\n"
+                + "2025-11-03,5.123,Food,\n"
+                + "2025-11-04,5,Unknown,\n"
+                + "2025-11-05,5\n"
+                + "\n"
+                + "2025-11-06,abc,Food,\n"
+                + "2025-11-07,5,Food," + "x".repeat(ExpenseImportService.MAX_DESCRIPTION_LENGTH + 1) + "\n"
+                + "2025-11-08,5,Food,ok\n";
+
+        ExpenseImportResponse response = service(5000).importCsv(csv(csv));
+
+        // assert
+        assertEquals(1, response.getImportedCount());
+        assertEquals(7, response.getRejectedCount());
+        assertFalse(response.isErrorsTruncated());
+        assertEquals(List.of(
+                new ImportLineError(2, "Amount must be positive"),
+                new ImportLineError(3, "Invalid date: 2025-13-01 (expected yyyy-MM-dd)"),
+                new ImportLineError(4, "Amount must have at most 15 integer digits and 2 decimal places"),
+                new ImportLineError(5, "Category not found: Unknown"),
+                new ImportLineError(6, "Expected at least 4 fields but found 2"),
+                new ImportLineError(8, "Invalid amount: abc"),
+                new ImportLineError(9, "Description must be at most 255 characters")
+        ), response.getErrors());
+        assertEquals(List.of("500,2025-11-08,\"ok\",3,7\n"), copiedChunks);
+        verify(categoryRepository, times(1)).findByName("Unknown");
+    }
+
+    @Test
+    void importCsv_LargeFile_WritesBoundedChunks() throws Exception {
+        // setUp
+        StringBuilder csv = new StringBuilder("date,amount,category\n");
+        for (int i = 1; i <= 5; i++) {
+            csv.append("2025-11-0").append(i).append(",1,Food\n");
+        }
+
+        ExpenseImportResponse response = service(2).importCsv(csv(csv.toString()));
+
+        // assert
+        assertEquals(5, response.getImportedCount());
+        assertEquals(3, copiedChunks.size());
+        assertEquals(2, copiedChunks.get(0).lines().count());
+        assertEquals(1, copiedChunks.get(2).lines().count());
+    }
+
+    @Test
+    void importCsv_MissingRequiredColumn_ThrowsInvalidRequest() throws Exception {
+        InvalidRequestException ex = assertThrows(InvalidRequestException.class,
+                () -> service(5000).importCsv(csv("date,amount,description\n2025-11-01,5,x\n")));
+
+        // assert
+        assertEquals("CSV header is missing the 'category' column", ex.getMessage());
+        verify(dataSource, never()).getConnection();
+    }
+
+    @Test
+    void importCsv_CopyFails_RollsBack() throws Exception {
+        // setUp
+        doThrow(new SQLException("boom")).when(copyIn).endCopy();
+
+        assertThrows(IllegalStateException.class,
+                () -> service(5000).importCsv(csv("date,amount,category\n2025-11-01,5,Food\n")));
+
+        // assert
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(expenseAnalyticsStore, never()).invalidate(any());
+    }
+
+    private ExpenseImportService service(int chunkRows) {
+        return new ExpenseImportService(dataSource, categoryRepository, userService, expenseAnalyticsStore,
+                spendingAnomalyService, chunkRows);
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
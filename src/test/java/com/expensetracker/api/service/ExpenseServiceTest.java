@@ -1,29 +1,54 @@
 package com.expensetracker.api.service;
 
+import com.expensetracker.api.controller.exception.InvalidRequestException;
 import com.expensetracker.api.controller.exception.ResourceNotFoundException;
+import com.expensetracker.api.dto.CategoryRollup;
 import com.expensetracker.api.dto.CreateExpenseRequest;
+import com.expensetracker.api.dto.ExpenseField;
 import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.dto.FieldSelection;
 import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.expensetracker.api.dto.ReportField;
+import com.expensetracker.api.dto.SyncResponse;
+import com.expensetracker.api.dto.TimeSeriesInterval;
+import com.expensetracker.api.dto.TimeSeriesResponse;
 import com.expensetracker.api.dto.UpdateExpenseRequest;
 import com.expensetracker.api.entity.Category;
 import com.expensetracker.api.entity.Expense;
+import com.expensetracker.api.entity.ExpenseTombstone;
 import com.expensetracker.api.entity.User;
 import com.expensetracker.api.repository.CategoryRepository;
 import com.expensetracker.api.repository.ExpenseRepository;
+import com.expensetracker.api.repository.ExpenseTombstoneRepository;
+import com.expensetracker.api.repository.MonthlyAncestorTotal;
+import com.expensetracker.api.repository.MonthlyCategoryTotal;
+import com.expensetracker.api.repository.MonthlyTotal;
+import com.expensetracker.api.repository.ReportSnapshotRepository;
+import com.expensetracker.api.repository.SparseExpenseRow;
+import com.expensetracker.api.repository.TimeSeriesBucket;
+import com.expensetracker.api.service.analytics.ExpenseAnalyticsStore;
+import com.expensetracker.api.service.archive.ArchivedExpense;
+import com.expensetracker.api.service.archive.ExpenseArchiveFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,12 +57,36 @@ class ExpenseServiceTest {
     @Mock
     private ExpenseRepository expenseRepository;
 
+    @Mock
+    private ExpenseTombstoneRepository expenseTombstoneRepository;
+
     @Mock
     private CategoryRepository categoryRepository;
 
     @Mock
     private UserService userService;
 
+    @Mock
+    private ExpenseAnalyticsStore expenseAnalyticsStore;
+
+    @Mock
+    private SpendingStatisticsService spendingStatisticsService;
+
+    @Mock
+    private ExpenseArchiveService expenseArchiveService;
+
+    @Mock
+    private CategoryTree categoryTree;
+
+    @Mock
+    private ReportSnapshotRepository reportSnapshotRepository;
+
+    @Mock
+    private SpendingAnomalyService spendingAnomalyService;
+
+    @Mock
+    private DeletedExpensePurger deletedExpensePurger;
+
     @InjectMocks
     private ExpenseService expenseService;
 
@@ -66,7 +115,7 @@ class ExpenseServiceTest {
 
         Expense savedExpense = Expense.builder()
                 .id(1L)
-                .amount(request.getAmount())
+                .amountMinor(MinorUnits.fromDecimal(request.getAmount()))
                 .description(request.getDescription())
                 .category(category)
                 .date(request.getDate())
@@ -81,13 +130,15 @@ class ExpenseServiceTest {
         // assert
         assertNotNull(response);
         assertEquals(1L, response.getId());
-        assertEquals(BigDecimal.valueOf(420.5), response.getAmount());
+        assertEquals(new BigDecimal("420.50"), response.getAmount());
         assertEquals("Pizza at 3 AM", response.getDescription());
         assertEquals("Food", response.getCategoryName());
 
         verify(userService).getAuthenticatedUser();
         verify(categoryRepository).findByName("Food");
         verify(expenseRepository).save(any(Expense.class));
+        verify(spendingStatisticsService).recordCreated(savedExpense);
+        verify(spendingAnomalyService).recordCreated(1L, 1L, 42050L);
     }
 
     @Test
@@ -149,7 +200,7 @@ class ExpenseServiceTest {
 
         Expense expense1 = Expense.builder()
                 .id(1L)
-                .amount(BigDecimal.valueOf(50.00))
+                .amountMinor(5000L)
                 .description("Omelette")
                 .category(category1)
                 .date(LocalDate.now())
@@ -158,7 +209,7 @@ class ExpenseServiceTest {
 
         Expense expense2 = Expense.builder()
                 .id(2L)
-                .amount(BigDecimal.valueOf(8.00))
+                .amountMinor(800L)
                 .description("Metro")
                 .category(category2)
                 .date(LocalDate.now())
@@ -189,7 +240,7 @@ class ExpenseServiceTest {
 
         Expense expense = Expense.builder()
                 .id(1L)
-                .amount(BigDecimal.valueOf(150.00))
+                .amountMinor(15000L)
                 .description("Instance spicy noodles")
                 .category(category)
                 .date(LocalDate.now())
@@ -207,6 +258,25 @@ class ExpenseServiceTest {
         verify(expenseRepository).findByUserIdAndCategoryName(1L, "Food");
     }
 
+    @Test
+    void getAllExpenses_SelectedFields_ReadsOnlyThoseColumns() {
+        // setUp
+        FieldSelection<ExpenseField> fields = FieldSelection.of(ExpenseField.ID, ExpenseField.AMOUNT, ExpenseField.DATE);
+        when(expenseRepository.findSelectedFields(1L, null, fields)).thenReturn(List.of(
+                new SparseExpenseRow(1L, 5000L, LocalDate.of(2025, 11, 3), null, null)));
+
+        List<ExpenseResponse> responses = expenseService.getAllExpenses(fields);
+
+        // assert
+        assertEquals(1, responses.size());
+        assertEquals(1L, responses.get(0).getId());
+        assertEquals(new BigDecimal("50.00"), responses.get(0).getAmount());
+        assertEquals(LocalDate.of(2025, 11, 3), responses.get(0).getDate());
+        assertNull(responses.get(0).getDescription());
+        assertNull(responses.get(0).getCategoryName());
+        verify(expenseRepository, never()).findByUserId(any());
+    }
+
     @Test
     void updateExpense_Success() {
         // setUp
@@ -226,7 +296,7 @@ class ExpenseServiceTest {
 
         Expense existingExpense = Expense.builder()
                 .id(1L)
-                .amount(BigDecimal.valueOf(50.00))
+                .amountMinor(5000L)
                 .description("Old description")
                 .category(category)
                 .date(LocalDate.now())
@@ -235,7 +305,7 @@ class ExpenseServiceTest {
 
         Expense updatedExpense = Expense.builder()
                 .id(1L)
-                .amount(request.getAmount())
+                .amountMinor(MinorUnits.fromDecimal(request.getAmount()))
                 .description(request.getDescription())
                 .category(category)
                 .date(request.getDate())
@@ -245,15 +315,21 @@ class ExpenseServiceTest {
         when(expenseRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(existingExpense));
         when(categoryRepository.findByName("Food")).thenReturn(Optional.of(category));
         when(expenseRepository.save(any(Expense.class))).thenReturn(updatedExpense);
+        LocalDate originalDate = existingExpense.getDate();
 
         ExpenseResponse response = expenseService.updateExpense(1L, request);
 
         // assert
         assertNotNull(response);
         assertEquals(1L, response.getId());
-        assertEquals(BigDecimal.valueOf(200.00), response.getAmount());
+        assertEquals(new BigDecimal("200.00"), response.getAmount());
         assertEquals("Energy drinks", response.getDescription());
         verify(expenseRepository).findByIdAndUserId(1L, 1L);
+        verify(spendingStatisticsService).rebuildMoved(1L, 1L, originalDate, 1L, request.getDate());
+        verify(spendingAnomalyService).recordUpdated(1L, 1L, 5000L, 1L, 20000L);
+        // Only the month the expense moved into has ended
+        verify(reportSnapshotRepository).markStale(1L, LocalDate.of(2025, 11, 1));
+        verifyNoMoreInteractions(reportSnapshotRepository);
     }
 
     @Test
@@ -269,7 +345,7 @@ class ExpenseServiceTest {
 
         Expense expense = Expense.builder()
                 .id(1L)
-                .amount(BigDecimal.valueOf(50.00))
+                .amountMinor(5000L)
                 .description("Regrettable purchase")
                 .category(category)
                 .date(LocalDate.now())
@@ -277,12 +353,121 @@ class ExpenseServiceTest {
                 .build();
 
         when(expenseRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(expense));
+        when(expenseRepository.nextChangeSeq(1L)).thenReturn(17L);
 
         expenseService.deleteExpense(1L);
 
         // assert
         verify(expenseRepository).findByIdAndUserId(1L, 1L);
-        verify(expenseRepository).delete(expense);
+        assertNotNull(expense.getDeletedAt());
+        // The user's change lock comes with the sequence number and is taken before any row is written
+        InOrder writes = inOrder(expenseRepository);
+        writes.verify(expenseRepository).nextChangeSeq(1L);
+        writes.verify(expenseRepository).save(expense);
+        verify(expenseRepository, never()).delete(any(Expense.class));
+        verify(spendingStatisticsService).rebuild(1L, 1L, expense.getDate());
+        verify(spendingAnomalyService).recordDeleted(1L, 1L, 5000L);
+        verify(expenseTombstoneRepository).save(argThat(tombstone ->
+                tombstone.getExpenseId() == 1L
+                        && tombstone.getUserId() == 1L
+                        && tombstone.getChangeSeq() == 17L));
+    }
+
+    @Test
+    void restoreExpense_WithinUndoWindow_RecordsItAgain() {
+        // setUp
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Food");
+
+        Expense expense = Expense.builder()
+                .id(1L)
+                .amountMinor(5000L)
+                .description("Not so regrettable")
+                .category(category)
+                .date(LocalDate.now())
+                .user(user)
+                .build();
+
+        Instant restorableSince = Instant.now().minusSeconds(1800);
+        when(deletedExpensePurger.restorableSince(any(Instant.class))).thenReturn(restorableSince);
+        when(expenseRepository.nextChangeSeq(1L)).thenReturn(18L);
+        when(expenseRepository.restoreDeleted(eq(1L), eq(1L), eq(restorableSince), eq(18L), any(Instant.class)))
+                .thenReturn(1);
+        when(expenseRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(expense));
+
+        ExpenseResponse response = expenseService.restoreExpense(1L);
+
+        // assert
+        assertEquals(1L, response.getId());
+        verify(spendingStatisticsService).rebuild(1L, 1L, expense.getDate());
+        verify(spendingAnomalyService).recordCreated(1L, 1L, 5000L);
+        verify(expenseAnalyticsStore).recordSaved(expense);
+    }
+
+    @Test
+    void restoreExpense_UndoWindowClosed_ThrowsException() {
+        // setUp
+        when(deletedExpensePurger.restorableSince(any(Instant.class))).thenReturn(Instant.now());
+        when(expenseRepository.restoreDeleted(eq(1L), eq(1L), any(Instant.class), any(), any(Instant.class)))
+                .thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> expenseService.restoreExpense(1L));
+
+        // assert
+        verify(expenseRepository, never()).findByIdAndUserId(any(), any());
+        verifyNoInteractions(spendingStatisticsService, spendingAnomalyService);
+    }
+
+    @Test
+    void getChangesSince_MergesUpsertsAndDeletionsInChangeOrder() {
+        // setUp
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Food");
+
+        Expense created = Expense.builder()
+                .id(5L)
+                .amountMinor(1200L)
+                .description("Bagel")
+                .category(category)
+                .date(LocalDate.of(2025, 11, 3))
+                .user(user)
+                .changeSeq(11L)
+                .updatedAt(Instant.now())
+                .build();
+
+        Expense updated = Expense.builder()
+                .id(2L)
+                .amountMinor(3000L)
+                .description("Groceries, corrected")
+                .category(category)
+                .date(LocalDate.of(2025, 11, 1))
+                .user(user)
+                .changeSeq(14L)
+                .updatedAt(Instant.now())
+                .build();
+
+        ExpenseTombstone removed = ExpenseTombstone.builder()
+                .expenseId(3L)
+                .userId(1L)
+                .changeSeq(12L)
+                .deletedAt(Instant.now())
+                .build();
+
+        when(expenseRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(1L, 10L, Limit.of(3)))
+                .thenReturn(List.of(created, updated));
+        when(expenseTombstoneRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(1L, 10L, Limit.of(3)))
+                .thenReturn(List.of(removed));
+
+        SyncResponse firstPage = expenseService.getChangesSince(10L, 2);
+
+        // assert
+        assertEquals(1, firstPage.getUpserts().size());
+        assertEquals(5L, firstPage.getUpserts().get(0).getId());
+        assertEquals(List.of(3L), firstPage.getDeletedIds());
+        assertEquals(12L, firstPage.getNextCursor());
+        assertTrue(firstPage.isHasMore());
     }
 
     @Test
@@ -302,7 +487,7 @@ class ExpenseServiceTest {
 
         Expense expense1 = Expense.builder()
                 .id(1L)
-                .amount(BigDecimal.valueOf(150.00))
+                .amountMinor(15000L)
                 .description("Lamiz addiction phase 1")
                 .category(coffeeCategory)
                 .date(LocalDate.of(2025, 11, 5))
@@ -311,7 +496,7 @@ class ExpenseServiceTest {
 
         Expense expense2 = Expense.builder()
                 .id(2L)
-                .amount(BigDecimal.valueOf(80.00))
+                .amountMinor(8000L)
                 .description("More coffee to survive deadlines")
                 .category(coffeeCategory)
                 .date(LocalDate.of(2025, 11, 15))
@@ -320,14 +505,14 @@ class ExpenseServiceTest {
 
         Expense expense3 = Expense.builder()
                 .id(3L)
-                .amount(BigDecimal.valueOf(50.00))
+                .amountMinor(5000L)
                 .description("Night pizza")
                 .category(foodCategory)
                 .date(LocalDate.of(2025, 11, 20))
                 .user(user)
                 .build();
 
-        when(expenseRepository.findByUserIdAndYearAndMonth(1L, 2025, 11))
+        when(expenseRepository.findByUserIdAndDateRange(1L, LocalDate.of(2025, 11, 1), LocalDate.of(2025, 12, 1)))
                 .thenReturn(List.of(expense1, expense2, expense3));
 
         MonthlyReportResponse report = expenseService.getMonthlyReport(2025, 11);
@@ -336,12 +521,12 @@ class ExpenseServiceTest {
         assertNotNull(report);
         assertEquals(2025, report.getYear());
         assertEquals(11, report.getMonth());
-        assertEquals(BigDecimal.valueOf(280.00), report.getTotalAmount());
+        assertEquals(new BigDecimal("280.00"), report.getTotalAmount());
         assertEquals(3, report.getExpenseCount());
-        assertEquals(BigDecimal.valueOf(230.00), report.getSpendingByCategory().get("Coffee"));
-        assertEquals(BigDecimal.valueOf(50.00), report.getSpendingByCategory().get("Food"));
+        assertEquals(new BigDecimal("230.00"), report.getSpendingByCategory().get("Coffee"));
+        assertEquals(new BigDecimal("50.00"), report.getSpendingByCategory().get("Food"));
         assertTrue(report.getAlerts().isEmpty());
-        verify(expenseRepository).findByUserIdAndYearAndMonth(1L, 2025, 11);
+        verify(expenseRepository).findByUserIdAndDateRange(1L, LocalDate.of(2025, 11, 1), LocalDate.of(2025, 12, 1));
     }
 
     @Test
@@ -361,7 +546,7 @@ class ExpenseServiceTest {
 
         Expense expense1 = Expense.builder()
                 .id(1L)
-                .amount(BigDecimal.valueOf(2100.00))
+                .amountMinor(210000L)
                 .description("Coffee overload")
                 .category(coffeeCategory)
                 .date(LocalDate.of(2025, 11, 5))
@@ -370,14 +555,14 @@ class ExpenseServiceTest {
 
         Expense expense2 = Expense.builder()
                 .id(2L)
-                .amount(BigDecimal.valueOf(2500.00))
+                .amountMinor(250000L)
                 .description("Too much takeout")
                 .category(foodCategory)
                 .date(LocalDate.of(2025, 11, 15))
                 .user(user)
                 .build();
 
-        when(expenseRepository.findByUserIdAndYearAndMonth(1L, 2025, 11))
+        when(expenseRepository.findByUserIdAndDateRange(1L, LocalDate.of(2025, 11, 1), LocalDate.of(2025, 12, 1)))
                 .thenReturn(List.of(expense1, expense2));
 
         MonthlyReportResponse report = expenseService.getMonthlyReport(2025, 11);
@@ -387,4 +572,285 @@ class ExpenseServiceTest {
         assertTrue(report.getAlerts().stream().anyMatch(alert -> alert.contains("Coffee")));
         assertTrue(report.getAlerts().stream().anyMatch(alert -> alert.contains("Food")));
     }
+
+    @Test
+    void getRangeReport_TotalsOnly_SkipsCategories() {
+        // setUp
+        when(expenseRepository.sumByMonth(1L, LocalDate.of(2025, 9, 1), LocalDate.of(2025, 12, 1)))
+                .thenReturn(List.of(monthTotal(2025, 9, 250_000L, 34), monthTotal(2025, 11, 12_000L, 2)));
+
+        List<MonthlyReportResponse> reports = expenseService.getRangeReport(YearMonth.of(2025, 9), YearMonth.of(2025, 11),
+                FieldSelection.of(ReportField.MONTH, ReportField.TOTAL_AMOUNT, ReportField.EXPENSE_COUNT));
+
+        // assert
+        assertEquals(3, reports.size());
+        assertEquals(new BigDecimal("2500.00"), reports.get(0).getTotalAmount());
+        assertEquals(34, reports.get(0).getExpenseCount());
+        assertEquals(new BigDecimal("0.00"), reports.get(1).getTotalAmount());
+        assertEquals(0, reports.get(1).getExpenseCount());
+        assertEquals(11, reports.get(2).getMonth());
+        assertEquals(new BigDecimal("120.00"), reports.get(2).getTotalAmount());
+        assertNull(reports.get(2).getSpendingByCategory());
+        verify(expenseRepository, never()).sumByMonthAndCategory(any(), any(), any());
+    }
+
+    @Test
+    void getRangeReport_UnderCategory_RollsUpToItsChildren() {
+        // setUp
+        CategoryTree.Node food = new CategoryTree.Node(1L, "Food", null, "/1/");
+        CategoryTree.Node groceries = new CategoryTree.Node(5L, "Groceries", 1L, "/1/5/");
+        when(categoryTree.findByName("Food")).thenReturn(Optional.of(food));
+        when(categoryTree.findById(1L)).thenReturn(Optional.of(food));
+        when(categoryTree.findById(5L)).thenReturn(Optional.of(groceries));
+        when(expenseRepository.sumByMonthAndAncestor(1L, LocalDate.of(2025, 10, 1), LocalDate.of(2025, 12, 1), 2, "/1/", "/10"))
+                .thenReturn(List.of(ancestorTotal(2025, 11, 5L, 12_000L, 2), ancestorTotal(2025, 11, 1L, 3_000L, 1)));
+
+        List<MonthlyReportResponse> reports = expenseService.getRangeReport(YearMonth.of(2025, 10), YearMonth.of(2025, 11),
+                FieldSelection.all(ReportField.class), CategoryRollup.of(null, "Food"));
+
+        // assert
+        assertEquals(2, reports.size());
+        assertEquals(0, reports.get(0).getExpenseCount());
+        MonthlyReportResponse november = reports.get(1);
+        assertEquals(new BigDecimal("150.00"), november.getTotalAmount());
+        assertEquals(3, november.getExpenseCount());
+        assertEquals(new BigDecimal("120.00"), november.getSpendingByCategory().get("Groceries"));
+        assertEquals(new BigDecimal("30.00"), november.getSpendingByCategory().get("Food"));
+        verify(expenseAnalyticsStore, never()).aggregate(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void getMonthlyReport_RollupUnderUnknownCategory_ThrowsException() {
+        // setUp
+        when(categoryTree.findByName("Nope")).thenReturn(Optional.empty());
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> expenseService.getMonthlyReport(2025, 11, FieldSelection.all(ReportField.class),
+                        CategoryRollup.of(1, "Nope")));
+
+        // assert
+        assertEquals("Category not found: Nope", exception.getMessage());
+        verify(expenseRepository, never()).sumByMonthAndAncestor(any(), any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void getRangeReport_FillsEmptyMonthsAndRaisesAlertsPerMonth() {
+        // setUp
+        when(expenseRepository.sumByMonthAndCategory(1L, LocalDate.of(2025, 9, 1), LocalDate.of(2025, 12, 1)))
+                .thenReturn(List.of(
+                        monthlyTotal(2025, 9, "Coffee", 210_000L, 30),
+                        monthlyTotal(2025, 9, "Food", 40_000L, 4),
+                        monthlyTotal(2025, 11, "Food", 12_000L, 2)));
+
+        List<MonthlyReportResponse> reports = expenseService.getRangeReport(YearMonth.of(2025, 9), YearMonth.of(2025, 11));
+
+        // assert
+        assertEquals(3, reports.size());
+
+        MonthlyReportResponse september = reports.get(0);
+        assertEquals(9, september.getMonth());
+        assertEquals(new BigDecimal("2500.00"), september.getTotalAmount());
+        assertEquals(34, september.getExpenseCount());
+        assertEquals(1, september.getAlerts().size());
+        assertTrue(september.getAlerts().get(0).contains("Coffee"));
+
+        MonthlyReportResponse october = reports.get(1);
+        assertEquals(10, october.getMonth());
+        assertEquals(new BigDecimal("0.00"), october.getTotalAmount());
+        assertEquals(0, october.getExpenseCount());
+        assertTrue(october.getSpendingByCategory().isEmpty());
+
+        MonthlyReportResponse november = reports.get(2);
+        assertEquals(new BigDecimal("120.00"), november.getSpendingByCategory().get("Food"));
+        assertEquals(2, november.getExpenseCount());
+        verify(expenseRepository, never()).findByUserIdAndDateRange(any(), any(), any());
+    }
+
+    @Test
+    void getRangeReport_AddsArchivedExpenses() {
+        // setUp
+        Category food = new Category();
+        food.setId(3L);
+        food.setName("Food");
+        when(expenseRepository.sumByMonthAndCategory(1L, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 3, 1)))
+                .thenReturn(List.of(monthlyTotal(2022, 2, "Food", 1_000L, 1)));
+        doAnswer(invocation -> {
+            ExpenseArchiveFile.RowVisitor visitor = invocation.getArgument(3);
+            visitor.visit((int) LocalDate.of(2022, 1, 10).toEpochDay(), 2_500L, 3L);
+            visitor.visit((int) LocalDate.of(2022, 2, 20).toEpochDay(), 500L, 3L);
+            return null;
+        }).when(expenseArchiveService).scan(eq(1L), eq(LocalDate.of(2022, 1, 1)), eq(LocalDate.of(2022, 3, 1)), any());
+        when(categoryRepository.findAllById(any())).thenReturn(List.of(food));
+
+        List<MonthlyReportResponse> reports = expenseService.getRangeReport(YearMonth.of(2022, 1), YearMonth.of(2022, 2));
+
+        // assert
+        assertEquals(new BigDecimal("25.00"), reports.get(0).getSpendingByCategory().get("Food"));
+        assertEquals(1, reports.get(0).getExpenseCount());
+        assertEquals(new BigDecimal("15.00"), reports.get(1).getSpendingByCategory().get("Food"));
+        assertEquals(2, reports.get(1).getExpenseCount());
+    }
+
+    @Test
+    void getAllExpenses_IncludesArchivedExpenses() {
+        // setUp
+        Category food = new Category();
+        food.setId(3L);
+        food.setName("Food");
+        Expense live = Expense.builder()
+                .id(9L)
+                .amountMinor(800L)
+                .description("Metro")
+                .category(food)
+                .date(LocalDate.of(2025, 11, 1))
+                .user(user)
+                .build();
+        when(expenseArchiveService.findExpenses(1L)).thenReturn(List.of(
+                new ArchivedExpense(2L, LocalDate.of(2021, 3, 4), 1_250L, 3L, "Old groceries", 17L)));
+        when(categoryRepository.findAllById(any())).thenReturn(List.of(food));
+        when(expenseRepository.findByUserId(1L)).thenReturn(List.of(live));
+
+        List<ExpenseResponse> responses = expenseService.getAllExpenses();
+
+        // assert
+        assertEquals(2, responses.size());
+        assertEquals("Old groceries", responses.get(0).getDescription());
+        assertEquals("Food", responses.get(0).getCategoryName());
+        assertEquals(new BigDecimal("12.50"), responses.get(0).getAmount());
+        assertEquals("Metro", responses.get(1).getDescription());
+    }
+
+    @Test
+    void getRangeReport_StartAfterEnd_ThrowsException() {
+        // setUp
+        reset(userService);
+
+        // assert
+        assertThrows(
+                InvalidRequestException.class,
+                () -> expenseService.getRangeReport(YearMonth.of(2025, 12), YearMonth.of(2025, 1))
+        );
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void getTimeSeries_DailyBuckets_ReturnsOneValuePerDay() {
+        // setUp
+        LocalDate from = LocalDate.of(2025, 11, 1);
+        LocalDate to = LocalDate.of(2025, 11, 3);
+        when(expenseRepository.sumByBucket(1L, from, LocalDate.of(2025, 11, 4), 1, 3)).thenReturn(List.of(
+                bucket(0, null, 1050),
+                bucket(1, null, 0),
+                bucket(2, null, 725)
+        ));
+
+        TimeSeriesResponse response = expenseService.getTimeSeries(from, to, TimeSeriesInterval.DAY, false);
+
+        // assert
+        assertEquals(List.of(new BigDecimal("10.50"), new BigDecimal("0.00"), new BigDecimal("7.25")), response.getTotals());
+        assertNull(response.getByCategory());
+        verify(expenseRepository, never()).sumByBucketAndCategory(any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getTimeSeries_WeeklyByCategory_FillsMissingBucketsPerCategory() {
+        // setUp
+        LocalDate from = LocalDate.of(2025, 11, 1);
+        LocalDate to = LocalDate.of(2025, 11, 15);
+        when(expenseRepository.sumByBucketAndCategory(1L, from, LocalDate.of(2025, 11, 16), 7, 3)).thenReturn(List.of(
+                bucket(0, "Food", 1000),
+                bucket(0, "Transport", 250),
+                bucket(1, null, 0),
+                bucket(2, "Food", 500)
+        ));
+
+        TimeSeriesResponse response = expenseService.getTimeSeries(from, to, TimeSeriesInterval.WEEK, true);
+
+        // assert
+        assertEquals(List.of(new BigDecimal("12.50"), new BigDecimal("0.00"), new BigDecimal("5.00")), response.getTotals());
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("0.00"), new BigDecimal("5.00")),
+                response.getByCategory().get("Food"));
+        assertEquals(List.of(new BigDecimal("2.50"), new BigDecimal("0.00"), new BigDecimal("0.00")),
+                response.getByCategory().get("Transport"));
+    }
+
+    @Test
+    void getTimeSeries_ByCategory_AddsArchivedExpenses() {
+        // setUp
+        Category rent = new Category();
+        rent.setId(4L);
+        rent.setName("Rent");
+        LocalDate from = LocalDate.of(2022, 1, 1);
+        LocalDate to = LocalDate.of(2022, 1, 14);
+        when(expenseRepository.sumByBucketAndCategory(1L, from, LocalDate.of(2022, 1, 15), 7, 2)).thenReturn(List.of(
+                bucket(0, "Food", 1000),
+                bucket(1, null, 0)
+        ));
+        doAnswer(invocation -> {
+            ExpenseArchiveFile.RowVisitor visitor = invocation.getArgument(3);
+            visitor.visit((int) LocalDate.of(2022, 1, 9).toEpochDay(), 90_000L, 4L);
+            return null;
+        }).when(expenseArchiveService).scan(eq(1L), eq(from), eq(LocalDate.of(2022, 1, 15)), any());
+        when(categoryRepository.findAllById(any())).thenReturn(List.of(rent));
+
+        TimeSeriesResponse response = expenseService.getTimeSeries(from, to, TimeSeriesInterval.WEEK, true);
+
+        // assert
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("900.00")), response.getTotals());
+        assertEquals(List.of(new BigDecimal("0.00"), new BigDecimal("900.00")), response.getByCategory().get("Rent"));
+    }
+
+    @Test
+    void getTimeSeries_TooManyBuckets_ThrowsException() {
+        // setUp
+        reset(userService);
+
+        // assert
+        assertThrows(
+                InvalidRequestException.class,
+                () -> expenseService.getTimeSeries(LocalDate.of(2020, 1, 1), LocalDate.of(2025, 1, 1), TimeSeriesInterval.DAY, false)
+        );
+        assertThrows(
+                InvalidRequestException.class,
+                () -> expenseService.getTimeSeries(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1), TimeSeriesInterval.DAY, false)
+        );
+        verifyNoInteractions(expenseRepository);
+    }
+
+    private TimeSeriesBucket bucket(int index, String categoryName, long totalMinor) {
+        return new TimeSeriesBucket() {
+            public int getBucket() { return index; }
+            public String getCategoryName() { return categoryName; }
+            public long getTotalMinor() { return totalMinor; }
+        };
+    }
+
+    private MonthlyCategoryTotal monthlyTotal(int year, int month, String categoryName, long totalMinor, long count) {
+        return new MonthlyCategoryTotal() {
+            public int getYear() { return year; }
+            public int getMonth() { return month; }
+            public String getCategoryName() { return categoryName; }
+            public long getTotalMinor() { return totalMinor; }
+            public long getExpenseCount() { return count; }
+        };
+    }
+
+    private MonthlyAncestorTotal ancestorTotal(int year, int month, long categoryId, long totalMinor, long count) {
+        return new MonthlyAncestorTotal() {
+            public int getYear() { return year; }
+            public int getMonth() { return month; }
+            public long getCategoryId() { return categoryId; }
+            public long getTotalMinor() { return totalMinor; }
+            public long getExpenseCount() { return count; }
+        };
+    }
+
+    private MonthlyTotal monthTotal(int year, int month, long totalMinor, long count) {
+        return new MonthlyTotal() {
+            public int getYear() { return year; }
+            public int getMonth() { return month; }
+            public long getTotalMinor() { return totalMinor; }
+            public long getExpenseCount() { return count; }
+        };
+    }
 }
\ No newline at end of file
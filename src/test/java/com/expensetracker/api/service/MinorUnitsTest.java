@@ -0,0 +1,28 @@
+package com.expensetracker.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinorUnitsTest {
+
+    @Test
+    void fromDecimal_ConvertsAtFixedScale() {
+        assertEquals(42050L, MinorUnits.fromDecimal(new BigDecimal("420.5")));
+        assertEquals(42050L, MinorUnits.fromDecimal(new BigDecimal("420.50")));
+        assertEquals(700L, MinorUnits.fromDecimal(BigDecimal.valueOf(7)));
+    }
+
+    @Test
+    void fromDecimal_MoreDecimalsThanScale_ThrowsException() {
+        assertThrows(ArithmeticException.class, () -> MinorUnits.fromDecimal(new BigDecimal("10.005")));
+    }
+
+    @Test
+    void toDecimal_AlwaysCarriesScale() {
+        assertEquals(new BigDecimal("420.50"), MinorUnits.toDecimal(42050L));
+        assertEquals(new BigDecimal("0.00"), MinorUnits.toDecimal(0L));
+    }
+}
@@ -0,0 +1,132 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.expensetracker.api.dto.UserMonthlyStatement;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MonthEndStatementJobTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 10);
+
+    @Mock
+    private MonthEndStatementReader reader;
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private MonthEndStatementJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new MonthEndStatementJob(reader, objectMapper, directory.toString(), 3, 2, 60_000);
+    }
+
+    @Test
+    void run_WritesEveryUserInIdOrder() throws IOException {
+        // setUp
+        when(reader.maxUserId()).thenReturn(11L);
+        when(reader.read(eq(MONTH), anyLong(), anyLong())).thenAnswer(invocation -> {
+            // Later ranges often finish first
+            Thread.sleep(ThreadLocalRandom.current().nextInt(20));
+            return statements(invocation.getArgument(1), invocation.getArgument(2));
+        });
+
+        job.run(MONTH);
+
+        // assert
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L), writtenUserIds());
+        assertFalse(Files.exists(directory.resolve("statements-2025-10.jsonl.checkpoint")));
+        assertEquals(MonthEndStatementJob.State.COMPLETED, job.getProgress().getState());
+        assertEquals(11, job.getProgress().getUsersWritten());
+    }
+
+    @Test
+    void run_AfterFailure_ResumesFromCheckpoint() throws IOException {
+        // setUp
+        AtomicBoolean failing = new AtomicBoolean(true);
+        when(reader.maxUserId()).thenReturn(11L);
+        when(reader.read(eq(MONTH), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long fromUserId = invocation.getArgument(1);
+            if (fromUserId == 6 && failing.get()) {
+                throw new IllegalStateException("connection reset");
+            }
+            return statements(fromUserId, invocation.getArgument(2));
+        });
+
+        assertThrows(IllegalStateException.class, () -> job.run(MONTH));
+        StatementCheckpoint checkpoint = StatementCheckpoint.read(
+                directory.resolve("statements-2025-10.jsonl.checkpoint")).orElseThrow();
+        failing.set(false);
+        job.run(MONTH);
+
+        // assert
+        assertEquals(6, checkpoint.getNextUserId());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L), writtenUserIds());
+        verify(reader, times(1)).read(MONTH, 0, 2);
+        verify(reader, times(1)).maxUserId();
+    }
+
+    @Test
+    void start_CompletedMonth_ThrowsException() throws IOException {
+        // setUp
+        Files.writeString(directory.resolve("statements-2025-10.jsonl"), "");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> job.start(MONTH));
+
+        // assert
+        assertTrue(exception.getMessage().contains("already generated"));
+        verify(reader, never()).read(any(), anyLong(), anyLong());
+    }
+
+    private List<Long> writtenUserIds() throws IOException {
+        List<Long> userIds = new ArrayList<>();
+        for (String line : Files.readAllLines(directory.resolve("statements-2025-10.jsonl"))) {
+            JsonNode statement = objectMapper.readTree(line);
+            assertEquals(10, statement.get("report").get("month").asInt());
+            userIds.add(statement.get("userId").asLong());
+        }
+        return userIds;
+    }
+
+    // Every id in range is a user, except id 0
+    private static List<UserMonthlyStatement> statements(long fromUserId, long toUserId) {
+        List<UserMonthlyStatement> statements = new ArrayList<>();
+        for (long userId = Math.max(fromUserId, 1); userId < toUserId; userId++) {
+            statements.add(new UserMonthlyStatement(userId, "user" + userId, MonthlyReportResponse.builder()
+                    .year(2025)
+                    .month(10)
+                    .totalAmount(BigDecimal.TEN)
+                    .expenseCount(1)
+                    .spendingByCategory(Map.of("Food", BigDecimal.TEN))
+                    .alerts(List.of())
+                    .build()));
+        }
+        return statements;
+    }
+}
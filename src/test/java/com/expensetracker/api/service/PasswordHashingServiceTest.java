@@ -0,0 +1,73 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PasswordHashingServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private PasswordHashingService passwordHashingService;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void encode_RunsOnHashingPool() {
+        // setUp
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode("802080")).thenAnswer(invocation -> Thread.currentThread().getName());
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 1, 1);
+
+        String threadName = passwordHashingService.encode("802080").join();
+
+        // assert
+        assertTrue(threadName.startsWith("password-hashing-"));
+    }
+
+    @Test
+    void encode_PoolSaturated_FailsFastAndCountsRejection() throws Exception {
+        // setUp
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "encoded_password";
+        });
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 1, 1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        passwordHashingService.bindTo(registry);
+
+        CompletableFuture<String> running = passwordHashingService.encode("first1");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = passwordHashingService.encode("second");
+
+        // assert
+        ServiceUnavailableException exception = assertThrows(
+                ServiceUnavailableException.class,
+                () -> passwordHashingService.encode("third3")
+        );
+        assertEquals(1, exception.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("password.hashing.rejected").functionCounter().count());
+        assertEquals(1.0, registry.get("executor.queued").tag("name", "passwordHashing").gauge().value());
+
+        release.countDown();
+        assertEquals("encoded_password", running.get(5, TimeUnit.SECONDS));
+        assertEquals("encoded_password", queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,66 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.entity.RecurrenceFrequency;
+import com.expensetracker.api.service.RecurringExpenseMaterializer.DueTemplate;
+import com.expensetracker.api.service.RecurringExpenseMaterializer.Schedule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurringExpenseMaterializerTest {
+
+    @Test
+    void schedule_AfterDowntime_CatchesUpEveryMissedPeriod() {
+        // setUp
+        DueTemplate rent = template(RecurrenceFrequency.MONTHLY, LocalDate.of(2025, 1, 31), null, 1);
+
+        Schedule schedule = RecurringExpenseMaterializer.schedule(rent, LocalDate.of(2025, 5, 10));
+
+        // assert
+        assertEquals(List.of(
+                LocalDate.of(2025, 2, 28),
+                LocalDate.of(2025, 3, 31),
+                LocalDate.of(2025, 4, 30)
+        ), schedule.getDates());
+        assertEquals(4, schedule.getOccurrences());
+        assertEquals(LocalDate.of(2025, 5, 31), schedule.getNextDueDate());
+    }
+
+    @Test
+    void schedule_EndDatePassed_FinishesTemplate() {
+        // setUp
+        DueTemplate subscription = template(RecurrenceFrequency.WEEKLY, LocalDate.of(2025, 9, 1),
+                LocalDate.of(2025, 9, 20), 0);
+
+        Schedule schedule = RecurringExpenseMaterializer.schedule(subscription, LocalDate.of(2025, 10, 1));
+
+        // assert
+        assertEquals(List.of(
+                LocalDate.of(2025, 9, 1),
+                LocalDate.of(2025, 9, 8),
+                LocalDate.of(2025, 9, 15)
+        ), schedule.getDates());
+        assertEquals(3, schedule.getOccurrences());
+        assertNull(schedule.getNextDueDate());
+    }
+
+    @Test
+    void schedule_DueToday_CreatesTodaysOccurrenceOnly() {
+        // setUp
+        DueTemplate salary = template(RecurrenceFrequency.MONTHLY, LocalDate.of(2025, 11, 1), null, 0);
+
+        Schedule schedule = RecurringExpenseMaterializer.schedule(salary, LocalDate.of(2025, 11, 1));
+
+        // assert
+        assertEquals(List.of(LocalDate.of(2025, 11, 1)), schedule.getDates());
+        assertEquals(LocalDate.of(2025, 12, 1), schedule.getNextDueDate());
+    }
+
+    private DueTemplate template(RecurrenceFrequency frequency, LocalDate startDate, LocalDate endDate, int occurrences) {
+        return new DueTemplate(1L, 1L, 1L, 120_000L, "Recurring", frequency, startDate, endDate, occurrences,
+                frequency.occurrence(startDate, occurrences));
+    }
+}
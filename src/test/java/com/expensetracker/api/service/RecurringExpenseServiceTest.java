@@ -0,0 +1,112 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.controller.exception.ResourceNotFoundException;
+import com.expensetracker.api.dto.CreateRecurringExpenseRequest;
+import com.expensetracker.api.dto.RecurringExpenseResponse;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.entity.RecurrenceFrequency;
+import com.expensetracker.api.entity.RecurringExpense;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.repository.RecurringExpenseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecurringExpenseServiceTest {
+
+    @Mock
+    private RecurringExpenseRepository recurringExpenseRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private RecurringExpenseService recurringExpenseService;
+
+    private User user;
+    private CreateRecurringExpenseRequest request;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(1L);
+        user.setUsername("broke_developer");
+
+        request = new CreateRecurringExpenseRequest();
+        request.setAmount(new BigDecimal("1200.00"));
+        request.setDescription("Rent");
+        request.setCategoryName("Housing");
+        request.setFrequency(RecurrenceFrequency.MONTHLY);
+        request.setStartDate(LocalDate.of(2025, 1, 31));
+    }
+
+    @Test
+    void createRecurringExpense_Success() {
+        // setUp
+        Category category = new Category();
+        category.setId(2L);
+        category.setName("Housing");
+
+        when(userService.getAuthenticatedUser()).thenReturn(user);
+        when(categoryRepository.findByName("Housing")).thenReturn(Optional.of(category));
+        when(recurringExpenseRepository.save(any(RecurringExpense.class))).thenAnswer(invocation -> {
+            RecurringExpense saved = invocation.getArgument(0);
+            saved.setId(5L);
+            return saved;
+        });
+
+        RecurringExpenseResponse response = recurringExpenseService.createRecurringExpense(request);
+
+        // assert
+        assertEquals(5L, response.getId());
+        assertEquals(new BigDecimal("1200.00"), response.getAmount());
+        assertEquals("Housing", response.getCategoryName());
+        assertEquals(LocalDate.of(2025, 1, 31), response.getNextDueDate());
+        verify(recurringExpenseRepository).save(argThat(template ->
+                template.getAmountMinor() == 120_000L && template.getOccurrences() == 0));
+    }
+
+    @Test
+    void createRecurringExpense_EndBeforeStart_ThrowsException() {
+        // setUp
+        request.setEndDate(LocalDate.of(2024, 12, 31));
+
+        // assert
+        assertThrows(
+                InvalidRequestException.class,
+                () -> recurringExpenseService.createRecurringExpense(request)
+        );
+        verifyNoInteractions(recurringExpenseRepository);
+    }
+
+    @Test
+    void deleteRecurringExpense_NotOwnedByUser_ThrowsException() {
+        // setUp
+        when(userService.getAuthenticatedUser()).thenReturn(user);
+        when(recurringExpenseRepository.findByIdAndUserId(9L, 1L)).thenReturn(Optional.empty());
+
+        // assert
+        assertThrows(
+                ResourceNotFoundException.class,
+                () -> recurringExpenseService.deleteRecurringExpense(9L)
+        );
+        verify(recurringExpenseRepository, never()).delete(any());
+    }
+}
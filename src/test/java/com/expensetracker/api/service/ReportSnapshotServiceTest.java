@@ -0,0 +1,132 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.expensetracker.api.entity.ReportSnapshot;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.ReportSnapshotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportSnapshotServiceTest {
+
+    @Mock
+    private ExpenseService expenseService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ReportSnapshotRepository reportSnapshotRepository;
+
+    private ReportSnapshotService reportSnapshotService;
+
+    private final LocalDate monthStart = LocalDate.of(2025, 3, 1);
+    private final YearMonth month = YearMonth.of(2025, 3);
+
+    @BeforeEach
+    void setUp() {
+        reportSnapshotService = new ReportSnapshotService(expenseService, userService, reportSnapshotRepository,
+                new ObjectMapper().findAndRegisterModules(), true, 3);
+    }
+
+    @Test
+    void getMonthlyReportJson_ClosedMonth_ServesStoredBytes() {
+        // setUp
+        User user = new User();
+        user.setId(1L);
+        when(userService.getAuthenticatedUser()).thenReturn(user);
+        byte[] stored = "{\"year\":2025}".getBytes(StandardCharsets.UTF_8);
+        when(reportSnapshotRepository.findByUserIdAndMonthStart(1L, monthStart))
+                .thenReturn(Optional.of(ReportSnapshot.builder().version(4).body(stored).build()));
+
+        byte[] body = reportSnapshotService.getMonthlyReportJson(2025, 3);
+
+        // assert
+        assertSame(stored, body);
+        verifyNoInteractions(expenseService);
+    }
+
+    @Test
+    void snapshot_Missing_ComputesAndInserts() {
+        // setUp
+        when(reportSnapshotRepository.findByUserIdAndMonthStart(1L, monthStart)).thenReturn(Optional.empty());
+        when(expenseService.getMonthlyReportForUser(1L, month)).thenReturn(report());
+
+        byte[] body = reportSnapshotService.snapshot(1L, month);
+
+        // assert
+        assertTrue(new String(body, StandardCharsets.UTF_8).contains("\"totalAmount\":42.50"));
+        verify(reportSnapshotRepository).insertIfAbsent(1L, monthStart, body);
+        verify(reportSnapshotRepository, never()).storeIfCurrent(anyLong(), any(), anyLong(), any());
+    }
+
+    @Test
+    void snapshot_Stale_StoresAgainstTheVersionReadBeforeComputing() {
+        // setUp
+        when(reportSnapshotRepository.findByUserIdAndMonthStart(1L, monthStart))
+                .thenReturn(Optional.of(ReportSnapshot.builder().version(7).build()));
+        when(expenseService.getMonthlyReportForUser(1L, month)).thenReturn(report());
+
+        byte[] body = reportSnapshotService.snapshot(1L, month);
+
+        // assert
+        verify(reportSnapshotRepository).storeIfCurrent(1L, monthStart, 7L, body);
+        verify(reportSnapshotRepository, never()).insertIfAbsent(anyLong(), any(), any());
+    }
+
+    @Test
+    void getMonthlyReportJson_OpenMonth_IsComputedWithoutSnapshot() {
+        // setUp
+        User user = new User();
+        user.setId(1L);
+        when(userService.getAuthenticatedUser()).thenReturn(user);
+        YearMonth current = YearMonth.now();
+        when(expenseService.getMonthlyReportForUser(1L, current)).thenReturn(report());
+
+        reportSnapshotService.getMonthlyReportJson(current.getYear(), current.getMonthValue());
+
+        // assert
+        verifyNoInteractions(reportSnapshotRepository);
+    }
+
+    @Test
+    void isClosed_AfterGracePeriod() {
+        // assert
+        assertFalse(reportSnapshotService.isClosed(month, LocalDate.of(2025, 4, 3)));
+        assertTrue(reportSnapshotService.isClosed(month, LocalDate.of(2025, 4, 4)));
+        assertEquals(YearMonth.of(2025, 2), reportSnapshotService.lastClosedMonth(LocalDate.of(2025, 4, 3)));
+        assertEquals(month, reportSnapshotService.lastClosedMonth(LocalDate.of(2025, 4, 4)));
+        // Writers mark a month from its last day on, ahead of any snapshot
+        assertFalse(StaleReportMonths.hasEnded(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 30)));
+        assertTrue(StaleReportMonths.hasEnded(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 31)));
+    }
+
+    private static MonthlyReportResponse report() {
+        return MonthlyReportResponse.builder()
+                .year(2025)
+                .month(3)
+                .totalAmount(new BigDecimal("42.50"))
+                .expenseCount(2)
+                .spendingByCategory(Map.of("Food", new BigDecimal("42.50")))
+                .alerts(List.of())
+                .build();
+    }
+}
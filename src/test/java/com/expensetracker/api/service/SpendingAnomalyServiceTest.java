@@ -0,0 +1,126 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.dto.ExpenseAnomaly;
+import com.expensetracker.api.dto.ExpenseResponse;
+import com.expensetracker.api.entity.SpendingMoments;
+import com.expensetracker.api.repository.ExpenseRepository;
+import com.expensetracker.api.repository.SpendingMomentsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SpendingAnomalyServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SpendingMomentsRepository spendingMomentsRepository;
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private CategoryTree categoryTree;
+
+    private SpendingAnomalyService spendingAnomalyService;
+
+    @BeforeEach
+    void setUp() {
+        spendingAnomalyService = new SpendingAnomalyService(jdbcTemplate, spendingMomentsRepository, expenseRepository,
+                categoryTree, 3.0, 3, 100);
+    }
+
+    @Test
+    void score_FarFromOtherExpenses_ReturnsAnomaly() {
+        // setUp
+        SpendingMoments moments = moments(10_000, 11_000, 9_000, 10_000, 100_000);
+
+        ExpenseAnomaly anomaly = spendingAnomalyService.score(moments, 100_000);
+
+        // assert
+        assertNotNull(anomaly);
+        assertEquals(110.23, anomaly.getDeviations());
+        assertEquals(new BigDecimal("100.00"), anomaly.getTypicalAmount());
+        assertEquals(new BigDecimal("8.16"), anomaly.getStandardDeviation());
+        assertEquals(4, anomaly.getSampleSize());
+    }
+
+    @Test
+    void score_WithinThreshold_ReturnsNull() {
+        // setUp
+        SpendingMoments moments = moments(10_000, 11_000, 9_000, 10_000, 10_500);
+
+        ExpenseAnomaly anomaly = spendingAnomalyService.score(moments, 10_500);
+
+        // assert
+        assertNull(anomaly);
+    }
+
+    @Test
+    void score_TooFewOtherExpenses_ReturnsNull() {
+        // setUp
+        SpendingMoments moments = moments(10_000, 11_000, 100_000);
+
+        ExpenseAnomaly anomaly = spendingAnomalyService.score(moments, 100_000);
+
+        // assert
+        assertNull(anomaly);
+    }
+
+    @Test
+    void flag_LoadsMomentsOncePerUserUntilEvicted() {
+        // setUp
+        when(categoryTree.findByName("Food")).thenReturn(Optional.of(new CategoryTree.Node(3L, "Food", null, "/3/")));
+        SpendingMoments moments = moments(10_000, 11_000, 9_000, 10_000, 100_000);
+        moments.setCategoryId(3L);
+        when(spendingMomentsRepository.findByUserId(1L)).thenReturn(List.of(moments));
+
+        ExpenseResponse unusual = response("1000.00");
+        ExpenseResponse usual = response("100.00");
+        spendingAnomalyService.flag(1L, List.of(unusual, usual));
+        spendingAnomalyService.flag(1L, List.of(response("1000.00")));
+        spendingAnomalyService.evict(List.of(1L));
+        spendingAnomalyService.flag(1L, List.of(response("1000.00")));
+
+        // assert
+        assertNotNull(unusual.getAnomaly());
+        assertNull(usual.getAnomaly());
+        verify(spendingMomentsRepository, times(2)).findByUserId(1L);
+    }
+
+    private static ExpenseResponse response(String amount) {
+        return ExpenseResponse.builder()
+                .amount(new BigDecimal(amount))
+                .categoryName("Food")
+                .build();
+    }
+
+    private static SpendingMoments moments(long... amountsMinor) {
+        long sum = 0;
+        BigInteger sumOfSquares = BigInteger.ZERO;
+        for (long amount : amountsMinor) {
+            sum += amount;
+            sumOfSquares = sumOfSquares.add(BigInteger.valueOf(amount).pow(2));
+        }
+        return SpendingMoments.builder()
+                .userId(1L)
+                .categoryId(1L)
+                .expenseCount(amountsMinor.length)
+                .amountSum(sum)
+                .amountSumSquares(sumOfSquares)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.InvalidRequestException;
+import com.expensetracker.api.dto.CategoryStatisticsResponse;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.entity.Expense;
+import com.expensetracker.api.entity.SpendingSketch;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.repository.ExpenseRepository;
+import com.expensetracker.api.repository.SpendingSketchRepository;
+import com.expensetracker.api.service.analytics.QuantileSketch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SpendingStatisticsServiceTest {
+
+    @Mock
+    private SpendingSketchRepository spendingSketchRepository;
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ExpenseArchiveService expenseArchiveService;
+
+    @InjectMocks
+    private SpendingStatisticsService spendingStatisticsService;
+
+    private User user;
+    private Category food;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(1L);
+        user.setUsername("broke_developer");
+
+        food = new Category();
+        food.setId(3L);
+        food.setName("Food");
+    }
+
+    @Test
+    void recordCreated_AddsAmountToLockedBucket() {
+        // setUp
+        LocalDate monthStart = LocalDate.of(2025, 11, 1);
+        SpendingSketch bucket = bucket(monthStart, 1000L, 3000L);
+        when(spendingSketchRepository.findForUpdate(1L, 3L, monthStart)).thenReturn(Optional.of(bucket));
+
+        spendingStatisticsService.recordCreated(Expense.builder()
+                .amountMinor(2000L)
+                .date(LocalDate.of(2025, 11, 18))
+                .category(food)
+                .user(user)
+                .build());
+
+        // assert
+        QuantileSketch sketch = QuantileSketch.fromBytes(bucket.getSketch());
+        assertEquals(3, sketch.getCount());
+        assertEquals(3000L, sketch.getMax());
+        verify(spendingSketchRepository).insertIfAbsent(eq(1L), eq(3L), eq(monthStart), any());
+        verify(spendingSketchRepository).save(bucket);
+    }
+
+    @Test
+    void rebuild_NoExpensesLeft_DeletesBucket() {
+        // setUp
+        LocalDate monthStart = LocalDate.of(2025, 11, 1);
+        SpendingSketch bucket = bucket(monthStart, 1000L);
+        when(spendingSketchRepository.findForUpdate(1L, 3L, monthStart)).thenReturn(Optional.of(bucket));
+        when(expenseRepository.findAmountsByUserIdAndCategoryIdAndDateRange(1L, 3L, monthStart, LocalDate.of(2025, 12, 1)))
+                .thenReturn(List.of());
+
+        spendingStatisticsService.rebuild(1L, 3L, LocalDate.of(2025, 11, 18));
+
+        // assert
+        verify(spendingSketchRepository).delete(bucket);
+        verify(spendingSketchRepository, never()).save(any());
+    }
+
+    @Test
+    void rebuildMoved_LocksEarlierBucketFirst() {
+        // setUp
+        LocalDate october = LocalDate.of(2025, 10, 1);
+        LocalDate november = LocalDate.of(2025, 11, 1);
+        when(spendingSketchRepository.findForUpdate(eq(1L), eq(3L), any())).thenAnswer(invocation ->
+                Optional.of(bucket(invocation.getArgument(2), 1000L)));
+        when(expenseRepository.findAmountsByUserIdAndCategoryIdAndDateRange(eq(1L), eq(3L), any(), any()))
+                .thenReturn(List.of(1000L));
+
+        spendingStatisticsService.rebuildMoved(1L, 3L, LocalDate.of(2025, 11, 5), 3L, LocalDate.of(2025, 10, 5));
+
+        // assert
+        InOrder inOrder = inOrder(spendingSketchRepository);
+        inOrder.verify(spendingSketchRepository).findForUpdate(1L, 3L, october);
+        inOrder.verify(spendingSketchRepository).findForUpdate(1L, 3L, november);
+    }
+
+    @Test
+    void getStatistics_MergesMonthlySketchesPerCategory() {
+        // setUp
+        when(userService.getAuthenticatedUser()).thenReturn(user);
+        when(spendingSketchRepository.findByUserIdAndMonthStartBetween(1L, LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 1)))
+                .thenReturn(List.of(
+                        bucket(LocalDate.of(2025, 10, 1), 1000L, 2000L, 3000L),
+                        bucket(LocalDate.of(2025, 11, 1), 4000L, 50000L)
+                ));
+        when(categoryRepository.findAllById(any())).thenReturn(List.of(food));
+
+        List<CategoryStatisticsResponse> statistics =
+                spendingStatisticsService.getStatistics(YearMonth.of(2025, 10), YearMonth.of(2025, 11));
+
+        // assert
+        assertEquals(1, statistics.size());
+        CategoryStatisticsResponse foodStatistics = statistics.get(0);
+        assertEquals("Food", foodStatistics.getCategoryName());
+        assertEquals(5, foodStatistics.getExpenseCount());
+        assertEquals(new BigDecimal("500.00"), foodStatistics.getMax());
+        assertEquals(30.0, foodStatistics.getMedian().doubleValue(), 30.0 * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(40.0, foodStatistics.getP90().doubleValue(), 40.0 * QuantileSketch.RELATIVE_ACCURACY);
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void getStatistics_StartAfterEnd_ThrowsException() {
+        assertThrows(
+                InvalidRequestException.class,
+                () -> spendingStatisticsService.getStatistics(YearMonth.of(2025, 12), YearMonth.of(2025, 1))
+        );
+        verifyNoInteractions(spendingSketchRepository);
+    }
+
+    private SpendingSketch bucket(LocalDate monthStart, long... amountsMinor) {
+        QuantileSketch sketch = new QuantileSketch();
+        for (long amount : amountsMinor) {
+            sketch.add(amount);
+        }
+        return SpendingSketch.builder()
+                .userId(1L)
+                .categoryId(3L)
+                .monthStart(monthStart)
+                .sketch(sketch.toBytes())
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.expensetracker.api.service;
+
+import com.expensetracker.api.controller.exception.DuplicateResourceException;
+import com.expensetracker.api.dto.RegisterRequest;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    private UserService userService;
+
+    private RegisterRequest request;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository, passwordHashingService, Runnable::run);
+        request = new RegisterRequest();
+        request.setUsername("coffee_addict");
+        request.setPassword("802080");
+        when(passwordHashingService.encode("802080")).thenReturn(CompletableFuture.completedFuture("encoded_password"));
+    }
+
+    @Test
+    void register_Success() {
+        // setUp
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(1L);
+            return user;
+        });
+
+        User user = userService.register(request).join();
+
+        // assert
+        assertEquals(1L, user.getId());
+        assertEquals("coffee_addict", user.getUsername());
+        assertEquals("encoded_password", user.getPassword());
+        verify(userRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    void register_UniqueConstraintViolated_ThrowsDuplicateResource() {
+        // setUp
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(violation(User.USERNAME_CONSTRAINT));
+
+        CompletableFuture<User> registration = userService.register(request);
+
+        // assert
+        CompletionException exception = assertThrows(CompletionException.class, registration::join);
+        assertInstanceOf(DuplicateResourceException.class, exception.getCause());
+        assertEquals("Username already exists", exception.getCause().getMessage());
+    }
+
+    @Test
+    void register_OtherConstraintViolated_Rethrows() {
+        // setUp
+        DataIntegrityViolationException violation = violation("users_role_check");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(violation);
+
+        CompletableFuture<User> registration = userService.register(request);
+
+        // assert
+        CompletionException exception = assertThrows(CompletionException.class, registration::join);
+        assertSame(violation, exception.getCause());
+    }
+
+    @Test
+    void register_InsertsOnTheGivenExecutor() {
+        // setUp
+        Executor executor = mock(Executor.class);
+        userService = new UserService(userRepository, passwordHashingService, executor);
+
+        userService.register(request);
+
+        // assert
+        verify(executor).execute(any(Runnable.class));
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("violates constraint " + constraintName,
+                        new SQLException("violates constraint " + constraintName, "23505"), constraintName));
+    }
+}
@@ -0,0 +1,285 @@
+package com.expensetracker.api.service.analytics;
+
+import com.expensetracker.api.dto.CreateExpenseRequest;
+import com.expensetracker.api.dto.MonthlyReportResponse;
+import com.expensetracker.api.dto.UpdateExpenseRequest;
+import com.expensetracker.api.entity.Category;
+import com.expensetracker.api.entity.Expense;
+import com.expensetracker.api.entity.User;
+import com.expensetracker.api.repository.CategoryRepository;
+import com.expensetracker.api.repository.ExpenseAnalyticsRow;
+import com.expensetracker.api.repository.ExpenseRepository;
+import com.expensetracker.api.repository.ExpenseTombstoneRepository;
+import com.expensetracker.api.repository.ReportSnapshotRepository;
+import com.expensetracker.api.repository.MonthlyCategoryTotal;
+import com.expensetracker.api.service.CategoryTree;
+import com.expensetracker.api.service.DeletedExpensePurger;
+import com.expensetracker.api.service.ExpenseArchiveService;
+import com.expensetracker.api.service.ExpenseService;
+import com.expensetracker.api.service.SpendingAnomalyService;
+import com.expensetracker.api.service.SpendingStatisticsService;
+import com.expensetracker.api.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Property check: for random sequences of writes across several users, every monthly and range
+ * report served from the analytics store equals the report computed by the SQL path. Also checks
+ * that columns loaded in a snapshot that may predate a write are not kept.
+ */
+class ExpenseAnalyticsStoreTest {
+
+    private static final String[] CATEGORY_NAMES = {"Food", "Coffee", "Transport", "Rent", "Fun", "Health"};
+    private static final YearMonth FIRST_MONTH = YearMonth.of(2024, 1);
+    private static final int MONTH_SPAN = 24;
+
+    private final Map<Long, Expense> table = new LinkedHashMap<>();
+    private final List<User> users = new ArrayList<>();
+    private final List<Category> categories = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    private User currentUser;
+
+    private ExpenseService sqlService;
+    private ExpenseService storeService;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 4; id++) {
+            users.add(User.builder().id(id).username("user" + id).password("x").build());
+        }
+        for (int i = 0; i < CATEGORY_NAMES.length; i++) {
+            Category category = new Category();
+            category.setId(i + 1L);
+            category.setName(CATEGORY_NAMES[i]);
+            categories.add(category);
+        }
+
+        ExpenseRepository expenseRepository = mock(ExpenseRepository.class);
+        when(expenseRepository.nextChangeSeq(anyLong())).thenAnswer(invocation -> ids.incrementAndGet());
+        when(expenseRepository.save(any(Expense.class))).thenAnswer(invocation -> {
+            Expense expense = invocation.getArgument(0);
+            if (expense.getId() == null) {
+                expense.setId(ids.incrementAndGet());
+            }
+            // Soft-deleted rows are invisible to entity queries
+            if (expense.getDeletedAt() == null) {
+                table.put(expense.getId(), expense);
+            } else {
+                table.remove(expense.getId());
+            }
+            return expense;
+        });
+        doAnswer(invocation -> table.remove(((Expense) invocation.getArgument(0)).getId()))
+                .when(expenseRepository).delete(any(Expense.class));
+        when(expenseRepository.findByIdAndUserId(anyLong(), anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(table.get((Long) invocation.getArgument(0)))
+                        .filter(expense -> expense.getUser().getId().equals(invocation.getArgument(1))));
+        when(expenseRepository.findByUserIdAndDateRange(anyLong(), any(), any())).thenAnswer(invocation ->
+                rowsOf(invocation.getArgument(0)).stream()
+                        .filter(expense -> !expense.getDate().isBefore(invocation.getArgument(1))
+                                && expense.getDate().isBefore(invocation.getArgument(2)))
+                        .collect(Collectors.toList()));
+        when(expenseRepository.sumByMonthAndCategory(anyLong(), any(), any())).thenAnswer(invocation ->
+                groupByMonthAndCategory(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        when(expenseRepository.findAnalyticsRowsByUserId(anyLong())).thenAnswer(invocation ->
+                rowsOf(invocation.getArgument(0)).stream()
+                        .sorted(Comparator.comparing(Expense::getDate))
+                        .map(ExpenseAnalyticsStoreTest::analyticsRow)
+                        .collect(Collectors.toList()));
+
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findByName(anyString())).thenAnswer(invocation -> categories.stream()
+                .filter(category -> category.getName().equals(invocation.getArgument(0)))
+                .findFirst());
+
+        UserService userService = mock(UserService.class);
+        when(userService.getAuthenticatedUser()).thenAnswer(invocation -> currentUser);
+
+        ExpenseTombstoneRepository tombstoneRepository = mock(ExpenseTombstoneRepository.class);
+        SpendingStatisticsService spendingStatisticsService = mock(SpendingStatisticsService.class);
+        ExpenseArchiveService expenseArchiveService = mock(ExpenseArchiveService.class);
+        CategoryTree categoryTree = mock(CategoryTree.class);
+        ReportSnapshotRepository reportSnapshotRepository = mock(ReportSnapshotRepository.class);
+        SpendingAnomalyService spendingAnomalyService = mock(SpendingAnomalyService.class);
+        DeletedExpensePurger deletedExpensePurger = mock(DeletedExpensePurger.class);
+
+        // A budget this small keeps only a user or two resident, so eviction and reloads are exercised
+        sqlService = new ExpenseService(expenseRepository, tombstoneRepository, categoryRepository, userService,
+                new ExpenseAnalyticsStore(expenseRepository, false, 0), spendingStatisticsService, expenseArchiveService,
+                categoryTree, reportSnapshotRepository, spendingAnomalyService, deletedExpensePurger);
+        storeService = new ExpenseService(expenseRepository, tombstoneRepository, categoryRepository, userService,
+                new ExpenseAnalyticsStore(expenseRepository, true, 6_000), spendingStatisticsService, expenseArchiveService,
+                categoryTree, reportSnapshotRepository, spendingAnomalyService, deletedExpensePurger);
+    }
+
+    @RepeatedTest(100)
+    void reportsFromStoreMatchSqlPath(RepetitionInfo repetition) {
+        Random random = new Random(repetition.getCurrentRepetition());
+
+        for (int step = 0; step < 400; step++) {
+            currentUser = users.get(random.nextInt(users.size()));
+            int action = random.nextInt(10);
+            if (action < 5) {
+                create(random);
+            } else if (action < 7) {
+                update(random);
+            } else if (action < 8) {
+                delete(random);
+            } else {
+                compareReports(random);
+            }
+        }
+
+        for (User user : users) {
+            currentUser = user;
+            assertSameReports(sqlService.getRangeReport(FIRST_MONTH, FIRST_MONTH.plusMonths(MONTH_SPAN - 1)),
+                    storeService.getRangeReport(FIRST_MONTH, FIRST_MONTH.plusMonths(MONTH_SPAN - 1)));
+        }
+    }
+
+    @Test
+    void aggregate_WriteCommittedAfterReadStamp_DoesNotKeepLoadedColumns() {
+        // setUp
+        ExpenseRepository expenseRepository = mock(ExpenseRepository.class);
+        when(expenseRepository.findAnalyticsRowsByUserId(1L)).thenReturn(List.of());
+        ExpenseAnalyticsStore store = new ExpenseAnalyticsStore(expenseRepository, true, 1 << 20);
+
+        // The report reads the stamp, then a write commits before its snapshot
+        long readStamp = store.writeStamp();
+        store.invalidate(1L);
+        assertTrue(store.aggregate(1L, FIRST_MONTH, FIRST_MONTH, readStamp).isPresent());
+        verify(expenseRepository, times(1)).findAnalyticsRowsByUserId(1L);
+
+        // assert
+        store.aggregate(1L, FIRST_MONTH, FIRST_MONTH, store.writeStamp());
+        verify(expenseRepository, times(2)).findAnalyticsRowsByUserId(1L);
+        store.aggregate(1L, FIRST_MONTH, FIRST_MONTH, store.writeStamp());
+        verify(expenseRepository, times(2)).findAnalyticsRowsByUserId(1L);
+    }
+
+    private void create(Random random) {
+        CreateExpenseRequest request = new CreateExpenseRequest();
+        request.setAmount(randomAmount(random));
+        request.setDate(randomDate(random));
+        request.setCategoryName(CATEGORY_NAMES[random.nextInt(CATEGORY_NAMES.length)]);
+        storeService.createExpense(request);
+    }
+
+    private void update(Random random) {
+        Expense target = randomOwnExpense(random);
+        if (target == null) {
+            return;
+        }
+        UpdateExpenseRequest request = new UpdateExpenseRequest();
+        request.setAmount(randomAmount(random));
+        request.setDate(random.nextBoolean() ? target.getDate() : randomDate(random));
+        request.setCategoryName(CATEGORY_NAMES[random.nextInt(CATEGORY_NAMES.length)]);
+        storeService.updateExpense(target.getId(), request);
+    }
+
+    private void delete(Random random) {
+        Expense target = randomOwnExpense(random);
+        if (target != null) {
+            storeService.deleteExpense(target.getId());
+        }
+    }
+
+    private void compareReports(Random random) {
+        YearMonth month = FIRST_MONTH.plusMonths(random.nextInt(MONTH_SPAN));
+        assertSameReport(sqlService.getMonthlyReport(month.getYear(), month.getMonthValue()),
+                storeService.getMonthlyReport(month.getYear(), month.getMonthValue()));
+
+        YearMonth from = FIRST_MONTH.plusMonths(random.nextInt(MONTH_SPAN));
+        YearMonth to = from.plusMonths(random.nextInt(6));
+        assertSameReports(sqlService.getRangeReport(from, to), storeService.getRangeReport(from, to));
+    }
+
+    private void assertSameReports(List<MonthlyReportResponse> expected, List<MonthlyReportResponse> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameReport(expected.get(i), actual.get(i));
+        }
+    }
+
+    private void assertSameReport(MonthlyReportResponse expected, MonthlyReportResponse actual) {
+        assertEquals(expected.getYear(), actual.getYear());
+        assertEquals(expected.getMonth(), actual.getMonth());
+        assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+        assertEquals(expected.getExpenseCount(), actual.getExpenseCount());
+        assertEquals(expected.getSpendingByCategory(), actual.getSpendingByCategory());
+        assertEquals(new HashSet<>(expected.getAlerts()), new HashSet<>(actual.getAlerts()));
+    }
+
+    private Expense randomOwnExpense(Random random) {
+        List<Expense> own = rowsOf(currentUser.getId());
+        return own.isEmpty() ? null : own.get(random.nextInt(own.size()));
+    }
+
+    private List<Expense> rowsOf(Long userId) {
+        return table.values().stream()
+                .filter(expense -> expense.getUser().getId().equals(userId))
+                .collect(Collectors.toList());
+    }
+
+    private List<MonthlyCategoryTotal> groupByMonthAndCategory(Long userId, LocalDate from, LocalDate to) {
+        Map<YearMonth, Map<String, List<Expense>>> grouped = rowsOf(userId).stream()
+                .filter(expense -> !expense.getDate().isBefore(from) && expense.getDate().isBefore(to))
+                .collect(Collectors.groupingBy(expense -> YearMonth.from(expense.getDate()),
+                        Collectors.groupingBy(expense -> expense.getCategory().getName())));
+
+        List<MonthlyCategoryTotal> totals = new ArrayList<>();
+        grouped.forEach((month, byCategory) -> byCategory.forEach((categoryName, expenses) -> {
+            long totalMinor = expenses.stream().mapToLong(Expense::getAmountMinor).sum();
+            totals.add(new MonthlyCategoryTotal() {
+                public int getYear() { return month.getYear(); }
+                public int getMonth() { return month.getMonthValue(); }
+                public String getCategoryName() { return categoryName; }
+                public long getTotalMinor() { return totalMinor; }
+                public long getExpenseCount() { return expenses.size(); }
+            });
+        }));
+        return totals;
+    }
+
+    private static ExpenseAnalyticsRow analyticsRow(Expense expense) {
+        return new ExpenseAnalyticsRow() {
+            public Long getId() { return expense.getId(); }
+            public LocalDate getDate() { return expense.getDate(); }
+            public long getAmountMinor() { return expense.getAmountMinor(); }
+            public Long getCategoryId() { return expense.getCategory().getId(); }
+            public String getCategoryName() { return expense.getCategory().getName(); }
+        };
+    }
+
+    private static BigDecimal randomAmount(Random random) {
+        // Mostly everyday amounts, occasionally large enough to trip the monthly alert
+        long cents = random.nextInt(20) == 0 ? 150_000 + random.nextInt(200_000) : 1 + random.nextInt(30_000);
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static LocalDate randomDate(Random random) {
+        YearMonth month = FIRST_MONTH.plusMonths(random.nextInt(MONTH_SPAN));
+        return month.atDay(1 + random.nextInt(month.lengthOfMonth()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.expensetracker.api.service.analytics;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+    @RepeatedTest(50)
+    void quantilesStayWithinRelativeAccuracyOfExactValues(RepetitionInfo repetition) {
+        // setUp
+        Random random = new Random(repetition.getCurrentRepetition());
+        int size = 1 + random.nextInt(5_000);
+        long[] amounts = new long[size];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < size; i++) {
+            // Log-uniform between 0.01 and ~100k so both coffees and rent show up
+            amounts[i] = Math.max(1, Math.round(Math.exp(random.nextDouble() * Math.log(10_000_000))));
+            sketch.add(amounts[i]);
+        }
+        Arrays.sort(amounts);
+
+        // assert
+        assertEquals(size, sketch.getCount());
+        assertEquals(amounts[0], sketch.getMin());
+        assertEquals(amounts[size - 1], sketch.getMax());
+        for (double quantile : QUANTILES) {
+            long exact = amounts[(int) Math.floor(quantile * (size - 1))];
+            long estimate = sketch.quantile(quantile);
+            // One extra minor unit covers rounding the estimate to a whole amount
+            assertTrue(Math.abs(estimate - exact) <= exact * QuantileSketch.RELATIVE_ACCURACY + 1,
+                    "q" + quantile + ": exact " + exact + ", estimate " + estimate);
+        }
+    }
+
+    @Test
+    void mergeMatchesSketchOfAllValues() {
+        // setUp
+        Random random = new Random(7);
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch merged = new QuantileSketch();
+        for (int month = 0; month < 12; month++) {
+            QuantileSketch monthly = new QuantileSketch();
+            for (int i = 0; i < 200; i++) {
+                long amount = 1 + random.nextInt(1_000_000);
+                monthly.add(amount);
+                all.add(amount);
+            }
+            merged.merge(QuantileSketch.fromBytes(monthly.toBytes()));
+        }
+
+        // assert
+        assertArrayEquals(all.toBytes(), merged.toBytes());
+    }
+
+    @Test
+    void serializedFormIsCompactAndRoundTrips() {
+        // setUp
+        QuantileSketch sketch = new QuantileSketch();
+        for (long amount = 100; amount <= 20_000; amount += 50) {
+            sketch.add(amount);
+        }
+
+        byte[] bytes = sketch.toBytes();
+        QuantileSketch restored = QuantileSketch.fromBytes(bytes);
+
+        // assert
+        assertTrue(bytes.length < 1_500, "sketch of 399 values took " + bytes.length + " bytes");
+        assertEquals(sketch.getCount(), restored.getCount());
+        assertEquals(sketch.getMin(), restored.getMin());
+        assertEquals(sketch.getMax(), restored.getMax());
+        assertEquals(sketch.quantile(0.5), restored.quantile(0.5));
+        assertEquals(sketch.quantile(0.9), restored.quantile(0.9));
+    }
+
+    @Test
+    void add_NonPositiveAmount_ThrowsException() {
+        QuantileSketch sketch = new QuantileSketch();
+
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(0));
+        assertThrows(IllegalStateException.class, () -> sketch.quantile(0.5));
+    }
+}
@@ -0,0 +1,150 @@
+package com.expensetracker.api.service.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseArchiveFileTest {
+
+    @Test
+    void roundTripsEveryColumn() {
+        // setUp
+        List<ArchivedExpense> rows = randomRows(new Random(11), 3_000);
+
+        ExpenseArchiveFile file = ExpenseArchiveFile.open(ByteBuffer.wrap(ExpenseArchiveFile.encode(rows)));
+
+        // assert
+        assertEquals(rows.size(), file.rowCount());
+        assertEquals(rows, file.readAll());
+    }
+
+    @Test
+    void scanVisitsOnlyRowsInRange() {
+        // setUp
+        List<ArchivedExpense> rows = randomRows(new Random(5), 2_000);
+        LocalDate from = LocalDate.of(2021, 3, 15);
+        LocalDate to = LocalDate.of(2021, 7, 1);
+        long expectedTotal = 0;
+        int expectedCount = 0;
+        for (ArchivedExpense row : rows) {
+            if (!row.getDate().isBefore(from) && row.getDate().isBefore(to)) {
+                expectedTotal += row.getAmountMinor();
+                expectedCount++;
+            }
+        }
+
+        ExpenseArchiveFile file = ExpenseArchiveFile.open(ByteBuffer.wrap(ExpenseArchiveFile.encode(rows)));
+        long[] total = new long[1];
+        int[] count = new int[1];
+        file.scan(from, to, (epochDay, amountMinor, categoryId) -> {
+            total[0] += amountMinor;
+            count[0]++;
+        });
+
+        // assert
+        assertEquals(expectedCount, count[0]);
+        assertEquals(expectedTotal, total[0]);
+        assertEquals(expectedCount, file.read(from, to).size());
+    }
+
+    @Test
+    void emptyArchiveHasNoRows() {
+        // setUp
+        ExpenseArchiveFile file = ExpenseArchiveFile.open(ByteBuffer.wrap(ExpenseArchiveFile.encode(List.of())));
+
+        // assert
+        assertEquals(0, file.rowCount());
+        assertTrue(file.readAll().isEmpty());
+    }
+
+    @Test
+    void unsortedRowsAreRejected() {
+        // setUp
+        List<ArchivedExpense> rows = List.of(
+                new ArchivedExpense(1, LocalDate.of(2021, 5, 1), 100, 1, null, 1),
+                new ArchivedExpense(2, LocalDate.of(2021, 4, 1), 100, 1, null, 2));
+
+        // assert
+        assertThrows(IllegalArgumentException.class, () -> ExpenseArchiveFile.encode(rows));
+    }
+
+    @Test
+    void corruptedChunkFailsItsChecksum() {
+        // setUp
+        byte[] content = ExpenseArchiveFile.encode(randomRows(new Random(3), 500));
+        content[content.length - 1] ^= 0x01;
+
+        ExpenseArchiveFile file = ExpenseArchiveFile.open(ByteBuffer.wrap(content));
+
+        // assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, file::readAll);
+        assertTrue(exception.getMessage().contains("checksum"));
+    }
+
+    @Test
+    void corruptedDirectoryIsRejectedOnOpen() {
+        // setUp
+        byte[] content = ExpenseArchiveFile.encode(randomRows(new Random(3), 500));
+        content[20] ^= 0x01;
+
+        // assert
+        assertThrows(IllegalStateException.class, () -> ExpenseArchiveFile.open(ByteBuffer.wrap(content)));
+    }
+
+    @Test
+    void storageKeepsGenerationsImmutableAndVerifiesWholeFileChecksum(@TempDir Path directory) throws Exception {
+        // setUp
+        ExpenseArchiveStorage storage = new ExpenseArchiveStorage(directory.toString());
+        List<ArchivedExpense> first = randomRows(new Random(1), 100);
+        List<ArchivedExpense> second = randomRows(new Random(2), 200);
+        byte[] firstContent = ExpenseArchiveFile.encode(first);
+        byte[] secondContent = ExpenseArchiveFile.encode(second);
+
+        long firstChecksum = storage.write(42, 1, firstContent);
+        long secondChecksum = storage.write(42, 2, secondContent);
+        storage.write(420, 1, firstContent);
+
+        // assert
+        assertEquals(first, storage.openVerified(42, 1, firstContent.length, firstChecksum).readAll());
+        assertEquals(second, storage.open(42, 2, secondContent.length).readAll());
+        assertThrows(IllegalStateException.class,
+                () -> storage.openVerified(42, 2, secondContent.length, firstChecksum));
+        assertThrows(IllegalStateException.class, () -> storage.open(42, 2, secondContent.length - 1));
+
+        storage.deleteGenerationsBefore(42, 2);
+        assertFalse(Files.exists(storage.pathOf(42, 1)));
+        assertEquals(second, storage.openVerified(42, 2, secondContent.length, secondChecksum).readAll());
+        assertTrue(Files.exists(storage.pathOf(420, 1)), "other users' files are left alone");
+    }
+
+    private static List<ArchivedExpense> randomRows(Random random, int count) {
+        List<ArchivedExpense> rows = new ArrayList<>();
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        long changeSeq = 1_000;
+        for (int i = 0; i < count; i++) {
+            date = date.plusDays(random.nextInt(3));
+            changeSeq += 1 + random.nextInt(50);
+            String description = switch (random.nextInt(3)) {
+                case 0 -> null;
+                case 1 -> "Groceries #" + i;
+                default -> "Café ☕ " + random.nextInt(1000);
+            };
+            rows.add(new ArchivedExpense(100_000 + random.nextInt(1_000_000), date,
+                    1 + random.nextInt(5_000_000), 1 + random.nextInt(12), description, changeSeq));
+        }
+        rows.sort((a, b) -> {
+            int byDate = a.getDate().compareTo(b.getDate());
+            return byDate != 0 ? byDate : Long.compare(a.getId(), b.getId());
+        });
+        return rows;
+    }
+}
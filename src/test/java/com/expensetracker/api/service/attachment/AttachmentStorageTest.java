@@ -0,0 +1,73 @@
+package com.expensetracker.api.service.attachment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentStorageTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void stageAndPublish_StoresContentUnderItsHash() throws Exception {
+        // setUp
+        byte[] content = new byte[200_000];
+        new Random(3).nextBytes(content);
+        AttachmentStorage storage = new AttachmentStorage(directory.toString());
+
+        AttachmentStorage.StagedBlob staged = storage.stage(new ByteArrayInputStream(content), content.length);
+        storage.publish(staged);
+
+        // assert
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertEquals(hash, staged.getContentHash());
+        assertEquals(content.length, staged.getSize());
+        assertArrayEquals(content, Files.readAllBytes(storage.pathOf(hash)));
+        assertEquals(directory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash),
+                storage.pathOf(hash));
+        assertFalse(Files.exists(staged.getPath()));
+    }
+
+    @Test
+    void publish_SameContentTwice_KeepsOneBlob() throws Exception {
+        // setUp
+        AttachmentStorage storage = new AttachmentStorage(directory.toString());
+        byte[] content = "receipt".getBytes();
+
+        AttachmentStorage.StagedBlob first = storage.stage(new ByteArrayInputStream(content), 100);
+        storage.publish(first);
+        AttachmentStorage.StagedBlob second = storage.stage(new ByteArrayInputStream(content), 100);
+        storage.publish(second);
+
+        // assert
+        assertEquals(first.getContentHash(), second.getContentHash());
+        assertTrue(Files.exists(storage.pathOf(first.getContentHash())));
+        try (Stream<Path> staging = Files.list(storage.stagingDirectory())) {
+            assertEquals(0, staging.count());
+        }
+    }
+
+    @Test
+    void stage_TooLarge_ThrowsAndLeavesNothingBehind() throws Exception {
+        // setUp
+        AttachmentStorage storage = new AttachmentStorage(directory.toString());
+
+        // assert
+        assertThrows(MaxUploadSizeExceededException.class,
+                () -> storage.stage(new ByteArrayInputStream(new byte[1001]), 1000));
+        try (Stream<Path> staging = Files.list(storage.stagingDirectory())) {
+            assertEquals(0, staging.count());
+        }
+    }
+}
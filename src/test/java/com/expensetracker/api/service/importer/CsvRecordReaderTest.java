@@ -0,0 +1,86 @@
+package com.expensetracker.api.service.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void readsQuotedFieldsWithCommasQuotesAndLineBreaks() throws IOException {
+        // setUp
+        String csv = "\uFEFFdate,amount,description\r\n"
+                + "2025-11-01,12.50,\"Lunch, with \"\"team\"\"\"\r\n"
+                + "2025-11-02,8,\"two\nlines\"\n"
+                + "2025-11-03,3,plain";
+
+        List<CsvRecord> records = readAll(csv);
+
+        // assert
+        assertEquals(4, records.size());
+        assertEquals(List.of("date", "amount", "description"), records.get(0).getFields());
+        assertEquals(List.of("2025-11-01", "12.50", "Lunch, with \"team\""), records.get(1).getFields());
+        assertEquals(List.of("2025-11-02", "8", "two\nlines"), records.get(2).getFields());
+        assertEquals(List.of("2025-11-03", "3", "plain"), records.get(3).getFields());
+        assertEquals(List.of(1L, 2L, 3L, 5L), records.stream().map(CsvRecord::getLine).toList());
+        assertTrue(records.stream().allMatch(record -> record.getError() == null));
+    }
+
+    @Test
+    void blankLineIsBlankRecord() throws IOException {
+        List<CsvRecord> records = readAll("a,b\n\n1,2\n");
+
+        // assert
+        assertEquals(3, records.size());
+        assertTrue(records.get(1).isBlank());
+        assertFalse(records.get(2).isBlank());
+        assertEquals(3, records.get(2).getLine());
+    }
+
+    @Test
+    void malformedRecordIsReportedAndReadingContinues() throws IOException {
+        List<CsvRecord> records = readAll("\"ok\"x,1\n2,3\n");
+
+        // assert
+        assertEquals(2, records.size());
+        assertEquals("Unexpected character after closing quote", records.get(0).getError());
+        assertNull(records.get(1).getError());
+        assertEquals(List.of("2", "3"), records.get(1).getFields());
+    }
+
+    @Test
+    void unterminatedQuoteIsReported() throws IOException {
+        List<CsvRecord> records = readAll("1,\"never closed\n2,3\n");
+
+        // assert
+        assertEquals(1, records.size());
+        assertEquals("Unterminated quoted field", records.get(0).getError());
+    }
+
+    @Test
+    void oversizedFieldIsCappedAndReported() throws IOException {
+        String csv = "x".repeat(CsvRecordReader.MAX_FIELD_LENGTH + 10) + ",1\n2,3\n";
+
+        List<CsvRecord> records = readAll(csv);
+
+        // assert
+        assertEquals(2, records.size());
+        assertNotNull(records.get(0).getError());
+        assertEquals(CsvRecordReader.MAX_FIELD_LENGTH, records.get(0).getFields().get(0).length());
+        assertNull(records.get(1).getError());
+    }
+
+    private List<CsvRecord> readAll(String csv) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+        List<CsvRecord> records = new ArrayList<>();
+        for (CsvRecord record = reader.next(); record != null; record = reader.next()) {
+            records.add(record);
+        }
+        return records;
+    }
+}
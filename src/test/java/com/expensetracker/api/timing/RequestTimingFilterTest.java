@@ -0,0 +1,149 @@
+package com.expensetracker.api.timing;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestTimingFilterTest {
+
+    @Test
+    void serverTimingCountsStatementsAndPhases() throws Exception {
+        // setUp
+        DataSource dataSource = new StatementTimingDataSource(mockDataSource());
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                try (RequestTimings.Section ignored = RequestTimings.start(RequestTimings.Phase.REPOSITORY);
+                     Connection connection = dataSource.getConnection()) {
+                    for (int i = 0; i < 3; i++) {
+                        try (PreparedStatement statement = connection.prepareStatement("select " + i)) {
+                            statement.executeQuery();
+                        }
+                    }
+                } catch (SQLException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                RequestTimings.markSerializationStart();
+                response.getWriter().write("{\"ok\":true}");
+                response.flushBuffer();
+            }
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new RequestTimingFilter(true, 500, 25).doFilter(new MockHttpServletRequest("GET", "/api/expenses"), response,
+                new MockFilterChain(servlet, new AuthenticationTimingFilter()));
+
+        // assert
+        String header = response.getHeader(RequestTimingFilter.SERVER_TIMING);
+        assertNotNull(header);
+        assertTrue(header.contains("sql;dur="), header);
+        assertTrue(header.contains("desc=\"3 statements\""), header);
+        assertTrue(header.contains("auth;dur="), header);
+        assertTrue(header.contains("repo;dur="), header);
+        assertTrue(header.contains("ser;dur="), header);
+        assertTrue(header.contains("total;dur="), header);
+        assertEquals("{\"ok\":true}", response.getContentAsString());
+        assertNull(RequestTimings.current());
+    }
+
+    @Test
+    void largeBodyStreamsWithHeaderSetBeforeCommit() throws Exception {
+        // setUp
+        byte[] chunk = new byte[1024];
+        String[] headerAtCommit = new String[1];
+        boolean[] committedMidRequest = new boolean[1];
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                RequestTimings.markSerializationStart();
+                for (int i = 0; i < 16; i++) {
+                    response.getOutputStream().write(chunk);
+                    if (response.isCommitted() && headerAtCommit[0] == null) {
+                        headerAtCommit[0] = response.getHeader(RequestTimingFilter.SERVER_TIMING);
+                    }
+                }
+                committedMidRequest[0] = response.isCommitted();
+            }
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setBufferSize(4096);
+
+        new RequestTimingFilter(true, 500, 25).doFilter(new MockHttpServletRequest("GET", "/api/expenses"), response,
+                new MockFilterChain(servlet));
+
+        // assert
+        assertTrue(committedMidRequest[0], "body was buffered instead of streamed");
+        assertNotNull(headerAtCommit[0]);
+        assertTrue(headerAtCommit[0].contains("ser;dur="), headerAtCommit[0]);
+        assertEquals(16 * chunk.length, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void statementsOutsideTimedRequestAreIgnored() throws Exception {
+        // setUp
+        DataSource dataSource = new StatementTimingDataSource(mockDataSource());
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select 1")) {
+            statement.executeQuery();
+        }
+
+        // assert
+        assertNull(RequestTimings.current());
+    }
+
+    @Test
+    void statementListIsCappedButCountIsNot() {
+        // setUp
+        RequestTimings timings = new RequestTimings();
+        RequestTimings.bind(timings);
+        try {
+            for (int i = 0; i < RequestTimings.MAX_RECORDED_STATEMENTS + 20; i++) {
+                RequestTimings.recordStatement("select\n  " + i, 1_000);
+            }
+        } finally {
+            RequestTimings.unbind();
+        }
+
+        // assert
+        assertEquals(RequestTimings.MAX_RECORDED_STATEMENTS + 20, timings.statementCount());
+        assertEquals(RequestTimings.MAX_RECORDED_STATEMENTS, timings.statements().size());
+        assertTrue(timings.statements().get(0).endsWith("ms  select 0"), timings.statements().get(0));
+    }
+
+    @Test
+    void disabledFilterAddsNoHeader() throws Exception {
+        // setUp
+        Filter filter = new RequestTimingFilter(false, 500, 25);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/expenses"), response, new MockFilterChain());
+
+        // assert
+        assertNull(response.getHeader(RequestTimingFilter.SERVER_TIMING));
+    }
+
+    private static DataSource mockDataSource() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        return dataSource;
+    }
+}